@@ -0,0 +1,317 @@
+/*
+ * BaselineComparator.java
+ *
+ * Classes:
+ *   public   BaselineComparator
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the results of a benchmark run with a baseline, reporting the
+ * benchmarks that have become slower, or allocate more, by more than a
+ * threshold. Both files are JMH CSV results (<code>-rf csv</code>). Run with:
+ *
+ * <pre>
+ * mvn package exec:exec@run
+ * mvn exec:java@compare [-Dbench.threshold=<i>percent</i>]
+ * </pre>
+ *
+ * The primary score of each benchmark is compared, and, when the results were
+ * produced with <code>-prof gc</code>, its normalized allocation rate
+ * (<code>gc.alloc.rate.norm</code>, in bytes per operation). Other profiler
+ * results are ignored. A score is a regression if it is worse than the
+ * baseline by more than the threshold percentage, and by more than the sum of
+ * the two scores' errors. Benchmarks in only one of the files are listed, but
+ * are not regressions.
+ * <P>
+ * To make the current results the new baseline, copy
+ * <code>target/results.csv</code> to <code>baseline.csv</code>. Results are
+ * only comparable when produced on the same machine and JDK.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class BaselineComparator {
+
+	/**
+	 * the suffix of the allocation rate results of the gc profiler
+	 */
+	private static final String ALLOC_RATE_NORM = ":gc.alloc.rate.norm";
+
+	/**
+	 * the threshold, in percent, by which a score must worsen to be a
+	 * regression
+	 */
+	private final double threshold;
+
+	/**
+	 * constructor
+	 *
+	 * @param threshold
+	 *            the threshold, in percent, by which a score must worsen to
+	 *            be a regression
+	 */
+	public BaselineComparator(double threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Compares the results in two files, printing a report to stdout.
+	 *
+	 * @param args
+	 *            the baseline file, the results file, and optionally the
+	 *            threshold in percent (default 10)
+	 * @throws Exception
+	 *             if a file can't be read, or any benchmark has regressed
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("usage: BaselineComparator <baseline.csv> "
+					+ "<results.csv> [threshold-percent]");
+			System.exit(2);
+		}
+		double threshold = (args.length == 3) ? Double.parseDouble(args[2])
+				: 10;
+		int regressions;
+		try (Reader baseline = new InputStreamReader(new FileInputStream(
+				args[0]), StandardCharsets.UTF_8);
+				Reader results = new InputStreamReader(new FileInputStream(
+						args[1]), StandardCharsets.UTF_8)) {
+			regressions = new BaselineComparator(threshold).compare(baseline,
+					results, System.out);
+		}
+		if (regressions > 0) {
+			throw new IllegalStateException(regressions
+					+ " benchmark score(s) regressed by more than "
+					+ threshold + "%");
+		}
+	}
+
+	/**
+	 * Compares benchmark results with a baseline.
+	 *
+	 * @param baseline
+	 *            the baseline results, in JMH CSV format
+	 * @param results
+	 *            the results to be compared, in JMH CSV format
+	 * @param out
+	 *            where the report is written
+	 * @return the number of scores that regressed
+	 * @throws IOException
+	 *             if either set of results can't be read, or
+	 *             <code>out</code> throws IOException
+	 */
+	public int compare(Reader baseline, Reader results, Appendable out)
+			throws IOException {
+		Map<String, Score> base = read(baseline);
+		Map<String, Score> current = read(results);
+		int regressions = 0;
+		int width = "benchmark".length();
+		for (String key : current.keySet()) {
+			width = Math.max(width, key.length());
+		}
+		for (String key : base.keySet()) {
+			width = Math.max(width, key.length());
+		}
+		String name = "%-" + width + "s";
+		out.append(String.format(name + " %14s %14s %8s%n", "benchmark",
+				"baseline", "current", "change"));
+		for (Map.Entry<String, Score> e : current.entrySet()) {
+			Score c = e.getValue();
+			Score b = base.get(e.getKey());
+			if (b == null) {
+				out.append(String.format(name + " %14s %14.3f %8s  new%n", e
+						.getKey(), "-", c.value, "-"));
+				continue;
+			}
+			double change = (b.value == 0) ? 0 : (c.value - b.value)
+					/ b.value * 100;
+			// positive when the score is worse
+			double worse = c.lowerIsBetter ? change : -change;
+			String status = "";
+			if (worse > threshold && !withinError(b, c)) {
+				status = "  REGRESSED";
+				regressions++;
+			} else if (-worse > threshold && !withinError(b, c)) {
+				status = "  improved";
+			}
+			out.append(String.format(name + " %14.3f %14.3f %+7.1f%%%s%n", e
+					.getKey(), b.value, c.value, change, status));
+		}
+		for (String key : base.keySet()) {
+			if (!current.containsKey(key)) {
+				out.append(String.format(name + " %14.3f %14s %8s  missing%n",
+						key, base.get(key).value, "-", "-"));
+			}
+		}
+		out.append(String.format("%d regression(s), threshold %.1f%%%n",
+				regressions, threshold));
+		return regressions;
+	}
+
+	/**
+	 * Determines whether two scores differ by no more than the sum of their
+	 * errors.
+	 */
+	private static boolean withinError(Score b, Score c) {
+		double error = b.error + c.error;
+		return !Double.isNaN(error) && Math.abs(c.value - b.value) <= error;
+	}
+
+	/**
+	 * Reads the comparable scores from JMH CSV results.
+	 *
+	 * @param in
+	 *            the results
+	 * @return the scores, keyed by benchmark name and parameters, in the
+	 *         order read
+	 * @throws IOException
+	 *             if the results can't be read, or are not JMH CSV results
+	 */
+	static Map<String, Score> read(Reader in) throws IOException {
+		BufferedReader r = new BufferedReader(in);
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		String line = r.readLine();
+		if (line == null) {
+			return scores;
+		}
+		List<String> header = split(line);
+		int name = header.indexOf("Benchmark");
+		int score = header.indexOf("Score");
+		int unit = header.indexOf("Unit");
+		int error = -1;
+		for (int i = 0; i < header.size(); i++) {
+			if (header.get(i).startsWith("Score Error")) {
+				error = i;
+			}
+		}
+		if (name == -1 || score == -1 || unit == -1) {
+			throw new IOException("not JMH CSV results: " + line);
+		}
+		while ((line = r.readLine()) != null) {
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			List<String> f = split(line);
+			String benchmark = f.get(name);
+			if (benchmark.indexOf(':') != -1
+					&& !benchmark.endsWith(ALLOC_RATE_NORM)) {
+				continue; // other profiler results are too noisy to compare
+			}
+			String u = f.get(unit);
+			boolean lowerIsBetter;
+			if (u.endsWith("/op")) {
+				lowerIsBetter = true;
+			} else if (u.startsWith("ops/")) {
+				lowerIsBetter = false;
+			} else {
+				continue;
+			}
+			// parameters are keyed by name - their order may differ by run
+			Map<String, String> params = new TreeMap<String, String>();
+			for (int i = 0; i < header.size() && i < f.size(); i++) {
+				if (header.get(i).startsWith("Param: ")
+						&& f.get(i).length() > 0) {
+					params.put(header.get(i).substring(7), f.get(i));
+				}
+			}
+			String key = params.isEmpty() ? benchmark : benchmark + " "
+					+ params;
+			scores.put(key, new Score(parse(f.get(score)), (error == -1) ? 0
+					: parse(f.get(error)), lowerIsBetter));
+		}
+		return scores;
+	}
+
+	/**
+	 * Parses a number as written by JMH, which may be "NaN".
+	 */
+	private static double parse(String s) {
+		try {
+			return Double.parseDouble(s);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Splits a line of CSV into its fields, removing quotes.
+	 */
+	static List<String> split(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length()
+						&& line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	/**
+	 * A benchmark's score.
+	 */
+	static final class Score {
+		final double value;
+		final double error;
+		final boolean lowerIsBetter;
+
+		Score(double value, double error, boolean lowerIsBetter) {
+			this.value = value;
+			this.error = error;
+			this.lowerIsBetter = lowerIsBetter;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * BindBenchmark.java
+ *
+ * Classes:
+ *   public   BindBenchmark
+ *   public   BindBenchmark.Options
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.BasicCmdLineHandler;
+import jcmdline.BooleanParam;
+import jcmdline.IntParam;
+import jcmdline.Parameter;
+import jcmdline.ParameterBinder;
+import jcmdline.StringParam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the binding of a parsed handler's Parameters to an object by
+ * {@link ParameterBinder}, against binding them with
+ * <code>Field.set()</code>, looking each field up by its Parameter's tag as
+ * a simple reflective binder would.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+	/**
+	 * The object to which the Parameters are bound.
+	 */
+	public static class Options {
+		public boolean verbose;
+
+		public int count;
+
+		public int retries;
+
+		public String mode;
+
+		public List<String> name;
+
+		public String file;
+	}
+
+	private BasicCmdLineHandler handler;
+
+	private final List<Parameter<?>> params = new ArrayList<Parameter<?>>();
+
+	@Setup
+	public void setUp() {
+		StringParam name = new StringParam("name", "a name");
+		name.setMultiValued(Parameter.MULTI_VALUED);
+		Parameter<?>[] opts = { new BooleanParam("verbose", "be verbose"),
+				new IntParam("count", "a count", 1, 10),
+				new IntParam("retries", "a retry count"), name,
+				new StringParam("mode", "a mode") };
+		handler = new BasicCmdLineHandler("bench", "a benchmark", opts,
+				new Parameter[] { new StringParam("file", "the input file") });
+		handler.setDieOnParseError(false);
+		if (!handler.parse(new String[] { "-verbose", "-count", "5",
+				"-retries", "2", "-mode", "fast", "-name", "alpha", "-name",
+				"beta", "input.txt" })) {
+			throw new IllegalStateException(handler.getParseError());
+		}
+		params.addAll(handler.getOptions());
+		params.addAll(handler.getArgs());
+	}
+
+	@Benchmark
+	public Options methodHandles() {
+		Options opts = new Options();
+		ParameterBinder.bind(handler, opts);
+		return opts;
+	}
+
+	@Benchmark
+	public Options reflection() throws Exception {
+		Options opts = new Options();
+		for (Parameter<?> p : params) {
+			if (!p.isSet()) {
+				continue;
+			}
+			Field f = Options.class.getField(p.getTag());
+			f.set(opts, p.isMultiValued() ? new ArrayList<Object>(p
+					.getValues()) : p.getValue());
+		}
+		return opts;
+	}
+}
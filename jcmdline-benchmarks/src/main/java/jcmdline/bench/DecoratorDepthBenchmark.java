@@ -0,0 +1,145 @@
+/*
+ * DecoratorDepthBenchmark.java
+ *
+ * Classes:
+ *   public   DecoratorDepthBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.BasicCmdLineHandler;
+import jcmdline.BooleanParam;
+import jcmdline.CmdLineHandler;
+import jcmdline.DefaultCmdLineHandler;
+import jcmdline.FlatCmdLineHandler;
+import jcmdline.HelpCmdLineHandler;
+import jcmdline.LoggerCmdLineHandler;
+import jcmdline.Parameter;
+import jcmdline.StringParam;
+import jcmdline.VersionCmdLineHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of parsing through stacks of decorators of increasing
+ * depth, nested and {@link FlatCmdLineHandler flattened}. Each operation is a
+ * parse, followed by a reset() and a few option lookups.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorDepthBenchmark {
+
+	/**
+	 * the number of decorators, out of Default, Help, Version and Logger
+	 */
+	@Param({ "0", "1", "2", "3", "4" })
+	public int depth;
+
+	private CmdLineHandler nested;
+
+	private CmdLineHandler flat;
+
+	private final String[] argv = { "-out", "result.txt", "-verbose",
+			"infile" };
+
+	@Setup
+	public void setUp() {
+		nested = createStack();
+		flat = new FlatCmdLineHandler(createStack());
+	}
+
+	@Benchmark
+	public int nested() {
+		return run(nested);
+	}
+
+	@Benchmark
+	public int flat() {
+		return run(flat);
+	}
+
+	/**
+	 * Parses the command line with a handler, and looks up its values.
+	 */
+	private int run(CmdLineHandler cl) {
+		cl.reset();
+		if (!cl.parse(argv)) {
+			throw new IllegalStateException(cl.getParseError());
+		}
+		return cl.getOption("out").getValues().size() + cl.getArgs().size();
+	}
+
+	/**
+	 * Creates a handler with <code>depth</code> decorators.
+	 */
+	private CmdLineHandler createStack() {
+		CmdLineHandler cl = new BasicCmdLineHandler("bench",
+				"benchmarks decorators", new Parameter[] {
+						new StringParam("out", "the output file"),
+						new BooleanParam("verbose", "be verbose") },
+				new Parameter[] { new StringParam("infile", "the input file") });
+		if (depth >= 1) {
+			cl = new DefaultCmdLineHandler(cl);
+		}
+		if (depth >= 2) {
+			cl = new HelpCmdLineHandler("help text", cl);
+		}
+		if (depth >= 3) {
+			cl = new VersionCmdLineHandler("V 1.0", cl);
+		}
+		if (depth >= 4) {
+			cl = new LoggerCmdLineHandler(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}, cl);
+		}
+		cl.setDieOnParseError(false);
+		return cl;
+	}
+}
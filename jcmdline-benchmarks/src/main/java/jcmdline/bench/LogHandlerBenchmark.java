@@ -0,0 +1,122 @@
+/*
+ * LogHandlerBenchmark.java
+ *
+ * Classes:
+ *   public   LogHandlerBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import jcmdline.MappedFileLogHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of publishing a log record to a {@link MappedFileLogHandler}
+ * against a <code>java.util.logging.FileHandler</code>, both formatting with
+ * a <code>SimpleFormatter</code> and rolling over the same number of files
+ * of the same size.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogHandlerBenchmark {
+
+	/**
+	 * the Handler - "mapped" for a MappedFileLogHandler, or "file" for a
+	 * FileHandler
+	 */
+	@Param({ "mapped", "file" })
+	public String handler;
+
+	private File dir;
+
+	private Handler h;
+
+	private final LogRecord record = new LogRecord(Level.INFO,
+			"processed input.txt in 42 ms");
+
+	@Setup
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("jcmdline-bench").toFile();
+		File log = new File(dir, "bench.log");
+		if ("mapped".equals(handler)) {
+			h = new MappedFileLogHandler(log, new SimpleFormatter(),
+					MappedFileLogHandler.DEFAULT_SEGMENT_SIZE,
+					MappedFileLogHandler.DEFAULT_SEGMENT_COUNT);
+		} else {
+			h = new FileHandler(log.getPath() + ".%g",
+					(int) MappedFileLogHandler.DEFAULT_SEGMENT_SIZE,
+					MappedFileLogHandler.DEFAULT_SEGMENT_COUNT);
+			h.setFormatter(new SimpleFormatter());
+		}
+		record.setSourceClassName(LogHandlerBenchmark.class.getName());
+		record.setSourceMethodName("publish");
+	}
+
+	@TearDown
+	public void tearDown() {
+		h.close();
+		File[] files = dir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		dir.delete();
+	}
+
+	@Benchmark
+	public void publish() {
+		h.publish(record);
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * ParameterBenchmark.java
+ *
+ * Classes:
+ *   public   ParameterBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.CmdLineException;
+import jcmdline.DateParam;
+import jcmdline.FileParam;
+import jcmdline.IntParam;
+import jcmdline.TimeParam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the <code>convertValue()</code> and <code>validateValue()</code>
+ * methods of IntParam, DateParam, TimeParam, and FileParam. The FileParam
+ * checks a file in a temporary directory that it must find to be a readable
+ * file. Dates and times are parsed in the US locale, that of the forked
+ * JVM.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// jcmdline's messages and date formats follow the default locale
+@Fork(value = 1, jvmArgsAppend = { "-Duser.language=en", "-Duser.country=US" })
+public class ParameterBenchmark {
+
+	private final IntParam intParam = new IntParam("count", "a count", 0,
+			1000000);
+
+	private final DateParam dateParam = new DateParam("date", "a date");
+
+	private final TimeParam timeParam = new TimeParam("time", "a time");
+
+	private final FileParam fileParam = new FileParam("file", "a file",
+			FileParam.IS_FILE & FileParam.IS_READABLE);
+
+	private Integer intValue;
+
+	private Date dateValue;
+
+	private Date timeValue;
+
+	private File dir;
+
+	private File fileValue;
+
+	private String filePath;
+
+	@Setup
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("jcmdline-bench").toFile();
+		fileValue = new File(dir, "input.txt");
+		if (!fileValue.createNewFile()) {
+			throw new IOException("can't create " + fileValue);
+		}
+		filePath = fileValue.getPath();
+		intValue = intParam.convertValue("31337");
+		dateValue = dateParam.convertValue("9/23/59");
+		timeValue = timeParam.convertValue("20:55:34:021");
+	}
+
+	@TearDown
+	public void tearDown() {
+		fileValue.delete();
+		dir.delete();
+	}
+
+	@Benchmark
+	public Integer intConvert() throws CmdLineException {
+		return intParam.convertValue("31337");
+	}
+
+	@Benchmark
+	public Integer intValidate() throws CmdLineException {
+		intParam.validateValue(intValue);
+		return intValue;
+	}
+
+	@Benchmark
+	public Date dateConvert() throws CmdLineException {
+		return dateParam.convertValue("9/23/59");
+	}
+
+	@Benchmark
+	public Date dateValidate() throws CmdLineException {
+		dateParam.validateValue(dateValue);
+		return dateValue;
+	}
+
+	@Benchmark
+	public Date timeConvert() throws CmdLineException {
+		return timeParam.convertValue("20:55:34:021");
+	}
+
+	@Benchmark
+	public Date timeValidate() throws CmdLineException {
+		timeParam.validateValue(timeValue);
+		return timeValue;
+	}
+
+	@Benchmark
+	public File fileConvert() throws CmdLineException {
+		return fileParam.convertValue(filePath);
+	}
+
+	@Benchmark
+	public File fileValidate() throws CmdLineException {
+		fileParam.validateValue(fileValue);
+		return fileValue;
+	}
+}
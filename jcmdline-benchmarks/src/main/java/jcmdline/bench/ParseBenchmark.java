@@ -0,0 +1,162 @@
+/*
+ * ParseBenchmark.java
+ *
+ * Classes:
+ *   public   ParseBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.AbstractParameter;
+import jcmdline.CmdLineException;
+import jcmdline.Parameter;
+import jcmdline.PosixCmdLineParser;
+import jcmdline.StringParam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PosixCmdLineParser#parse(String[], Map, List)} as the
+ * number of options the command defines, and the length of the command line,
+ * grow. Options are given by their full tags, and by unique prefixes, so that
+ * the cost of prefix matching is seen.
+ * <P>
+ * Each option is a multi-valued StringParam whose tag, "o<i>n</i>xoption",
+ * has the unique prefix "o<i>n</i>x". The command line is made of option and
+ * value pairs, spread over the options, followed by a single argument. Each
+ * invocation resets the parameters it set, as a CmdLineHandler's
+ * <code>parse()</code> does.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	/**
+	 * the number of options the command defines
+	 */
+	@Param({ "10", "100", "1000" })
+	public int optionCount;
+
+	/**
+	 * the number of words on the command line
+	 */
+	@Param({ "4", "64" })
+	public int argvLength;
+
+	private final PosixCmdLineParser parser = new PosixCmdLineParser();
+
+	private Map<String, Parameter<?>> opts;
+
+	private List<Parameter<?>> args;
+
+	private String[] exactArgv;
+
+	private String[] prefixArgv;
+
+	/**
+	 * the parameters set by a parse - reset after each
+	 */
+	private AbstractParameter<?>[] used;
+
+	@Setup
+	public void setUp() {
+		opts = new HashMap<String, Parameter<?>>();
+		List<StringParam> options = new ArrayList<StringParam>();
+		for (int i = 0; i < optionCount; i++) {
+			StringParam p = new StringParam("o" + i + "xoption", "option "
+					+ i);
+			p.setMultiValued(Parameter.MULTI_VALUED);
+			opts.put(p.getTag().toLowerCase(), p);
+			options.add(p);
+		}
+		StringParam arg = new StringParam("file", "the file",
+				Parameter.OPTIONAL);
+		args = new ArrayList<Parameter<?>>();
+		args.add(arg);
+
+		int pairs = (argvLength - 1) / 2;
+		exactArgv = new String[pairs * 2 + 1];
+		prefixArgv = new String[pairs * 2 + 1];
+		List<AbstractParameter<?>> set = new ArrayList<AbstractParameter<?>>();
+		for (int i = 0; i < pairs; i++) {
+			// spread the options used over those defined
+			int n = (int) ((i * 7919L) % optionCount);
+			exactArgv[2 * i] = "-o" + n + "xoption";
+			prefixArgv[2 * i] = "-o" + n + "x";
+			exactArgv[2 * i + 1] = prefixArgv[2 * i + 1] = "value" + i;
+			if (!set.contains(options.get(n))) {
+				set.add(options.get(n));
+			}
+		}
+		exactArgv[pairs * 2] = prefixArgv[pairs * 2] = "input.txt";
+		set.add(arg);
+		used = set.toArray(new AbstractParameter<?>[set.size()]);
+	}
+
+	@Benchmark
+	public Map<String, Parameter<?>> parseExact() throws CmdLineException {
+		return parse(exactArgv);
+	}
+
+	@Benchmark
+	public Map<String, Parameter<?>> parsePrefix() throws CmdLineException {
+		return parse(prefixArgv);
+	}
+
+	private Map<String, Parameter<?>> parse(String[] argv)
+			throws CmdLineException {
+		parser.parse(argv, opts, args);
+		for (int i = 0; i < used.length; i++) {
+			used[i].reset();
+		}
+		return opts;
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * StartupBenchmark.java
+ *
+ * Classes:
+ *   public   StartupBenchmark
+ *   public   StartupBenchmark.Probe
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import jcmdline.BasicCmdLineHandler;
+import jcmdline.BooleanParam;
+import jcmdline.CmdLineHandler;
+import jcmdline.Parameter;
+import jcmdline.StringParam;
+
+/**
+ * Measures the startup cost of jcmdline to a trivial tool: the time from the
+ * start of <code>main()</code> to the end of its first parse, and the number
+ * of classes loaded in doing so, each in a fresh JVM. JMH can't measure
+ * either, as its forks have loaded and initialized everything by the time
+ * a benchmark runs. Run with:
+ *
+ * <pre>
+ * mvn package exec:exec@startup
+ * java -cp target/benchmarks.jar jcmdline.bench.StartupBenchmark [runs] [-classes]
+ * </pre>
+ *
+ * Each scenario is run in <i>runs</i> JVMs (default 20), started with
+ * <code>-Xlog:class+load</code>. Reported are the median time to the end of
+ * the first parse, the median wall time of the whole JVM, and the number of
+ * classes loaded in all, from the JDK, and from jcmdline, excluding the
+ * classes of this benchmark. <code>-classes</code> lists the jcmdline
+ * classes loaded by each scenario.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class StartupBenchmark {
+
+	/**
+	 * the scenarios run by {@link Probe}
+	 */
+	private static final String[] SCENARIOS = { "parse", "error", "usage" };
+
+	public static void main(String[] args) throws Exception {
+		int runs = 20;
+		boolean listClasses = false;
+		for (String arg : args) {
+			if (arg.equals("-classes")) {
+				listClasses = true;
+			} else {
+				runs = Integer.parseInt(arg);
+			}
+		}
+		System.out.println(String.format("%-8s %14s %12s %8s %8s %9s",
+				"scenario", "first parse us", "JVM ms", "classes", "JDK",
+				"jcmdline"));
+		for (String scenario : SCENARIOS) {
+			List<Long> parseNanos = new ArrayList<Long>();
+			List<Long> jvmNanos = new ArrayList<Long>();
+			TreeSet<String> jcmdlineClasses = new TreeSet<String>();
+			int[] counts = null;
+			for (int i = 0; i < runs; i++) {
+				File log = File.createTempFile("startup", ".log");
+				try {
+					long start = System.nanoTime();
+					parseNanos.add(Long.valueOf(probe(scenario, log)));
+					jvmNanos.add(Long.valueOf(System.nanoTime() - start));
+					jcmdlineClasses.clear();
+					counts = countClasses(log, jcmdlineClasses);
+				} finally {
+					log.delete();
+				}
+			}
+			System.out.println(String.format("%-8s %14.0f %12.1f %8d %8d %9d",
+					scenario, median(parseNanos) / 1e3,
+					median(jvmNanos) / 1e6, counts[0], counts[1], counts[2]));
+			if (listClasses) {
+				for (String c : jcmdlineClasses) {
+					System.out.println("    " + c);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a scenario in a new JVM.
+	 *
+	 * @param scenario
+	 *            the scenario
+	 * @param log
+	 *            the file to which the JVM is to log the classes it loads
+	 * @return the time to the end of the first parse, in nanoseconds
+	 */
+	private static long probe(String scenario, File log) throws IOException,
+			InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java";
+		ProcessBuilder pb = new ProcessBuilder(java, "-Xlog:class+load=info:file="
+				+ log.getPath(), "-cp", System.getProperty("java.class.path"),
+				Probe.class.getName(), scenario);
+		pb.redirectErrorStream(true);
+		Process p = pb.start();
+		String result = null;
+		BufferedReader in = new BufferedReader(new InputStreamReader(p
+				.getInputStream(), StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				result = line;
+			}
+		} finally {
+			in.close();
+		}
+		if (p.waitFor() != 0 || result == null) {
+			throw new IllegalStateException(scenario + " probe failed: "
+					+ result);
+		}
+		return Long.parseLong(result.trim());
+	}
+
+	/**
+	 * Counts the classes in a class loading log.
+	 *
+	 * @param log
+	 *            the log written by <code>-Xlog:class+load</code>
+	 * @param jcmdlineClasses
+	 *            to which the names of the jcmdline classes loaded are added
+	 * @return the number of classes loaded in all, from the JDK, and from
+	 *         jcmdline
+	 */
+	private static int[] countClasses(File log, TreeSet<String> jcmdlineClasses)
+			throws IOException {
+		int[] counts = new int[3];
+		for (String line : Files.readAllLines(log.toPath(),
+				StandardCharsets.UTF_8)) {
+			int i = line.indexOf("] ");
+			int j = line.indexOf(" source: ");
+			if (i < 0 || j < 0) {
+				continue;
+			}
+			String name = line.substring(i + 2, j);
+			if (name.startsWith("jcmdline.bench.")) {
+				continue;
+			}
+			counts[0]++;
+			if (name.startsWith("jcmdline.")) {
+				counts[2]++;
+				jcmdlineClasses.add(name);
+			} else if (line.indexOf("source: jrt:/") >= 0
+					|| line.indexOf("shared objects file") >= 0) {
+				counts[1]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the median of some times.
+	 */
+	private static double median(List<Long> times) {
+		Collections.sort(times);
+		int n = times.size();
+		return (n % 2 == 1) ? times.get(n / 2).longValue() : (times.get(
+				n / 2 - 1).longValue() + times.get(n / 2).longValue()) / 2.0;
+	}
+
+	/**
+	 * The trivial tool run in each JVM. Prints the nanoseconds from the start
+	 * of <code>main()</code> to the end of the first parse, which is of a
+	 * valid command line, of a command line in error, or of a command line
+	 * requesting the usage.
+	 */
+	public static class Probe {
+
+		public static void main(String[] args) {
+			long start = System.nanoTime();
+			String scenario = args[0];
+			StringParam out = new StringParam("out", "the output file");
+			BooleanParam verbose = new BooleanParam("verbose",
+					"print progress messages");
+			StringParam infile = new StringParam("infile", "the input file",
+					StringParam.REQUIRED);
+			CmdLineHandler cl = new BasicCmdLineHandler("tool",
+					"does very little", new Parameter[] { out, verbose },
+					new Parameter[] { infile });
+			cl.setDieOnParseError(false);
+			int sink;
+			if (scenario.equals("parse")) {
+				sink = cl.parse(new String[] { "-verbose", "-out", "x", "in" }) ? 1
+						: 0;
+			} else if (scenario.equals("error")) {
+				sink = cl.parse(new String[] { "-verbose" }) ? 1 : 0;
+				sink += cl.getParseError().length();
+			} else if (scenario.equals("usage")) {
+				sink = cl.getUsage(false).length();
+			} else {
+				throw new IllegalArgumentException("unknown scenario "
+						+ Arrays.toString(args));
+			}
+			long nanos = System.nanoTime() - start;
+			if (sink == Integer.MIN_VALUE) {
+				System.out.println();
+			}
+			System.out.println(nanos);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * TelemetryBenchmark.java
+ *
+ * Classes:
+ *   public   TelemetryBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.BasicCmdLineHandler;
+import jcmdline.BooleanParam;
+import jcmdline.FileParam;
+import jcmdline.IntParam;
+import jcmdline.OptionTelemetry;
+import jcmdline.Parameter;
+import jcmdline.StringParam;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link OptionTelemetry} on a handler's parse of a
+ * typical command line - a few options of different types and an argument -
+ * without telemetry, recording every parse, and recording a sample of
+ * parses.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryBenchmark {
+
+	/**
+	 * the sample interval of the telemetry, or 0 for none
+	 */
+	@Param({ "0", "1", "64" })
+	public int sampleInterval;
+
+	private BasicCmdLineHandler handler;
+
+	private final String[] argv = { "-verbose", "-count", "5", "-name",
+			"alpha", "-name", "beta", "input.txt" };
+
+	@Setup
+	public void setUp() {
+		StringParam name = new StringParam("name", "a name");
+		name.setMultiValued(Parameter.MULTI_VALUED);
+		Parameter<?>[] opts = { new BooleanParam("verbose", "be verbose"),
+				new IntParam("count", "a count", 1, 10), name,
+				new StringParam("mode", "a mode"),
+				new FileParam("out", "the output file") };
+		handler = new BasicCmdLineHandler("bench", "a benchmark", opts,
+				new Parameter[] { new StringParam("file", "the input file") });
+		handler.setDieOnParseError(false);
+		if (sampleInterval > 0) {
+			handler.setTelemetry(new OptionTelemetry(sampleInterval));
+		}
+	}
+
+	@Benchmark
+	public boolean parse() {
+		handler.reset();
+		return handler.parse(argv);
+	}
+}
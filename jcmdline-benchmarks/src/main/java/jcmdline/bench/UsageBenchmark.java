@@ -0,0 +1,140 @@
+/*
+ * UsageBenchmark.java
+ *
+ * Classes:
+ *   public   UsageBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.BooleanParam;
+import jcmdline.IntParam;
+import jcmdline.Parameter;
+import jcmdline.StringParam;
+import jcmdline.TextUsageFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link TextUsageFormatter#formatUsage(String, String, Map, List,
+ * boolean) formatUsage()}, to a String and streamed, for commands with
+ * different numbers of options.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsageBenchmark {
+
+	/**
+	 * the number of options the command defines
+	 */
+	@Param({ "10", "100" })
+	public int optionCount;
+
+	private final TextUsageFormatter formatter = new TextUsageFormatter();
+
+	private Map<String, Parameter<?>> opts;
+
+	private List<Parameter<?>> args;
+
+	@Setup
+	public void setUp() {
+		opts = new HashMap<String, Parameter<?>>();
+		for (int i = 0; i < optionCount; i++) {
+			Parameter<?> p;
+			switch (i % 3) {
+			case 0:
+				p = new StringParam("name" + i, "the name of the thing "
+						+ "that is to be processed by option " + i);
+				break;
+			case 1:
+				p = new IntParam("count" + i, "the number of times that "
+						+ "the thing is processed", 0, 100);
+				break;
+			default:
+				p = new BooleanParam("flag" + i, "whether to do the thing");
+			}
+			opts.put(p.getTag().toLowerCase(), p);
+		}
+		args = new ArrayList<Parameter<?>>();
+		args.add(new StringParam("pattern", "the pattern to match",
+				Parameter.REQUIRED));
+	}
+
+	@Benchmark
+	public String formatUsage() {
+		return formatter.formatUsage("mycmd", "does things", opts, args,
+				false);
+	}
+
+	@Benchmark
+	public void formatUsageStreamed(final Blackhole bh) throws IOException {
+		formatter.formatUsage("mycmd", "does things", opts, args, false,
+				new Appendable() {
+					public Appendable append(CharSequence csq) {
+						bh.consume(csq);
+						return this;
+					}
+
+					public Appendable append(CharSequence csq, int start,
+							int end) {
+						bh.consume(csq);
+						return this;
+					}
+
+					public Appendable append(char c) {
+						bh.consume(c);
+						return this;
+					}
+				});
+	}
+}
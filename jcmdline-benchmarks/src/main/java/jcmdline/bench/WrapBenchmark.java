@@ -0,0 +1,95 @@
+/*
+ * WrapBenchmark.java
+ *
+ * Classes:
+ *   public   WrapBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.StringFormatHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the StringFormatHelper methods that wrap text, with eight
+ * paragraphs of about 350 characters each.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapBenchmark {
+
+	private static final String PARAGRAPH = "This command prints to stdout "
+			+ "all lines within the specified files that contain the "
+			+ "specified pattern. Optionally, the matching may be done "
+			+ "without regard to case. If the -listFiles option is "
+			+ "specified, only the names of the files containing the "
+			+ "pattern will be listed, in which case the files to process "
+			+ "must be specified on the command line.\n\n";
+
+	private final StringFormatHelper helper = StringFormatHelper.getHelper();
+
+	private String text;
+
+	@Setup
+	public void setUp() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			sb.append(PARAGRAPH);
+		}
+		text = sb.toString();
+	}
+
+	@Benchmark
+	public String wrapBlocked() {
+		return helper.formatBlockedText(text, 8, 80);
+	}
+
+	@Benchmark
+	public String wrapHangingIndent() {
+		return helper.formatHangingIndent(text, 8, 80);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * BaselineComparatorTest.java
+ *
+ * Classes:
+ *   public   BaselineComparatorTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.bench;
+
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test code for BaselineComparator
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class BaselineComparatorTest extends TestCase {
+
+	private static final String HEADER = "\"Benchmark\",\"Mode\",\"Threads\","
+			+ "\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\","
+			+ "\"Param: argvLength\",\"Param: optionCount\"\n";
+
+	private static final String BASELINE = HEADER
+			+ "\"b.Parse.exact\",\"avgt\",1,5,100.0,2.0,\"ns/op\",4,10\n"
+			+ "\"b.Parse.exact:gc.alloc.rate.norm\",\"avgt\",1,5,56.0,0.01,\"B/op\",4,10\n"
+			+ "\"b.Parse.exact:gc.count\",\"avgt\",1,5,10.0,NaN,\"counts\",4,10\n"
+			+ "\"b.Parse.exact\",\"avgt\",1,5,500.0,5.0,\"ns/op\",64,10\n"
+			+ "\"b.Wrap.blocked\",\"thrpt\",1,5,1000.0,10.0,\"ops/us\",,\n";
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public BaselineComparatorTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests that results equal to the baseline do not regress
+	 */
+	public void testSame() throws Exception {
+		assertEquals("regressions found", 0, compare(BASELINE, 10));
+	}
+
+	/**
+	 * Tests that slower, allocating, and lower throughput results regress,
+	 * but not those within the threshold or error
+	 */
+	public void testRegressions() throws Exception {
+		String results = HEADER
+				+ "\"b.Parse.exact\",\"avgt\",1,5,115.0,2.0,\"ns/op\",4,10\n"
+				+ "\"b.Parse.exact:gc.alloc.rate.norm\",\"avgt\",1,5,80.0,0.01,\"B/op\",4,10\n"
+				+ "\"b.Parse.exact:gc.count\",\"avgt\",1,5,90.0,NaN,\"counts\",4,10\n"
+				+ "\"b.Parse.exact\",\"avgt\",1,5,540.0,50.0,\"ns/op\",64,10\n"
+				+ "\"b.Wrap.blocked\",\"thrpt\",1,5,850.0,10.0,\"ops/us\",,\n";
+		StringBuilder out = new StringBuilder();
+		assertEquals("wrong number of regressions", 3, new BaselineComparator(
+				10).compare(new StringReader(BASELINE), new StringReader(
+				results), out));
+		assertTrue("report not written", out.indexOf("REGRESSED") != -1);
+		assertEquals("faster result regressed", 0, compare(HEADER
+				+ "\"b.Wrap.blocked\",\"thrpt\",1,5,2000.0,10.0,\"ops/us\",,\n"
+				+ "\"b.Parse.exact\",\"avgt\",1,5,50.0,2.0,\"ns/op\",4,10\n", 10));
+	}
+
+	/**
+	 * Tests that parameters are matched by name, and that benchmarks missing
+	 * from either file are not regressions
+	 */
+	public void testParamsAndMissing() throws Exception {
+		String results = "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\","
+				+ "\"Score\",\"Score Error (99.9%)\",\"Unit\","
+				+ "\"Param: optionCount\",\"Param: argvLength\"\n"
+				+ "\"b.Parse.exact\",\"avgt\",1,5,200.0,2.0,\"ns/op\",10,4\n"
+				+ "\"b.Parse.prefix\",\"avgt\",1,5,900.0,2.0,\"ns/op\",10,4\n";
+		assertEquals("wrong number of regressions", 1, compare(results, 10));
+		assertEquals("CSV not split", "[a, b,c, d\"e, ]", BaselineComparator
+				.split("a,\"b,c\",\"d\"\"e\",").toString());
+	}
+
+	private static int compare(String results, double threshold)
+			throws Exception {
+		return new BaselineComparator(threshold).compare(new StringReader(
+				BASELINE), new StringReader(results), new StringBuilder());
+	}
+}
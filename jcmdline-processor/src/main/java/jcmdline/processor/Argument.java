@@ -0,0 +1,87 @@
+/*
+ * Argument.java
+ *
+ * Classes:
+ *   public   Argument
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field, or record component, of a {@link CmdLine} class that holds
+ * the value of a command line argument. Arguments are taken in the order in
+ * which their fields are declared. Their types are those of an
+ * {@link Option}, other than <code>boolean</code> - only the last argument
+ * may be a <code>List</code>, and a required argument may not follow an
+ * optional one.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Argument {
+
+	/**
+	 * the tag of the argument, used in the usage and in error messages - the
+	 * name of the field if not specified
+	 */
+	String tag() default "";
+
+	/**
+	 * a description of the argument, suitable for display in a usage
+	 * statement - at least 5 characters
+	 */
+	String description();
+
+	/**
+	 * true if the argument must be specified
+	 */
+	boolean required() default true;
+
+	/**
+	 * true if the argument is not to be listed in the usage
+	 */
+	boolean hidden() default false;
+
+	/**
+	 * the minimum value of an <code>int</code> argument
+	 */
+	int min() default Integer.MIN_VALUE;
+
+	/**
+	 * the maximum value of an <code>int</code> argument
+	 */
+	int max() default Integer.MAX_VALUE;
+}
@@ -0,0 +1,81 @@
+/*
+ * CmdLine.java
+ *
+ * Classes:
+ *   public   CmdLine
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record whose fields, annotated with {@link Option} and
+ * {@link Argument}, hold the values of a command line. For each, the
+ * {@link CmdLineProcessor} generates a parser, in the same package, named
+ * for the class with <code>Parser</code> appended - for a nested class, the
+ * names of its enclosing classes are prepended, separated by '_'. For
+ * example:
+ *
+ * <pre>
+ * &#64;CmdLine(name = &quot;copy&quot;, description = &quot;copies a file&quot;)
+ * record CopyOptions(
+ *         &#64;Option(description = &quot;replace an existing file&quot;) boolean force,
+ *         &#64;Option(description = &quot;the copy buffer size&quot;, min = 1) int buffer,
+ *         &#64;Argument(description = &quot;the file to copy&quot;) File from,
+ *         &#64;Argument(description = &quot;the copy to create&quot;) File to) {
+ * }
+ *
+ * CopyOptions opts = CopyOptionsParser.parse(args);
+ * </pre>
+ *
+ * A class must have a constructor, with no parameters, that is not private,
+ * and its annotated fields may not be private, static, or final. The fields
+ * of a record are set through its canonical constructor.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface CmdLine {
+
+	/**
+	 * the name of the command
+	 */
+	String name();
+
+	/**
+	 * a brief description of the command
+	 */
+	String description();
+}
@@ -0,0 +1,484 @@
+/*
+ * CmdLineProcessor.java
+ *
+ * Classes:
+ *   public   CmdLineProcessor
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates, for each class or record annotated with {@link CmdLine}, a
+ * parser specialized to its options and arguments. The parser, described
+ * under {@link ParserWriter}, parses a command line as
+ * PosixCmdLineParser and BasicCmdLineHandler would, into local variables of
+ * the fields' own types, and sets the fields directly - there is no
+ * reflection, and no Parameter is created. It can also create the
+ * equivalent BasicCmdLineHandler, for callers that want jcmdline's usage
+ * and help handling.
+ * <P>
+ * Errors that BasicCmdLineHandler or the Parameters would report only when
+ * constructed are reported here, at compile time: duplicate tags, which are
+ * compared without regard to case, tags containing '=', descriptions that are too
+ * short, a multi-valued argument that is not last, a required argument
+ * following an optional one, and minimums greater than maximums. As well,
+ * a warning is issued for each tag that is the prefix of another, as none
+ * of its abbreviations can be used.
+ * <P>
+ * This processor is compiled for Java 8, and runs in any later compiler. A
+ * record is recognized by the name of its kind, as
+ * <code>ElementKind.RECORD</code> does not exist in Java 8.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class CmdLineProcessor extends AbstractProcessor {
+
+	/**
+	 * the minimum length of a description, as required by AbstractParameter
+	 */
+	private static final int MIN_DESC_LEN = 5;
+
+	/**
+	 * @see javax.annotation.processing.Processor#getSupportedAnnotationTypes()
+	 */
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		Set<String> types = new HashSet<String>();
+		types.add(CmdLine.class.getName());
+		types.add(Option.class.getName());
+		types.add(Argument.class.getName());
+		return types;
+	}
+
+	/**
+	 * @see javax.annotation.processing.Processor#getSupportedSourceVersion()
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 * @see javax.annotation.processing.Processor#process(Set,
+	 *      RoundEnvironment)
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		for (Element e : roundEnv.getElementsAnnotatedWith(Option.class)) {
+			checkEnclosingType(e, "@Option");
+		}
+		for (Element e : roundEnv.getElementsAnnotatedWith(Argument.class)) {
+			checkEnclosingType(e, "@Argument");
+		}
+		for (Element e : roundEnv.getElementsAnnotatedWith(CmdLine.class)) {
+			OptionsType type = readType((TypeElement) e);
+			if (type != null) {
+				write(type);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reports an error if an annotated field is not declared by a
+	 * {@link CmdLine} type - it would otherwise be silently ignored.
+	 */
+	private void checkEnclosingType(Element field, String annotation) {
+		if (field.getEnclosingElement().getAnnotation(CmdLine.class) == null) {
+			error(field, annotation + " may only be used in a class or"
+					+ " record annotated with @CmdLine");
+		}
+	}
+
+	/**
+	 * Reads and checks the options and arguments of a {@link CmdLine} type.
+	 *
+	 * @param type
+	 *            the type
+	 * @return the type's options and arguments, or null if there are errors
+	 */
+	private OptionsType readType(TypeElement type) {
+		CmdLine cmdLine = type.getAnnotation(CmdLine.class);
+		boolean record = type.getKind().name().equals("RECORD");
+		boolean ok = true;
+		if (type.getKind() != ElementKind.CLASS && !record) {
+			error(type, "@CmdLine may only be used on a class or record");
+			return null;
+		}
+		if (type.getModifiers().contains(Modifier.PRIVATE)) {
+			error(type, "a @CmdLine type may not be private");
+			ok = false;
+		}
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL
+				&& (type.getNestingKind() != NestingKind.MEMBER || !type
+						.getModifiers().contains(Modifier.STATIC))) {
+			error(type, "a nested @CmdLine type must be a static member");
+			ok = false;
+		}
+		if (!record) {
+			if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+				error(type, "a @CmdLine class may not be abstract");
+				ok = false;
+			}
+			if (!hasNoArgConstructor(type)) {
+				error(type, "a @CmdLine class must have a constructor,"
+						+ " with no parameters, that is not private");
+				ok = false;
+			}
+		}
+		List<OptionsType.Field> options = new ArrayList<OptionsType.Field>();
+		List<OptionsType.Field> args = new ArrayList<OptionsType.Field>();
+		List<OptionsType.Field> components = new ArrayList<OptionsType.Field>();
+		for (VariableElement v : ElementFilter.fieldsIn(type
+				.getEnclosedElements())) {
+			Option option = v.getAnnotation(Option.class);
+			Argument arg = v.getAnnotation(Argument.class);
+			if (v.getModifiers().contains(Modifier.STATIC)) {
+				if (option != null || arg != null) {
+					error(v, "an option or argument field may not be static");
+					ok = false;
+				}
+				continue;
+			}
+			if (option == null && arg == null) {
+				if (record) {
+					error(v, "each component of a @CmdLine record must be"
+							+ " annotated with @Option or @Argument");
+					ok = false;
+				}
+				continue;
+			}
+			if (option != null && arg != null) {
+				error(v, "a field may not be both an @Option and an @Argument");
+				ok = false;
+				continue;
+			}
+			if (!record
+					&& (v.getModifiers().contains(Modifier.PRIVATE) || v
+							.getModifiers().contains(Modifier.FINAL))) {
+				error(v, "an option or argument field may not be private"
+						+ " or final");
+				ok = false;
+			}
+			OptionsType.Field f = (option != null) ? readOption(v, option)
+					: readArgument(v, arg);
+			if (f == null) {
+				ok = false;
+				continue;
+			}
+			(f.option ? options : args).add(f);
+			components.add(f);
+		}
+		ok &= checkTags(options);
+		ok &= checkTags(args);
+		ok &= checkArgs(args);
+		if (!ok) {
+			return null;
+		}
+		checkPrefixes(options);
+		return new OptionsType(type, packageOf(type), record,
+				cmdLine.name(), cmdLine.description(), options, args,
+				components);
+	}
+
+	/**
+	 * Reads and checks an {@link Option} field.
+	 *
+	 * @return the option, or null if it is in error
+	 */
+	private OptionsType.Field readOption(VariableElement v, Option option) {
+		OptionsType.Field f = new OptionsType.Field(v, fieldType(v), true);
+		f.tag = option.tag().length() == 0 ? f.name : option.tag();
+		f.description = option.description();
+		f.required = option.required();
+		f.hidden = option.hidden();
+		f.label = option.label().length() == 0 ? null : option.label();
+		f.min = option.min();
+		f.max = option.max();
+		return checkField(v, f);
+	}
+
+	/**
+	 * Reads and checks an {@link Argument} field.
+	 *
+	 * @return the argument, or null if it is in error
+	 */
+	private OptionsType.Field readArgument(VariableElement v, Argument arg) {
+		OptionsType.Field f = new OptionsType.Field(v, fieldType(v), false);
+		f.tag = arg.tag().length() == 0 ? f.name : arg.tag();
+		f.description = arg.description();
+		f.required = arg.required();
+		f.hidden = arg.hidden();
+		f.min = arg.min();
+		f.max = arg.max();
+		return checkField(v, f);
+	}
+
+	/**
+	 * Checks the attributes of a field that the Parameter it corresponds to
+	 * would reject.
+	 *
+	 * @return the field, or null if it is in error
+	 */
+	private OptionsType.Field checkField(VariableElement v, OptionsType.Field f) {
+		boolean ok = true;
+		if (f.type == null) {
+			error(v, "unsupported type " + v.asType() + " - an option or"
+					+ " argument must be a boolean, int, Integer, String,"
+					+ " File, or a List of Integer, String, or File");
+			return null;
+		}
+		if (f.tag.indexOf('=') != -1) {
+			error(v, "tag <" + f.tag + "> may not contain '='");
+			ok = false;
+		}
+		if (f.description.length() < MIN_DESC_LEN) {
+			error(v, "the description of <" + f.tag + "> must be at least "
+					+ MIN_DESC_LEN + " characters");
+			ok = false;
+		}
+		if (f.type.isBoolean()) {
+			if (!f.option) {
+				error(v, "an argument may not be a boolean");
+				ok = false;
+			} else if (f.required) {
+				error(v, "a boolean option may not be required");
+				ok = false;
+			}
+		}
+		if (f.min > f.max) {
+			error(v, "the minimum (" + f.min + ") of <" + f.tag
+					+ "> is greater than its maximum (" + f.max + ")");
+			ok = false;
+		} else if (f.type.elementType != OptionsType.INTEGER
+				&& (f.min != Integer.MIN_VALUE || f.max != Integer.MAX_VALUE)) {
+			error(v, "a minimum or maximum may only be set for an int option"
+					+ " or argument");
+			ok = false;
+		}
+		return ok ? f : null;
+	}
+
+	/**
+	 * Checks that no two options, or no two arguments, have the same tag,
+	 * without regard to case.
+	 *
+	 * @param fields
+	 *            the options, or the arguments
+	 * @return true if the tags are all unique
+	 */
+	private boolean checkTags(List<OptionsType.Field> fields) {
+		boolean ok = true;
+		Map<String, OptionsType.Field> tags = new HashMap<String, OptionsType.Field>();
+		for (OptionsType.Field f : fields) {
+			OptionsType.Field other = tags.put(f.tag.toLowerCase(), f);
+			if (other != null) {
+				error(f.element, "tag <" + f.tag + "> of " + f.name
+						+ " duplicates that of " + other.name);
+				ok = false;
+			}
+		}
+		return ok;
+	}
+
+	/**
+	 * Checks the order of the arguments, as BasicCmdLineHandler does.
+	 *
+	 * @return true if the arguments are in a valid order
+	 */
+	private boolean checkArgs(List<OptionsType.Field> args) {
+		boolean ok = true;
+		OptionsType.Field optional = null;
+		for (int i = 0; i < args.size(); i++) {
+			OptionsType.Field f = args.get(i);
+			if (f.type.multiValued && i < args.size() - 1) {
+				error(f.element, "multi-valued argument <" + f.tag
+						+ "> must be the last argument");
+				ok = false;
+			}
+			if (!f.required) {
+				optional = f;
+			} else if (optional != null) {
+				error(f.element, "required argument <" + f.tag
+						+ "> may not follow optional argument <"
+						+ optional.tag + ">");
+				ok = false;
+			}
+		}
+		return ok;
+	}
+
+	/**
+	 * Warns of each visible option tag that is the prefix of another. The
+	 * shorter tag can still be specified in full, but any abbreviation of it
+	 * is ambiguous.
+	 */
+	private void checkPrefixes(List<OptionsType.Field> options) {
+		for (OptionsType.Field f : options) {
+			String lctag = f.tag.toLowerCase();
+			for (OptionsType.Field other : options) {
+				if (other != f && !f.hidden && !other.hidden
+						&& other.tag.toLowerCase().startsWith(lctag)) {
+					warning(f.element, "option <" + f.tag + "> is a prefix of <"
+							+ other.tag + ">, so no abbreviation of it is"
+							+ " unique");
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a class has a constructor, with no parameters, that
+	 * the generated parser, in the same package, can call.
+	 */
+	private static boolean hasNoArgConstructor(TypeElement type) {
+		for (ExecutableElement c : ElementFilter.constructorsIn(type
+				.getEnclosedElements())) {
+			if (c.getParameters().isEmpty()
+					&& !c.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the type of a field.
+	 *
+	 * @return the type, or null if it is not supported
+	 */
+	private static OptionsType.FieldType fieldType(VariableElement v) {
+		TypeMirror t = v.asType();
+		if (t.getKind() == TypeKind.BOOLEAN) {
+			return new OptionsType.FieldType(OptionsType.BOOLEAN, true, false);
+		}
+		if (t.getKind() == TypeKind.INT) {
+			return new OptionsType.FieldType(OptionsType.INTEGER, true, false);
+		}
+		if (t.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		DeclaredType dt = (DeclaredType) t;
+		String name = ((TypeElement) dt.asElement()).getQualifiedName()
+				.toString();
+		if (name.equals("java.util.List")) {
+			if (dt.getTypeArguments().size() != 1
+					|| dt.getTypeArguments().get(0).getKind() != TypeKind.DECLARED) {
+				return null;
+			}
+			String element = ((TypeElement) ((DeclaredType) dt
+					.getTypeArguments().get(0)).asElement()).getQualifiedName()
+					.toString();
+			if (element.equals(OptionsType.BOOLEAN)) {
+				return null;
+			}
+			return OptionsType.isElementType(element) ? new OptionsType.FieldType(
+					element, false, true)
+					: null;
+		}
+		return OptionsType.isElementType(name) ? new OptionsType.FieldType(
+				name, false, false) : null;
+	}
+
+	/**
+	 * Gets the name of the package of a type.
+	 */
+	private static String packageOf(TypeElement type) {
+		Element e = type;
+		while (!(e instanceof PackageElement)) {
+			e = e.getEnclosingElement();
+		}
+		return ((PackageElement) e).getQualifiedName().toString();
+	}
+
+	/**
+	 * Writes the parser for a type.
+	 */
+	private void write(OptionsType type) {
+		String name = type.getParserName();
+		String qualifiedName = (type.packageName.length() == 0) ? name
+				: type.packageName + "." + name;
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					qualifiedName, type.element);
+			Writer out = file.openWriter();
+			try {
+				out.write(new ParserWriter(type).write());
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			error(type.element, "unable to write " + qualifiedName + ": "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Reports an error on an element.
+	 */
+	private void error(Element e, String msg) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, e);
+	}
+
+	/**
+	 * Reports a warning on an element.
+	 */
+	private void warning(Element e, String msg) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+				msg, e);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Option.java
+ *
+ * Classes:
+ *   public   Option
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field, or record component, of a {@link CmdLine} class that holds
+ * the value of a command line option. The type of the field determines the
+ * Parameter the option corresponds to:
+ * <ul>
+ * <li><code>boolean</code> or <code>Boolean</code> - a BooleanParam, which
+ * is never required
+ * <li><code>int</code> or <code>Integer</code> - an IntParam
+ * <li><code>String</code> - a StringParam
+ * <li><code>java.io.File</code> - a FileParam, with no attributes
+ * <li><code>java.util.List</code> of <code>String</code>,
+ * <code>Integer</code>, or <code>File</code> - a multi-valued StringParam,
+ * IntParam, or FileParam
+ * </ul>
+ * A field whose option is not specified keeps its initial value - that of
+ * its initializer, or for a record, zero, false, null, or an empty list.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Option {
+
+	/**
+	 * the tag of the option - the name of the field if not specified
+	 */
+	String tag() default "";
+
+	/**
+	 * a description of the option, suitable for display in a usage
+	 * statement - at least 5 characters
+	 */
+	String description();
+
+	/**
+	 * true if the option must be specified
+	 */
+	boolean required() default false;
+
+	/**
+	 * true if the option is not to be listed in the usage - a hidden option
+	 * can't be abbreviated
+	 */
+	boolean hidden() default false;
+
+	/**
+	 * the label of the option's value in the usage - the Parameter's default
+	 * label if not specified
+	 */
+	String label() default "";
+
+	/**
+	 * the minimum value of an <code>int</code> option
+	 */
+	int min() default Integer.MIN_VALUE;
+
+	/**
+	 * the maximum value of an <code>int</code> option
+	 */
+	int max() default Integer.MAX_VALUE;
+}
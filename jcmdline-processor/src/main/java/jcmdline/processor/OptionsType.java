@@ -0,0 +1,314 @@
+/*
+ * OptionsType.java
+ *
+ * Classes:
+ *   final    OptionsType
+ *   final    OptionsType.FieldType
+ *   final    OptionsType.Field
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * The options and arguments of a {@link CmdLine} type, as checked by
+ * {@link CmdLineProcessor}, from which {@link ParserWriter} writes its
+ * parser.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+final class OptionsType {
+
+	/**
+	 * the element type of a boolean field
+	 */
+	static final String BOOLEAN = "java.lang.Boolean";
+
+	/**
+	 * the element type of an int field
+	 */
+	static final String INTEGER = "java.lang.Integer";
+
+	/**
+	 * the element type of a String field
+	 */
+	static final String STRING = "java.lang.String";
+
+	/**
+	 * the element type of a File field
+	 */
+	static final String FILE = "java.io.File";
+
+	/**
+	 * the annotated type
+	 */
+	final TypeElement element;
+
+	/**
+	 * the package of the annotated type, "" for the unnamed package
+	 */
+	final String packageName;
+
+	/**
+	 * true if the annotated type is a record
+	 */
+	final boolean record;
+
+	/**
+	 * the name of the command
+	 */
+	final String name;
+
+	/**
+	 * the description of the command
+	 */
+	final String description;
+
+	/**
+	 * the options, in the order declared
+	 */
+	final List<Field> options;
+
+	/**
+	 * the arguments, in the order declared
+	 */
+	final List<Field> args;
+
+	/**
+	 * the options and arguments, in the order declared - for a record, the
+	 * order of its canonical constructor's parameters
+	 */
+	final List<Field> fields;
+
+	/**
+	 * constructor
+	 */
+	OptionsType(TypeElement element, String packageName, boolean record,
+			String name, String description, List<Field> options,
+			List<Field> args, List<Field> fields) {
+		this.element = element;
+		this.packageName = packageName;
+		this.record = record;
+		this.name = name;
+		this.description = description;
+		this.options = options;
+		this.args = args;
+		this.fields = fields;
+	}
+
+	/**
+	 * Gets the simple name of the generated parser - the simple names of
+	 * the annotated type and the types enclosing it, separated by '_', with
+	 * <code>Parser</code> appended.
+	 */
+	String getParserName() {
+		StringBuilder sb = new StringBuilder("Parser");
+		for (Element e = element; e instanceof TypeElement; e = e
+				.getEnclosingElement()) {
+			sb.insert(0, e.getSimpleName());
+			if (e.getEnclosingElement() instanceof TypeElement) {
+				sb.insert(0, '_');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the canonical name of the annotated type.
+	 */
+	String getTypeName() {
+		return element.getQualifiedName().toString();
+	}
+
+	/**
+	 * Determines whether a type may be that of a field, or of the elements
+	 * of a List field.
+	 *
+	 * @param name
+	 *            the qualified name of the type
+	 */
+	static boolean isElementType(String name) {
+		return name.equals(BOOLEAN) || name.equals(INTEGER)
+				|| name.equals(STRING) || name.equals(FILE);
+	}
+
+	/**
+	 * The type of an option or argument field.
+	 */
+	static final class FieldType {
+
+		/**
+		 * the type of the field's values - one of {@link #BOOLEAN},
+		 * {@link #INTEGER}, {@link #STRING}, or {@link #FILE}
+		 */
+		final String elementType;
+
+		/**
+		 * true if the field is a boolean or int
+		 */
+		final boolean primitive;
+
+		/**
+		 * true if the field is a List
+		 */
+		final boolean multiValued;
+
+		/**
+		 * constructor
+		 */
+		FieldType(String elementType, boolean primitive, boolean multiValued) {
+			this.elementType = elementType;
+			this.primitive = primitive;
+			this.multiValued = multiValued;
+		}
+
+		/**
+		 * Determines whether the field is a boolean or Boolean.
+		 */
+		boolean isBoolean() {
+			return elementType.equals(BOOLEAN);
+		}
+
+		/**
+		 * Gets the type of the field as written in Java source.
+		 */
+		String getSourceName() {
+			if (multiValued) {
+				return "java.util.List<" + elementType + ">";
+			}
+			if (primitive) {
+				return isBoolean() ? "boolean" : "int";
+			}
+			return elementType;
+		}
+
+		/**
+		 * Gets the initial value of a local variable of this type - the
+		 * value of a record component that is not specified.
+		 */
+		String getInitialValue() {
+			if (multiValued) {
+				return "new java.util.ArrayList<" + elementType + ">()";
+			}
+			if (primitive) {
+				return isBoolean() ? "false" : "0";
+			}
+			return "null";
+		}
+
+		/**
+		 * Gets the simple name of the Parameter class corresponding to this
+		 * type.
+		 */
+		String getParameterClass() {
+			if (isBoolean()) {
+				return "BooleanParam";
+			}
+			if (elementType.equals(INTEGER)) {
+				return "IntParam";
+			}
+			return elementType.equals(FILE) ? "FileParam" : "StringParam";
+		}
+	}
+
+	/**
+	 * An option or argument field.
+	 */
+	static final class Field {
+
+		/**
+		 * the field
+		 */
+		final VariableElement element;
+
+		/**
+		 * the name of the field
+		 */
+		final String name;
+
+		/**
+		 * the type of the field, null if not supported
+		 */
+		final FieldType type;
+
+		/**
+		 * true for an option, false for an argument
+		 */
+		final boolean option;
+
+		/**
+		 * the tag
+		 */
+		String tag;
+
+		/**
+		 * the description
+		 */
+		String description;
+
+		/**
+		 * true if the option or argument must be specified
+		 */
+		boolean required;
+
+		/**
+		 * true if the option or argument is hidden
+		 */
+		boolean hidden;
+
+		/**
+		 * the option label, null for the Parameter's default
+		 */
+		String label;
+
+		/**
+		 * the minimum value of an int
+		 */
+		int min;
+
+		/**
+		 * the maximum value of an int
+		 */
+		int max;
+
+		/**
+		 * constructor
+		 */
+		Field(VariableElement element, FieldType type, boolean option) {
+			this.element = element;
+			this.name = element.getSimpleName().toString();
+			this.type = type;
+			this.option = option;
+		}
+	}
+}
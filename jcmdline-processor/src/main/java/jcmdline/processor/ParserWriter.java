@@ -0,0 +1,602 @@
+/*
+ * ParserWriter.java
+ *
+ * Classes:
+ *   final    ParserWriter
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the source of the parser for a {@link CmdLine} type. The parser is
+ * a final class with three static methods:
+ * <ul>
+ * <li><code>parse(String...)</code> parses a command line as
+ * PosixCmdLineParser would, and checks for required options and arguments
+ * as BasicCmdLineHandler would, throwing a CmdLineException with the same
+ * message in case of an error. The options are matched by a switch on the
+ * tag whose cases are every tag, and every abbreviation of a tag that is not
+ * hidden - an ambiguous abbreviation is a case of its own, that throws the
+ * error. Values are converted directly into local variables of the fields'
+ * types, so an <code>int</code> or <code>boolean</code> is never boxed.
+ * <li><code>createHandler()</code> creates a BasicCmdLineHandler with the
+ * equivalent Parameters, for commands that want its usage and help.
+ * <li><code>getOptions(CmdLineHandler)</code> creates an instance of the
+ * type from the Parameters of such a handler, once it has parsed a command
+ * line.
+ * </ul>
+ * Fields whose options or arguments were not specified keep their initial
+ * values.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+final class ParserWriter {
+
+	/**
+	 * the type whose parser is written
+	 */
+	private final OptionsType type;
+
+	/**
+	 * the source being written
+	 */
+	private final StringBuilder sb = new StringBuilder();
+
+	/**
+	 * constructor
+	 *
+	 * @param type
+	 *            the type whose parser is to be written
+	 */
+	ParserWriter(OptionsType type) {
+		this.type = type;
+	}
+
+	/**
+	 * Writes the parser.
+	 *
+	 * @return the source of the parser
+	 */
+	String write() {
+		String typeName = type.getTypeName();
+		if (type.packageName.length() != 0) {
+			line(0, "package " + type.packageName + ";");
+			line(0, "");
+		}
+		line(0, "import jcmdline.BasicCmdLineHandler;");
+		line(0, "import jcmdline.BooleanParam;");
+		line(0, "import jcmdline.CmdLineException;");
+		line(0, "import jcmdline.CmdLineHandler;");
+		line(0, "import jcmdline.FileParam;");
+		line(0, "import jcmdline.IntParam;");
+		line(0, "import jcmdline.Parameter;");
+		line(0, "import jcmdline.StringParam;");
+		line(0, "import jcmdline.Strings;");
+		line(0, "");
+		line(0, "/**");
+		line(0, " * Parses the command line of {@link " + typeName + "}.");
+		line(0, " * Generated by jcmdline.processor.CmdLineProcessor - do not edit.");
+		line(0, " */");
+		line(0, "public final class " + type.getParserName() + " {");
+		line(0, "");
+		line(1, "/**");
+		line(1, " * the name of the command");
+		line(1, " */");
+		line(1, "public static final String COMMAND_NAME = "
+				+ literal(type.name) + ";");
+		line(0, "");
+		line(1, "/**");
+		line(1, " * the description of the command");
+		line(1, " */");
+		line(1, "public static final String COMMAND_DESCRIPTION = "
+				+ literal(type.description) + ";");
+		line(0, "");
+		line(1, "private " + type.getParserName() + "() {");
+		line(1, "}");
+		line(0, "");
+		writeParse(typeName);
+		line(0, "");
+		writeCreateHandler();
+		line(0, "");
+		writeGetOptions(typeName);
+		writeHelpers();
+		line(0, "}");
+		return sb.toString();
+	}
+
+	/**
+	 * Writes <code>parse()</code>.
+	 */
+	private void writeParse(String typeName) {
+		line(1, "/**");
+		line(1, " * Parses a command line.");
+		line(1, " *");
+		line(1, " * @param args");
+		line(1, " *            the command line arguments");
+		line(1, " * @return the options and arguments specified");
+		line(1, " * @throws CmdLineException");
+		line(1, " *             if the command line is invalid");
+		line(1, " */");
+		line(1, "public static " + typeName
+				+ " parse(String... args) throws CmdLineException {");
+		writeLocals();
+		line(2, "int i = 0;");
+		line(2, "String arg = null;");
+		line(2, "while (i < args.length) {");
+		line(3, "String param = args[i++];");
+		line(3, "if (param.equals(\"--\")) {");
+		line(4, "break;");
+		line(3, "}");
+		line(3, "if (!param.startsWith(\"-\")) {");
+		line(4, "arg = param;");
+		line(4, "break;");
+		line(3, "}");
+		line(3, "int tagIdx = param.startsWith(\"--\") ? 2 : 1;");
+		line(3, "if (param.length() == tagIdx) {");
+		line(4, "throw new CmdLineException(Strings.get(\"PosixCmdLineParser.optionNoTag\"));");
+		line(3, "}");
+		line(3, "String tag = param.substring(tagIdx);");
+		line(3, "String val = null;");
+		line(3, "int equalsIdx = tag.indexOf('=');");
+		line(3, "if (equalsIdx != -1) {");
+		line(4, "val = tag.substring(equalsIdx + 1);");
+		line(4, "tag = tag.substring(0, equalsIdx);");
+		line(3, "}");
+		line(3, "switch (tag.toLowerCase()) {");
+		Map<String, List<String>> cases = getCases();
+		List<List<String>> written = new ArrayList<List<String>>();
+		for (List<String> matches : cases.values()) {
+			if (matches.size() == 1 || written.contains(matches)) {
+				continue;
+			}
+			written.add(matches);
+			for (Map.Entry<String, List<String>> c : cases.entrySet()) {
+				if (c.getValue() == matches) {
+					line(3, "case " + literal(c.getKey()) + ":");
+				}
+			}
+			StringBuilder tags = new StringBuilder();
+			for (String m : matches) {
+				tags.append(tags.length() == 0 ? "" : ", ").append(
+						literal("-" + m));
+			}
+			line(4, "throw new CmdLineException(Strings.get(\"PosixCmdLineParser.ambiguousOption\",");
+			line(6, "new Object[] { \"-\" + tag }), java.util.Arrays.asList("
+					+ tags + "));");
+		}
+		for (OptionsType.Field f : type.options) {
+			for (Map.Entry<String, List<String>> c : cases.entrySet()) {
+				if (c.getValue().size() == 1
+						&& c.getValue().get(0).equals(f.tag)) {
+					line(3, "case " + literal(c.getKey()) + ":");
+				}
+			}
+			if (!f.type.isBoolean()) {
+				line(4, "if (val == null) {");
+				line(5, "if (i == args.length) {");
+				line(6, "throw error(\"PosixCmdLineParser.missingOptionValue\", tag);");
+				line(5, "}");
+				line(5, "val = args[i++];");
+				line(4, "}");
+			}
+			writeAdd(4, f, "val");
+			line(4, "break;");
+		}
+		line(3, "default:");
+		line(4, "throw error(\"PosixCmdLineParser.invalidOption\", tag);");
+		line(3, "}");
+		line(2, "}");
+		line(2, "if (arg == null && i < args.length) {");
+		line(3, "arg = args[i++];");
+		line(2, "}");
+		line(2, "int argIdx = 0;");
+		line(2, "while (arg != null) {");
+		line(3, "switch (argIdx) {");
+		for (int i = 0; i < type.args.size(); i++) {
+			OptionsType.Field f = type.args.get(i);
+			line(3, "case " + i + ":");
+			writeAdd(4, f, "arg");
+			if (!f.type.multiValued) {
+				line(4, "argIdx++;");
+			}
+			line(4, "break;");
+		}
+		line(3, "default:");
+		line(4, "throw error(\"PosixCmdLineParser.extraArg\", arg);");
+		line(3, "}");
+		line(3, "arg = (i < args.length) ? args[i++] : null;");
+		line(2, "}");
+		for (OptionsType.Field f : type.options) {
+			writeRequired(f, "BasicCmdLineHandler.missingRequiredOpt");
+		}
+		for (OptionsType.Field f : type.args) {
+			writeRequired(f, "BasicCmdLineHandler.missingRequiredArg");
+		}
+		writeCreate(typeName);
+		line(1, "}");
+	}
+
+	/**
+	 * Gets the cases of the switch on the option tags: each tag, in lower
+	 * case, and each prefix of each tag that is not hidden, mapped to the
+	 * tags it matches. A tag matches itself only; a prefix that is not a tag
+	 * matches all the visible tags it begins. Cases that match the same tags
+	 * share the same list.
+	 */
+	private Map<String, List<String>> getCases() {
+		Map<String, List<String>> byTags = new LinkedHashMap<String, List<String>>();
+		Map<String, List<String>> cases = new LinkedHashMap<String, List<String>>();
+		for (OptionsType.Field f : type.options) {
+			String lctag = f.tag.toLowerCase();
+			cases.put(lctag, share(byTags, Collections.singletonList(f.tag)));
+		}
+		for (OptionsType.Field f : type.options) {
+			if (f.hidden) {
+				continue;
+			}
+			String lctag = f.tag.toLowerCase();
+			for (int len = 0; len < lctag.length(); len++) {
+				String prefix = lctag.substring(0, len);
+				if (cases.containsKey(prefix)) {
+					continue;
+				}
+				List<String> matches = new ArrayList<String>();
+				for (OptionsType.Field other : type.options) {
+					if (!other.hidden
+							&& other.tag.toLowerCase().startsWith(prefix)) {
+						matches.add(other.tag);
+					}
+				}
+				Collections.sort(matches);
+				cases.put(prefix, share(byTags, matches));
+			}
+		}
+		return cases;
+	}
+
+	/**
+	 * Gets the shared instance of a list of tags.
+	 */
+	private static List<String> share(Map<String, List<String>> byTags,
+			List<String> tags) {
+		String key = tags.toString();
+		List<String> shared = byTags.get(key);
+		if (shared == null) {
+			byTags.put(key, tags);
+			shared = tags;
+		}
+		return shared;
+	}
+
+	/**
+	 * Writes the declarations of the local variables holding the value of
+	 * each field, and whether it has been set.
+	 */
+	private void writeLocals() {
+		for (OptionsType.Field f : type.fields) {
+			line(2, f.type.getSourceName() + " " + value(f) + " = "
+					+ f.type.getInitialValue() + ";");
+			line(2, "boolean " + set(f) + " = false;");
+		}
+	}
+
+	/**
+	 * Writes the conversion of a command line value, and its addition to a
+	 * field's local variable.
+	 *
+	 * @param indent
+	 *            the indentation level
+	 * @param f
+	 *            the field
+	 * @param var
+	 *            the name of the variable holding the value, which is null
+	 *            for a boolean option specified without a value
+	 */
+	private void writeAdd(int indent, OptionsType.Field f, String var) {
+		String conversion;
+		String tag = literal(f.tag);
+		if (f.type.isBoolean()) {
+			conversion = var + " == null || toBoolean(" + var + ", " + tag
+					+ ")";
+		} else if (f.type.elementType.equals(OptionsType.INTEGER)) {
+			conversion = "toInt(" + var + ", " + tag + ", " + f.min + ", "
+					+ f.max + ")";
+		} else if (f.type.elementType.equals(OptionsType.FILE)) {
+			conversion = "new java.io.File(" + var + ")";
+		} else {
+			conversion = var;
+		}
+		if (f.type.multiValued) {
+			if (f.type.elementType.equals(OptionsType.INTEGER)) {
+				conversion = "Integer.valueOf(" + conversion + ")";
+			}
+			line(indent, value(f) + ".add(" + conversion + ");");
+		} else {
+			if (!f.type.primitive && f.type.isBoolean()) {
+				conversion = "Boolean.valueOf(" + conversion + ")";
+			} else if (!f.type.primitive
+					&& f.type.elementType.equals(OptionsType.INTEGER)) {
+				conversion = "Integer.valueOf(" + conversion + ")";
+			}
+			line(indent, value(f) + " = " + conversion + ";");
+			if (f.option && !f.type.isBoolean()) {
+				// as BooleanParam, a flag's last value wins
+				line(indent, "if (" + set(f) + ") {");
+				line(indent + 1, "throw error(\"AbstractParameter.specifiedMoreThanOnce\", "
+						+ tag + ");");
+				line(indent, "}");
+			}
+		}
+		line(indent, set(f) + " = true;");
+	}
+
+	/**
+	 * Writes the check that a required field has been set.
+	 */
+	private void writeRequired(OptionsType.Field f, String key) {
+		if (f.required) {
+			line(2, "if (!" + set(f) + ") {");
+			line(3, "throw error(\"" + key + "\", " + literal(f.tag) + ");");
+			line(2, "}");
+		}
+	}
+
+	/**
+	 * Writes the creation and return of an instance of the type from the
+	 * local variables holding its fields.
+	 */
+	private void writeCreate(String typeName) {
+		if (type.record) {
+			StringBuilder params = new StringBuilder();
+			for (OptionsType.Field f : type.fields) {
+				params.append(params.length() == 0 ? "" : ", ").append(
+						value(f));
+			}
+			line(2, "return new " + typeName + "(" + params + ");");
+			return;
+		}
+		line(2, typeName + " options = new " + typeName + "();");
+		for (OptionsType.Field f : type.fields) {
+			line(2, "if (" + set(f) + ") {");
+			line(3, "options." + f.name + " = " + value(f) + ";");
+			line(2, "}");
+		}
+		line(2, "return options;");
+	}
+
+	/**
+	 * Writes <code>createHandler()</code>.
+	 */
+	private void writeCreateHandler() {
+		line(1, "/**");
+		line(1, " * Creates a BasicCmdLineHandler with the options and arguments of");
+		line(1, " * {@link " + type.getTypeName() + "}, from which its values can be");
+		line(1, " * got with {@link #getOptions(CmdLineHandler)}.");
+		line(1, " *");
+		line(1, " * @return the command line handler");
+		line(1, " */");
+		line(1, "public static BasicCmdLineHandler createHandler() {");
+		for (OptionsType.Field f : type.fields) {
+			String cls = f.type.getParameterClass();
+			String tagDesc = literal(f.tag) + ", " + literal(f.description);
+			String flags = !f.required + ", " + f.type.multiValued + ", "
+					+ f.hidden;
+			String args;
+			if (f.type.isBoolean()) {
+				args = tagDesc + ", " + f.hidden;
+			} else if (cls.equals("IntParam")) {
+				args = tagDesc + ", " + f.min + ", " + f.max + ", " + flags;
+			} else if (cls.equals("FileParam")) {
+				args = tagDesc + ", FileParam.NO_ATTRIBUTES, " + flags;
+			} else {
+				args = tagDesc + ", 0, -1, " + flags;
+			}
+			line(2, cls + " " + param(f) + " = new " + cls + "(" + args + ");");
+			if (f.label != null) {
+				line(2, param(f) + ".setOptionLabel(" + literal(f.label) + ");");
+			}
+		}
+		line(2, "return new BasicCmdLineHandler(COMMAND_NAME, COMMAND_DESCRIPTION,");
+		line(4, "new Parameter<?>[] {" + params(type.options) + " },");
+		line(4, "new Parameter<?>[] {" + params(type.args) + " });");
+		line(1, "}");
+	}
+
+	/**
+	 * Gets the names of the local variables holding some Parameters, each
+	 * preceded by a space, and followed by a comma but the last.
+	 */
+	private String params(List<OptionsType.Field> fields) {
+		StringBuilder s = new StringBuilder();
+		for (OptionsType.Field f : fields) {
+			s.append(s.length() == 0 ? " " : ", ").append(param(f));
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes <code>getOptions()</code>.
+	 */
+	private void writeGetOptions(String typeName) {
+		line(1, "/**");
+		line(1, " * Gets the options and arguments parsed by a handler created by");
+		line(1, " * {@link #createHandler()}.");
+		line(1, " *");
+		line(1, " * @param handler");
+		line(1, " *            the handler, which has parsed a command line");
+		line(1, " * @return the options and arguments specified");
+		line(1, " */");
+		line(1, "public static " + typeName
+				+ " getOptions(CmdLineHandler handler) {");
+		writeLocals();
+		for (OptionsType.Field f : type.fields) {
+			String cls = f.type.getParameterClass();
+			line(2, cls + " " + param(f) + " = (" + cls + ") handler."
+					+ (f.option ? "getOption(" + literal(f.tag.toLowerCase())
+							: "getArg(" + literal(f.tag)) + ");");
+			line(2, set(f) + " = " + param(f) + ".isSet();");
+			line(2, "if (" + set(f) + ") {");
+			String get;
+			if (f.type.multiValued) {
+				get = value(f) + ".addAll(" + param(f) + ".getValues())";
+			} else if (f.type.primitive) {
+				get = value(f) + " = " + param(f) + ".getValue()."
+						+ (f.type.isBoolean() ? "booleanValue()" : "intValue()");
+			} else {
+				get = value(f) + " = " + param(f) + ".getValue()";
+			}
+			line(3, get + ";");
+			line(2, "}");
+		}
+		writeCreate(typeName);
+		line(1, "}");
+	}
+
+	/**
+	 * Writes the conversions and the error method used by
+	 * <code>parse()</code>.
+	 */
+	private void writeHelpers() {
+		boolean hasInt = false;
+		boolean hasBoolean = false;
+		for (OptionsType.Field f : type.fields) {
+			hasInt |= f.type.elementType.equals(OptionsType.INTEGER);
+			hasBoolean |= f.type.isBoolean();
+		}
+		if (hasBoolean) {
+			line(0, "");
+			line(1, "private static boolean toBoolean(String val, String tag) throws CmdLineException {");
+			line(2, "if (val.equals(\"true\") || val.equals(Strings.get(\"BooleanParam.true\"))");
+			line(4, "|| val.equals(Strings.get(\"BooleanParam.yes\"))) {");
+			line(3, "return true;");
+			line(2, "}");
+			line(2, "if (val.equals(Strings.get(\"BooleanParam.false\")) || val.equals(Strings.get(\"BooleanParam.no\"))) {");
+			line(3, "return false;");
+			line(2, "}");
+			line(2, "String validValues = Strings.join(\"\\n    \", new String[] { Strings.get(\"BooleanParam.true\"),");
+			line(4, "Strings.get(\"BooleanParam.yes\"), Strings.get(\"BooleanParam.false\"),");
+			line(4, "Strings.get(\"BooleanParam.no\") });");
+			line(2, "throw new CmdLineException(Strings.get(\"BooleanParameter.conversionErr\",");
+			line(4, "new Object[] { val, tag, validValues }));");
+			line(1, "}");
+		}
+		if (hasInt) {
+			line(0, "");
+			line(1, "private static int toInt(String val, String tag, int min, int max) throws CmdLineException {");
+			line(2, "try {");
+			line(3, "int n = Integer.parseInt(val);");
+			line(3, "if (n >= min && n <= max) {");
+			line(4, "return n;");
+			line(3, "}");
+			line(2, "} catch (NumberFormatException e) {");
+			line(3, "// reported as out of range, as IntParam does");
+			line(2, "}");
+			line(2, "throw new CmdLineException(Strings.get(\"IntParam.validValues\",");
+			line(4, "new Object[] { tag, Integer.valueOf(min), Integer.valueOf(max) }));");
+			line(1, "}");
+		}
+		line(0, "");
+		line(1, "private static CmdLineException error(String key, String param) {");
+		line(2, "return new CmdLineException(Strings.get(key, new Object[] { param }));");
+		line(1, "}");
+	}
+
+	/**
+	 * Gets the name of the local variable holding the value of a field.
+	 */
+	private static String value(OptionsType.Field f) {
+		return "value_" + f.name;
+	}
+
+	/**
+	 * Gets the name of the local variable recording whether a field is set.
+	 */
+	private static String set(OptionsType.Field f) {
+		return "set_" + f.name;
+	}
+
+	/**
+	 * Gets the name of the local variable holding a field's Parameter.
+	 */
+	private static String param(OptionsType.Field f) {
+		return "param_" + f.name;
+	}
+
+	/**
+	 * Appends an indented line to the source.
+	 */
+	private void line(int indent, String s) {
+		if (s.length() != 0) {
+			for (int i = 0; i < indent; i++) {
+				sb.append('\t');
+			}
+			sb.append(s);
+		}
+		sb.append('\n');
+	}
+
+	/**
+	 * Gets a String as a Java string literal.
+	 */
+	static String literal(String s) {
+		StringBuilder lit = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				lit.append("\\\"");
+				break;
+			case '\\':
+				lit.append("\\\\");
+				break;
+			case '\n':
+				lit.append("\\n");
+				break;
+			case '\r':
+				lit.append("\\r");
+				break;
+			case '\t':
+				lit.append("\\t");
+				break;
+			default:
+				if (c < ' ' || c > '~') {
+					lit.append(String.format("\\u%04x", Integer.valueOf(c)));
+				} else {
+					lit.append(c);
+				}
+			}
+		}
+		return lit.append('"').toString();
+	}
+}
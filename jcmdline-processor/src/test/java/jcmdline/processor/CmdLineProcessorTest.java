@@ -0,0 +1,464 @@
+/*
+ * CmdLineProcessorTest.java
+ *
+ * Classes:
+ *   public   CmdLineProcessorTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import jcmdline.CmdLineException;
+import jcmdline.CmdLineHandler;
+import junit.framework.TestCase;
+
+/**
+ * Unit test code for CmdLineProcessor, and the parsers it generates
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class CmdLineProcessorTest extends TestCase {
+
+	/**
+	 * a class with every supported type of field, a required option, a
+	 * hidden option, an option label, and tags of which one is the prefix of
+	 * another
+	 */
+	private static final String CLASS_SOURCE = "package sample;\n"
+			+ "import java.io.File;\n"
+			+ "import java.util.List;\n"
+			+ "import jcmdline.processor.*;\n"
+			+ "@CmdLine(name = \"fetch\", description = \"fetches \\\"things\\\"\")\n"
+			+ "public class Fetch {\n"
+			+ "  @Option(description = \"print progress messages\") boolean verbose;\n"
+			+ "  @Option(description = \"overwrite files\") Boolean overwrite;\n"
+			+ "  @Option(description = \"the number of retries\", min = 0, max = 9) int retries = 3;\n"
+			+ "  @Option(description = \"the timeout in seconds\") Integer timeout;\n"
+			+ "  @Option(description = \"the output file\", required = true, label = \"<out>\") File out;\n"
+			+ "  @Option(description = \"the output format\") String outputFormat = \"text\";\n"
+			+ "  @Option(tag = \"H\", description = \"headers to send\") List<String> headers;\n"
+			+ "  @Option(description = \"a secret option\", hidden = true) String secret;\n"
+			+ "  @Option(description = \"ports to try\") List<Integer> ports;\n"
+			+ "  @Argument(description = \"the host to fetch from\") String host;\n"
+			+ "  @Argument(description = \"the port of the host\", required = false, min = 1, max = 65535) int port;\n"
+			+ "  @Argument(description = \"the paths to fetch\", required = false) List<File> paths;\n"
+			+ "  String ignored;\n"
+			+ "  public String toString() {\n"
+			+ "    return verbose + \" \" + overwrite + \" \" + retries + \" \" + timeout + \" \" + out + \" \"\n"
+			+ "        + outputFormat + \" \" + headers + \" \" + secret + \" \" + ports + \" \" + host + \" \"\n"
+			+ "        + port + \" \" + paths;\n"
+			+ "  }\n"
+			+ "}\n";
+
+	/**
+	 * a record nested in a class
+	 */
+	private static final String RECORD_SOURCE = "package sample;\n"
+			+ "import java.io.File;\n"
+			+ "import java.util.List;\n"
+			+ "import jcmdline.processor.*;\n"
+			+ "public class Tools {\n"
+			+ "  @CmdLine(name = \"copy\", description = \"copies files\")\n"
+			+ "  public record Copy(\n"
+			+ "      @Option(description = \"replace existing files\") boolean force,\n"
+			+ "      @Option(description = \"the buffer size\", min = 1) int buffer,\n"
+			+ "      @Option(tag = \"to\", description = \"the target directory\") File target,\n"
+			+ "      @Argument(description = \"the files to copy\", required = false) List<File> files) {\n"
+			+ "  }\n"
+			+ "}\n";
+
+	/**
+	 * command lines parsed with the parser of {@link #CLASS_SOURCE}
+	 */
+	private static final String[][] CLASS_COMMAND_LINES = {
+			{ "-out", "o", "host" },
+			{ "-v", "-overw", "-ret", "5", "-t=30", "-out", "o", "-outputformat", "json", "host" },
+			{ "--VERBOSE=no", "-H", "a: b", "-h", "c: d", "-out", "o", "-port", "1", "-p", "-2", "host", "80", "x", "y" },
+			{ "-secret", "s", "-out", "o", "--", "-host", "8080" },
+			{ "-ou", "o", "host" },
+			{ "-o", "o", "host" },
+			{ "-sec", "s", "-out", "o", "host" },
+			{ "-bogus", "-out", "o", "host" },
+			{ "-out" },
+			{ "-", "-out", "o", "host" },
+			{ "--", "host" },
+			{ "-out", "o" },
+			{ "-out", "o", "-out", "p", "host" },
+			{ "-out", "o", "-retries", "10", "host" },
+			{ "-out", "o", "-retries", "x", "host" },
+			{ "-out", "o", "-verbose=maybe", "host" },
+			{ "-out", "o", "host", "0" },
+			{ "-out", "o", "host", "port" },
+			{ "-out", "o", "-ov", "-ov=false", "host" },
+			{ "-out", "o", "host", "80", "a", "b", "c" },
+			{},
+	};
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public CmdLineProcessorTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * the directories of the compilations made by a test
+	 */
+	private final List<Path> dirs = new ArrayList<Path>();
+
+	/**
+	 * Deletes the directories of the test's compilations
+	 */
+	public void tearDown() throws IOException {
+		for (Path dir : dirs) {
+			delete(dir.toFile());
+		}
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		f.delete();
+	}
+
+	/**
+	 * Tests that the generated parser of a class parses as the handler it
+	 * creates does.
+	 */
+	public void testClassParser() throws Exception {
+		Compilation c = compile("sample.Fetch", CLASS_SOURCE);
+		assertEquals(c.errors(), 0, c.count(Diagnostic.Kind.ERROR));
+		Class<?> parser = c.load("sample.FetchParser");
+		assertEquals("fetch", parser.getField("COMMAND_NAME").get(null));
+		assertEquals("fetches \"things\"", parser.getField(
+				"COMMAND_DESCRIPTION").get(null));
+		for (String[] args : CLASS_COMMAND_LINES) {
+			compareParsers(parser, args);
+		}
+		Object opts = parse(parser, "-out", "o", "host");
+		assertEquals("false null 3 null o text null null null host 0 null",
+				opts.toString());
+		opts = parse(parser, "-v", "-ov", "-out", "o", "-ret", "0", "-t",
+				"7", "-H", "x", "-H", "y", "-ports", "1", "-po", "2", "host",
+				"80", "p1", "p2");
+		assertEquals("true true 0 7 o text [x, y] null [1, 2] host 80 [p1, p2]",
+				opts.toString());
+	}
+
+	/**
+	 * Tests the errors reported by the generated parser of a class.
+	 */
+	public void testClassParserErrors() throws Exception {
+		Class<?> parser = compile("sample.Fetch", CLASS_SOURCE).load(
+				"sample.FetchParser");
+		try {
+			parse(parser, "-o", "x", "host");
+			fail("ambiguous abbreviation accepted");
+		} catch (CmdLineException e) {
+			assertEquals(Arrays.asList("-out", "-outputFormat", "-overwrite"),
+					e.getSuggestions());
+		}
+		try {
+			parse(parser, "host");
+			fail("missing required option accepted");
+		} catch (CmdLineException e) {
+			assertTrue(e.getMessage(), e.getMessage().indexOf("<out>") != -1);
+		}
+		try {
+			parse(parser, "-se", "x", "-out", "o", "host");
+			fail("abbreviated hidden option accepted");
+		} catch (CmdLineException e) {
+			assertTrue(e.getMessage(), e.getMessage().indexOf("<se>") != -1);
+		}
+	}
+
+	/**
+	 * Tests the generated parser of a record.
+	 */
+	public void testRecordParser() throws Exception {
+		if (SourceVersion.latest().ordinal() < 16) {
+			return; // records are not supported
+		}
+		Compilation c = compile("sample.Tools", RECORD_SOURCE);
+		assertEquals(c.errors(), 0, c.count(Diagnostic.Kind.ERROR));
+		Class<?> parser = c.load("sample.Tools_CopyParser");
+		Object copy = parse(parser, "-f", "-b", "8", "a", "b");
+		assertEquals("Copy[force=true, buffer=8, target=null, files=[a, b]]",
+				copy.toString());
+		copy = parse(parser);
+		assertEquals("Copy[force=false, buffer=0, target=null, files=[]]",
+				copy.toString());
+		String[][] commandLines = { { "-to", "t", "a" },
+				{ "-buffer", "0", "a" }, { "-f", "-f" }, { "-x" }, {},
+				{ "-t", "t" } };
+		for (String[] args : commandLines) {
+			compareParsers(parser, args);
+		}
+	}
+
+	/**
+	 * Tests the errors reported at compile time.
+	 */
+	public void testCompileErrors() throws Exception {
+		assertError("duplicates that of a",
+				"@Option(description = \"an option\") String a;\n"
+						+ "@Option(tag = \"A\", description = \"an option\") String b;");
+		assertError("may not contain '='",
+				"@Option(tag = \"a=b\", description = \"an option\") String a;");
+		assertError("at least 5 characters",
+				"@Option(description = \"opt\") String a;");
+		assertError("must be the last argument",
+				"@Argument(description = \"the files\") java.util.List<String> a;\n"
+						+ "@Argument(description = \"the host\") String b;");
+		assertError("may not follow optional argument",
+				"@Argument(description = \"the files\", required = false) String a;\n"
+						+ "@Argument(description = \"the host\") String b;");
+		assertError("may not be required",
+				"@Option(description = \"a flag\", required = true) boolean a;");
+		assertError("may not be a boolean",
+				"@Argument(description = \"a flag\") boolean a;");
+		assertError("unsupported type",
+				"@Option(description = \"a number\") long a;");
+		assertError("unsupported type",
+				"@Option(description = \"some flags\") java.util.List<Boolean> a;");
+		assertError("is greater than its maximum",
+				"@Option(description = \"a number\", min = 2, max = 1) int a;");
+		assertError("may only be set for an int",
+				"@Option(description = \"a string\", max = 1) String a;");
+		assertError("may not be private or final",
+				"@Option(description = \"a string\") private String a;");
+		assertError("both an @Option and an @Argument",
+				"@Option(description = \"a string\") @Argument(description = \"a string\") String a;");
+		Compilation c = compile("sample.Bad", "package sample;\n"
+				+ "public class Bad {\n"
+				+ "  @jcmdline.processor.Option(description = \"a string\") String a;\n"
+				+ "}\n");
+		assertTrue(c.errors(), c.errors().indexOf("annotated with @CmdLine") != -1);
+		c = compile("sample.Bad", "package sample;\n"
+				+ "@jcmdline.processor.CmdLine(name = \"bad\", description = \"a bad command\")\n"
+				+ "public class Bad {\n"
+				+ "  private Bad() {}\n"
+				+ "}\n");
+		assertTrue(c.errors(), c.errors().indexOf("must have a constructor") != -1);
+	}
+
+	/**
+	 * Tests the warning of a tag that is a prefix of another.
+	 */
+	public void testPrefixWarning() throws Exception {
+		Compilation c = compile("sample.Fetch", CLASS_SOURCE);
+		assertEquals(1, c.count(Diagnostic.Kind.WARNING));
+		assertTrue(c.diagnostics.toString(), c.diagnostics.get(0).getMessage(
+				null).indexOf("<out> is a prefix of <outputFormat>") != -1);
+	}
+
+	/**
+	 * Tests literal()
+	 */
+	public void testLiteral() {
+		assertEquals("\"a\\\"b\\\\c\\n\\u00e9\"", ParserWriter
+				.literal("a\"b\\c\né"));
+	}
+
+	/**
+	 * Asserts that a class with some fields fails to compile with an error.
+	 *
+	 * @param expected
+	 *            a part of the expected error message
+	 * @param fields
+	 *            the declarations of the fields
+	 */
+	private void assertError(String expected, String fields) throws Exception {
+		Compilation c = compile("sample.Bad", "package sample;\n"
+				+ "import jcmdline.processor.*;\n"
+				+ "@CmdLine(name = \"bad\", description = \"a bad command\")\n"
+				+ "public class Bad {\n" + fields + "\n}\n");
+		assertTrue(fields + ": " + c.errors(),
+				c.errors().indexOf(expected) != -1);
+	}
+
+	/**
+	 * Parses a command line with a generated parser, and with the handler it
+	 * creates, and asserts that the results are the same.
+	 */
+	private void compareParsers(Class<?> parser, String[] args)
+			throws Exception {
+		String label = Arrays.toString(args);
+		Object generated = null;
+		CmdLineException error = null;
+		try {
+			generated = parse(parser, args);
+		} catch (CmdLineException e) {
+			error = e;
+		}
+		CmdLineHandler handler = (CmdLineHandler) parser.getMethod(
+				"createHandler").invoke(null);
+		handler.setDieOnParseError(false);
+		if (handler.parse(args)) {
+			assertNull(label + ": " + error, error);
+			Object viaHandler = parser.getMethod("getOptions",
+					CmdLineHandler.class).invoke(null, handler);
+			assertEquals(label, viaHandler.toString(), generated.toString());
+		} else {
+			assertNotNull(label + " parsed by the generated parser only", error);
+			String expected = handler.getParseError();
+			assertTrue(label + ": " + expected + " / " + error.getMessage(),
+					expected.startsWith(error.getMessage()));
+		}
+	}
+
+	/**
+	 * Parses a command line with a generated parser.
+	 */
+	private static Object parse(Class<?> parser, String... args)
+			throws Exception {
+		Method parse = parser.getMethod("parse", String[].class);
+		try {
+			return parse.invoke(null, new Object[] { args });
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof CmdLineException) {
+				throw (CmdLineException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Compiles a source file with the processor.
+	 *
+	 * @param className
+	 *            the name of the class in the file
+	 * @param source
+	 *            the source
+	 * @return the result of the compilation
+	 */
+	private Compilation compile(String className, String source)
+			throws IOException {
+		Path dir = Files.createTempDirectory("jcmdline-processor");
+		dirs.add(dir);
+		Path file = dir.resolve(className.replace('.', File.separatorChar)
+				+ ".java");
+		Files.createDirectories(file.getParent());
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager files = javac.getStandardFileManager(
+				diagnostics, null, StandardCharsets.UTF_8);
+		try {
+			List<String> options = Arrays.asList("-d", dir.toString(), "-s",
+					dir.toString(), "-classpath", System
+							.getProperty("java.class.path"));
+			JavaCompiler.CompilationTask task = javac.getTask(null, files,
+					diagnostics, options, null, files.getJavaFileObjects(file
+							.toFile()));
+			task.setProcessors(Collections
+					.singletonList(new CmdLineProcessor()));
+			task.call();
+		} finally {
+			files.close();
+		}
+		return new Compilation(dir, diagnostics.getDiagnostics());
+	}
+
+	/**
+	 * The result of compiling a source file.
+	 */
+	private static class Compilation {
+
+		private final Path dir;
+
+		private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+		Compilation(Path dir,
+				List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+			this.dir = dir;
+			this.diagnostics = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+			for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+				if (d.getKind() == Diagnostic.Kind.ERROR
+						|| d.getKind() == Diagnostic.Kind.WARNING) {
+					this.diagnostics.add(d);
+				}
+			}
+		}
+
+		int count(Diagnostic.Kind kind) {
+			int n = 0;
+			for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+				if (d.getKind() == kind) {
+					n++;
+				}
+			}
+			return n;
+		}
+
+		String errors() {
+			StringBuilder sb = new StringBuilder();
+			for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+				if (d.getKind() == Diagnostic.Kind.ERROR) {
+					sb.append(d.getMessage(null)).append('\n');
+				}
+			}
+			return sb.toString();
+		}
+
+		Class<?> load(String name) throws Exception {
+			URLClassLoader loader = new URLClassLoader(new URL[] { dir
+					.toUri().toURL() }, CmdLineProcessorTest.class
+					.getClassLoader());
+			return loader.loadClass(name);
+		}
+	}
+}
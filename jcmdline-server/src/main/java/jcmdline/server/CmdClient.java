@@ -0,0 +1,171 @@
+/*
+ * CmdClient.java
+ *
+ * Classes:
+ *   public   CmdClient
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+
+/**
+ * Runs a command hosted by a {@link CmdServer}.
+ * <P>
+ * As a program, CmdClient is a launcher standing in for the command itself:
+ * 
+ * <pre>
+ * java -cp jcmdline.jar:jcmdline-server.jar jcmdline.server.CmdClient /tmp/mytools.sock kindagrep -ignoreCase foo *.txt
+ * </pre>
+ * 
+ * It passes its remaining arguments, working directory and environment to
+ * the server, copies the command's output to its own stdout and stderr, and
+ * exits with the command's exit status. Its own arguments are positional,
+ * so that every option following the command name belongs to the command.
+ * <P>
+ * The launcher still starts a JVM, though one that loads only a handful of
+ * classes. Where even that is too slow, any client that speaks the protocol
+ * described in <code>Protocol.java</code> may be used in its place.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdServer
+ */
+public final class CmdClient {
+
+	/**
+	 * exit status when the server can't be reached, or the connection fails
+	 */
+	public static final int EXIT_UNAVAILABLE = 69;
+
+	/**
+	 * exit status on a usage error
+	 */
+	public static final int EXIT_USAGE = 64;
+
+	private CmdClient() {
+	}
+
+	/**
+	 * Runs a command.
+	 * 
+	 * @param socket
+	 *            the path of the server's socket
+	 * @param command
+	 *            the name of the command
+	 * @param args
+	 *            the command line arguments
+	 * @param cwd
+	 *            the working directory
+	 * @param env
+	 *            the environment
+	 * @param out
+	 *            receives the command's stdout
+	 * @param err
+	 *            receives the command's stderr
+	 * @return the command's exit status
+	 * @throws IOException
+	 *             if the server can't be reached, or the connection fails
+	 *             before the command's exit status is received
+	 */
+	public static int run(Path socket, String command, String[] args,
+			String cwd, Map<String, String> env, OutputStream out,
+			OutputStream err) throws IOException {
+		try (SocketChannel ch = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			ch.connect(UnixDomainSocketAddress.of(socket));
+			Protocol.writeRequest(new DataOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(ch))),
+					command, cwd, args, env);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					Channels.newInputStream(ch)));
+			byte[] buf = new byte[8192];
+			while (true) {
+				int type = in.readByte();
+				int len = in.readInt();
+				if (type == Protocol.EXIT) {
+					int status = in.readInt();
+					out.flush();
+					err.flush();
+					return status;
+				}
+				if (len < 0) {
+					throw new EOFException();
+				}
+				OutputStream dest = (type == Protocol.ERR) ? err : out;
+				while (len > 0) {
+					int n = Math.min(len, buf.length);
+					in.readFully(buf, 0, n);
+					dest.write(buf, 0, n);
+					len -= n;
+				}
+				// keep interactive output, and the stderr/stdout order, timely
+				dest.flush();
+			}
+		}
+	}
+
+	/**
+	 * Runs a command, using this process's working directory and environment
+	 * and standard streams, and exits with the command's exit status.
+	 * 
+	 * @param args
+	 *            the path of the server's socket, followed by the command
+	 *            name and its arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println(Strings.get("CmdClient.usage"));
+			System.exit(EXIT_USAGE);
+		}
+		int status;
+		try {
+			status = run(Paths.get(args[0]), args[1], Arrays.copyOfRange(args,
+					2, args.length), System.getProperty("user.dir"), System
+					.getenv(), System.out, System.err);
+		} catch (IOException e) {
+			System.err.println(Strings.get("CmdClient.connectError",
+					new Object[] { args[0], e.toString() }));
+			status = EXIT_UNAVAILABLE;
+		}
+		System.exit(status);
+	}
+}
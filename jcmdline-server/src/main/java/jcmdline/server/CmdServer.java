@@ -0,0 +1,513 @@
+/*
+ * CmdServer.java
+ *
+ * Classes:
+ *   public   CmdServer
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jcmdline.CmdLineHandler;
+import jcmdline.CmdLineHandlerPool;
+import jcmdline.ConfigurableCmdLineHandler;
+
+/**
+ * Hosts jcmdline commands in a long-running JVM, so that running a command
+ * costs a socket round trip rather than a JVM start.
+ * <P>
+ * Commands are {@link #register(String, Command) registered} by name. A
+ * client, typically {@link CmdClient}, connects to the server's Unix domain
+ * socket and sends the name of a command with its arguments, working
+ * directory and environment. The server parses the arguments with a pooled,
+ * {@link ConfigurableCmdLineHandler#setInProcess(boolean) in-process} handler,
+ * runs the command, and streams its stdout and stderr back to the client,
+ * followed by its exit status. Requests for the usage, help, or version, and
+ * command line errors, are handled exactly as in a stand-alone program, but
+ * end the request rather than the JVM.
+ * <P>
+ * Each request runs on a thread of the server's ExecutorService. Admission
+ * is limited by a count of concurrently running requests: once the limit is
+ * reached the server stops accepting connections, leaving new clients
+ * queued by the operating system, and a client that has waited longer than
+ * the admission timeout is told the server is busy, with exit status
+ * {@link #EXIT_BUSY}.
+ * <P>
+ * Sample usage:
+ * 
+ * <pre>
+ * CmdServer server = new CmdServer(Paths.get(&quot;/tmp/mytools.sock&quot;));
+ * server.register(&quot;kindagrep&quot;, new KindaGrepCommand());
+ * server.start();
+ * </pre>
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdClient
+ */
+public class CmdServer implements AutoCloseable {
+
+	/**
+	 * exit status when a command fails with an exception
+	 */
+	public static final int EXIT_SOFTWARE = 70;
+
+	/**
+	 * exit status when the server is too busy to run a command
+	 */
+	public static final int EXIT_BUSY = 75;
+
+	/**
+	 * exit status when the command is not registered
+	 */
+	public static final int EXIT_NOT_FOUND = 127;
+
+	/**
+	 * the default maximum number of concurrently running requests
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 64;
+
+	/**
+	 * the default time, in milliseconds, a connection may wait for admission
+	 */
+	public static final long DEFAULT_ADMISSION_TIMEOUT = 5000;
+
+	/**
+	 * how long to wait for admission
+	 */
+	private final long admissionTimeout;
+
+	/**
+	 * the executor on which requests are run
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * indicates that the executor was created by, and is shut down by, this
+	 * server
+	 */
+	private final boolean ownExecutor;
+
+	/**
+	 * the handler pools of the registered commands, keyed by command name
+	 */
+	private final ConcurrentHashMap<String, Registration> commands = new ConcurrentHashMap<String, Registration>();
+
+	/**
+	 * permits for running requests
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * the path of the socket
+	 */
+	private final Path socketPath;
+
+	/**
+	 * the thread accepting connections, or null if not started
+	 */
+	private Thread acceptor;
+
+	/**
+	 * the server's socket, or null if not started
+	 */
+	private volatile ServerSocketChannel server;
+
+	/**
+	 * constructor - uses a cached thread pool, and the default admission
+	 * limits
+	 * 
+	 * @param socketPath
+	 *            the path at which the server's socket is to be created
+	 */
+	public CmdServer(Path socketPath) {
+		this(socketPath, null, DEFAULT_MAX_CONCURRENT,
+				DEFAULT_ADMISSION_TIMEOUT);
+	}
+
+	/**
+	 * constructor
+	 * 
+	 * @param socketPath
+	 *            the path at which the server's socket is to be created
+	 * @param executor
+	 *            the executor on which requests are to be run - for example,
+	 *            <code>Executors.newVirtualThreadPerTaskExecutor()</code> on
+	 *            JVMs that support virtual threads. If null, a cached thread
+	 *            pool of daemon threads is used. An executor supplied by the
+	 *            caller is not shut down by {@link #close()}.
+	 * @param maxConcurrent
+	 *            the maximum number of requests that may run at once
+	 * @param admissionTimeout
+	 *            how long, in milliseconds, a connection may wait for a
+	 *            running request to finish before being refused
+	 * @throws IllegalArgumentException
+	 *             if <code>socketPath</code> is null, or
+	 *             <code>maxConcurrent</code> is less than 1
+	 */
+	public CmdServer(Path socketPath, ExecutorService executor,
+			int maxConcurrent, long admissionTimeout) {
+		if (socketPath == null) {
+			throw new IllegalArgumentException(Strings
+					.get("CmdServer.nullSocketPath"));
+		}
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException(Strings.get(
+					"CmdServer.badMaxConcurrent", new Object[] { Integer
+							.toString(maxConcurrent) }));
+		}
+		this.socketPath = socketPath;
+		this.ownExecutor = (executor == null);
+		this.executor = ownExecutor ? Executors
+				.newCachedThreadPool(new DaemonThreadFactory()) : executor;
+		this.permits = new Semaphore(maxConcurrent);
+		this.admissionTimeout = admissionTimeout;
+	}
+
+	/**
+	 * Registers a command. A command registered under the name of an
+	 * existing command replaces it.
+	 * 
+	 * @param name
+	 *            the name by which clients request the command
+	 * @param command
+	 *            the command
+	 * @throws IllegalArgumentException
+	 *             if either parameter is null
+	 */
+	public void register(String name, Command command) {
+		if (name == null || command == null) {
+			throw new IllegalArgumentException(Strings
+					.get("CmdServer.nullCommand"));
+		}
+		commands.put(name, new Registration(command));
+	}
+
+	/**
+	 * Creates the server's socket, and starts accepting connections on a
+	 * background thread. A socket left at the socket path by a server that is
+	 * no longer running is deleted.
+	 * 
+	 * @throws IOException
+	 *             if the socket can't be created, if some other file is at
+	 *             the socket path, or if another server is listening on it
+	 * @throws IllegalStateException
+	 *             if the server has already been started
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			throw new IllegalStateException(Strings
+					.get("CmdServer.alreadyStarted"));
+		}
+		deleteStaleSocket();
+		ServerSocketChannel ch = ServerSocketChannel
+				.open(StandardProtocolFamily.UNIX);
+		ch.bind(UnixDomainSocketAddress.of(socketPath));
+		server = ch;
+		acceptor = new Thread(new Runnable() {
+			public void run() {
+				acceptLoop();
+			}
+		}, "jcmdline-server-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Deletes the socket at the socket path, if there is one that no server is
+	 * listening on.
+	 * 
+	 * @throws IOException
+	 *             if some other file is at the socket path, or if another
+	 *             server is listening on it
+	 */
+	private void deleteStaleSocket() throws IOException {
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(socketPath, BasicFileAttributes.class,
+					LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException e) {
+			return;
+		}
+		if (!attrs.isOther()) {
+			throw new FileAlreadyExistsException(socketPath.toString(), null,
+					Strings.get("CmdServer.notSocket", new Object[] { socketPath
+							.toString() }));
+		}
+		try {
+			SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+		} catch (IOException e) {
+			// no server is listening - the socket is stale
+			Files.delete(socketPath);
+			return;
+		}
+		throw new IOException(Strings.get("CmdServer.socketInUse",
+				new Object[] { socketPath.toString() }));
+	}
+
+	/**
+	 * Stops accepting connections and deletes the socket. Requests already
+	 * running are allowed to finish.
+	 */
+	public synchronized void close() {
+		ServerSocketChannel ch = server;
+		server = null;
+		if (ch != null) {
+			try {
+				ch.close();
+			} catch (IOException e) {
+				// nothing more can be done
+			}
+			try {
+				Files.deleteIfExists(socketPath);
+			} catch (IOException e) {
+				// nothing more can be done
+			}
+		}
+		if (ownExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Gets the path of the server's socket.
+	 * 
+	 * @return the path of the server's socket
+	 */
+	public Path getSocketPath() {
+		return socketPath;
+	}
+
+	/**
+	 * Accepts connections until the server is closed. A permit is obtained
+	 * before each connection is handed to the executor, so that when the
+	 * server is at its limit, waiting connections back up into the socket's
+	 * listen queue.
+	 */
+	private void acceptLoop() {
+		while (true) {
+			ServerSocketChannel ch = server;
+			if (ch == null) {
+				return;
+			}
+			final SocketChannel client;
+			try {
+				client = ch.accept();
+			} catch (IOException e) {
+				// closed, or a transient failure
+				continue;
+			}
+			boolean admitted;
+			try {
+				admitted = permits.tryAcquire(admissionTimeout,
+						TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				closeQuietly(client);
+				return;
+			}
+			if (!admitted) {
+				refuse(client, EXIT_BUSY, Strings.get("CmdServer.busy"));
+				continue;
+			}
+			try {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							serve(client);
+						} finally {
+							permits.release();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				permits.release();
+				refuse(client, EXIT_BUSY, Strings.get("CmdServer.busy"));
+			}
+		}
+	}
+
+	/**
+	 * Runs one request.
+	 * 
+	 * @param client
+	 *            the client's connection
+	 */
+	private void serve(SocketChannel client) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					Channels.newInputStream(client)));
+			Protocol.FrameWriter frames = new Protocol.FrameWriter(
+					new DataOutputStream(new BufferedOutputStream(Channels
+							.newOutputStream(client))));
+			Protocol.Request req = Protocol.readRequest(in);
+			PrintStream out = new PrintStream(frames.stream(Protocol.OUT),
+					true, StandardCharsets.UTF_8);
+			PrintStream err = new PrintStream(frames.stream(Protocol.ERR),
+					true, StandardCharsets.UTF_8);
+			int status = run(req, out, err);
+			out.flush();
+			err.flush();
+			frames.writeExit(status);
+		} catch (IOException e) {
+			// the client has gone away, or sent a bad request
+		} finally {
+			closeQuietly(client);
+		}
+	}
+
+	/**
+	 * Parses the command line of a request and runs its command.
+	 * 
+	 * @return the command's exit status
+	 */
+	private int run(Protocol.Request req, PrintStream out, PrintStream err) {
+		Registration reg = commands.get(req.command);
+		if (reg == null) {
+			err.println(Strings.get("CmdServer.unknownCommand",
+					new Object[] { req.command }));
+			return EXIT_NOT_FOUND;
+		}
+		CmdLineHandler cl;
+		try {
+			cl = reg.pool.acquire();
+		} catch (RuntimeException e) {
+			e.printStackTrace(err);
+			return EXIT_SOFTWARE;
+		}
+		ConfigurableCmdLineHandler ccl = null;
+		try {
+			if (!(cl instanceof ConfigurableCmdLineHandler)) {
+				err.println(Strings.get("CmdServer.notConfigurable",
+						new Object[] { req.command, cl.getClass().getName() }));
+				return EXIT_SOFTWARE;
+			}
+			((ConfigurableCmdLineHandler) cl).setInProcess(true);
+			((ConfigurableCmdLineHandler) cl).setOut(out);
+			((ConfigurableCmdLineHandler) cl).setErr(err);
+			ccl = (ConfigurableCmdLineHandler) cl;
+			if (!cl.parse(req.args)) {
+				return cl.getOutcome().getExitCode();
+			}
+			return reg.command.run(cl, new CommandContext(new File(req.cwd),
+					req.env, out, err));
+		} catch (Exception e) {
+			e.printStackTrace(err);
+			return EXIT_SOFTWARE;
+		} finally {
+			if (ccl != null) {
+				// don't hold on to this client's streams
+				ccl.setOut(null);
+				ccl.setErr(null);
+			}
+			reg.pool.release(cl);
+		}
+	}
+
+	/**
+	 * Sends a client an error and exit status without running its request.
+	 */
+	private void refuse(SocketChannel client, int status, String msg) {
+		try {
+			Protocol.FrameWriter frames = new Protocol.FrameWriter(
+					new DataOutputStream(Channels.newOutputStream(client)));
+			PrintStream err = new PrintStream(frames.stream(Protocol.ERR),
+					true, StandardCharsets.UTF_8);
+			err.println(msg);
+			frames.writeExit(status);
+		} catch (IOException e) {
+			// the client has gone away
+		} finally {
+			closeQuietly(client);
+		}
+	}
+
+	private static void closeQuietly(SocketChannel ch) {
+		try {
+			ch.close();
+		} catch (IOException e) {
+			// nothing more can be done
+		}
+	}
+
+	/**
+	 * A registered command and its handler pool.
+	 */
+	private static final class Registration {
+		final Command command;
+		final CmdLineHandlerPool pool;
+
+		Registration(final Command command) {
+			this.command = command;
+			this.pool = new CmdLineHandlerPool(new CmdLineHandlerPool.Factory() {
+				public CmdLineHandler createHandler() {
+					return command.createHandler();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Creates the daemon threads of the default executor.
+	 */
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jcmdline-server-"
+					+ count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Command.java
+ *
+ * Classes:
+ *   public   Command
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import jcmdline.CmdLineHandler;
+
+/**
+ * A command hosted by a {@link CmdServer}.
+ * <P>
+ * A command supplies the CmdLineHandler that defines its command line, and
+ * the code to be run once the command line has been parsed - what would
+ * follow the call to <code>parse()</code> in a stand-alone program's
+ * <code>main()</code>. Handlers are pooled by the server, so
+ * {@link #createHandler()} is called only when no idle handler is available.
+ * <P>
+ * Commands run in a JVM shared with other commands and must not call
+ * <code>System.exit()</code>, change the JVM's system properties, or write
+ * to <code>System.out</code> or <code>System.err</code> - output goes to the
+ * streams of the {@link CommandContext}, and the exit status is returned.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdServer#register(String, Command)
+ */
+public interface Command {
+
+	/**
+	 * Creates a new CmdLineHandler for this command. Each call must return a
+	 * new handler whose Parameters are not shared with any other handler.
+	 * The handler must be a {@link jcmdline.ConfigurableCmdLineHandler}, as
+	 * are the handlers of the jcmdline package, so that the server can run
+	 * it in process - a request for a command whose handler is not fails
+	 * with exit status {@link CmdServer#EXIT_SOFTWARE}.
+	 * 
+	 * @return the new CmdLineHandler
+	 * @see jcmdline.CmdLineHandlerPool.Factory
+	 */
+	public CmdLineHandler createHandler();
+
+	/**
+	 * Runs the command, following a successful parse of its command line.
+	 * Parameter values are obtained from <code>handler</code>, using
+	 * <code>getOption()</code> and <code>getArg()</code>.
+	 * 
+	 * @param handler
+	 *            the handler that parsed the command line
+	 * @param context
+	 *            the client's working directory, environment, and output
+	 *            streams
+	 * @return the command's exit status
+	 * @throws Exception
+	 *             if the command fails - the exception is reported to the
+	 *             client, and the command exits with status
+	 *             {@link CmdServer#EXIT_SOFTWARE}
+	 */
+	public int run(CmdLineHandler handler, CommandContext context)
+			throws Exception;
+}
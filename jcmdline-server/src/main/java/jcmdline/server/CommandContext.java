@@ -0,0 +1,144 @@
+/*
+ * CommandContext.java
+ *
+ * Classes:
+ *   public   CommandContext
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * The environment of a command run by a {@link CmdServer} on behalf of a
+ * client.
+ * <P>
+ * The server's JVM has a single working directory and environment, shared by
+ * all of the commands it runs, so the client's are supplied here instead.
+ * Note that Parameters such as {@link jcmdline.FileParam} validate relative
+ * paths against the <i>server's</i> working directory; clients should pass
+ * absolute paths, or commands should use {@link #resolve(String)}.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see Command#run(jcmdline.CmdLineHandler, CommandContext)
+ */
+public class CommandContext {
+
+	/**
+	 * the client's working directory
+	 */
+	private final File cwd;
+
+	/**
+	 * the client's environment
+	 */
+	private final Map<String, String> env;
+
+	/**
+	 * the stream to which error output is written
+	 */
+	private final PrintStream err;
+
+	/**
+	 * the stream to which output is written
+	 */
+	private final PrintStream out;
+
+	/**
+	 * constructor
+	 * 
+	 * @param cwd
+	 *            the client's working directory
+	 * @param env
+	 *            the client's environment
+	 * @param out
+	 *            the stream to which output is written
+	 * @param err
+	 *            the stream to which error output is written
+	 */
+	public CommandContext(File cwd, Map<String, String> env, PrintStream out,
+			PrintStream err) {
+		this.cwd = cwd;
+		this.env = env;
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Gets the client's working directory.
+	 * 
+	 * @return the client's working directory
+	 */
+	public File getCwd() {
+		return cwd;
+	}
+
+	/**
+	 * Gets the client's environment.
+	 * 
+	 * @return the client's environment, as an unmodifiable Map
+	 */
+	public Map<String, String> getEnv() {
+		return env;
+	}
+
+	/**
+	 * Gets the stream to which error output is written. Output is sent to
+	 * the client's stderr.
+	 * 
+	 * @return the error stream
+	 */
+	public PrintStream getErr() {
+		return err;
+	}
+
+	/**
+	 * Gets the stream to which output is written. Output is sent to the
+	 * client's stdout.
+	 * 
+	 * @return the output stream
+	 */
+	public PrintStream getOut() {
+		return out;
+	}
+
+	/**
+	 * Resolves a path against the client's working directory.
+	 * 
+	 * @param path
+	 *            a path, as specified by the client
+	 * @return <code>path</code>, if absolute, otherwise <code>path</code>
+	 *         relative to the client's working directory
+	 */
+	public File resolve(String path) {
+		File f = new File(path);
+		return f.isAbsolute() ? f : new File(cwd, path);
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Protocol.java
+ *
+ * Classes:
+ *   package  Protocol
+ *   package  Protocol.Request
+ *   package  Protocol.FrameWriter
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The wire format used between a {@link CmdClient} and a {@link CmdServer}.
+ * All integers are big-endian, and all strings are sent as an int length
+ * followed by that many bytes of UTF-8.
+ * <P>
+ * The client sends one request:
+ * 
+ * <pre>
+ * int      MAGIC
+ * int      VERSION
+ * string   command name
+ * string   working directory
+ * int      argument count, followed by that many strings
+ * int      environment entry count, followed by that many name/value string pairs
+ * </pre>
+ * 
+ * The server replies with a sequence of frames, each a type byte followed by
+ * an int length and that many bytes. {@link #OUT} and {@link #ERR} frames
+ * carry output for the client's stdout and stderr. A final {@link #EXIT}
+ * frame carries the exit status as a 4-byte int, after which the server
+ * closes the connection.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+final class Protocol {
+
+	/**
+	 * identifies a jcmdline request - "jcmd"
+	 */
+	static final int MAGIC = 0x6a636d64;
+
+	/**
+	 * the protocol version
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * frame type - output for the client's stdout
+	 */
+	static final int OUT = 1;
+
+	/**
+	 * frame type - output for the client's stderr
+	 */
+	static final int ERR = 2;
+
+	/**
+	 * frame type - the exit status, ending the reply
+	 */
+	static final int EXIT = 3;
+
+	/**
+	 * the longest string accepted, in bytes
+	 */
+	static final int MAX_STRING = 1 << 20;
+
+	/**
+	 * the most arguments, or environment entries, accepted
+	 */
+	static final int MAX_COUNT = 1 << 16;
+
+	private Protocol() {
+	}
+
+	/**
+	 * A request read from a client.
+	 */
+	static final class Request {
+		final String command;
+		final String cwd;
+		final String[] args;
+		final Map<String, String> env;
+
+		Request(String command, String cwd, String[] args,
+				Map<String, String> env) {
+			this.command = command;
+			this.cwd = cwd;
+			this.args = args;
+			this.env = env;
+		}
+	}
+
+	/**
+	 * Writes a request.
+	 * 
+	 * @param out
+	 *            the stream to the server
+	 * @param command
+	 *            the name of the command to be run
+	 * @param cwd
+	 *            the client's working directory
+	 * @param args
+	 *            the command line arguments
+	 * @param env
+	 *            the client's environment
+	 * @throws IOException
+	 *             if the request can't be written
+	 */
+	static void writeRequest(DataOutputStream out, String command,
+			String cwd, String[] args, Map<String, String> env)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeString(out, command);
+		writeString(out, cwd);
+		out.writeInt(args.length);
+		for (String arg : args) {
+			writeString(out, arg);
+		}
+		out.writeInt(env.size());
+		for (Map.Entry<String, String> e : env.entrySet()) {
+			writeString(out, e.getKey());
+			writeString(out, e.getValue());
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a request.
+	 * 
+	 * @param in
+	 *            the stream from the client
+	 * @return the request
+	 * @throws IOException
+	 *             if the request can't be read, or is malformed
+	 */
+	static Request readRequest(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException(Strings.get("Protocol.badMagic"));
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException(Strings.get("Protocol.badVersion",
+					new Object[] { Integer.toString(version) }));
+		}
+		String command = readString(in);
+		String cwd = readString(in);
+		String[] args = new String[readCount(in)];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = readString(in);
+		}
+		int n = readCount(in);
+		Map<String, String> env = new LinkedHashMap<String, String>();
+		for (int i = 0; i < n; i++) {
+			env.put(readString(in), readString(in));
+		}
+		return new Request(command, cwd, args, Collections
+				.unmodifiableMap(env));
+	}
+
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int len = in.readInt();
+		if (len < 0 || len > MAX_STRING) {
+			throw new IOException(Strings.get("Protocol.badLength",
+					new Object[] { Integer.toString(len) }));
+		}
+		byte[] b = new byte[len];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static int readCount(DataInputStream in) throws IOException {
+		int n = in.readInt();
+		if (n < 0 || n > MAX_COUNT) {
+			throw new IOException(Strings.get("Protocol.badLength",
+					new Object[] { Integer.toString(n) }));
+		}
+		return n;
+	}
+
+	/**
+	 * Writes reply frames to a client. Output written to the streams
+	 * returned by {@link #stream(int)} is buffered, and sent as a frame when
+	 * the stream is flushed or its buffer fills. Frames from the two streams
+	 * are never interleaved.
+	 */
+	static final class FrameWriter {
+
+		private final DataOutputStream out;
+
+		FrameWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Gets a stream whose output is sent in frames of the specified
+		 * type.
+		 * 
+		 * @param type
+		 *            {@link Protocol#OUT} or {@link Protocol#ERR}
+		 * @return the stream
+		 */
+		OutputStream stream(final int type) {
+			return new OutputStream() {
+				private final byte[] buf = new byte[8192];
+				private int count;
+
+				@Override
+				public void write(int b) throws IOException {
+					if (count == buf.length) {
+						flush();
+					}
+					buf[count++] = (byte) b;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len)
+						throws IOException {
+					if (len > buf.length - count) {
+						flush();
+						if (len > buf.length) {
+							writeFrame(type, b, off, len);
+							return;
+						}
+					}
+					System.arraycopy(b, off, buf, count, len);
+					count += len;
+				}
+
+				@Override
+				public void flush() throws IOException {
+					if (count > 0) {
+						writeFrame(type, buf, 0, count);
+						count = 0;
+					}
+				}
+			};
+		}
+
+		/**
+		 * Writes the final frame of a reply.
+		 * 
+		 * @param status
+		 *            the exit status
+		 * @throws IOException
+		 *             if the frame can't be written
+		 */
+		synchronized void writeExit(int status) throws IOException {
+			out.writeByte(EXIT);
+			out.writeInt(4);
+			out.writeInt(status);
+			out.flush();
+		}
+
+		private synchronized void writeFrame(int type, byte[] b, int off,
+				int len) throws IOException {
+			out.writeByte(type);
+			out.writeInt(len);
+			out.write(b, off, len);
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Strings.java
+ *
+ * Classes:
+ *            Strings
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+
+package jcmdline.server;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+/**
+ * A helper class used to obtain Strings for this package. Strings are
+ * retrieved from the ResourceBundle in "jcmdline.server.strings", which may
+ * be localized as necessary, for the locale returned by
+ * {@link jcmdline.Strings#getLocale()}.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see jcmdline.Strings
+ */
+final class Strings {
+
+	/**
+	 * the base name of the ResourceBundle
+	 */
+	private static final String BUNDLE = "jcmdline.server.strings";
+
+	/**
+	 * constructor - not used
+	 */
+	private Strings() {
+	}
+
+	/**
+	 * Gets a String.
+	 * 
+	 * @param key
+	 *            the key with which to look up the String in the ResourceBundle
+	 * @return The String associated with <code>key</code>. Should
+	 *         <code>key</code> not exist in the ResourceBundle, a String
+	 *         consisting of the key is returned.
+	 */
+	static String get(String key) {
+		try {
+			return bundle(jcmdline.Strings.getLocale()).getString(key);
+		} catch (MissingResourceException e) {
+			return missingKey(key);
+		}
+	}
+
+	/**
+	 * Gets a String, filling in the supplied parameters.
+	 * 
+	 * @param key
+	 *            the key with which to look up the String in the ResourceBundle
+	 * @param params
+	 *            parameters to be plugged into the String
+	 * @return The String associated with <code>key</code>, with the supplied
+	 *         <code>params</code> plugged in as described for
+	 *         <code>java.text.MessageFormat</code>. Should <code>key</code> not
+	 *         exist in the ResourceBundle, a String containing the key is
+	 *         returned.
+	 * @see java.text.MessageFormat
+	 */
+	static String get(String key, Object[] params) {
+		Locale locale = jcmdline.Strings.getLocale();
+		try {
+			return new MessageFormat(bundle(locale).getString(key), locale)
+					.format(params);
+		} catch (MissingResourceException e) {
+			return missingKey(key);
+		}
+	}
+
+	/**
+	 * Gets the ResourceBundle for a locale. The default locale is not used as
+	 * a fallback, as it is not by jcmdline.Strings.
+	 */
+	private static ResourceBundle bundle(Locale locale) {
+		return ResourceBundle.getBundle(BUNDLE, locale, ResourceBundle.Control
+				.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+	}
+
+	/**
+	 * Gets the String returned for a key that is not defined.
+	 */
+	private static String missingKey(String key) {
+		return jcmdline.Strings.get("Strings.missingKey") + " " + key;
+	}
+}
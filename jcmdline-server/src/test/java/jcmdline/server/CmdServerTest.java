@@ -0,0 +1,280 @@
+/*
+ * CmdServerTest.java
+ *
+ * Classes:
+ *   public   CmdServerTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jcmdline.CmdLineHandler;
+import jcmdline.HelpCmdLineHandler;
+import junit.framework.TestCase;
+
+/**
+ * Unit test code for CmdServer and CmdClient
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class CmdServerTest extends TestCase {
+
+	private Path dir;
+
+	private CmdServer server;
+
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	private ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	/**
+	 * constructor takes name of test method
+	 * 
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public CmdServerTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Starts a server with the echo command registered
+	 */
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("jcmdline");
+		server = new CmdServer(dir.resolve("test.sock"));
+		server.register("echo", new EchoCommand());
+		server.start();
+	}
+
+	/**
+	 * Stops the server
+	 */
+	public void tearDown() throws Exception {
+		server.close();
+		Files.deleteIfExists(dir);
+	}
+
+	/**
+	 * Tests a command's output and exit status
+	 */
+	public void testRun() throws Exception {
+		assertEquals("wrong exit status", 3, run("echo", "-status", "3",
+				"hello", "wörld"));
+		assertEquals("wrong output", "hello wörld\n", out.toString("UTF-8"));
+		assertEquals("unexpected error output", "", err.toString("UTF-8"));
+		out.reset();
+		assertEquals("wrong exit status", 0, run("echo", "-stderr", "oops"));
+		assertEquals("wrong error output", "oops\n", err.toString("UTF-8"));
+	}
+
+	/**
+	 * Tests that a pooled handler is reset between requests
+	 */
+	public void testHandlerReused() throws Exception {
+		assertEquals("wrong exit status", 5, run("echo", "-status", "5", "a"));
+		out.reset();
+		assertEquals("option retained by pooled handler", 0, run("echo", "b"));
+		assertEquals("argument retained by pooled handler", "b\n", out
+				.toString("UTF-8"));
+	}
+
+	/**
+	 * Tests that help, command line errors, unknown commands and failing
+	 * commands end the request, not the server
+	 */
+	public void testExits() throws Exception {
+		assertEquals("wrong exit status for help", 0, run("echo", "-help"));
+		assertTrue("help not written", out.toString("UTF-8").indexOf(
+				"Prints its arguments.") != -1);
+		assertEquals("wrong exit status for bad option", 1, run("echo",
+				"-bogus"));
+		assertTrue("usage not written", err.toString("UTF-8").indexOf(
+				"bogus") != -1);
+		assertEquals("wrong exit status for unknown command",
+				CmdServer.EXIT_NOT_FOUND, run("nosuchcommand"));
+		assertEquals("wrong exit status for failing command",
+				CmdServer.EXIT_SOFTWARE, run("echo", "-fail"));
+		assertTrue("exception not reported", err.toString("UTF-8").indexOf(
+				"failed as requested") != -1);
+		assertEquals("server unusable after errors", 0, run("echo", "x"));
+	}
+
+	/**
+	 * Tests that a command whose handler cannot be run in process fails the
+	 * request, not the server
+	 */
+	public void testNotConfigurable() throws Exception {
+		server.register("external", new EchoCommand() {
+			@Override
+			public CmdLineHandler createHandler() {
+				return external(super.createHandler());
+			}
+		});
+		server.register("decorated", new EchoCommand() {
+			@Override
+			public CmdLineHandler createHandler() {
+				return new HelpCmdLineHandler("help",
+						external(super.createHandler()));
+			}
+		});
+		assertEquals("wrong exit status for external handler",
+				CmdServer.EXIT_SOFTWARE, run("external", "x"));
+		assertTrue("error not reported", err.toString("UTF-8").indexOf(
+				"ConfigurableCmdLineHandler") != -1);
+		assertEquals("wrong exit status for decorated external handler",
+				CmdServer.EXIT_SOFTWARE, run("decorated", "x"));
+		assertEquals("wrong exit status for repeated request",
+				CmdServer.EXIT_SOFTWARE, run("decorated", "x"));
+		assertEquals("server unusable after errors", 0, run("echo", "x"));
+	}
+
+	/**
+	 * Returns a CmdLineHandler, implementing only CmdLineHandler, that
+	 * delegates to <code>handler</code>
+	 */
+	private static CmdLineHandler external(final CmdLineHandler handler) {
+		return (CmdLineHandler) Proxy.newProxyInstance(CmdLineHandler.class
+				.getClassLoader(), new Class<?>[] { CmdLineHandler.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						try {
+							return method.invoke(handler, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+	}
+
+	/**
+	 * Tests that a client is refused when the server is at its limit
+	 */
+	public void testBusy() throws Exception {
+		server.close();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		server = new CmdServer(dir.resolve("busy.sock"), null, 1, 100);
+		server.register("block", new EchoCommand() {
+			@Override
+			public int run(CmdLineHandler cl, CommandContext context) {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return 1;
+				}
+				return 0;
+			}
+		});
+		server.start();
+		Thread blocker = new Thread() {
+			public void run() {
+				try {
+					CmdServerTest.this.run("block");
+				} catch (Exception e) {
+					// reported by the assertions below
+				}
+			}
+		};
+		blocker.start();
+		assertTrue("blocking command not started", started.await(10,
+				TimeUnit.SECONDS));
+		assertEquals("second request admitted", CmdServer.EXIT_BUSY,
+				run("block"));
+		release.countDown();
+		blocker.join();
+	}
+
+	private int run(String command, String... args) throws Exception {
+		return CmdClient.run(server.getSocketPath(), command, args, dir
+				.toString(), Collections.<String, String> emptyMap(), out,
+				err);
+	}
+
+	/**
+	 * Tests that only a stale socket at the socket path is replaced
+	 */
+	public void testSocketPath() throws Exception {
+		Path sock = dir.resolve("test.sock");
+		try {
+			new CmdServer(sock).start();
+			fail("socket of a running server replaced");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().indexOf(
+					sock.toString()) != -1);
+		}
+		assertEquals("running server lost", 0, run("echo", "hi"));
+
+		Path stale = dir.resolve("stale.sock");
+		ServerSocketChannel ch = ServerSocketChannel
+				.open(StandardProtocolFamily.UNIX);
+		ch.bind(UnixDomainSocketAddress.of(stale));
+		ch.close();
+		assertTrue("no stale socket", Files.exists(stale));
+		CmdServer s = new CmdServer(stale);
+		s.start();
+		s.close();
+
+		Path file = dir.resolve("file.sock");
+		Files.write(file, new byte[] { 1 });
+		try {
+			new CmdServer(file).start();
+			fail("file replaced");
+		} catch (FileAlreadyExistsException e) {
+			assertTrue("file deleted", Files.exists(file));
+		}
+		Files.delete(file);
+	}
+
+	/**
+	 * Checks that the output streams are written as UTF-8
+	 */
+	public void testEncoding() throws Exception {
+		run("echo", "日本");
+		assertEquals("wrong output", "日本\n", new String(out
+				.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * EchoCommand.java
+ *
+ * Classes:
+ *   public   EchoCommand
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import jcmdline.BooleanParam;
+import jcmdline.CmdLineHandler;
+import jcmdline.HelpCmdLineHandler;
+import jcmdline.Parameter;
+import jcmdline.StringParam;
+
+/**
+ * A trivial command used by the tests and benchmark - prints its arguments,
+ * and exits with the status given by its <i>-status</i> option.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class EchoCommand implements Command {
+
+	public CmdLineHandler createHandler() {
+		return new HelpCmdLineHandler("Prints its arguments.", "echo",
+				"prints its arguments", new Parameter[] {
+						new StringParam("status", "the exit status"),
+						new BooleanParam("stderr", "print to stderr"),
+						new BooleanParam("fail", "throw an exception") },
+				new Parameter[] { word() });
+	}
+
+	private static StringParam word() {
+		StringParam word = new StringParam("word", "words to print");
+		word.setMultiValued(StringParam.MULTI_VALUED);
+		return word;
+	}
+
+	public int run(CmdLineHandler cl, CommandContext context) {
+		if (((BooleanParam) cl.getOption("fail")).isTrue()) {
+			throw new IllegalStateException("failed as requested");
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Object word : cl.getArg("word").getValues()) {
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(word);
+		}
+		if (((BooleanParam) cl.getOption("stderr")).isTrue()) {
+			context.getErr().println(sb);
+		} else {
+			context.getOut().println(sb);
+		}
+		Parameter<?> status = cl.getOption("status");
+		return status.isSet() ? Integer.parseInt((String) status.getValue())
+				: 0;
+	}
+
+	/**
+	 * Runs the command stand-alone, as a cold-started program would.
+	 */
+	public static void main(String[] args) {
+		EchoCommand cmd = new EchoCommand();
+		CmdLineHandler cl = cmd.createHandler();
+		cl.parse(args);
+		System.exit(cmd.run(cl, new CommandContext(null, System.getenv(),
+				System.out, System.err)));
+	}
+}
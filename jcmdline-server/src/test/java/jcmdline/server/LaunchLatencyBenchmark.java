@@ -0,0 +1,131 @@
+/*
+ * LaunchLatencyBenchmark.java
+ *
+ * Classes:
+ *   public   LaunchLatencyBenchmark
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline.server;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the latency of running a command through a warm
+ * {@link CmdServer} with launching it in a new JVM. Not a unit test - run
+ * with:
+ * 
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes:$JCMDLINE_JAR jcmdline.server.LaunchLatencyBenchmark [runs]
+ * </pre>
+ * 
+ * Three ways of running {@link EchoCommand} are measured:
+ * <ul>
+ * <li><b>cold</b> - <code>java -cp ... EchoCommand</code>, a new JVM per run
+ * <li><b>launcher</b> - <code>java -cp ... CmdClient</code>, a new JVM per
+ * run, but one that only forwards the request to the server
+ * <li><b>socket</b> - the request sent from this JVM, the cost a native
+ * client would see
+ * </ul>
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class LaunchLatencyBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		String java = System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java";
+		String cp = System.getProperty("java.class.path");
+		Path dir = Files.createTempDirectory("jcmdline");
+		Path sock = dir.resolve("bench.sock");
+		try (CmdServer server = new CmdServer(sock)) {
+			server.register("echo", new EchoCommand());
+			server.start();
+
+			long[] cold = new long[runs];
+			long[] launcher = new long[runs];
+			long[] socket = new long[runs * 50];
+			for (int i = 0; i < runs; i++) {
+				cold[i] = exec(java, "-cp", cp, EchoCommand.class.getName(),
+						"hello");
+				launcher[i] = exec(java, "-cp", cp,
+						CmdClient.class.getName(), sock.toString(), "echo",
+						"hello");
+			}
+			OutputStream nul = OutputStream.nullOutputStream();
+			for (int i = 0; i < socket.length; i++) {
+				long start = System.nanoTime();
+				CmdClient.run(sock, "echo", new String[] { "hello" }, dir
+						.toString(), Collections.<String, String> emptyMap(),
+						nul, nul);
+				socket[i] = System.nanoTime() - start;
+			}
+			System.out.println("mode        runs   median ms      p90 ms");
+			report("cold", cold);
+			report("launcher", launcher);
+			report("socket", socket);
+		} finally {
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	/**
+	 * Runs a process to completion.
+	 * 
+	 * @return the elapsed time, in nanoseconds
+	 */
+	private static long exec(String... cmd) throws Exception {
+		List<String> l = new ArrayList<String>(Arrays.asList(cmd));
+		ProcessBuilder pb = new ProcessBuilder(l).redirectOutput(
+				ProcessBuilder.Redirect.DISCARD).redirectError(
+				ProcessBuilder.Redirect.INHERIT);
+		long start = System.nanoTime();
+		int status = pb.start().waitFor();
+		long elapsed = System.nanoTime() - start;
+		if (status != 0) {
+			throw new IllegalStateException(l + " exited with " + status);
+		}
+		return elapsed;
+	}
+
+	private static void report(String mode, long[] times) {
+		long[] t = times.clone();
+		Arrays.sort(t);
+		System.out.println(String.format("%-10s %5d %11.2f %11.2f", mode,
+				t.length, t[t.length / 2] / 1e6, t[(int) (t.length * 0.9)]
+						/ 1e6));
+	}
+}
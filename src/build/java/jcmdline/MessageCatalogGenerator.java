@@ -0,0 +1,172 @@
+/*
+ * MessageCatalogGenerator.java
+ *
+ * Classes:
+ *   public   MessageCatalogGenerator
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Compiles the package's message catalog, <code>strings.properties</code>,
+ * into the Java class <code>jcmdline.MessageCatalog</code>. Compiled, with
+ * {@link MessageTemplate}, and run during the generate-sources phase of the
+ * build:
+ * 
+ * <pre>
+ * java jcmdline.MessageCatalogGenerator strings.properties outputDirectory
+ * </pre>
+ * 
+ * Each message's pattern is split into its literal text and argument indexes
+ * by {@link MessageTemplate#compile(String)}, so that the catalog is split
+ * exactly as a pattern would be at run time. This class is used only by the
+ * build and is not part of the library.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class MessageCatalogGenerator {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: MessageCatalogGenerator "
+					+ "strings.properties outputDirectory");
+			System.exit(1);
+		}
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(args[0])) {
+			props.load(in);
+		}
+		List<String> keys = new ArrayList<String>(new TreeSet<String>(props
+				.stringPropertyNames()));
+		Path out = Paths.get(args[1], "jcmdline", "MessageCatalog.java");
+		Files.createDirectories(out.getParent());
+		try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			generate(w, keys, props);
+		}
+	}
+
+	private static void generate(Writer w, List<String> keys, Properties props)
+			throws IOException {
+		w.write("// Generated from strings.properties by "
+				+ "MessageCatalogGenerator - do not edit.\n\n");
+		w.write("package jcmdline;\n\n");
+		w.write("/**\n * The compiled message catalog.\n *\n"
+				+ " * @see Strings\n */\n");
+		w.write("final class MessageCatalog {\n\n");
+		w.write("\tprivate MessageCatalog() {\n\t}\n\n");
+
+		w.write("\t/**\n\t * Gets the index of a message.\n\t *\n"
+				+ "\t * @return the index, or -1 if there is no such message\n"
+				+ "\t */\n");
+		w.write("\tstatic int indexOf(String key) {\n\t\tswitch (key) {\n");
+		for (int i = 0; i < keys.size(); i++) {
+			w.write("\t\tcase " + quote(keys.get(i)) + ":\n\t\t\treturn " + i
+					+ ";\n");
+		}
+		w.write("\t\tdefault:\n\t\t\treturn -1;\n\t\t}\n\t}\n\n");
+
+		w.write("\t/**\n\t * the unformatted messages\n\t */\n");
+		w.write("\tstatic final String[] TEXT = {\n");
+		for (String key : keys) {
+			w.write("\t\t\t" + quote(props.getProperty(key)) + ",\n");
+		}
+		w.write("\t};\n\n");
+
+		StringBuilder lits = new StringBuilder();
+		StringBuilder ixs = new StringBuilder();
+		for (String key : keys) {
+			MessageTemplate t = MessageTemplate.compile(props.getProperty(key));
+			if (t.getArgs() != null) {
+				lits.append("\t\t\t{ ");
+				for (String s : t.getLiterals()) {
+					lits.append(quote(s)).append(", ");
+				}
+				lits.append("},\n");
+				ixs.append("\t\t\t{ ");
+				for (int ix : t.getArgs()) {
+					ixs.append(ix).append(", ");
+				}
+				ixs.append("},\n");
+			} else {
+				lits.append("\t\t\tnull,\n");
+				ixs.append("\t\t\tnull,\n");
+			}
+		}
+		w.write("\t/**\n\t * the literal text of each message, split around "
+				+ "its arguments\n\t */\n");
+		w.write("\tstatic final String[][] LITERALS = {\n" + lits
+				+ "\t};\n\n");
+		w.write("\t/**\n\t * the argument indexes of each message, or null "
+				+ "if formatted with MessageFormat\n\t */\n");
+		w.write("\tstatic final int[][] ARGS = {\n" + ixs + "\t};\n}\n");
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c > 0x7e) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
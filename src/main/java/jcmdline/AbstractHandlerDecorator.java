@@ -31,8 +31,11 @@
 
 package jcmdline;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * An abstract class implementing the Decorator design pattern for decoration of
@@ -90,8 +93,9 @@ import java.util.List;
  * 	protected boolean processParsedOptions(boolean parseOk) {
  * 		if (parseOk) {
  * 			if (versionOpt.isTrue()) {
- * 				System.out.println(version);
- * 				System.exit(0);
+ * 				getOut().println(version);
+ * 				exit(new ParseOutcome(ParseOutcome.Status.VERSION, 0, null));
+ * 				return false;
  * 			}
  * 		}
  * 		return parseOk;
@@ -102,7 +106,10 @@ import java.util.List;
  * <b>A Note on Option Processing</b>
  * <p>
  * CmdLineHandler decorator classes are particularly useful for options that
- * perform a task and call System.exit(), such as -help or -version options.
+ * perform a task and exit, such as -help or -version options. Such options
+ * should write to {@link #getOut()} and end the program by calling
+ * {@link #exit(ParseOutcome) exit()}, rather than <code>System.exit()</code>,
+ * so that the handler may be run {@link #setInProcess(boolean) in process}.
  * Options such as these should have the <code>
  * ignoreRequired</code> attribute set to
  * <code>true</code>. If not, and the command has required parameters, the
@@ -129,14 +136,14 @@ import java.util.List;
  *    if ((errorMsg = postProcess(myOpt.getValue()) != null) {
  *        // oops - have an error condition
  *        if (getDieOnParseError()) {
+ *            // returns only when running in process
  *            exitUsageError(errorMsg);
- *        } else {
- *            return false;
  *        }
+ *        return false;
  *    }
  * </pre>
  * 
- * <li>If this method does not call <code>System.exit()</code> or return its own
+ * <li>If this method does not call <code>exit()</code> or return its own
  * error, it should always return the parse error that was passed to it.
  * </ul>
  * 
@@ -144,7 +151,8 @@ import java.util.List;
  * @version jcmdline Rel. @VERSION@ $Id: AbstractHandlerDecorator.java,v 1.2
  *          2002/12/07 14:22:06 lglawrence Exp $
  */
-public abstract class AbstractHandlerDecorator implements CmdLineHandler {
+public abstract class AbstractHandlerDecorator implements
+		ConfigurableCmdLineHandler {
 
 	/**
 	 * options specific to a subclass
@@ -181,6 +189,45 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		handler.addArg(arg);
 	}
 
+	/**
+	 * Specifies that, if one Parameter is set, another must also be set. The
+	 * rule is not enforced when a Parameter whose ignoreRequired flag is set
+	 * has been set.
+	 * 
+	 * @param param
+	 *            an option or argument of this command
+	 * @param required
+	 *            an option or argument of this command that must be set
+	 *            whenever <code>param</code> is set
+	 * @throws IllegalArgumentException
+	 *             if either Parameter is not an option or argument of this
+	 *             command
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 */
+	public void addDependency(Parameter<?> param, Parameter<?> required) {
+		configurable(handler).addDependency(param, required);
+	}
+
+	/**
+	 * Specifies a group of Parameters of which no more than one may be set.
+	 * The rule is not enforced when a Parameter whose ignoreRequired flag is
+	 * set has been set.
+	 * 
+	 * @param params
+	 *            options or arguments of this command
+	 * @throws IllegalArgumentException
+	 *             if fewer than two Parameters are specified, or a Parameter
+	 *             is not an option or argument of this command
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 */
+	public void addExclusiveGroup(Parameter<?>[] params) {
+		configurable(handler).addExclusiveGroup(params);
+	}
+
 	/**
 	 * Adds a command line option. If an option with same tag has already been
 	 * added to this CmdLineHandler, this new option will override the old.
@@ -208,6 +255,20 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		handler.exitUsageError(errMsg);
 	}
 
+	/**
+	 * Ends the program with the specified outcome. Normally this calls
+	 * <code>System.exit()</code> with the outcome's exit code, and does not
+	 * return. If this handler is running {@link #setInProcess(boolean) in
+	 * process}, the outcome is recorded, to be returned by
+	 * {@link #getOutcome()}, and this method returns.
+	 * 
+	 * @param outcome
+	 *            how the program ended
+	 */
+	public void exit(ParseOutcome outcome) {
+		handler.exit(outcome);
+	}
+
 	/**
 	 * gets the argument specified by <code>tag</code>
 	 * 
@@ -264,6 +325,27 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return handler.getDieOnParseError();
 	}
 
+	/**
+	 * Gets the stream to which the usage and error messages are written.
+	 * 
+	 * @return the error stream - defaults to the current
+	 *         <code>System.err</code>
+	 * @see #setErr(PrintStream) setErr()
+	 */
+	public PrintStream getErr() {
+		return handler.getErr();
+	}
+
+	/**
+	 * Gets the locale in which this handler's messages are produced.
+	 * 
+	 * @return the locale, or null if the locale of the calling thread is used
+	 * @see #setLocale(Locale) setLocale()
+	 */
+	public Locale getLocale() {
+		return handler.getLocale();
+	}
+
 	/**
 	 * gets the option specified by <code>tag</code>
 	 * 
@@ -284,6 +366,29 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return handler.getOptions();
 	}
 
+	/**
+	 * Gets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * 
+	 * @return the output stream - defaults to the current
+	 *         <code>System.out</code>
+	 * @see #setOut(PrintStream) setOut()
+	 */
+	public PrintStream getOut() {
+		return handler.getOut();
+	}
+
+	/**
+	 * Gets the outcome of the last call to parse().
+	 * 
+	 * @return the outcome of the last call to parse() -
+	 *         {@link ParseOutcome#OK} if parse() has not been called
+	 * @see #setInProcess(boolean) setInProcess()
+	 */
+	public ParseOutcome getOutcome() {
+		return handler.getOutcome();
+	}
+
 	/**
 	 * Gets the error message from the last call to parse().
 	 * 
@@ -293,6 +398,16 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return handler.getParseError();
 	}
 
+	/**
+	 * Gets the listener to which the timings of each parse are reported.
+	 * 
+	 * @return the listener, or null if parses are not timed
+	 * @see #setParseListener(ParseListener) setParseListener()
+	 */
+	public ParseListener getParseListener() {
+		return handler.getParseListener();
+	}
+
 	/**
 	 * Gets the parser to be used to parse the command line.
 	 * 
@@ -303,6 +418,17 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return handler.getParser();
 	}
 
+	/**
+	 * Gets the telemetry to which the use of this command's options and
+	 * arguments is recorded.
+	 * 
+	 * @return the telemetry, or null if none is recorded
+	 * @see #setTelemetry(OptionTelemetry) setTelemetry()
+	 */
+	public OptionTelemetry getTelemetry() {
+		return handler.getTelemetry();
+	}
+
 	/**
 	 * Gets the usage statement associated with the command.
 	 * 
@@ -315,6 +441,16 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return handler.getUsage(hidden);
 	}
 
+	/**
+	 * Indicates whether this handler is running in process.
+	 * 
+	 * @return true if this handler records outcomes rather than exiting
+	 * @see #setInProcess(boolean) setInProcess()
+	 */
+	public boolean isInProcess() {
+		return handler.isInProcess();
+	}
+
 	/**
 	 * parse the specified command line arguments
 	 * 
@@ -342,8 +478,46 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 	 *         {@link #getParseError()}.
 	 */
 	public boolean parse(String[] clargs) {
-		boolean parseStatus = handler.parse(clargs);
-		return processParsedOptions(parseStatus);
+		return parse(new ArrayArgSource(clargs));
+	}
+
+	/**
+	 * Parse the command line arguments supplied by the specified source. This
+	 * method behaves exactly as {@link #parse(String[])}.
+	 * 
+	 * @param clargs
+	 *            the source of the command line arguments
+	 * @return see {@link #parse(String[])}
+	 */
+	public boolean parse(CmdLineArgSource clargs) {
+		Locale prev = Strings.setLocale(getLocale());
+		try {
+			boolean parseStatus = handler.parse(clargs);
+			if (exitTaken(handler)) {
+				return false;
+			}
+			ParseListener listener = handler.getParseListener();
+			if (listener == null) {
+				return processParsedOptions(parseStatus);
+			}
+			long start = System.nanoTime();
+			parseStatus = processParsedOptions(parseStatus);
+			listener.phaseCompleted(ParseListener.Phase.DECORATOR, null, System
+					.nanoTime()
+					- start);
+			return parseStatus;
+		} finally {
+			Strings.restoreLocale(prev);
+		}
+	}
+
+	/**
+	 * Clears the values of all options and arguments, including those specific
+	 * to decorators, and the error message from the last call to parse(), so
+	 * that this CmdLineHandler may be used to parse another command line.
+	 */
+	public void reset() {
+		handler.reset();
 	}
 
 	/**
@@ -401,6 +575,86 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		handler.setDieOnParseError(val);
 	}
 
+	/**
+	 * Sets the stream to which the usage and error messages are written.
+	 * 
+	 * @param err
+	 *            the error stream - if null, the current
+	 *            <code>System.err</code> is used
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 */
+	public void setErr(PrintStream err) {
+		configurable(handler).setErr(err);
+	}
+
+	/**
+	 * Sets a flag indicating that this handler is hosted in a JVM that must
+	 * not be exited - defaults to <code>false</code>. When set, parse() never
+	 * calls <code>System.exit()</code>. Where it would have exited, as on a
+	 * parse error when <code>dieOnParseError</code> is set, or when the
+	 * usage, help, or version is requested, it instead returns
+	 * <code>false</code> and records a {@link ParseOutcome} that may be
+	 * obtained from {@link #getOutcome()}.
+	 * 
+	 * @param inProcess
+	 *            true to record outcomes rather than exiting
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 * @see #exit(ParseOutcome) exit()
+	 */
+	public void setInProcess(boolean inProcess) {
+		configurable(handler).setInProcess(inProcess);
+	}
+
+	/**
+	 * Sets the locale in which this handler's messages, such as parse errors
+	 * and the usage, are produced.
+	 * 
+	 * @param locale
+	 *            the locale - if null (the default), the locale of the
+	 *            calling thread is used
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 * @see ConfigurableCmdLineHandler#setLocale(Locale)
+	 */
+	public void setLocale(Locale locale) {
+		configurable(handler).setLocale(locale);
+	}
+
+	/**
+	 * Writes the usage statement associated with the command to
+	 * <code>out</code>.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden options are to be included in the
+	 *            usage.
+	 * @param out
+	 *            the destination of the usage
+	 * @throws IOException
+	 *             if <code>out</code> throws IOException
+	 * @see CmdLineHandler#writeUsage(boolean, Appendable)
+	 */
+	public void writeUsage(boolean hidden, Appendable out) throws IOException {
+		handler.writeUsage(hidden, out);
+	}
+
+	/**
+	 * Prints the usage to a PrintStream, followed by a line separator.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden options are to be included in the
+	 *            usage.
+	 * @param ps
+	 *            the PrintStream
+	 */
+	void printUsage(boolean hidden, PrintStream ps) {
+		BasicCmdLineHandler.printUsage(this, hidden, ps);
+	}
+
 	/**
 	 * Sets the value of the options associated with the command
 	 * 
@@ -415,6 +669,21 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		}
 	}
 
+	/**
+	 * Sets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * 
+	 * @param out
+	 *            the output stream - if null, the current
+	 *            <code>System.out</code> is used
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 */
+	public void setOut(PrintStream out) {
+		configurable(handler).setOut(out);
+	}
+
 	/**
 	 * Sets the error message from the last call to parse().
 	 * 
@@ -426,6 +695,22 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		handler.setParseError(parseError);
 	}
 
+	/**
+	 * Sets the listener to which the timings of the phases of each parse,
+	 * including the time spent in each decorator's processParsedOptions()
+	 * method, are reported.
+	 * 
+	 * @param parseListener
+	 *            the listener, or null to stop timing parses
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 * @see ConfigurableCmdLineHandler#setParseListener(ParseListener)
+	 */
+	public void setParseListener(ParseListener parseListener) {
+		configurable(handler).setParseListener(parseListener);
+	}
+
 	/**
 	 * Sets the parser to be used to parse the command line.
 	 * 
@@ -437,6 +722,22 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		handler.setParser(parser);
 	}
 
+	/**
+	 * Sets the telemetry to which the use of this command's options and
+	 * arguments, including those specific to decorators, is recorded after
+	 * each parse.
+	 * 
+	 * @param telemetry
+	 *            the telemetry, or null to stop recording
+	 * @throws UnsupportedOperationException
+	 *             if the decorated handler is not a
+	 *             ConfigurableCmdLineHandler
+	 * @see ConfigurableCmdLineHandler#setTelemetry(OptionTelemetry)
+	 */
+	public void setTelemetry(OptionTelemetry telemetry) {
+		configurable(handler).setTelemetry(telemetry);
+	}
+
 	/**
 	 * Gets options specific to a subclass.
 	 * 
@@ -447,6 +748,16 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 		return customOptions;
 	}
 
+	/**
+	 * Gets the CmdLineHandler this class decorates.
+	 * 
+	 * @return the contained CmdLineHandler
+	 * @see FlatCmdLineHandler
+	 */
+	CmdLineHandler getHandler() {
+		return handler;
+	}
+
 	/**
 	 * Called from the parse() method after the command line has been parsed.
 	 * This is where a subclass performs processing specific to its custom
@@ -463,6 +774,42 @@ public abstract class AbstractHandlerDecorator implements CmdLineHandler {
 	 */
 	protected abstract boolean processParsedOptions(boolean parseStatus);
 
+	/**
+	 * Indicates whether a handler, running in process, has recorded an
+	 * outcome in place of exiting the program. Outer decorators then do no
+	 * further processing, just as they would not have run had the program
+	 * exited.
+	 * 
+	 * @param handler
+	 *            the handler that has just parsed the command line
+	 * @return true if the program would have exited
+	 */
+	static boolean exitTaken(CmdLineHandler handler) {
+		ParseOutcome outcome = handler.getOutcome();
+		return !outcome.isOk()
+				&& (outcome.getStatus() != ParseOutcome.Status.ERROR || handler
+						.getDieOnParseError());
+	}
+
+	/**
+	 * Gets a handler as a ConfigurableCmdLineHandler, to which the methods of
+	 * that interface are delegated.
+	 * 
+	 * @param handler
+	 *            the decorated handler
+	 * @return <code>handler</code>
+	 * @throws UnsupportedOperationException
+	 *             if <code>handler</code> is not a ConfigurableCmdLineHandler
+	 */
+	static ConfigurableCmdLineHandler configurable(CmdLineHandler handler) {
+		if (handler instanceof ConfigurableCmdLineHandler) {
+			return (ConfigurableCmdLineHandler) handler;
+		}
+		throw new UnsupportedOperationException(Strings.get(
+				"AbstractHandlerDecorator.notConfigurable",
+				new Object[] { handler.getClass().getName() }));
+	}
+
 	/**
 	 * Sets options specific to a subclass.
 	 * 
@@ -34,6 +34,7 @@ package jcmdline;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base class for command line parameters.
@@ -85,6 +86,30 @@ import java.util.List;
  */
 public abstract class AbstractParameter<T> implements Parameter<T> {
 
+	/**
+	 * whether a class of Parameter inherits this class's
+	 * {@link #addStringValue(String)}, so that its conversion and validation
+	 * may be timed separately
+	 */
+	private static final ClassValue<Boolean> splitTiming = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("addStringValue", String.class)
+						.getDeclaringClass() == AbstractParameter.class;
+			} catch (NoSuchMethodException e) {
+				return Boolean.FALSE;
+			}
+		}
+	};
+
+	/**
+	 * counts the changes to the optional and ignoreRequired flags of all
+	 * AbstractParameters, so that a {@link ValidationPlan} need only re-read
+	 * them when one has changed
+	 */
+	private static final AtomicInteger configModCount = new AtomicInteger();
+
 	/**
 	 * a set of restricted values the Parameter may take
 	 * 
@@ -93,6 +118,18 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	 */
 	protected List<T> acceptableValues;
 
+	/**
+	 * the acceptable values, indexed to suggest replacements for a value that
+	 * is not acceptable - built when first needed
+	 */
+	private BkTree acceptableIndex;
+
+	/**
+	 * the list of acceptable values from which <code>acceptableIndex</code>
+	 * was built
+	 */
+	private List<T> acceptableIndexed;
+
 	/**
 	 * a description of the parameter to be displayed in the usage
 	 */
@@ -107,7 +144,8 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	/**
 	 * During parse, ignore missing required Parameters if this Parameter is
 	 * set. Typically used by Parameters that cause an action then call
-	 * System.exit(), like "-help".
+	 * System.exit(), like "-help". Subclasses should change it through
+	 * {@link #setIgnoreRequired(boolean)}, which counts the change.
 	 * 
 	 * @see #setIgnoreRequired(boolean) setIgnoreRequired()
 	 * @see #getIgnoreRequired()
@@ -123,6 +161,8 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	/**
 	 * Indicates whether or not the parameter is optional. The default is
 	 * <code>true</code>, indicating that the parameter is optional.
+	 * Subclasses should change it through {@link #setOptional(boolean)},
+	 * which counts the change.
 	 */
 	protected boolean optional = true;
 
@@ -163,6 +203,40 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 		addValue(obj);
 	}
 
+	/**
+	 * Adds a value to this Parameter as {@link #addStringValue(String)} does,
+	 * reporting the time taken to a listener. Conversion and validation are
+	 * reported as separate phases unless a subclass overrides
+	 * addStringValue(), in which case the whole call is reported as
+	 * conversion.
+	 * 
+	 * @param value
+	 *            the value to be added
+	 * @param listener
+	 *            the listener to which the time taken is reported
+	 * @throws CmdLineException
+	 *             if the value cannot be converted, or is not valid
+	 */
+	void addStringValue(String value, ParseListener listener)
+			throws CmdLineException {
+		long start = System.nanoTime();
+		if (!splitTiming.get(getClass())) {
+			addStringValue(value);
+			listener.phaseCompleted(ParseListener.Phase.CONVERT, this, System
+					.nanoTime()
+					- start);
+			return;
+		}
+		T obj = convertValue(value);
+		long converted = System.nanoTime();
+		listener.phaseCompleted(ParseListener.Phase.CONVERT, this, converted
+				- start);
+		addValue(obj);
+		listener.phaseCompleted(ParseListener.Phase.VALIDATE, this, System
+				.nanoTime()
+				- converted);
+	}
+
 	/**
 	 * Converts a String value to the type associated with the Parameter. All
 	 * non-abstract subclasses must implement this method.
@@ -181,9 +255,9 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	 */
 	public void addValue(T value) throws CmdLineException {
 		if (values.size() >= 1 && !multiValued) {
-			throw new CmdLineException(Strings.get(
+			throw CmdLineException.forKey(
 					"AbstractParameter.specifiedMoreThanOnce",
-					new Object[] { tag }));
+					new Object[] { tag });
 		}
 		validateValue(value); // throws CmdLineException
 		values.add(value);
@@ -204,6 +278,16 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 		return desc;
 	}
 
+	/**
+	 * Gets the number of changes made to the optional and ignoreRequired
+	 * flags of all AbstractParameters.
+	 * 
+	 * @return the count, which may wrap
+	 */
+	static int getConfigModCount() {
+		return configModCount.get();
+	}
+
 	/**
 	 * @see jcmdline.Parameter#getIgnoreRequired()
 	 */
@@ -270,6 +354,20 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 		return set;
 	}
 
+	/**
+	 * Clears the value(s) of this Parameter, returning it to the state it was
+	 * in before any value was set, so that it may be used for another parse.
+	 * The Parameter's definition (tag, description, acceptable values, etc.)
+	 * is not affected. The storage allocated for the values is retained for
+	 * reuse.
+	 * 
+	 * @see CmdLineHandler#reset()
+	 */
+	public void reset() {
+		values.clear();
+		set = false;
+	}
+
 	/**
 	 * @see jcmdline.Parameter#setAcceptableValues(java.util.Collection)
 	 */
@@ -321,7 +419,10 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	 * @see jcmdline.Parameter#setIgnoreRequired(boolean)
 	 */
 	public void setIgnoreRequired(boolean ignoreRequired) {
-		this.ignoreRequired = ignoreRequired;
+		if (this.ignoreRequired != ignoreRequired) {
+			this.ignoreRequired = ignoreRequired;
+			configModCount.incrementAndGet();
+		}
 	}
 
 	/**
@@ -335,7 +436,10 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 	 * @see jcmdline.Parameter#setOptional(boolean)
 	 */
 	public void setOptional(boolean optional) {
-		this.optional = optional;
+		if (this.optional != optional) {
+			this.optional = optional;
+			configModCount.incrementAndGet();
+		}
 	}
 
 	/**
@@ -411,9 +515,28 @@ public abstract class AbstractParameter<T> implements Parameter<T> {
 			for (T accVal : acceptableValues) {
 				b.append("\n   " + accVal);
 			}
-			throw new CmdLineException(Strings.get(
+			throw CmdLineException.forKey(
 					"Parameter.valNotAcceptableVal", new Object[] { value, tag,
-							b.toString() }));
+							b.toString() }, suggestValues(value));
+		}
+	}
+
+	/**
+	 * Gets the acceptable values nearest to a value that is not acceptable.
+	 * 
+	 * @param value
+	 *            the value that is not acceptable
+	 * @return the nearest acceptable values, as Strings
+	 */
+	private List<String> suggestValues(T value) {
+		if (acceptableIndex == null || acceptableIndexed != acceptableValues) {
+			List<String> strs = new ArrayList<String>(acceptableValues.size());
+			for (T accVal : acceptableValues) {
+				strs.add(String.valueOf(accVal));
+			}
+			acceptableIndex = new BkTree(strs);
+			acceptableIndexed = acceptableValues;
 		}
+		return acceptableIndex.suggest(String.valueOf(value));
 	}
 }
@@ -0,0 +1,83 @@
+/*
+ * ArrayArgSource.java
+ *
+ * Classes:
+ *   public   ArrayArgSource
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A CmdLineArgSource that supplies the elements of a <code>String[]</code>,
+ * such as the one passed to a program's <code>main()</code> method.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineArgSource
+ */
+public class ArrayArgSource implements CmdLineArgSource {
+
+	/**
+	 * the arguments
+	 */
+	private final String[] clargs;
+
+	/**
+	 * the index of the next argument to be returned
+	 */
+	private int idx;
+
+	/**
+	 * constructor
+	 *
+	 * @param clargs
+	 *            the command line arguments - if null, the source will be
+	 *            empty
+	 */
+	public ArrayArgSource(String[] clargs) {
+		this.clargs = (clargs == null) ? new String[] {} : clargs;
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#hasNext()
+	 */
+	public boolean hasNext() {
+		return idx < clargs.length;
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#next()
+	 */
+	public String next() {
+		if (idx >= clargs.length) {
+			throw new NoSuchElementException();
+		}
+		return clargs[idx++];
+	}
+}
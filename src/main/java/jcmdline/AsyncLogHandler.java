@@ -0,0 +1,588 @@
+/*
+ * AsyncLogHandler.java
+ *
+ * Classes:
+ *   public   AsyncLogHandler
+ *   public   AsyncLogHandler.OverflowPolicy
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A logging Handler that formats and writes log records on a background
+ * thread, so that logging costs the application's threads little more than
+ * placing a record in a queue.
+ * <P>
+ * Records that pass the Handler's level and filter are placed in a bounded,
+ * lock-free ring buffer. A single daemon thread takes them from the buffer in
+ * batches, formats each batch into one block of text, and writes it to the
+ * OutputStream, flushing the stream whenever the buffer has been emptied.
+ * When the buffer is full, the {@link OverflowPolicy} determines whether the
+ * logging thread waits for space or the record is discarded and counted.
+ * <P>
+ * Because records are formatted after {@link #publish(LogRecord) publish()}
+ * returns, the parameters of a record should not be modified after it is
+ * logged. The caller's class and method, where the Formatter uses them, are
+ * determined before the record is queued.
+ * <P>
+ * {@link #flush()} waits until every record published before it was called
+ * has been written. {@link #close()} writes the remaining records and the
+ * Formatter's tail, flushes the stream, and stops the background thread; it
+ * does not close the stream, which belongs to the caller. The Handler is
+ * closed by the LogManager's reset when the JVM exits, and also by a shutdown
+ * hook of its own, so that records queued at exit are not lost.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * Logger.getLogger(&quot;&quot;).addHandler(
+ * 		new AsyncLogHandler(System.err, new SimpleFormatter(), 8192,
+ * 				AsyncLogHandler.OverflowPolicy.DROP));
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see LoggerCmdLineHandler
+ */
+public class AsyncLogHandler extends Handler {
+
+	/**
+	 * What is done with a record published when the buffer is full.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * the publishing thread waits until there is room in the buffer
+		 */
+		BLOCK,
+
+		/**
+		 * the record is discarded, and counted by
+		 * {@link AsyncLogHandler#getDroppedCount()}
+		 */
+		DROP
+	}
+
+	/**
+	 * the default capacity of the buffer, in records
+	 */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/**
+	 * the maximum number of records formatted and written together
+	 */
+	private static final int MAX_BATCH = 256;
+
+	/**
+	 * how long the writer thread sleeps, in nanoseconds, before checking the
+	 * buffer again should a wake-up be missed
+	 */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * how long a blocked or flushing thread sleeps, in nanoseconds, between
+	 * checks of the writer thread's progress
+	 */
+	private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * how long, in milliseconds, closing the handler at JVM exit waits for
+	 * queued records to be written, should the stream be stalled
+	 */
+	private static final long SHUTDOWN_MILLIS = 5000;
+
+	/**
+	 * the records in the buffer
+	 */
+	private final AtomicReferenceArray<LogRecord> slots;
+
+	/**
+	 * the sequence number of each slot. A slot whose sequence equals the
+	 * position of the next record to be added is free; one whose sequence is
+	 * one greater holds the record at that position.
+	 */
+	private final AtomicLongArray sequences;
+
+	/**
+	 * <code>capacity - 1</code>, the capacity being a power of two
+	 */
+	private final int mask;
+
+	/**
+	 * the position at which the next record will be added
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * the position of the next record to be taken - used only by the writer
+	 * thread
+	 */
+	private long head;
+
+	/**
+	 * the position up to which records have been written and the stream
+	 * flushed
+	 */
+	private volatile long flushed;
+
+	/**
+	 * the number of records discarded because the buffer was full
+	 */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * true while the writer thread is, or is about to be, parked waiting for
+	 * records
+	 */
+	private volatile boolean idle;
+
+	/**
+	 * true once close() has been called
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * the overflow policy
+	 */
+	private final OverflowPolicy policy;
+
+	/**
+	 * the stream to which records are written
+	 */
+	private final OutputStream out;
+
+	/**
+	 * writes to <code>out</code> - created by the writer thread when first
+	 * needed, using the Handler's encoding at that time
+	 */
+	private Writer writer;
+
+	/**
+	 * the text of the batch being written - used only by the writer thread
+	 */
+	private final StringBuilder batch = new StringBuilder(8192);
+
+	/**
+	 * the thread that formats and writes records
+	 */
+	private final Thread writerThread;
+
+	/**
+	 * closes this Handler when the JVM exits
+	 */
+	private final Thread shutdownHook;
+
+	/**
+	 * constructor - creates a handler that blocks when its buffer of
+	 * {@link #DEFAULT_CAPACITY} records is full
+	 *
+	 * @param out
+	 *            the stream to which records are written
+	 * @param formatter
+	 *            the Formatter used to format records
+	 * @throws IllegalArgumentException
+	 *             if <code>out</code> or <code>formatter</code> is null
+	 */
+	public AsyncLogHandler(OutputStream out, Formatter formatter) {
+		this(out, formatter, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param out
+	 *            the stream to which records are written
+	 * @param formatter
+	 *            the Formatter used to format records
+	 * @param capacity
+	 *            the number of records the buffer holds - rounded up to a
+	 *            power of two, of at least 2
+	 * @param policy
+	 *            what is done with a record published when the buffer is full
+	 * @throws IllegalArgumentException
+	 *             if <code>out</code>, <code>formatter</code>, or
+	 *             <code>policy</code> is null, or <code>capacity</code> is
+	 *             less than 1 or greater than 2<sup>30</sup>
+	 */
+	public AsyncLogHandler(OutputStream out, Formatter formatter,
+			int capacity, OverflowPolicy policy) {
+		if (out == null || formatter == null || policy == null) {
+			throw new IllegalArgumentException(Strings
+					.get("AsyncLogHandler.nullArgument"));
+		}
+		checkCapacity(capacity);
+		// a slot's sequence distinguishes full from free only if there are
+		// at least two slots
+		int size = Math.max(2, Integer.highestOneBit(capacity));
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.out = out;
+		this.policy = policy;
+		this.mask = size - 1;
+		this.slots = new AtomicReferenceArray<LogRecord>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		setFormatter(formatter);
+
+		writerThread = new Thread(new Runnable() {
+			public void run() {
+				writeRecords();
+			}
+		}, "jcmdline-async-log");
+		writerThread.setDaemon(true);
+		writerThread.start();
+
+		shutdownHook = new Thread(new Runnable() {
+			public void run() {
+				close();
+			}
+		}, "jcmdline-async-log-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Verifies that a buffer capacity is valid.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 * @throws IllegalArgumentException
+	 *             if <code>capacity</code> is less than 1 or greater than
+	 *             2<sup>30</sup>
+	 */
+	static void checkCapacity(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException(Strings.get(
+					"AsyncLogHandler.badCapacity", new Object[] { Integer
+							.toString(capacity) }));
+		}
+	}
+
+	/**
+	 * Gets the number of records discarded because the buffer was full.
+	 *
+	 * @return the number of records discarded
+	 * @see OverflowPolicy#DROP
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the overflow policy.
+	 *
+	 * @return what is done with a record published when the buffer is full
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Queues a record to be formatted and written, if it is loggable. If the
+	 * buffer is full, this method waits for room, or discards the record,
+	 * according to the overflow policy. Records published after the handler
+	 * has been closed are ignored, and records that find the buffer full
+	 * after the background thread has died are discarded, whatever the
+	 * policy.
+	 *
+	 * @param record
+	 *            the record
+	 * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+	 */
+	@Override
+	public void publish(LogRecord record) {
+		if (closed || !isLoggable(record)) {
+			return;
+		}
+		// the caller must be inferred on the calling thread
+		record.getSourceClassName();
+		while (!offer(record)) {
+			if (policy == OverflowPolicy.DROP || closed
+					|| !writerThread.isAlive()) {
+				dropped.incrementAndGet();
+				return;
+			}
+			wakeWriter();
+			LockSupport.parkNanos(WAIT_NANOS);
+		}
+		wakeWriter();
+	}
+
+	/**
+	 * Waits until all records published before this call have been written,
+	 * and the stream flushed.
+	 *
+	 * @see java.util.logging.Handler#flush()
+	 */
+	@Override
+	public void flush() {
+		awaitFlushed(tail.get());
+	}
+
+	/**
+	 * Writes all queued records and the Formatter's tail, flushes the stream,
+	 * and stops the background thread. The stream is not closed. Calling this
+	 * method more than once has no further effect.
+	 *
+	 * @see java.util.logging.Handler#close()
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		LockSupport.unpark(writerThread);
+		if (Thread.currentThread() != writerThread) {
+			try {
+				writerThread
+						.join((Thread.currentThread() == shutdownHook) ? SHUTDOWN_MILLIS
+								: 0);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (Thread.currentThread() != shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// the JVM is already shutting down
+			}
+		}
+	}
+
+	/**
+	 * Adds a record to the buffer.
+	 *
+	 * @param record
+	 *            the record
+	 * @return false if the buffer is full
+	 */
+	private boolean offer(LogRecord record) {
+		while (true) {
+			long pos = tail.get();
+			int idx = (int) pos & mask;
+			long seq = sequences.get(idx);
+			if (seq == pos) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					slots.set(idx, record);
+					sequences.set(idx, pos + 1);
+					return true;
+				}
+			} else if (seq < pos) {
+				return false; // the slot still holds an unwritten record
+			}
+			// otherwise another thread claimed the slot - try again
+		}
+	}
+
+	/**
+	 * Takes the next record from the buffer - called only by the writer
+	 * thread.
+	 *
+	 * @return the record, or null if the buffer is empty, or the next record
+	 *         is still being added
+	 */
+	private LogRecord poll() {
+		int idx = (int) head & mask;
+		if (sequences.get(idx) != head + 1) {
+			return null;
+		}
+		LogRecord r = slots.get(idx);
+		slots.set(idx, null);
+		sequences.set(idx, head + mask + 1);
+		head++;
+		return r;
+	}
+
+	/**
+	 * Unparks the writer thread if it is waiting for records.
+	 */
+	private void wakeWriter() {
+		if (idle) {
+			idle = false;
+			LockSupport.unpark(writerThread);
+		}
+	}
+
+	/**
+	 * Waits until the records up to a position have been written.
+	 *
+	 * @param pos
+	 *            the position
+	 */
+	private void awaitFlushed(long pos) {
+		if (Thread.currentThread() == writerThread) {
+			return;
+		}
+		while (flushed < pos && writerThread.isAlive()) {
+			wakeWriter();
+			LockSupport.parkNanos(WAIT_NANOS);
+		}
+	}
+
+	/**
+	 * The body of the writer thread - writes records until the handler is
+	 * closed and the buffer is empty.
+	 */
+	private void writeRecords() {
+		boolean headWritten = false;
+		while (true) {
+			LogRecord r = poll();
+			if (r == null) {
+				if (flushed != head) {
+					flushStream();
+					flushed = head;
+				}
+				if (closed && tail.get() == head) {
+					break;
+				}
+				idle = true;
+				// re-check, in case a record was added before idle was set
+				if (tail.get() == head && !closed) {
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				}
+				idle = false;
+				continue;
+			}
+			batch.setLength(0);
+			if (!headWritten) {
+				appendHeadOrTail(true);
+				headWritten = true;
+			}
+			int n = 0;
+			do {
+				try {
+					batch.append(getFormatter().format(r));
+				} catch (RuntimeException e) {
+					reportError(null, e, ErrorManager.FORMAT_FAILURE);
+				}
+			} while (++n < MAX_BATCH && (r = poll()) != null);
+			writeBatch();
+		}
+		batch.setLength(0);
+		if (headWritten) {
+			appendHeadOrTail(false);
+		}
+		writeBatch();
+		flushStream();
+		flushed = head;
+	}
+
+	/**
+	 * Appends the Formatter's head or tail to the batch. An exception thrown
+	 * by the Formatter is reported to the ErrorManager rather than ending the
+	 * writer thread.
+	 *
+	 * @param head
+	 *            true to append the head, false to append the tail
+	 */
+	private void appendHeadOrTail(boolean head) {
+		try {
+			String s = head ? getFormatter().getHead(this) : getFormatter()
+					.getTail(this);
+			if (s != null) {
+				batch.append(s);
+			}
+		} catch (RuntimeException e) {
+			reportError(null, e, ErrorManager.FORMAT_FAILURE);
+		}
+	}
+
+	/**
+	 * Writes the batch to the stream. An exception thrown by the stream is
+	 * reported to the ErrorManager rather than ending the writer thread, and
+	 * the batch is lost.
+	 */
+	private void writeBatch() {
+		try {
+			write();
+		} catch (RuntimeException e) {
+			writer = null;
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Writes the batch to the stream.
+	 */
+	private void write() {
+		if (batch.length() == 0) {
+			return;
+		}
+		try {
+			if (writer == null) {
+				String encoding = getEncoding();
+				writer = (encoding == null) ? new OutputStreamWriter(out)
+						: new OutputStreamWriter(out, encoding);
+			}
+			writer.append(batch);
+		} catch (UnsupportedEncodingException e) {
+			// Should never get here - setEncoding() checks the encoding
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Flushes the stream. An exception thrown by the stream is reported to the
+	 * ErrorManager rather than ending the writer thread.
+	 */
+	private void flushStream() {
+		try {
+			if (writer != null) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			reportError(null, e, ErrorManager.FLUSH_FAILURE);
+		} catch (RuntimeException e) {
+			// discard whatever the writer still holds, rather than retry it
+			writer = null;
+			reportError(null, e, ErrorManager.FLUSH_FAILURE);
+		}
+	}
+}
@@ -31,10 +31,13 @@
 
 package jcmdline;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Used to define, parse, and validate the parameters associated with an
@@ -137,7 +140,7 @@ import java.util.List;
  * @see Parameter
  * @see CmdLineParser
  */
-public class BasicCmdLineHandler implements CmdLineHandler {
+public class BasicCmdLineHandler implements ConfigurableCmdLineHandler {
 
 	/**
 	 * the arguments (after the options have been processed) associated with the
@@ -145,6 +148,11 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	private ArrayList<Parameter<?>> args = new ArrayList<Parameter<?>>();
 
+	/**
+	 * the arguments, keyed by tag
+	 */
+	private HashMap<String, Parameter<?>> argsByTag = new HashMap<String, Parameter<?>>();
+
 	/**
 	 * a short description of the command's purpose
 	 */
@@ -163,11 +171,63 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	private boolean dieOnParseError = true;
 
+	/**
+	 * the stream to which the usage and error messages are written, or null
+	 * to use System.err
+	 * 
+	 * @see #setErr(PrintStream) setErr()
+	 */
+	private PrintStream err;
+
+	/**
+	 * pairs of Parameters, the first of which requires the second
+	 * 
+	 * @see #addDependency(Parameter, Parameter) addDependency()
+	 */
+	private ArrayList<Parameter<?>[]> dependencies = new ArrayList<Parameter<?>[]>();
+
+	/**
+	 * groups of mutually exclusive Parameters
+	 * 
+	 * @see #addExclusiveGroup(Parameter[]) addExclusiveGroup()
+	 */
+	private ArrayList<Parameter<?>[]> exclusiveGroups = new ArrayList<Parameter<?>[]>();
+
+	/**
+	 * indicates that outcomes are to be recorded, rather than exiting
+	 * 
+	 * @see #setInProcess(boolean) setInProcess()
+	 */
+	private boolean inProcess = false;
+
+	/**
+	 * the locale in which messages are produced, or null to use the locale
+	 * of the calling thread
+	 * 
+	 * @see #setLocale(Locale) setLocale()
+	 */
+	private Locale locale;
+
 	/**
 	 * the options associated with the command
 	 */
 	private HashMap<String, Parameter<?>> options = new HashMap<String, Parameter<?>>();
 
+	/**
+	 * the stream to which requested output is written, or null to use
+	 * System.out
+	 * 
+	 * @see #setOut(PrintStream) setOut()
+	 */
+	private PrintStream out;
+
+	/**
+	 * the outcome of the last call to parse()
+	 * 
+	 * @see #getOutcome()
+	 */
+	private ParseOutcome outcome = ParseOutcome.OK;
+
 	/**
 	 * the error message from the last call to parse()
 	 * 
@@ -176,6 +236,23 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	private String parseError;
 
+	/**
+	 * the listener to which the timings of each parse are reported, or null
+	 * 
+	 * @see #setParseListener(ParseListener) setParseListener()
+	 * @see #getParseListener()
+	 */
+	private ParseListener parseListener;
+
+	/**
+	 * the telemetry to which the use of the options and arguments is
+	 * recorded, or null
+	 * 
+	 * @see #setTelemetry(OptionTelemetry) setTelemetry()
+	 * @see #getTelemetry()
+	 */
+	private OptionTelemetry telemetry;
+
 	/**
 	 * the parser to be used to parse the command line
 	 * 
@@ -184,6 +261,19 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	private CmdLineParser parser;
 
+	/**
+	 * the compiled validation rules, or null if they must be recompiled
+	 * because the options, arguments, or constraints have changed
+	 */
+	private ValidationPlan plan;
+
+	/**
+	 * the usages rendered so far, or null if they must be rendered again
+	 * because the options, arguments, name, description, or parser have
+	 * changed
+	 */
+	private UsageCache usage;
+
 	/**
 	 * constructor - uses the PosixCmdLineParser to parse the command line
 	 * 
@@ -306,6 +396,53 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 			}
 		}
 		args.add(arg);
+		argsByTag.put(arg.getTag(), arg);
+		plan = null;
+		usage = null;
+	}
+
+	/**
+	 * Specifies that, if one Parameter is set, another must also be set. The
+	 * rule is not enforced when a Parameter whose ignoreRequired flag is set
+	 * has been set.
+	 * 
+	 * @param param
+	 *            an option or argument of this command
+	 * @param required
+	 *            an option or argument of this command that must be set
+	 *            whenever <code>param</code> is set
+	 * @throws IllegalArgumentException
+	 *             if either Parameter is not an option or argument of this
+	 *             command
+	 */
+	public void addDependency(Parameter<?> param, Parameter<?> required) {
+		checkIsParameter(param);
+		checkIsParameter(required);
+		dependencies.add(new Parameter<?>[] { param, required });
+		plan = null;
+	}
+
+	/**
+	 * Specifies a group of Parameters of which no more than one may be set.
+	 * The rule is not enforced when a Parameter whose ignoreRequired flag is
+	 * set has been set.
+	 * 
+	 * @param params
+	 *            options or arguments of this command
+	 * @throws IllegalArgumentException
+	 *             if fewer than two Parameters are specified, or a Parameter
+	 *             is not an option or argument of this command
+	 */
+	public void addExclusiveGroup(Parameter<?>[] params) {
+		if (params == null || params.length < 2) {
+			throw new IllegalArgumentException(Strings
+					.get("BasicCmdLineHandler.exclusiveGroupTooSmall"));
+		}
+		for (int i = 0; i < params.length; i++) {
+			checkIsParameter(params[i]);
+		}
+		exclusiveGroups.add(params.clone());
+		plan = null;
 	}
 
 	/**
@@ -328,22 +465,53 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 							.getTag() }));
 		}
 		options.put(opt.getTag().toLowerCase(), opt);
+		plan = null;
+		usage = null;
+		clearTagIndex();
 	}
 
 	/**
 	 * Prints the usage, followed by the specified error message, to stderr and
 	 * exits the program with exit status = 1. The error message will be
 	 * prefaced with 'ERROR: '. This method never returns - it exits the program
-	 * with exit status of 1.
+	 * with exit status of 1 - unless this handler is running
+	 * {@link #setInProcess(boolean) in process}, in which case an outcome of
+	 * {@link ParseOutcome.Status#ERROR ERROR} is recorded and this method
+	 * returns.
 	 * 
 	 * @param errMsg
 	 *            the error message
+	 * @see #getErr()
 	 */
 	public void exitUsageError(String errMsg) {
-		System.err.println(getUsage(false));
-		System.err.println("\n"
-				+ parser.getUsageFormatter().formatErrorMsg(errMsg));
-		quitProgram(1);
+		PrintStream err = getErr();
+		Locale prev = Strings.setLocale(locale);
+		try {
+			printUsage(this, false, err);
+			err.println("\n"
+					+ parser.getUsageFormatter().formatErrorMsg(errMsg));
+		} finally {
+			Strings.restoreLocale(prev);
+		}
+		exit(new ParseOutcome(ParseOutcome.Status.ERROR, 1, errMsg));
+	}
+
+	/**
+	 * Ends the program with the specified outcome. Normally this calls
+	 * <code>System.exit()</code> with the outcome's exit code, and does not
+	 * return. If this handler is running {@link #setInProcess(boolean) in
+	 * process}, the outcome is recorded, to be returned by
+	 * {@link #getOutcome()}, and this method returns.
+	 * 
+	 * @param outcome
+	 *            how the program ended
+	 */
+	public void exit(ParseOutcome outcome) {
+		if (inProcess) {
+			this.outcome = outcome;
+		} else {
+			quitProgram(outcome.getExitCode());
+		}
 	}
 
 	/**
@@ -355,12 +523,7 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 *         argument is found, null is returned.
 	 */
 	public Parameter<?> getArg(String tag) {
-		for (Parameter<?> arg : args) {
-			if (arg.getTag().equals(tag)) {
-				return arg;
-			}
-		}
-		return null;
+		return argsByTag.get(tag);
 	}
 
 	/**
@@ -408,6 +571,27 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		return dieOnParseError;
 	}
 
+	/**
+	 * Gets the stream to which the usage and error messages are written.
+	 * 
+	 * @return the error stream - defaults to the current
+	 *         <code>System.err</code>
+	 * @see #setErr(PrintStream) setErr()
+	 */
+	public PrintStream getErr() {
+		return (err == null) ? System.err : err;
+	}
+
+	/**
+	 * Gets the locale in which this handler's messages are produced.
+	 * 
+	 * @return the locale, or null if the locale of the calling thread is used
+	 * @see #setLocale(Locale) setLocale()
+	 */
+	public Locale getLocale() {
+		return locale;
+	}
+
 	/**
 	 * gets the option specified by <code>tag</code>
 	 * 
@@ -428,6 +612,29 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		return options.values();
 	}
 
+	/**
+	 * Gets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * 
+	 * @return the output stream - defaults to the current
+	 *         <code>System.out</code>
+	 * @see #setOut(PrintStream) setOut()
+	 */
+	public PrintStream getOut() {
+		return (out == null) ? System.out : out;
+	}
+
+	/**
+	 * Gets the outcome of the last call to parse().
+	 * 
+	 * @return the outcome of the last call to parse() -
+	 *         {@link ParseOutcome#OK} if parse() has not been called
+	 * @see #setInProcess(boolean) setInProcess()
+	 */
+	public ParseOutcome getOutcome() {
+		return outcome;
+	}
+
 	/**
 	 * Gets the error message from the last call to parse().
 	 * 
@@ -438,6 +645,16 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		return parseError;
 	}
 
+	/**
+	 * Gets the listener to which the timings of each parse are reported.
+	 * 
+	 * @return the listener, or null if parses are not timed
+	 * @see #setParseListener(ParseListener) setParseListener()
+	 */
+	public ParseListener getParseListener() {
+		return parseListener;
+	}
+
 	/**
 	 * Gets the parser to be used to parse the command line.
 	 * 
@@ -449,7 +666,23 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	}
 
 	/**
-	 * Gets the usage statement associated with the command.
+	 * Gets the telemetry to which the use of this command's options and
+	 * arguments is recorded.
+	 * 
+	 * @return the telemetry, or null if none is recorded
+	 * @see #setTelemetry(OptionTelemetry) setTelemetry()
+	 */
+	public OptionTelemetry getTelemetry() {
+		return telemetry;
+	}
+
+	/**
+	 * Gets the usage statement associated with the command. The usage is
+	 * rendered once for each combination of <code>hidden</code>, line length,
+	 * and locale, and cached until the command's options, arguments, name,
+	 * description, or parser change, or any of its Parameters' tags,
+	 * descriptions, option labels, or hidden, optional, or multi-valued flags
+	 * are changed.
 	 * 
 	 * @param hidden
 	 *            indicates whether hidden options are to be included in the
@@ -457,8 +690,84 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 * @return the usage statement associated with the command
 	 */
 	public String getUsage(boolean hidden) {
-		return parser.getUsageFormatter().formatUsage(cmdName, cmdDesc,
-				options, args, hidden);
+		Locale prev = Strings.setLocale(locale);
+		try {
+			UsageFormatter fmt = parser.getUsageFormatter();
+			UsageCache cache = getUsageCache(fmt);
+			int lineLength = fmt.getLineLength();
+			Locale l = Strings.getLocale();
+			String s = cache.get(hidden, lineLength, l);
+			if (s == null) {
+				Object event = FlightEvents.INSTANCE.beginUsage();
+				s = fmt.formatUsage(cmdName, cmdDesc, options, args, hidden);
+				if (event != null) {
+					FlightEvents.INSTANCE.endUsage(event, cmdName, hidden, false);
+				}
+				cache.put(hidden, lineLength, l, s);
+			}
+			return s;
+		} finally {
+			Strings.restoreLocale(prev);
+		}
+	}
+
+	/**
+	 * Writes the usage statement associated with the command to
+	 * <code>out</code>. A cached usage, as described for
+	 * {@link #getUsage(boolean) getUsage()}, is written if there is one.
+	 * Otherwise the usage is streamed from the UsageFormatter, so that a large
+	 * usage is never held in memory as a whole, and cached if it is no longer
+	 * than 64K characters. Output to a PrintStream is buffered, and written in
+	 * large blocks.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden options are to be included in the
+	 *            usage.
+	 * @param out
+	 *            the destination of the usage
+	 * @throws IOException
+	 *             if <code>out</code> throws IOException
+	 */
+	public void writeUsage(boolean hidden, Appendable out) throws IOException {
+		Locale prev = Strings.setLocale(locale);
+		try {
+			UsageFormatter fmt = parser.getUsageFormatter();
+			UsageCache cache = getUsageCache(fmt);
+			int lineLength = fmt.getLineLength();
+			Locale l = Strings.getLocale();
+			String s = cache.get(hidden, lineLength, l);
+			if (s != null) {
+				out.append(s);
+				return;
+			}
+			PrintStreamAppender psa = null;
+			if (out instanceof PrintStream) {
+				psa = new PrintStreamAppender((PrintStream) out);
+				out = psa;
+			}
+			Object event = FlightEvents.INSTANCE.beginUsage();
+			UsageCache.Recorder r = cache.record(hidden, lineLength, l, out);
+			fmt.formatUsage(cmdName, cmdDesc, options, args, hidden, r);
+			if (psa != null) {
+				psa.flush();
+			}
+			r.close();
+			if (event != null) {
+				FlightEvents.INSTANCE.endUsage(event, cmdName, hidden, true);
+			}
+		} finally {
+			Strings.restoreLocale(prev);
+		}
+	}
+
+	/**
+	 * Indicates whether this handler is running in process.
+	 * 
+	 * @return true if this handler records outcomes rather than exiting
+	 * @see #setInProcess(boolean) setInProcess()
+	 */
+	public boolean isInProcess() {
+		return inProcess;
 	}
 
 	/**
@@ -480,28 +789,130 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 *         <P>
 	 *         If <code>dieOnParseError</code> is set to <code>true</code> and
 	 *         the method fails, the program will exit with exit code 1 after
-	 *         printing the usage to stderr.
+	 *         printing the usage to stderr - unless running
+	 *         {@link #setInProcess(boolean) in process}, in which case
+	 *         <code>false</code> is returned, and {@link #getOutcome()}
+	 *         describes the error.
 	 */
 	public boolean parse(String[] clargs) {
-		if (clargs == null) {
-			clargs = new String[] {};
-		}
+		return parse(new ArrayArgSource(clargs));
+	}
+
+	/**
+	 * Parse the command line arguments supplied by the specified source. This
+	 * method behaves exactly as {@link #parse(String[])}.
+	 * 
+	 * @param clargs
+	 *            the source of the command line arguments
+	 * @return see {@link #parse(String[])}
+	 * @see NulDelimitedArgSource
+	 */
+	public boolean parse(CmdLineArgSource clargs) {
+		outcome = ParseOutcome.OK;
+		ParseListener listener = parseListener;
+		long start = (listener == null) ? 0 : System.nanoTime();
+		Object event = FlightEvents.INSTANCE.beginParse();
+		Locale prev = Strings.setLocale(locale);
 		try {
-			parser.parse(clargs, options, args);
-			if (!canSkipRequiredCheck()) {
-				checkForRequired();
+			if (plan == null) {
+				plan = new ValidationPlan(options, args, exclusiveGroups,
+						dependencies);
+			}
+			plan.beginParse();
+			if (parser instanceof PosixCmdLineParser) {
+				((PosixCmdLineParser) parser).parse(clargs, options, args,
+						plan);
+			} else {
+				parser.parse(clargs, options, args);
+				plan.readSet();
+			}
+			if (listener == null) {
+				plan.validate();
+			} else {
+				long validating = System.nanoTime();
+				plan.validate();
+				long now = System.nanoTime();
+				listener.phaseCompleted(ParseListener.Phase.REQUIRED, null,
+						now - validating);
+				listener.parseCompleted(now - start, true);
+			}
+			if (event != null) {
+				FlightEvents.INSTANCE.endParse(event, cmdName, null);
+			}
+			if (telemetry != null) {
+				telemetry.record(options.values(), args, null);
 			}
 		} catch (CmdLineException e) {
+			if (listener != null) {
+				listener.parseFailed(e);
+				listener.parseCompleted(System.nanoTime() - start, false);
+			}
+			if (event != null) {
+				FlightEvents.INSTANCE.endParse(event, cmdName, e);
+			}
+			if (telemetry != null) {
+				telemetry.record(options.values(), args, e);
+			}
+			parseError = errorMessage(e);
 			if (dieOnParseError) {
-				exitUsageError(e.getMessage());
+				// only returns when running in process
+				exitUsageError(parseError);
 			} else {
-				parseError = e.getMessage();
-				return false;
+				outcome = new ParseOutcome(ParseOutcome.Status.ERROR, 1,
+						parseError);
 			}
+			return false;
+		} finally {
+			Strings.restoreLocale(prev);
 		}
 		return true;
 	}
 
+	/**
+	 * Gets the message reported for a parse error, including any suggested
+	 * replacements for an unrecognized option tag or value.
+	 * 
+	 * @param e
+	 *            the parse error
+	 * @return the message
+	 * @see CmdLineException#getSuggestions()
+	 */
+	private static String errorMessage(CmdLineException e) {
+		List<String> suggestions = e.getSuggestions();
+		if (suggestions.isEmpty()) {
+			return e.getMessage();
+		}
+		return e.getMessage()
+				+ " "
+				+ Strings.get("BasicCmdLineHandler.didYouMean",
+						new Object[] { Strings.join(", ", suggestions
+								.toArray()) });
+	}
+
+	/**
+	 * Clears the values of all options and arguments, and the error message
+	 * from the last call to parse(), so that this BasicCmdLineHandler may be
+	 * used to parse another command line. Only the values of
+	 * {@link AbstractParameter AbstractParameters} can be cleared - other
+	 * Parameters are left as they are.
+	 * 
+	 * @see AbstractParameter#reset()
+	 */
+	public void reset() {
+		for (Parameter<?> p : options.values()) {
+			if (p instanceof AbstractParameter) {
+				((AbstractParameter<?>) p).reset();
+			}
+		}
+		for (Parameter<?> p : args) {
+			if (p instanceof AbstractParameter) {
+				((AbstractParameter<?>) p).reset();
+			}
+		}
+		parseError = null;
+		outcome = ParseOutcome.OK;
+	}
+
 	/**
 	 * sets the value of the arguments (what is left on the command line after
 	 * all options, and their parameters, have been processed) associated with
@@ -513,6 +924,9 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	public void setArgs(Parameter<?>[] args) {
 		this.args.clear();
+		argsByTag.clear();
+		plan = null;
+		usage = null;
 		if (args != null) {
 			for (int i = 0; i < args.length; i++) {
 				addArg(args[i]);
@@ -536,6 +950,7 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 					new Object[] { cmdDesc }));
 		}
 		this.cmdDesc = cmdDesc;
+		usage = null;
 	}
 
 	/**
@@ -555,6 +970,7 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 					new Object[] { cmdName }));
 		}
 		this.cmdName = cmdName;
+		usage = null;
 	}
 
 	/**
@@ -574,6 +990,49 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		dieOnParseError = val;
 	}
 
+	/**
+	 * Sets the stream to which the usage and error messages are written.
+	 * 
+	 * @param err
+	 *            the error stream - if null, the current
+	 *            <code>System.err</code> is used
+	 */
+	public void setErr(PrintStream err) {
+		this.err = err;
+	}
+
+	/**
+	 * Sets a flag indicating that this handler is hosted in a JVM that must
+	 * not be exited - defaults to <code>false</code>. When set, parse() never
+	 * calls <code>System.exit()</code>. Where it would have exited, as on a
+	 * parse error when <code>dieOnParseError</code> is set, or when the
+	 * usage, help, or version is requested, it instead returns
+	 * <code>false</code> and records a {@link ParseOutcome} that may be
+	 * obtained from {@link #getOutcome()}.
+	 * 
+	 * @param inProcess
+	 *            true to record outcomes rather than exiting
+	 * @see #exit(ParseOutcome) exit()
+	 */
+	public void setInProcess(boolean inProcess) {
+		this.inProcess = inProcess;
+	}
+
+	/**
+	 * Sets the locale in which this handler's messages, such as parse errors
+	 * and the usage, are produced. The locale applies to the calling thread
+	 * for the duration of each call to parse() or getUsage(), so handlers
+	 * with different locales may be used concurrently.
+	 * 
+	 * @param locale
+	 *            the locale - if null (the default), the locale of the
+	 *            calling thread, normally the default locale, is used
+	 * @see Strings#getLocale()
+	 */
+	public void setLocale(Locale locale) {
+		this.locale = locale;
+	}
+
 	/**
 	 * Sets the value of the options associated with the command
 	 * 
@@ -583,6 +1042,9 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	public void setOptions(Parameter<?>[] options) {
 		this.options.clear();
+		plan = null;
+		usage = null;
+		clearTagIndex();
 		if (options != null) {
 			for (int i = 0; i < options.length; i++) {
 				addOption(options[i]);
@@ -590,6 +1052,18 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		}
 	}
 
+	/**
+	 * Sets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * 
+	 * @param out
+	 *            the output stream - if null, the current
+	 *            <code>System.out</code> is used
+	 */
+	public void setOut(PrintStream out) {
+		this.out = out;
+	}
+
 	/**
 	 * Sets the error message from the last call to parse().
 	 * 
@@ -601,6 +1075,23 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 		this.parseError = parseError;
 	}
 
+	/**
+	 * Sets the listener to which the timings of the phases of each parse, and
+	 * its errors, are reported. The listener is also set on the parser, if it
+	 * is a {@link PosixCmdLineParser}, so that its phases are timed. When
+	 * there is no listener, nothing is timed.
+	 * 
+	 * @param parseListener
+	 *            the listener, or null to stop timing parses
+	 * @see ParseMetrics
+	 */
+	public void setParseListener(ParseListener parseListener) {
+		this.parseListener = parseListener;
+		if (parser instanceof PosixCmdLineParser) {
+			((PosixCmdLineParser) parser).setParseListener(parseListener);
+		}
+	}
+
 	/**
 	 * Sets the parser to be used to parse the command line.
 	 * 
@@ -610,47 +1101,131 @@ public class BasicCmdLineHandler implements CmdLineHandler {
 	 */
 	public void setParser(CmdLineParser parser) {
 		this.parser = parser;
+		usage = null;
+		if (parseListener != null && parser instanceof PosixCmdLineParser) {
+			((PosixCmdLineParser) parser).setParseListener(parseListener);
+		}
 	}
 
 	/**
-	 * Indicates whether the check for required Parameters can be skipped due to
-	 * a Parameter with flag <code>ignoreRequired = true</code> having been set.
+	 * Sets the telemetry to which the use of this command's options and
+	 * arguments, and their errors, is recorded after each parse. By default
+	 * none is recorded.
 	 * 
-	 * @return true if the check for required parameters may be skipped
+	 * @param telemetry
+	 *            the telemetry, or null to stop recording
+	 * @see #getTelemetry()
 	 */
-	private boolean canSkipRequiredCheck() {
-		for (Parameter<?> p : options.values()) {
-			if (p.getIgnoreRequired() && p.isSet()) {
-				return true;
-			}
+	public void setTelemetry(OptionTelemetry telemetry) {
+		this.telemetry = telemetry;
+	}
+
+	/**
+	 * Discards the index of option tags kept by the parser to suggest
+	 * replacements for an unrecognized tag, after the options have changed.
+	 */
+	private void clearTagIndex() {
+		if (parser instanceof PosixCmdLineParser) {
+			((PosixCmdLineParser) parser).clearTagIndex();
 		}
-		for (Parameter<?> p : args) {
-			if (p.getIgnoreRequired() && p.isSet()) {
-				return true;
-			}
+	}
+
+	/**
+	 * Verifies that a Parameter is one of this command's options or
+	 * arguments.
+	 * 
+	 * @param p
+	 *            the Parameter
+	 * @throws IllegalArgumentException
+	 *             if it is not
+	 */
+	private void checkIsParameter(Parameter<?> p) {
+		if (p == null
+				|| (options.get(p.getTag().toLowerCase()) != p && argsByTag
+						.get(p.getTag()) != p)) {
+			throw new IllegalArgumentException(Strings.get(
+					"BasicCmdLineHandler.unknownParameter",
+					new Object[] { (p == null) ? null : p.getTag() }));
 		}
-		return false;
 	}
 
 	/**
-	 * Verifies that all required options and arguments have been specified.
+	 * Gets the usage cache, creating a new one if the command's definition has
+	 * changed since the cached usages were rendered.
 	 * 
-	 * @throws CmdLineException
-	 *             if a required option or argument is not set.
+	 * @param fmt
+	 *            the formatter that will render the usage
+	 * @return the usage cache
 	 */
-	private void checkForRequired() throws CmdLineException {
-		for (Parameter<?> p : options.values()) {
-			if (!p.isOptional() && !p.isSet()) {
-				throw new CmdLineException(Strings.get(
-						"BasicCmdLineHandler.missingRequiredOpt",
-						new Object[] { p.getTag() }));
+	private UsageCache getUsageCache(UsageFormatter fmt) {
+		if (usage == null || !usage.matches(fmt, options.values(), args)) {
+			usage = new UsageCache(fmt, options.values(), args);
+		}
+		return usage;
+	}
+
+	/**
+	 * Prints a handler's usage to a PrintStream, followed by a line separator.
+	 * 
+	 * @param handler
+	 *            the handler
+	 * @param hidden
+	 *            indicates whether hidden options are to be included in the
+	 *            usage.
+	 * @param ps
+	 *            the PrintStream
+	 */
+	static void printUsage(CmdLineHandler handler, boolean hidden,
+			PrintStream ps) {
+		try {
+			handler.writeUsage(hidden, ps);
+		} catch (IOException e) {
+			// Should never get here - PrintStream does not throw IOException
+			throw new RuntimeException(e);
+		}
+		ps.println();
+	}
+
+	/**
+	 * An Appendable that collects characters into blocks to be printed to a
+	 * PrintStream, so that a usage written a few characters at a time is not
+	 * printed - and, on an auto-flushing stream, flushed - a line at a time.
+	 */
+	private static class PrintStreamAppender implements Appendable {
+		private final PrintStream ps;
+		private final StringBuilder buf = new StringBuilder(8192);
+
+		PrintStreamAppender(PrintStream ps) {
+			this.ps = ps;
+		}
+
+		public Appendable append(CharSequence csq) {
+			return append(csq, 0, csq.length());
+		}
+
+		public Appendable append(CharSequence csq, int start, int end) {
+			if (buf.length() + end - start > buf.capacity()) {
+				flush();
 			}
+			buf.append(csq, start, end);
+			return this;
 		}
-		for (Parameter<?> p : args) {
-			if (!p.isOptional() && !p.isSet()) {
-				throw new CmdLineException(Strings.get(
-						"BasicCmdLineHandler.missingRequiredArg",
-						new Object[] { p.getTag() }));
+
+		public Appendable append(char c) {
+			if (buf.length() == buf.capacity()) {
+				flush();
+			}
+			buf.append(c);
+			return this;
+		}
+
+		/**
+		 * Prints the characters collected so far.
+		 */
+		void flush() {
+			if (buf.length() > 0) {
+				ps.print(buf);
+				buf.setLength(0);
 			}
 		}
 	}
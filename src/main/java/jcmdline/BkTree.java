@@ -0,0 +1,245 @@
+/*
+ * BkTree.java
+ *
+ * Classes:
+ *   package  BkTree
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Burkhard-Keller tree of words, used to find the words nearest to a
+ * misspelled option tag or value by Levenshtein (edit) distance.
+ * <P>
+ * Each node's children are keyed by their distance from the node. Because the
+ * edit distance is a metric, a search for words within distance <i>n</i> of
+ * a query need only visit children whose key is within <i>n</i> of the
+ * query's distance from their parent, so a search of a large vocabulary
+ * examines only a small fraction of its words.
+ * <P>
+ * A BkTree does not change after it is built, and may be searched by any
+ * number of threads.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineException#getSuggestions()
+ */
+final class BkTree {
+
+	/**
+	 * the maximum number of words returned by {@link #suggest(String)}
+	 */
+	static final int MAX_SUGGESTIONS = 3;
+
+	/**
+	 * the root of the tree, or null if the tree is empty
+	 */
+	private final Node root;
+
+	/**
+	 * constructor
+	 *
+	 * @param words
+	 *            the words to be searched - duplicates are ignored
+	 */
+	BkTree(Collection<String> words) {
+		Node r = null;
+		for (String w : words) {
+			if (r == null) {
+				r = new Node(w);
+			} else {
+				r.add(w);
+			}
+		}
+		root = r;
+	}
+
+	/**
+	 * Gets the words nearest to a word that was not recognized. Words within
+	 * {@link #maxDistance(String) maxDistance(word)} edits are returned,
+	 * nearest first, and in alphabetical order when equally near, up to
+	 * {@link #MAX_SUGGESTIONS}.
+	 *
+	 * @param word
+	 *            the unrecognized word
+	 * @return the nearest words - empty if there are none
+	 */
+	List<String> suggest(String word) {
+		return search(word, maxDistance(word), MAX_SUGGESTIONS);
+	}
+
+	/**
+	 * Gets the words within a specified distance of a word.
+	 *
+	 * @param word
+	 *            the word to be searched for
+	 * @param maxDistance
+	 *            the greatest edit distance of the words returned
+	 * @param max
+	 *            the maximum number of words returned
+	 * @return the words found, nearest first, and in alphabetical order when
+	 *         equally near
+	 */
+	List<String> search(String word, int maxDistance, int max) {
+		// found.get(d) holds the words found at distance d
+		List<List<String>> found = new ArrayList<List<String>>(maxDistance + 1);
+		for (int d = 0; d <= maxDistance; d++) {
+			found.add(new ArrayList<String>());
+		}
+		List<Node> pending = new ArrayList<Node>();
+		if (root != null) {
+			pending.add(root);
+		}
+		int[] work = new int[2 * (word.length() + 1)];
+		while (!pending.isEmpty()) {
+			Node n = pending.remove(pending.size() - 1);
+			int d = distance(word, n.word, work);
+			if (d <= maxDistance) {
+				found.get(d).add(n.word);
+			}
+			for (int i = 0; i < n.childCount; i++) {
+				if (Math.abs(n.childDistances[i] - d) <= maxDistance) {
+					pending.add(n.children[i]);
+				}
+			}
+		}
+		List<String> result = new ArrayList<String>();
+		for (int d = 0; d <= maxDistance && result.size() < max; d++) {
+			List<String> l = found.get(d);
+			Collections.sort(l);
+			for (int i = 0; i < l.size() && result.size() < max; i++) {
+				result.add(l.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the greatest edit distance at which a word is considered a likely
+	 * misspelling of another - one edit for words of up to five characters,
+	 * two for up to eight, and three for longer words.
+	 *
+	 * @param word
+	 *            the misspelled word
+	 * @return the maximum distance
+	 */
+	static int maxDistance(String word) {
+		return Math.max(1, Math.min(3, word.length() / 3));
+	}
+
+	/**
+	 * Computes the Levenshtein distance between two words.
+	 *
+	 * @param a
+	 *            the first word
+	 * @param b
+	 *            the second word
+	 * @param work
+	 *            an array of at least <code>2 * (a.length() + 1)</code> ints,
+	 *            used as the two rows of the distance matrix
+	 * @return the number of single character insertions, deletions, and
+	 *         substitutions needed to turn <code>a</code> into
+	 *         <code>b</code>
+	 */
+	static int distance(String a, String b, int[] work) {
+		int n = a.length();
+		int prev = 0;
+		int cur = n + 1;
+		for (int i = 0; i <= n; i++) {
+			work[i] = i;
+		}
+		for (int j = 1; j <= b.length(); j++) {
+			char cb = b.charAt(j - 1);
+			work[cur] = j;
+			for (int i = 1; i <= n; i++) {
+				int cost = (a.charAt(i - 1) == cb) ? 0 : 1;
+				work[cur + i] = Math.min(Math.min(work[cur + i - 1] + 1,
+						work[prev + i] + 1), work[prev + i - 1] + cost);
+			}
+			int t = prev;
+			prev = cur;
+			cur = t;
+		}
+		return work[prev + n];
+	}
+
+	/**
+	 * A word in the tree, with its children.
+	 */
+	private static final class Node {
+		final String word;
+		int childCount;
+		int[] childDistances;
+		Node[] children;
+
+		Node(String word) {
+			this.word = word;
+		}
+
+		/**
+		 * Adds a word below this node.
+		 */
+		void add(String w) {
+			Node n = this;
+			int[] work = new int[2 * (w.length() + 1)];
+			while (true) {
+				int d = distance(w, n.word, work);
+				if (d == 0) {
+					return; // duplicate
+				}
+				Node child = null;
+				for (int i = 0; i < n.childCount; i++) {
+					if (n.childDistances[i] == d) {
+						child = n.children[i];
+						break;
+					}
+				}
+				if (child == null) {
+					if (n.children == null) {
+						n.childDistances = new int[2];
+						n.children = new Node[2];
+					} else if (n.childCount == n.children.length) {
+						n.childDistances = Arrays.copyOf(n.childDistances,
+								n.childCount * 2);
+						n.children = Arrays.copyOf(n.children,
+								n.childCount * 2);
+					}
+					n.childDistances[n.childCount] = d;
+					n.children[n.childCount++] = new Node(w);
+					return;
+				}
+				n = child;
+			}
+		}
+	}
+}
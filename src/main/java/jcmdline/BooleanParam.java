@@ -134,9 +134,28 @@ public class BooleanParam extends AbstractParameter<Boolean> implements
 	}
 
 	/**
+	 * Clears the value of this BooleanParam, which reverts to its default
+	 * value of <code>false</code>.
+	 *
+	 * @see jcmdline.AbstractParameter#reset()
+	 */
+	@Override
+	public void reset() {
+		super.reset();
+		values.add(Boolean.FALSE);
+	}
+
+	/**
+	 * Converts a value to a Boolean. The {@link #getDefaultValue() default
+	 * value}, supplied by the parser when the option is specified just by its
+	 * tag, is always accepted, without looking up the localized values.
+	 * 
 	 * @see jcmdline.AbstractParameter#convertValue(java.lang.String)
 	 */
 	public Boolean convertValue(String strVal) throws CmdLineException {
+		if (strVal.equals(getDefaultValue())) {
+			return Boolean.TRUE;
+		}
 		Boolean retval = Boolean.FALSE;
 		if (strVal.equals(Strings.get("BooleanParam.true"))
 				|| strVal.equals(Strings.get("BooleanParam.yes"))) {
@@ -148,9 +167,9 @@ public class BooleanParam extends AbstractParameter<Boolean> implements
 					Strings.get("BooleanParam.yes"),
 					Strings.get("BooleanParam.false"),
 					Strings.get("BooleanParam.no") });
-			throw new CmdLineException(Strings.get(
+			throw CmdLineException.forKey(
 					"BooleanParameter.conversionErr", new Object[] { strVal,
-							tag, validValues }));
+							tag, validValues });
 		}
 		return retval;
 	}
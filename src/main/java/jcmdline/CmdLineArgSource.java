@@ -0,0 +1,74 @@
+/*
+ * CmdLineArgSource.java
+ *
+ * Classes:
+ *   public   CmdLineArgSource
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Interface describing a source of command line arguments that is read one
+ * argument at a time.
+ * <P>
+ * A CmdLineParser pulls arguments from a CmdLineArgSource as it needs them,
+ * so that implementations may produce each argument lazily from some encoded
+ * form (a block of bytes, a JSON document, etc.) rather than requiring the
+ * caller to build a <code>String[]</code> first. An argument that is never
+ * pulled (because, for instance, an earlier argument failed to parse) need
+ * never be decoded at all.
+ * <P>
+ * A CmdLineArgSource is read once, from start to end, and is not thread safe.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineParser#parse(CmdLineArgSource, java.util.Map, java.util.List)
+ * @see CmdLineHandler#parse(CmdLineArgSource)
+ */
+public interface CmdLineArgSource {
+
+	/**
+	 * Indicates whether there is another argument available.
+	 *
+	 * @return <code>true</code> if a call to {@link #next()} will return an
+	 *         argument
+	 * @throws CmdLineException
+	 *             if the underlying data cannot be read or is malformed.
+	 */
+	public boolean hasNext() throws CmdLineException;
+
+	/**
+	 * Gets the next argument.
+	 *
+	 * @return the next argument
+	 * @throws CmdLineException
+	 *             if the underlying data cannot be read or is malformed.
+	 * @throws java.util.NoSuchElementException
+	 *             if there are no more arguments.
+	 */
+	public String next() throws CmdLineException;
+}
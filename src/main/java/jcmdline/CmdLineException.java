@@ -32,6 +32,9 @@
 package jcmdline;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * An Exception that indicates a command line processing error.
@@ -65,6 +68,11 @@ import java.text.MessageFormat;
  * The package may now be modified to accomodate a French Locale by creating a
  * file 'errors_fr.properties' in directory 'mypackage' that contains all
  * messages in 'errors.properties', converted to French.
+ * <P>
+ * An exception caused by an unrecognized option tag or value may carry
+ * {@link #getSuggestions() suggestions} - the defined tags or values nearest
+ * to what was entered - which a UsageFormatter or application may offer to
+ * the user.
  * 
  * @author Lynne Lawrence
  * @version jcmdline Rel. @VERSION@ $Id: CmdLineException.java,v 1.2 2002/12/07
@@ -77,6 +85,24 @@ public class CmdLineException extends Exception {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * the suggested replacements for what was entered, or null if there are
+	 * none
+	 */
+	private final String[] suggestions;
+
+	/**
+	 * the key of the message in the jcmdline <i>strings.properties</i> file,
+	 * or null if the message was not taken from it
+	 */
+	private String messageKey;
+
+	/**
+	 * the tag of the Parameter whose value was in error, or null if the error
+	 * concerns no single Parameter
+	 */
+	private String tag;
+
 	/**
 	 * constructor
 	 * 
@@ -85,6 +111,24 @@ public class CmdLineException extends Exception {
 	 */
 	public CmdLineException(String message) {
 		super(message);
+		this.suggestions = null;
+	}
+
+	/**
+	 * constructor - creates an exception with suggested replacements for an
+	 * unrecognized option tag or value
+	 * 
+	 * @param message
+	 *            message associated with the exception
+	 * @param suggestions
+	 *            the suggested replacements, nearest first - may be null or
+	 *            empty
+	 * @see #getSuggestions()
+	 */
+	public CmdLineException(String message, List<String> suggestions) {
+		super(message);
+		this.suggestions = (suggestions == null || suggestions.isEmpty()) ? null
+				: suggestions.toArray(new String[suggestions.size()]);
 	}
 
 	/**
@@ -97,5 +141,99 @@ public class CmdLineException extends Exception {
 	 */
 	public CmdLineException(String message, Object[] params) {
 		super(MessageFormat.format(message, params));
+		this.suggestions = null;
+	}
+
+	/**
+	 * Creates an exception whose message is taken from the jcmdline
+	 * <i>strings.properties</i> file, recording its key.
+	 * 
+	 * @param key
+	 *            the key of the message
+	 * @param params
+	 *            parameters to be plugged into the message - may be null
+	 * @return the exception
+	 * @see #getMessageKey()
+	 */
+	static CmdLineException forKey(String key, Object[] params) {
+		return forKey(key, params, null);
+	}
+
+	/**
+	 * Creates an exception whose message is taken from the jcmdline
+	 * <i>strings.properties</i> file, recording its key, with suggested
+	 * replacements for an unrecognized option tag or value.
+	 * 
+	 * @param key
+	 *            the key of the message
+	 * @param params
+	 *            parameters to be plugged into the message - may be null
+	 * @param suggestions
+	 *            the suggested replacements, nearest first - may be null or
+	 *            empty
+	 * @return the exception
+	 * @see #getMessageKey()
+	 */
+	static CmdLineException forKey(String key, Object[] params,
+			List<String> suggestions) {
+		CmdLineException e = new CmdLineException((params == null) ? Strings
+				.get(key) : Strings.get(key, params), suggestions);
+		e.messageKey = key;
+		return e;
+	}
+
+	/**
+	 * Gets the key of the message of an exception thrown by jcmdline itself,
+	 * such as "PosixCmdLineParser.invalidOption". The key identifies the kind
+	 * of error whatever the locale, so that errors may be counted by kind.
+	 * 
+	 * @return the key of the message in the jcmdline <i>strings.properties</i>
+	 *         file, or null if the message was not taken from it
+	 * @see ParseMetrics#getErrorCounts()
+	 */
+	public String getMessageKey() {
+		return messageKey;
+	}
+
+	/**
+	 * Gets the tag of the Parameter whose value was in error - for instance,
+	 * one whose value could not be converted, or a required Parameter that
+	 * was not specified. Errors that concern no single Parameter of the
+	 * command, such as an unrecognized option tag, have none.
+	 * 
+	 * @return the tag, or null if the error concerns no single Parameter
+	 * @see OptionTelemetry
+	 */
+	public String getTag() {
+		return tag;
+	}
+
+	/**
+	 * Records the tag of the Parameter whose value was in error, unless one
+	 * has already been recorded.
+	 * 
+	 * @param tag
+	 *            the tag of the Parameter
+	 * @return this exception
+	 */
+	CmdLineException withTag(String tag) {
+		if (this.tag == null) {
+			this.tag = tag;
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the suggested replacements for an unrecognized option tag or
+	 * value, such as the defined option tags nearest to a misspelled one.
+	 * Option tags are suggested with a leading '-'.
+	 * 
+	 * @return the suggestions, nearest first - empty if there are none
+	 */
+	public List<String> getSuggestions() {
+		if (suggestions == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(Arrays.asList(suggestions));
 	}
 }
@@ -31,8 +31,12 @@
 
 package jcmdline;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Interface that describes the API for a command line handler. A command line
@@ -77,13 +81,31 @@ public interface CmdLineHandler {
 	 * Prints the usage, followed by the specified error message, to stderr and
 	 * exits the program with exit status = 1. The error message will be
 	 * prefaced with 'ERROR: '. This method will never return - it exits the
-	 * program with exit status of 1.
+	 * program with exit status of 1 - unless the handler is running
+	 * {@link ConfigurableCmdLineHandler#setInProcess(boolean) in process}.
 	 * 
 	 * @param errMsg
 	 *            the error message
 	 */
 	public void exitUsageError(String errMsg);
 
+	/**
+	 * Ends the program with the specified outcome. Normally this calls
+	 * <code>System.exit()</code> with the outcome's exit code, and does not
+	 * return. If this handler is running
+	 * {@link ConfigurableCmdLineHandler#setInProcess(boolean) in process},
+	 * the outcome is recorded, to be returned by {@link #getOutcome()}, and
+	 * this method returns.
+	 * <P>
+	 * The default implementation always calls <code>System.exit()</code>.
+	 * 
+	 * @param outcome
+	 *            how the program ended
+	 */
+	public default void exit(ParseOutcome outcome) {
+		System.exit(outcome.getExitCode());
+	}
+
 	/**
 	 * gets the argument specified by <code>tag</code>
 	 * 
@@ -130,6 +152,44 @@ public interface CmdLineHandler {
 	 */
 	public boolean getDieOnParseError();
 
+	/**
+	 * Gets the stream to which the usage and error messages are written.
+	 * <P>
+	 * The default implementation returns <code>System.err</code>.
+	 * 
+	 * @return the error stream - defaults to the current
+	 *         <code>System.err</code>
+	 * @see ConfigurableCmdLineHandler#setErr(PrintStream) setErr()
+	 */
+	public default PrintStream getErr() {
+		return System.err;
+	}
+
+	/**
+	 * Gets the locale in which this handler's messages, such as parse errors
+	 * and the usage, are produced.
+	 * <P>
+	 * The default implementation returns null.
+	 * 
+	 * @return the locale, or null if the locale of the calling thread is used
+	 * @see ConfigurableCmdLineHandler#setLocale(Locale) setLocale()
+	 */
+	public default Locale getLocale() {
+		return null;
+	}
+
+	/**
+	 * Gets the listener to which the timings of each parse are reported.
+	 * <P>
+	 * The default implementation returns null.
+	 * 
+	 * @return the listener, or null if parses are not timed
+	 * @see ConfigurableCmdLineHandler#setParseListener(ParseListener)
+	 */
+	public default ParseListener getParseListener() {
+		return null;
+	}
+
 	/**
 	 * gets the option specified by <code>tag</code>
 	 * 
@@ -146,6 +206,37 @@ public interface CmdLineHandler {
 	 */
 	public Collection<Parameter<?>> getOptions();
 
+	/**
+	 * Gets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * <P>
+	 * The default implementation returns <code>System.out</code>.
+	 * 
+	 * @return the output stream - defaults to the current
+	 *         <code>System.out</code>
+	 * @see ConfigurableCmdLineHandler#setOut(PrintStream) setOut()
+	 */
+	public default PrintStream getOut() {
+		return System.out;
+	}
+
+	/**
+	 * Gets the outcome of the last call to parse().
+	 * <P>
+	 * The default implementation returns an {@link ParseOutcome.Status#ERROR}
+	 * outcome if there is a {@link #getParseError() parse error}, and
+	 * {@link ParseOutcome#OK} otherwise.
+	 * 
+	 * @return the outcome of the last call to parse() -
+	 *         {@link ParseOutcome#OK} if parse() has not been called
+	 * @see ConfigurableCmdLineHandler#setInProcess(boolean) setInProcess()
+	 */
+	public default ParseOutcome getOutcome() {
+		String parseError = getParseError();
+		return (parseError == null) ? ParseOutcome.OK : new ParseOutcome(
+				ParseOutcome.Status.ERROR, 1, parseError);
+	}
+
 	/**
 	 * Gets the error message from the last call to parse().
 	 * 
@@ -162,6 +253,19 @@ public interface CmdLineHandler {
 	 */
 	public CmdLineParser getParser();
 
+	/**
+	 * Gets the telemetry to which the use of this command's options and
+	 * arguments is recorded.
+	 * <P>
+	 * The default implementation returns null.
+	 * 
+	 * @return the telemetry, or null if none is recorded
+	 * @see ConfigurableCmdLineHandler#setTelemetry(OptionTelemetry)
+	 */
+	public default OptionTelemetry getTelemetry() {
+		return null;
+	}
+
 	/**
 	 * Gets the usage statement associated with the command.
 	 * 
@@ -172,6 +276,18 @@ public interface CmdLineHandler {
 	 */
 	public String getUsage(boolean hidden);
 
+	/**
+	 * Indicates whether this handler is running in process.
+	 * <P>
+	 * The default implementation returns false.
+	 * 
+	 * @return true if this handler records outcomes rather than exiting
+	 * @see ConfigurableCmdLineHandler#setInProcess(boolean) setInProcess()
+	 */
+	public default boolean isInProcess() {
+		return false;
+	}
+
 	/**
 	 * parse the specified command line arguments
 	 * 
@@ -200,6 +316,67 @@ public interface CmdLineHandler {
 	 */
 	public boolean parse(String[] clargs);
 
+	/**
+	 * Parse the command line arguments supplied by the specified source. This
+	 * behaves exactly as {@link #parse(String[])}, but allows the arguments to
+	 * be supplied in some form other than a <code>String[]</code>.
+	 * <P>
+	 * The default implementation reads all of the arguments from
+	 * <code>clargs</code> and passes them to {@link #parse(String[])}.
+	 * Implementations that can parse arguments as they are read should
+	 * override it.
+	 * 
+	 * @param clargs
+	 *            the source of the command line arguments
+	 * @return see {@link #parse(String[])}
+	 * @throws IllegalArgumentException
+	 *             if the default implementation is unable to read the
+	 *             arguments from <code>clargs</code>
+	 * @see NulDelimitedArgSource
+	 */
+	public default boolean parse(CmdLineArgSource clargs) {
+		List<String> l = new ArrayList<String>();
+		try {
+			while (clargs.hasNext()) {
+				l.add(clargs.next());
+			}
+		} catch (CmdLineException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+		return parse(l.toArray(new String[l.size()]));
+	}
+
+	/**
+	 * Clears the values of all options and arguments, and the error message
+	 * from the last call to parse(), so that this CmdLineHandler may be used to
+	 * parse another command line. The options and arguments themselves are
+	 * retained.
+	 * <P>
+	 * Only the values of {@link AbstractParameter AbstractParameters} can be
+	 * cleared - other Parameters are left as they are, and a handler with such
+	 * Parameters is not reused by a {@link CmdLineHandlerPool}.
+	 * <P>
+	 * The default implementation {@link AbstractParameter#reset() resets} each
+	 * option and argument that is an AbstractParameter, and clears the parse
+	 * error.
+	 * 
+	 * @see AbstractParameter#reset()
+	 * @see CmdLineHandlerPool
+	 */
+	public default void reset() {
+		for (Parameter<?> p : getOptions()) {
+			if (p instanceof AbstractParameter) {
+				((AbstractParameter<?>) p).reset();
+			}
+		}
+		for (Parameter<?> p : getArgs()) {
+			if (p instanceof AbstractParameter) {
+				((AbstractParameter<?>) p).reset();
+			}
+		}
+		setParseError(null);
+	}
+
 	/**
 	 * sets the value of the arguments (what is left on the command line after
 	 * all options, and their parameters, have been processed) associated with
@@ -247,6 +424,28 @@ public interface CmdLineHandler {
 	 */
 	public void setDieOnParseError(boolean val);
 
+	/**
+	 * Writes the usage statement associated with the command to
+	 * <code>out</code>, without necessarily holding it in memory as a whole.
+	 * <P>
+	 * The default implementation appends {@link #getUsage(boolean) getUsage()}.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden options are to be included in the
+	 *            usage.
+	 * @param out
+	 *            the destination of the usage - such as a
+	 *            <code>StringBuilder</code>, <code>Writer</code>, or
+	 *            <code>PrintStream</code>
+	 * @throws IOException
+	 *             if <code>out</code> throws IOException
+	 * @see #getUsage(boolean)
+	 */
+	public default void writeUsage(boolean hidden, Appendable out)
+			throws IOException {
+		out.append(getUsage(hidden));
+	}
+
 	/**
 	 * Sets the value of the options associated with the command
 	 * 
@@ -0,0 +1,250 @@
+/*
+ * CmdLineHandlerPool.java
+ *
+ * Classes:
+ *   public   CmdLineHandlerPool
+ *   public   CmdLineHandlerPool.Factory
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of reusable CmdLineHandlers, intended for servers that parse many
+ * command lines with the same definition and do not wish to construct a new
+ * handler (and decorator stack) for each one.
+ * <P>
+ * CmdLineHandlers, and the Parameters they contain, hold the values of the
+ * last parse and so may only be used by one thread at a time. The pool's
+ * {@link Factory} must therefore create a complete handler, with its own
+ * Parameter objects, on each call. Parsed values are retrieved through the
+ * handler, using {@link CmdLineHandler#getOption(String) getOption()} and
+ * {@link CmdLineHandler#getArg(String) getArg()}, rather than through
+ * Parameter objects held elsewhere.
+ * <P>
+ * Handlers may be borrowed and returned:
+ *
+ * <pre>
+ * CmdLineHandler cl = pool.acquire();
+ * try {
+ *     if (cl.parse(args)) {
+ *         ...
+ *     }
+ * } finally {
+ *     pool.release(cl);
+ * }
+ * </pre>
+ *
+ * or, where threads are long-lived, each thread may keep a handler of its own:
+ *
+ * <pre>
+ * CmdLineHandler cl = pool.get();
+ * if (cl.parse(args)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * All handlers handed out by the pool have been {@link CmdLineHandler#reset()
+ * reset}. Since reset() can only clear the values of
+ * {@link AbstractParameter AbstractParameters}, a handler with any other
+ * Parameter is never reused: it is discarded when released, and replaced on
+ * each call to {@link #get()}.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineHandler#reset()
+ */
+public class CmdLineHandlerPool {
+
+	/**
+	 * Interface used by a CmdLineHandlerPool to create new CmdLineHandlers.
+	 */
+	public interface Factory {
+
+		/**
+		 * Creates a new CmdLineHandler. Each call must return a new handler
+		 * whose Parameters are not shared with any other handler.
+		 *
+		 * @return the new CmdLineHandler
+		 */
+		public CmdLineHandler createHandler();
+	}
+
+	/**
+	 * the default maximum number of idle handlers retained by the pool
+	 */
+	public static final int DEFAULT_MAX_IDLE = 64;
+
+	/**
+	 * the factory used to create handlers
+	 */
+	private final Factory factory;
+
+	/**
+	 * idle handlers available to {@link #acquire()}
+	 */
+	private final ConcurrentLinkedQueue<CmdLineHandler> idle = new ConcurrentLinkedQueue<CmdLineHandler>();
+
+	/**
+	 * the number of handlers in <code>idle</code> - maintained separately
+	 * because ConcurrentLinkedQueue.size() is not a constant-time operation
+	 */
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	/**
+	 * the maximum number of idle handlers retained
+	 */
+	private final int maxIdle;
+
+	/**
+	 * the handler belonging to each thread that has called {@link #get()}
+	 */
+	private final ThreadLocal<CmdLineHandler> perThread = new ThreadLocal<CmdLineHandler>() {
+		@Override
+		protected CmdLineHandler initialValue() {
+			return factory.createHandler();
+		}
+	};
+
+	/**
+	 * constructor - retains up to {@link #DEFAULT_MAX_IDLE} idle handlers
+	 *
+	 * @param factory
+	 *            the factory used to create handlers
+	 * @throws IllegalArgumentException
+	 *             if <code>factory</code> is null
+	 */
+	public CmdLineHandlerPool(Factory factory) {
+		this(factory, DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param factory
+	 *            the factory used to create handlers
+	 * @param maxIdle
+	 *            the maximum number of idle handlers to be retained by the
+	 *            pool - handlers released when this many are already idle are
+	 *            discarded
+	 * @throws IllegalArgumentException
+	 *             if <code>factory</code> is null or <code>maxIdle</code> is
+	 *             negative
+	 */
+	public CmdLineHandlerPool(Factory factory, int maxIdle) {
+		if (factory == null) {
+			throw new IllegalArgumentException(Strings
+					.get("CmdLineHandlerPool.nullFactory"));
+		}
+		if (maxIdle < 0) {
+			throw new IllegalArgumentException(Strings.get(
+					"CmdLineHandlerPool.negativeMaxIdle",
+					new Object[] { Integer.toString(maxIdle) }));
+		}
+		this.factory = factory;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Borrows a handler from the pool, creating a new one if none is idle. The
+	 * handler should be returned with {@link #release(CmdLineHandler)} when
+	 * its values are no longer needed.
+	 *
+	 * @return a reset handler, for the exclusive use of the caller until it is
+	 *         released
+	 */
+	public CmdLineHandler acquire() {
+		CmdLineHandler h = idle.poll();
+		if (h == null) {
+			return factory.createHandler();
+		}
+		idleCount.decrementAndGet();
+		return h;
+	}
+
+	/**
+	 * Gets the handler belonging to the calling thread, creating it on the
+	 * thread's first call. The handler is reset on each call, so values from
+	 * the thread's previous parse are lost.
+	 *
+	 * @return the calling thread's handler
+	 */
+	public CmdLineHandler get() {
+		CmdLineHandler h = perThread.get();
+		if (isResettable(h)) {
+			h.reset();
+		} else {
+			// new, but not to be handed out again
+			perThread.remove();
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a handler obtained from {@link #acquire()} to the pool. The
+	 * handler is reset, and must not be used by the caller after this call.
+	 *
+	 * @param handler
+	 *            the handler being returned - if null, this method does
+	 *            nothing
+	 */
+	public void release(CmdLineHandler handler) {
+		if (handler == null || !isResettable(handler)) {
+			return;
+		}
+		handler.reset();
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(handler);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Determines whether reset() clears all of a handler's values, which it
+	 * does only if all of its Parameters are AbstractParameters.
+	 *
+	 * @param handler
+	 *            the handler
+	 * @return true if the handler may be reused
+	 */
+	private static boolean isResettable(CmdLineHandler handler) {
+		for (Parameter<?> p : handler.getOptions()) {
+			if (!(p instanceof AbstractParameter)) {
+				return false;
+			}
+		}
+		for (Parameter<?> p : handler.getArgs()) {
+			if (!(p instanceof AbstractParameter)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -33,6 +33,7 @@
 
 package jcmdline;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +81,39 @@ public interface CmdLineParser {
 	public void parse(String clargs[], Map<String, Parameter<?>> opts,
 			List<Parameter<?>> args) throws CmdLineException;
 
+	/**
+	 * Parses the command line arguments supplied by <code>clargs</code> into
+	 * sets of options and arguments. Following a call to this method, the
+	 * appropriate values of the parameters and options will be set.
+	 * <P>
+	 * The default implementation reads all of the arguments from
+	 * <code>clargs</code> and passes them to
+	 * {@link #parse(String[], Map, List)}. Implementations that can parse
+	 * arguments as they are read should override it.
+	 * 
+	 * @param clargs
+	 *            the source of the command line arguments
+	 * @param opts
+	 *            the expected command line options
+	 * @param args
+	 *            the expected command line arguments (what is left on the
+	 *            command line after the options have been processed.
+	 * @throws CmdLineException
+	 *             if the arguments fail to parse properly into the expected
+	 *             options and arguments, or if <code>clargs</code> is unable
+	 *             to supply them.
+	 * @see #parse(String[], Map, List)
+	 */
+	public default void parse(CmdLineArgSource clargs,
+			Map<String, Parameter<?>> opts, List<Parameter<?>> args)
+			throws CmdLineException {
+		List<String> l = new ArrayList<String>();
+		while (clargs.hasNext()) {
+			l.add(clargs.next());
+		}
+		parse(l.toArray(new String[l.size()]), opts, args);
+	}
+
 	/**
 	 * Sets a usage formatter suitable for this CmdLineParser's format.
 	 * 
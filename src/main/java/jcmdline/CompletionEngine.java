@@ -0,0 +1,465 @@
+/*
+ * CompletionEngine.java
+ *
+ * Classes:
+ *   public   CompletionEngine
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes shell tab-completion candidates for a command line defined by a
+ * CmdLineHandler.
+ * <P>
+ * Given the words typed so far, and the index of the word being completed,
+ * {@link #complete(String[], int) complete()} returns the words that may
+ * replace it:
+ * <ul>
+ * <li>option tags, when the word starts with a '-' and options have not been
+ * ended. Tags are matched case-insensitively, as by the
+ * {@link PosixCmdLineParser}, and hidden options are never offered.
+ * <li>acceptable values, when the word is the value of an option, or a
+ * command line argument, whose Parameter has
+ * {@link Parameter#getAcceptableValues() acceptable values}. A value may also
+ * be completed following an '=', as in <code>-mode=fa</code>, in which case
+ * the candidates include the option tag.
+ * <li>file and directory names, when the word is the value of a
+ * {@link FileParam}. Directories are always offered, with a trailing
+ * separator, so that the user can navigate to a file. Files are offered only
+ * if they satisfy the FileParam's {@link FileParam#getAttributes()
+ * attributes}.
+ * </ul>
+ * The option tags and acceptable values are indexed, in sorted arrays, when
+ * the engine is created, so that each completion costs a binary search and a
+ * walk of the words preceding the cursor. An engine is intended to be kept by
+ * a long-running process, such as a command server, which answers completion
+ * requests for a shell. The engine does not change after it is created, and
+ * may be used by any number of threads, but must be re-created if the
+ * handler's options or arguments are changed.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * CompletionEngine engine = new CompletionEngine(handler);
+ * ...
+ * // the user typed &quot;mycmd -ou&lt;TAB&gt;&quot;
+ * List&lt;String&gt; candidates = engine.complete(new String[] { &quot;-ou&quot; }, 0);
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see PosixCmdLineParser
+ */
+public class CompletionEngine {
+
+	/**
+	 * the visible option tags, indexed by their lower-case form
+	 */
+	private final PrefixIndex tags;
+
+	/**
+	 * all options, including hidden ones, by lower-case tag
+	 */
+	private final Map<String, Parameter<?>> options;
+
+	/**
+	 * the command's arguments, in order
+	 */
+	private final Parameter<?>[] args;
+
+	/**
+	 * the acceptable values of each Parameter that has them
+	 */
+	private final Map<Parameter<?>, PrefixIndex> values = new IdentityHashMap<Parameter<?>, PrefixIndex>();
+
+	/**
+	 * constructor - indexes the options and arguments of a handler
+	 *
+	 * @param handler
+	 *            the handler whose command line is to be completed
+	 * @throws IllegalArgumentException
+	 *             if <code>handler</code> is null
+	 */
+	public CompletionEngine(CmdLineHandler handler) {
+		if (handler == null) {
+			throw new IllegalArgumentException(Strings
+					.get("CompletionEngine.nullHandler"));
+		}
+		Map<String, Parameter<?>> opts = new HashMap<String, Parameter<?>>();
+		List<String> visible = new ArrayList<String>();
+		for (Parameter<?> p : handler.getOptions()) {
+			String lctag = p.getTag().toLowerCase();
+			opts.put(lctag, p);
+			if (!p.isHidden()) {
+				visible.add(p.getTag());
+			}
+			indexValues(p);
+		}
+		options = opts;
+		tags = new PrefixIndex(visible, true);
+		args = handler.getArgs().toArray(new Parameter<?>[0]);
+		for (int i = 0; i < args.length; i++) {
+			indexValues(args[i]);
+		}
+	}
+
+	/**
+	 * Gets the completion candidates for a word, resolving relative file
+	 * names against the current directory.
+	 *
+	 * @param words
+	 *            the command line arguments typed so far, not including the
+	 *            command name
+	 * @param index
+	 *            the index, in <code>words</code>, of the word being
+	 *            completed - if equal to <code>words.length</code>, a new,
+	 *            empty, word is being completed
+	 * @return the sorted candidates, each of which may replace the word being
+	 *         completed - empty if there are none
+	 * @throws IllegalArgumentException
+	 *             if <code>index</code> is negative or greater than
+	 *             <code>words.length</code>
+	 * @see #complete(String[], int, File)
+	 */
+	public List<String> complete(String[] words, int index) {
+		return complete(words, index, null);
+	}
+
+	/**
+	 * Gets the completion candidates for a word.
+	 *
+	 * @param words
+	 *            the command line arguments typed so far, not including the
+	 *            command name
+	 * @param index
+	 *            the index, in <code>words</code>, of the word being
+	 *            completed - if equal to <code>words.length</code>, a new,
+	 *            empty, word is being completed
+	 * @param dir
+	 *            the directory against which relative file names are
+	 *            resolved, typically the working directory of the shell
+	 *            requesting completion - if null, the current directory is
+	 *            used
+	 * @return the sorted candidates, each of which may replace the word being
+	 *         completed - empty if there are none
+	 * @throws IllegalArgumentException
+	 *             if <code>index</code> is negative or greater than
+	 *             <code>words.length</code>
+	 */
+	public List<String> complete(String[] words, int index, File dir) {
+		if (index < 0 || index > words.length) {
+			throw new IllegalArgumentException(Strings.get(
+					"CompletionEngine.badIndex", new Object[] {
+							Integer.toString(index),
+							Integer.toString(words.length) }));
+		}
+		String word = (index == words.length) ? "" : words[index];
+
+		// follow the parser through the preceding words
+		boolean inOptions = true;
+		Parameter<?> valueOf = null; // the option whose value is next
+		int argIdx = 0;
+		for (int i = 0; i < index; i++) {
+			String w = words[i];
+			if (valueOf != null) {
+				valueOf = null;
+			} else if (inOptions && w.equals("--")) {
+				inOptions = false;
+			} else if (inOptions && w.startsWith("-")) {
+				int equalsIdx = w.indexOf('=');
+				Parameter<?> p = findOption(w.substring(tagIdx(w),
+						(equalsIdx == -1) ? w.length() : equalsIdx));
+				if (p == null) {
+					// the parser would fail here - nothing can follow
+					return new ArrayList<String>();
+				}
+				if (equalsIdx == -1 && !(p instanceof OptionTakesNoValue)) {
+					valueOf = p;
+				}
+			} else {
+				inOptions = false;
+				if (argIdx < args.length && !args[argIdx].isMultiValued()) {
+					argIdx++;
+				}
+			}
+		}
+
+		List<String> candidates = new ArrayList<String>();
+		if (valueOf != null) {
+			completeValue(valueOf, "", word, dir, candidates);
+		} else if (inOptions && word.startsWith("-") && !word.equals("--")) {
+			int tagIdx = tagIdx(word);
+			String dashes = word.substring(0, tagIdx);
+			int equalsIdx = word.indexOf('=');
+			if (equalsIdx == -1) {
+				tags.collect(word.substring(tagIdx).toLowerCase(), dashes,
+						candidates);
+			} else {
+				Parameter<?> p = findOption(word.substring(tagIdx, equalsIdx));
+				if (p != null) {
+					completeValue(p, dashes + p.getTag() + "=", word
+							.substring(equalsIdx + 1), dir, candidates);
+				}
+			}
+		} else if (argIdx < args.length) {
+			completeValue(args[argIdx], "", word, dir, candidates);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Adds the candidate values for a Parameter.
+	 *
+	 * @param p
+	 *            the Parameter whose value is being completed
+	 * @param before
+	 *            text to precede each candidate
+	 * @param prefix
+	 *            the partial value typed so far
+	 * @param dir
+	 *            the directory against which relative file names are
+	 *            resolved, or null
+	 * @param candidates
+	 *            the list to which candidates are added
+	 */
+	private void completeValue(Parameter<?> p, String before, String prefix,
+			File dir, List<String> candidates) {
+		PrefixIndex index = values.get(p);
+		if (index != null) {
+			index.collect(prefix, before, candidates);
+		} else if (p instanceof FileParam) {
+			completeFile((FileParam) p, before, prefix, dir, candidates);
+		}
+	}
+
+	/**
+	 * Adds the names of the files and directories that may complete a
+	 * FileParam's value.
+	 *
+	 * @param p
+	 *            the FileParam whose value is being completed
+	 * @param before
+	 *            text to precede each candidate
+	 * @param prefix
+	 *            the partial file name typed so far
+	 * @param dir
+	 *            the directory against which relative file names are
+	 *            resolved, or null
+	 * @param candidates
+	 *            the list to which candidates are added
+	 */
+	private static void completeFile(FileParam p, String before,
+			String prefix, File dir, List<String> candidates) {
+		int sep = Math.max(prefix.lastIndexOf('/'), prefix
+				.lastIndexOf(File.separatorChar));
+		String parent = prefix.substring(0, sep + 1);
+		String namePrefix = prefix.substring(sep + 1);
+		File listDir;
+		if (parent.length() == 0) {
+			listDir = (dir == null) ? new File(".") : dir;
+		} else {
+			listDir = new File(parent);
+			if (!listDir.isAbsolute() && dir != null) {
+				listDir = new File(dir, parent);
+			}
+		}
+		String[] names = listDir.list();
+		if (names == null) {
+			return;
+		}
+		Arrays.sort(names);
+		boolean showDotFiles = namePrefix.startsWith(".");
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			if (!name.startsWith(namePrefix)
+					|| (!showDotFiles && name.startsWith("."))) {
+				continue;
+			}
+			File f = new File(listDir, name);
+			if (f.isDirectory()) {
+				candidates.add(before + parent + name + File.separator);
+			} else if (!p.attrSpecified(FileParam.IS_DIR)
+					&& !p.attrSpecified(FileParam.DOESNT_EXIST)
+					&& (!p.attrSpecified(FileParam.IS_READABLE) || f.canRead())
+					&& (!p.attrSpecified(FileParam.IS_WRITEABLE) || f
+							.canWrite())) {
+				candidates.add(before + parent + name);
+			}
+		}
+	}
+
+	/**
+	 * Finds the option matching a tag, as the {@link PosixCmdLineParser}
+	 * would.
+	 *
+	 * @param tag
+	 *            the tag, which may be an unambiguous abbreviation of a
+	 *            visible option's tag
+	 * @return the option, or null if there is none, or <code>tag</code> is
+	 *         ambiguous
+	 */
+	private Parameter<?> findOption(String tag) {
+		String lctag = tag.toLowerCase();
+		Parameter<?> p = options.get(lctag);
+		if (p == null) {
+			String fulltag = tags.unique(lctag);
+			if (fulltag != null) {
+				p = options.get(fulltag.toLowerCase());
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Gets the index of the start of an option's tag.
+	 *
+	 * @param word
+	 *            a word starting with '-'
+	 * @return 2 if the word starts with "--", otherwise 1
+	 */
+	private static int tagIdx(String word) {
+		return word.startsWith("--") ? 2 : 1;
+	}
+
+	/**
+	 * Indexes the acceptable values of a Parameter, if it has any.
+	 *
+	 * @param p
+	 *            the Parameter
+	 */
+	private void indexValues(Parameter<?> p) {
+		List<?> vals = p.getAcceptableValues();
+		if (vals == null || vals.isEmpty() || values.containsKey(p)) {
+			return;
+		}
+		List<String> strs = new ArrayList<String>(vals.size());
+		for (Object val : vals) {
+			strs.add(String.valueOf(val));
+		}
+		values.put(p, new PrefixIndex(strs, false));
+	}
+
+	/**
+	 * A sorted array of words, searched by prefix.
+	 */
+	private static final class PrefixIndex {
+
+		/**
+		 * the keys searched, in ascending order
+		 */
+		private final String[] keys;
+
+		/**
+		 * the word corresponding to each key
+		 */
+		private final String[] words;
+
+		/**
+		 * constructor
+		 *
+		 * @param words
+		 *            the words to be indexed - duplicates are removed
+		 * @param ignoreCase
+		 *            true if words are to be found by the lower-case form of
+		 *            their prefixes
+		 */
+		PrefixIndex(List<String> words, boolean ignoreCase) {
+			String[][] pairs = new String[words.size()][];
+			for (int i = 0; i < pairs.length; i++) {
+				String w = words.get(i);
+				pairs[i] = new String[] { ignoreCase ? w.toLowerCase() : w, w };
+			}
+			Arrays.sort(pairs, new Comparator<String[]>() {
+				public int compare(String[] a, String[] b) {
+					return a[0].compareTo(b[0]);
+				}
+			});
+			List<String> k = new ArrayList<String>(pairs.length);
+			List<String> v = new ArrayList<String>(pairs.length);
+			for (int i = 0; i < pairs.length; i++) {
+				if (i == 0 || !pairs[i][0].equals(pairs[i - 1][0])) {
+					k.add(pairs[i][0]);
+					v.add(pairs[i][1]);
+				}
+			}
+			this.keys = k.toArray(new String[k.size()]);
+			this.words = v.toArray(new String[v.size()]);
+		}
+
+		/**
+		 * Adds the words whose keys start with a prefix to a list, in key
+		 * order.
+		 *
+		 * @param prefix
+		 *            the prefix
+		 * @param before
+		 *            text to precede each word added
+		 * @param out
+		 *            the list to which words are added
+		 */
+		void collect(String prefix, String before, List<String> out) {
+			for (int i = first(prefix); i < keys.length
+					&& keys[i].startsWith(prefix); i++) {
+				out.add(before + words[i]);
+			}
+		}
+
+		/**
+		 * Gets the only word whose key starts with a prefix.
+		 *
+		 * @param prefix
+		 *            the prefix
+		 * @return the word, or null if no key, or more than one key, starts
+		 *         with <code>prefix</code>
+		 */
+		String unique(String prefix) {
+			int i = first(prefix);
+			if (i < keys.length && keys[i].startsWith(prefix)
+					&& (i + 1 == keys.length || !keys[i + 1].startsWith(prefix))) {
+				return words[i];
+			}
+			return null;
+		}
+
+		/**
+		 * Gets the index of the first key not less than a prefix.
+		 */
+		private int first(String prefix) {
+			int i = Arrays.binarySearch(keys, prefix);
+			return (i < 0) ? -(i + 1) : i;
+		}
+	}
+}
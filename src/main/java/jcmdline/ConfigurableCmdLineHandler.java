@@ -0,0 +1,148 @@
+/*
+ * ConfigurableCmdLineHandler.java
+ *
+ * Classes:
+ *   public   ConfigurableCmdLineHandler
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * A CmdLineHandler whose behaviour may be configured beyond the definition
+ * of its options and arguments. The handlers of this package -
+ * {@link BasicCmdLineHandler}, {@link FlatCmdLineHandler}, and the
+ * subclasses of {@link AbstractHandlerDecorator} - implement it. A
+ * CmdLineHandler implemented elsewhere need only implement CmdLineHandler.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineHandler
+ */
+public interface ConfigurableCmdLineHandler extends CmdLineHandler {
+
+	/**
+	 * Specifies that, if one Parameter is set, another must also be set. The
+	 * rule is not enforced when a Parameter whose ignoreRequired flag is set
+	 * has been set.
+	 *
+	 * @param param
+	 *            an option or argument of this command
+	 * @param required
+	 *            an option or argument of this command that must be set
+	 *            whenever <code>param</code> is set
+	 * @throws IllegalArgumentException
+	 *             if either Parameter is not an option or argument of this
+	 *             command
+	 */
+	public void addDependency(Parameter<?> param, Parameter<?> required);
+
+	/**
+	 * Specifies a group of Parameters of which no more than one may be set.
+	 * The rule is not enforced when a Parameter whose ignoreRequired flag is
+	 * set has been set.
+	 *
+	 * @param params
+	 *            options or arguments of this command
+	 * @throws IllegalArgumentException
+	 *             if fewer than two Parameters are specified, or a Parameter
+	 *             is not an option or argument of this command
+	 */
+	public void addExclusiveGroup(Parameter<?>[] params);
+
+	/**
+	 * Sets the stream to which the usage and error messages are written.
+	 * 
+	 * @param err
+	 *            the error stream - if null, the current
+	 *            <code>System.err</code> is used
+	 */
+	public void setErr(PrintStream err);
+
+	/**
+	 * Sets a flag indicating that this handler is hosted in a JVM that must
+	 * not be exited - defaults to <code>false</code>. When set, parse() never
+	 * calls <code>System.exit()</code>. Where it would have exited, as on a
+	 * parse error when <code>dieOnParseError</code> is set, or when the
+	 * usage, help, or version is requested, it instead returns
+	 * <code>false</code> and records a {@link ParseOutcome} that may be
+	 * obtained from {@link #getOutcome()}.
+	 * 
+	 * @param inProcess
+	 *            true to record outcomes rather than exiting
+	 * @see #exit(ParseOutcome) exit()
+	 */
+	public void setInProcess(boolean inProcess);
+
+	/**
+	 * Sets the locale in which this handler's messages, such as parse errors
+	 * and the usage, are produced. The locale applies to the calling thread
+	 * for the duration of each call to parse() or getUsage(), so handlers
+	 * with different locales may be used concurrently - a server may set the
+	 * locale of each request on the handler that parses it. Messages for
+	 * each locale are loaded once, on first use, and cached.
+	 * 
+	 * @param locale
+	 *            the locale - if null (the default), the locale of the
+	 *            calling thread, normally the default locale, is used
+	 * @see Strings#getLocale()
+	 */
+	public void setLocale(Locale locale);
+
+	/**
+	 * Sets the stream to which requested output, such as the usage, help, or
+	 * version, is written.
+	 * 
+	 * @param out
+	 *            the output stream - if null, the current
+	 *            <code>System.out</code> is used
+	 */
+	public void setOut(PrintStream out);
+
+	/**
+	 * Sets the listener to which the timings of the phases of each parse, and
+	 * its errors, are reported. When there is no listener, nothing is timed.
+	 * 
+	 * @param parseListener
+	 *            the listener, or null to stop timing parses
+	 * @see ParseMetrics
+	 */
+	public void setParseListener(ParseListener parseListener);
+
+	/**
+	 * Sets the telemetry to which the use of this command's options and
+	 * arguments, and their errors, is recorded after each parse. By default
+	 * none is recorded.
+	 * 
+	 * @param telemetry
+	 *            the telemetry, or null to stop recording
+	 * @see #getTelemetry()
+	 */
+	public void setTelemetry(OptionTelemetry telemetry);
+}
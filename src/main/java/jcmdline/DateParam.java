@@ -81,12 +81,9 @@ import java.util.Date;
  */
 public class DateParam extends AbstractParameter<Date> {
 
-	private static final String sDateFmt = Strings.get("DateParam.dateFormat");
 	private static final String sTimeFmt = "HH:mm:ss:SSS";
-	private static final SimpleDateFormat dateFmt = new SimpleDateFormat(
-			sDateFmt);
-	private static final SimpleDateFormat dateFmtWTime = new SimpleDateFormat(
-			sDateFmt + " " + sTimeFmt);
+	private static final LocalizedDateFormat dateFmtWTime = new LocalizedDateFormat(
+			"DateParam.dateFormat", " " + sTimeFmt);
 
 	/**
 	 * The default hours to be added to the date - defaults to 0
@@ -225,7 +222,6 @@ public class DateParam extends AbstractParameter<Date> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(sDateFmt);
 	}
 
 	/**
@@ -354,7 +350,6 @@ public class DateParam extends AbstractParameter<Date> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(sDateFmt);
 	}
 
 	/**
@@ -363,7 +358,20 @@ public class DateParam extends AbstractParameter<Date> {
 	 * @return the format used to parse the date/time values
 	 */
 	static String getParseFormat() {
-		return dateFmt.toLocalizedPattern();
+		return new SimpleDateFormat(dateFmtWTime.getDatePattern(), Strings
+				.getLocale()).toLocalizedPattern();
+	}
+
+	/**
+	 * Gets the label used for this option in the usage - the date format of
+	 * the current locale, unless a label has been set.
+	 * 
+	 * @see jcmdline.AbstractParameter#getOptionLabel()
+	 */
+	@Override
+	public String getOptionLabel() {
+		return (optionLabel == null) ? dateFmtWTime.getDatePattern()
+				: optionLabel;
 	}
 
 	/**
@@ -373,10 +381,10 @@ public class DateParam extends AbstractParameter<Date> {
 		String sTime = String.format("%02d:%02d:%02d:%03d", defaultHours,
 				defaultMinutes, defaultSeconds, defaultMilliSeconds);
 		try {
-			return dateFmtWTime.parse(val + " " + sTime);
+			return dateFmtWTime.getFormat().parse(val + " " + sTime);
 		} catch (ParseException e) {
-			throw new CmdLineException(Strings.get("DateParam.invalidDate",
-					new Object[] { getTag(), sDateFmt }));
+			throw CmdLineException.forKey("DateParam.invalidDate",
+					new Object[] { getTag(), dateFmtWTime.getDatePattern() });
 		}
 	}
 
@@ -33,7 +33,6 @@
 
 package jcmdline;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -98,10 +97,8 @@ public class DateTimeParam extends AbstractParameter<Date> {
 
 	private static final String sTimeFmt = "HH:mm:ss:SSS";
 	private static final String sTimeFmtDisplay = "HH:mm[:ss[:SSS]]";
-	private static final String sDateFmt = Strings
-			.get("DateTimeParam.dateFormat");
-	private static final SimpleDateFormat dateFmt = new SimpleDateFormat(
-			sDateFmt + " " + sTimeFmt);
+	private static final LocalizedDateFormat dateFmt = new LocalizedDateFormat(
+			"DateTimeParam.dateFormat", " " + sTimeFmt);
 
 	/**
 	 * The default millisecond value to use if not specified by the user. This
@@ -226,7 +223,6 @@ public class DateTimeParam extends AbstractParameter<Date> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(sDateFmt + " " + sTimeFmtDisplay);
 	}
 
 	/**
@@ -355,7 +351,6 @@ public class DateTimeParam extends AbstractParameter<Date> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(sDateFmt + " " + sTimeFmtDisplay);
 	}
 
 	/**
@@ -364,7 +359,19 @@ public class DateTimeParam extends AbstractParameter<Date> {
 	 * @return the format used to parse the date/time values
 	 */
 	public static String getParseFormat() {
-		return dateFmt.toLocalizedPattern();
+		return dateFmt.getFormat().toLocalizedPattern();
+	}
+
+	/**
+	 * Gets the label used for this option in the usage - the date and time
+	 * format of the current locale, unless a label has been set.
+	 * 
+	 * @see jcmdline.AbstractParameter#getOptionLabel()
+	 */
+	@Override
+	public String getOptionLabel() {
+		return (optionLabel == null) ? dateFmt.getDatePattern() + " "
+				+ sTimeFmtDisplay : optionLabel;
 	}
 
 	/**
@@ -378,6 +385,7 @@ public class DateTimeParam extends AbstractParameter<Date> {
 	 *             if <code>val</code> will not parse to a Date.
 	 */
 	public Date convertValue(String val) throws CmdLineException {
+		String sDateFmt = dateFmt.getDatePattern();
 		try {
 			if (val.length() == sDateFmt.length() + 6) {
 				val = String.format("%s:%02d", val, defaultSeconds);
@@ -385,11 +393,10 @@ public class DateTimeParam extends AbstractParameter<Date> {
 			if (val.length() == sDateFmt.length() + 9) {
 				val = String.format("%s:%03d", val, defaultMilliSeconds);
 			}
-			return dateFmt.parse(val);
+			return dateFmt.getFormat().parse(val);
 		} catch (Exception e) {
-			throw new CmdLineException(Strings
-					.get("DateTimeParam.invalidDate", new Object[] { getTag(),
-							sDateFmt + " " + sTimeFmtDisplay }));
+			throw CmdLineException.forKey("DateTimeParam.invalidDate", new Object[] { getTag(),
+							sDateFmt + " " + sTimeFmtDisplay });
 		}
 	}
 
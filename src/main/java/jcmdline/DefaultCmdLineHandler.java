@@ -186,18 +186,22 @@ public class DefaultCmdLineHandler extends AbstractHandlerDecorator {
 	 * @param parseStatus
 	 *            The result of the <code>parse()</code> call to this class's
 	 *            contained CmdLineHandler.
-	 * @return This method will call <code>System.exit(0)</code>, rather than
+	 * @return This method will call {@link #exit(ParseOutcome) exit()}, rather than
 	 *         returning, if one of its supported options (<i>-h</i>,
 	 *         <i>-h!</i>, or <i>-?</i>) is specified. Otherwise,
-	 *         <code>parseStatus</code> is returned.
+	 *         <code>parseStatus</code> is returned. When running
+	 *         {@link #setInProcess(boolean) in process}, <code>false</code>
+	 *         is returned after the call to exit().
 	 */
 	protected boolean processParsedOptions(boolean parseStatus) {
 		if (usageParam1.isSet() || usageParam2.isSet()) {
-			System.out.println(getUsage(false));
-			System.exit(0);
+			printUsage(false, getOut());
+			exit(new ParseOutcome(ParseOutcome.Status.USAGE, 0, null));
+			return false;
 		} else if (hiddenUsageParam.isSet()) {
-			System.out.println(getUsage(true));
-			System.exit(0);
+			printUsage(true, getOut());
+			exit(new ParseOutcome(ParseOutcome.Status.USAGE, 0, null));
+			return false;
 		}
 		return parseStatus;
 	}
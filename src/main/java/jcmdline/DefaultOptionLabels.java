@@ -0,0 +1,145 @@
+/*
+ * DefaultOptionLabels.java
+ *
+ * Classes:
+ *   final    DefaultOptionLabels
+ *   interface DefaultOptionLabels.StringParamLabels
+ *   interface DefaultOptionLabels.IntParamLabels
+ *   interface DefaultOptionLabels.FileParamLabels
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Holds the <code>DEFAULT_..._OPTION_LABEL</code> constants of StringParam,
+ * IntParam, and FileParam. Each of those classes implements the
+ * corresponding interface, so its constants are still referred to as, for
+ * instance, <code>StringParam.DEFAULT_OPTION_LABEL</code>, by both source
+ * and compiled code. Unlike constants declared in the classes themselves,
+ * they are not looked up in the 'strings' properties file when the class is
+ * initialized - an interface's fields are initialized only when first used
+ * - so a command that never displays them never loads its messages.
+ * <P>
+ * The Parameters themselves do not use these constants. A Parameter whose
+ * option label has not been set gets the default label of the locale in
+ * which its usage is formatted.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+final class DefaultOptionLabels {
+
+	/**
+	 * constructor - private, as this class only holds interfaces
+	 */
+	private DefaultOptionLabels() {
+	}
+
+	/**
+	 * The constants of StringParam.
+	 */
+	interface StringParamLabels {
+
+		/**
+		 * the default label that will represent option values for this
+		 * Parameter when displaying usage. The following demonstrates a
+		 * possible usage excerpt for a StringParam option, where the option
+		 * label is '&lt;s&gt;':
+		 *
+		 * <pre>
+		 *    suffix &lt;s&gt; Specifies the file suffix to use for all output files
+		 *               produced by this program.
+		 * </pre>
+		 *
+		 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
+		 * @see "<i>StringParam.defaultOptionLabel</i> in 'strings' properties file"
+		 */
+		public static final String DEFAULT_OPTION_LABEL = Strings
+				.get("StringParam.defaultOptionLabel");
+	}
+
+	/**
+	 * The constants of IntParam.
+	 */
+	interface IntParamLabels {
+
+		/**
+		 * the default label that will represent option values for this
+		 * Parameter when displaying usage. The following demonstrates a
+		 * possible usage excerpt for a IntParam option, where the option
+		 * label is '&lt;n&gt;':
+		 *
+		 * <pre>
+		 *    count &lt;n&gt;  Specifies the maximum number of files to be
+		 *               produced by this program.
+		 * </pre>
+		 *
+		 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
+		 * @see "<i>IntParam.defaultOptionLabel</i> in 'strings' properties file"
+		 */
+		public static final String DEFAULT_OPTION_LABEL = Strings
+				.get("IntParam.defaultOptionLabel");
+	}
+
+	/**
+	 * The constants of FileParam.
+	 */
+	interface FileParamLabels {
+
+		/**
+		 * the default label that will represent option values for this
+		 * Parameter where {@link FileParam#IS_DIR} is set. The following
+		 * demonstrates a possible usage for a FileParam option, where the
+		 * option label is '&lt;dir&gt;':
+		 *
+		 * <pre>
+		 *    out &lt;dir&gt;  the directory in which files will be created
+		 * </pre>
+		 *
+		 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
+		 * @see "<i>FileParam.defaultDirOptionLabel</i> in 'strings' properties file"
+		 */
+		public static final String DEFAULT_DIR_OPTION_LABEL = Strings
+				.get("FileParam.defaultDirOptionLabel");
+
+		/**
+		 * the default label that will represent option values for this
+		 * Parameter where {@link FileParam#IS_DIR} is <b>not</b> set. The
+		 * following demonstrates a possible usage for a FileParam option,
+		 * where the option label is '&lt;file&gt;':
+		 *
+		 * <pre>
+		 *    out &lt;file&gt;  the output file
+		 * </pre>
+		 *
+		 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
+		 * @see "<i>FileParam.defaultFileOptionLabel</i> in 'strings' properties file"
+		 */
+		public static final String DEFAULT_FILE_OPTION_LABEL = Strings
+				.get("FileParam.defaultFileOptionLabel");
+	}
+}
@@ -70,38 +70,12 @@ import java.io.File;
  * @version jcmdline Rel. @VERSION@ $Id: FileParam.java,v 1.3 2009/08/06 14:31:35 lglawrence Exp $
  * @see CmdLineParser
  */
-public class FileParam extends AbstractParameter<File> {
+public class FileParam extends AbstractParameter<File> implements DefaultOptionLabels.FileParamLabels {
 
     // Note: attributes are specified with kind of a "reverse map" so
     // that they can be "ANDed" together when set, which is more natural
     // since that is the way they are processed.
 
-    /**
-     * the default label that will represent option values for this Parameter where {@link #IS_DIR} is set. The
-     * following demonstrates a possible usage for a FileParam option, where the option label is '&lt;dir&gt;':
-     * 
-     * <pre>
-     *    out &lt;dir&gt;  the directory in which files will be created
-     * </pre>
-     * 
-     * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
-     * @see "<i>FileParam.defaultDirOptionLabel</i> in 'strings' properties file"
-     */
-    public static final String DEFAULT_DIR_OPTION_LABEL = Strings.get("FileParam.defaultDirOptionLabel");
-
-    /**
-     * the default label that will represent option values for this Parameter where {@link #IS_DIR} is <b>not</b> set.
-     * The following demonstrates a possible usage for a FileParam option, where the option label is '&lt;file&gt;':
-     * 
-     * <pre>
-     *    out &lt;file&gt;  the output file
-     * </pre>
-     * 
-     * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
-     * @see "<i>FileParam.defaultFileOptionLabel</i> in 'strings' properties file"
-     */
-    public static final String DEFAULT_FILE_OPTION_LABEL = Strings.get("FileParam.defaultFileOptionLabel");
-
     /**
      * indicates that a file or directory specified as a value for this FileParam must <b>not</b> exist
      * 
@@ -276,8 +250,8 @@ public class FileParam extends AbstractParameter<File> {
      * constructor - creates a parameter that accepts a file or directory name with the specified attributes, and which
      * is required or optional and/or multi-valued or hidden, as specified.
      * <P>
-     * If the <code>IS_DIR</code> attribute is specified, the option label for this FileParam will be set to
-     * {@link #DEFAULT_DIR_OPTION_LABEL}, else it will be {@link #DEFAULT_FILE_OPTION_LABEL}.
+     * Unless an option label is set, the option label for this FileParam will be {@link #DEFAULT_DIR_OPTION_LABEL} if
+     * the <code>IS_DIR</code> attribute is specified, else {@link #DEFAULT_FILE_OPTION_LABEL}.
      * 
      * @param tag
      *            a unique identifier for this parameter
@@ -313,7 +287,6 @@ public class FileParam extends AbstractParameter<File> {
         this.optional = optional;
         this.multiValued = multiValued;
         this.hidden = hidden;
-        this.setOptionLabel(attrSpecified(IS_DIR) ? DEFAULT_DIR_OPTION_LABEL : DEFAULT_FILE_OPTION_LABEL);
     }
 
     /**
@@ -358,6 +331,22 @@ public class FileParam extends AbstractParameter<File> {
         return attributes;
     }
 
+    /**
+     * Gets the label used for this option in the usage - {@link #DEFAULT_DIR_OPTION_LABEL} if the {@link #IS_DIR}
+     * attribute is specified, else {@link #DEFAULT_FILE_OPTION_LABEL}, in the current locale, unless a label has been
+     * set.
+     * 
+     * @see jcmdline.AbstractParameter#getOptionLabel()
+     */
+    @Override
+    public String getOptionLabel() {
+        if (optionLabel != null) {
+            return optionLabel;
+        }
+        return Strings.get(attrSpecified(IS_DIR) ? "FileParam.defaultDirOptionLabel"
+                : "FileParam.defaultFileOptionLabel");
+    }
+
     /**
      * Sets the value of attributes. Multiple attributes may be specified by ANDing them together. If multiple
      * attributes are specified, all conditions must be met for a parameter value to be considered valid. For example:
@@ -388,7 +377,8 @@ public class FileParam extends AbstractParameter<File> {
 
     /**
      * Validates a prospective value for the FileParam - called by add/setValue(s)(). All of the attributes are
-     * validated and the a CmdLineException is thrown if any are not satisfied.
+     * validated and the a CmdLineException is thrown if any are not satisfied. The checks are recorded as a
+     * <i>jcmdline.FileCheck</i> Flight Recorder event when that event is enabled.
      * 
      * @param f
      *            the value to validate
@@ -398,6 +388,29 @@ public class FileParam extends AbstractParameter<File> {
      */
     public void validateValue(File f) throws CmdLineException {
         super.validateValue(f);
+        Object event = FlightEvents.INSTANCE.beginFileCheck();
+        if (event == null) {
+            checkAttributes(f);
+            return;
+        }
+        boolean ok = false;
+        try {
+            checkAttributes(f);
+            ok = true;
+        } finally {
+            FlightEvents.INSTANCE.endFileCheck(event, tag, f.getPath(), attributes, ok);
+        }
+    }
+
+    /**
+     * Checks that a file has all of the attributes.
+     * 
+     * @param f
+     *            the file to check
+     * @throws CmdLineException
+     *             if it does not
+     */
+    private void checkAttributes(File f) throws CmdLineException {
         String filename = f.getAbsolutePath();
         if (attrSpecified(IS_DIR) && !f.isDirectory()) {
             throwIllegalValueException(filename);
@@ -457,6 +470,6 @@ public class FileParam extends AbstractParameter<File> {
         } else if (attrSpecified(IS_WRITEABLE)) {
             s3 = Strings.get("FileParam.writeable");
         }
-        throw new CmdLineException(Strings.get("FileParam.illegalValue", new Object[] { s2, s1, s3, val, tag }));
+        throw CmdLineException.forKey("FileParam.illegalValue", new Object[] { s2, s1, s3, val, tag });
     }
 }
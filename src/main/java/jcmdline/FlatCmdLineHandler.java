@@ -0,0 +1,481 @@
+/*
+ * FlatCmdLineHandler.java
+ *
+ * Classes:
+ *   public   FlatCmdLineHandler
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A CmdLineHandler that runs a stack of {@link AbstractHandlerDecorator
+ * decorators} without going through each layer of the stack on every call.
+ * <P>
+ * When constructed, the stack is taken apart into the handler at its base
+ * and a list of its decorators, innermost first. All calls go directly to
+ * the base handler, and <code>parse()</code> runs each decorator's
+ * <code>processParsedOptions()</code> in turn, in the order the nested stack
+ * would have run them. The decorators' custom options, already added to the
+ * base handler when the decorators were constructed, are also collected into
+ * one list so that they may be restored by
+ * {@link #setOptions(Parameter[]) setOptions()}.
+ * <P>
+ * Sample usage:
+ * 
+ * <pre>
+ * CmdLineHandler cl = new FlatCmdLineHandler(new VersionCmdLineHandler(
+ *         &quot;V 1.0&quot;, new HelpCmdLineHandler(help, &quot;mycmd&quot;,
+ *                 &quot;my command&quot;, options, args)));
+ * cl.parse(args);
+ * </pre>
+ * 
+ * The flattened stack shares its state with the original, which should not
+ * be used once it has been flattened. Only decorators that customize nothing
+ * but <code>processParsedOptions()</code> may be flattened - a decorator that
+ * overrides any other CmdLineHandler method would be bypassed, and so is
+ * rejected.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see AbstractHandlerDecorator
+ */
+public class FlatCmdLineHandler implements ConfigurableCmdLineHandler {
+
+	/**
+	 * the handler at the base of the decorator stack
+	 */
+	private final CmdLineHandler base;
+
+	/**
+	 * the custom options of all of the decorators
+	 */
+	private final Parameter<?>[] customOptions;
+
+	/**
+	 * the decorators, innermost first
+	 */
+	private final AbstractHandlerDecorator[] decorators;
+
+	/**
+	 * constructor
+	 * 
+	 * @param handler
+	 *            the handler to be flattened - typically a stack of
+	 *            decorators
+	 * @throws IllegalArgumentException
+	 *             if <code>handler</code> is null, or one of its decorators
+	 *             overrides a CmdLineHandler method
+	 */
+	public FlatCmdLineHandler(CmdLineHandler handler) {
+		if (handler == null) {
+			throw new IllegalArgumentException(Strings
+					.get("FlatCmdLineHandler.nullHandler"));
+		}
+		List<AbstractHandlerDecorator> decos = new ArrayList<AbstractHandlerDecorator>();
+		while (handler instanceof AbstractHandlerDecorator) {
+			AbstractHandlerDecorator d = (AbstractHandlerDecorator) handler;
+			checkNotOverridden(d);
+			decos.add(0, d);
+			handler = d.getHandler();
+		}
+		base = handler;
+		decorators = decos.toArray(new AbstractHandlerDecorator[decos.size()]);
+		List<Parameter<?>> opts = new ArrayList<Parameter<?>>();
+		for (AbstractHandlerDecorator d : decorators) {
+			Parameter<?>[] custom = d.getCustomOptions();
+			if (custom != null) {
+				for (int i = 0; i < custom.length; i++) {
+					opts.add(custom[i]);
+				}
+			}
+		}
+		customOptions = opts.toArray(new Parameter<?>[opts.size()]);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#addArg(jcmdline.Parameter)
+	 */
+	public void addArg(Parameter<?> arg) {
+		base.addArg(arg);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#addDependency(jcmdline.Parameter,
+	 *      jcmdline.Parameter)
+	 */
+	public void addDependency(Parameter<?> param, Parameter<?> required) {
+		AbstractHandlerDecorator.configurable(base).addDependency(param,
+				required);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#addExclusiveGroup(jcmdline.Parameter[])
+	 */
+	public void addExclusiveGroup(Parameter<?>[] params) {
+		AbstractHandlerDecorator.configurable(base).addExclusiveGroup(params);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#addOption(jcmdline.Parameter)
+	 */
+	public void addOption(Parameter<?> opt) {
+		base.addOption(opt);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#exit(jcmdline.ParseOutcome)
+	 */
+	public void exit(ParseOutcome outcome) {
+		base.exit(outcome);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#exitUsageError(java.lang.String)
+	 */
+	public void exitUsageError(String errMsg) {
+		base.exitUsageError(errMsg);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getArg(java.lang.String)
+	 */
+	public Parameter<?> getArg(String tag) {
+		return base.getArg(tag);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getArgs()
+	 */
+	public List<Parameter<?>> getArgs() {
+		return base.getArgs();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getCmdDesc()
+	 */
+	public String getCmdDesc() {
+		return base.getCmdDesc();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getCmdName()
+	 */
+	public String getCmdName() {
+		return base.getCmdName();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getDieOnParseError()
+	 */
+	public boolean getDieOnParseError() {
+		return base.getDieOnParseError();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getErr()
+	 */
+	public PrintStream getErr() {
+		return base.getErr();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getLocale()
+	 */
+	public Locale getLocale() {
+		return base.getLocale();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getOption(java.lang.String)
+	 */
+	public Parameter<?> getOption(String tag) {
+		return base.getOption(tag);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getOptions()
+	 */
+	public Collection<Parameter<?>> getOptions() {
+		return base.getOptions();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getOut()
+	 */
+	public PrintStream getOut() {
+		return base.getOut();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getOutcome()
+	 */
+	public ParseOutcome getOutcome() {
+		return base.getOutcome();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getParseError()
+	 */
+	public String getParseError() {
+		return base.getParseError();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getParseListener()
+	 */
+	public ParseListener getParseListener() {
+		return base.getParseListener();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getParser()
+	 */
+	public CmdLineParser getParser() {
+		return base.getParser();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getTelemetry()
+	 */
+	public OptionTelemetry getTelemetry() {
+		return base.getTelemetry();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#getUsage(boolean)
+	 */
+	public String getUsage(boolean hidden) {
+		return base.getUsage(hidden);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#isInProcess()
+	 */
+	public boolean isInProcess() {
+		return base.isInProcess();
+	}
+
+	/**
+	 * Parses the command line with the base handler, then passes the result
+	 * through each decorator's <code>processParsedOptions()</code>, innermost
+	 * first.
+	 * 
+	 * @see jcmdline.CmdLineHandler#parse(java.lang.String[])
+	 */
+	public boolean parse(String[] clargs) {
+		return parse(new ArrayArgSource(clargs));
+	}
+
+	/**
+	 * Parses the command line with the base handler, then passes the result
+	 * through each decorator's <code>processParsedOptions()</code>, innermost
+	 * first.
+	 * 
+	 * @see jcmdline.CmdLineHandler#parse(jcmdline.CmdLineArgSource)
+	 */
+	public boolean parse(CmdLineArgSource clargs) {
+		Locale prev = Strings.setLocale(base.getLocale());
+		try {
+			return processParsedOptions(base.parse(clargs));
+		} finally {
+			Strings.restoreLocale(prev);
+		}
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#reset()
+	 */
+	public void reset() {
+		base.reset();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setArgs(jcmdline.Parameter[])
+	 */
+	public void setArgs(Parameter<?>[] args) {
+		base.setArgs(args);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setCmdDesc(java.lang.String)
+	 */
+	public void setCmdDesc(String cmdDesc) {
+		base.setCmdDesc(cmdDesc);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setCmdName(java.lang.String)
+	 */
+	public void setCmdName(String cmdName) {
+		base.setCmdName(cmdName);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setDieOnParseError(boolean)
+	 */
+	public void setDieOnParseError(boolean val) {
+		base.setDieOnParseError(val);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setErr(java.io.PrintStream)
+	 */
+	public void setErr(PrintStream err) {
+		AbstractHandlerDecorator.configurable(base).setErr(err);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setInProcess(boolean)
+	 */
+	public void setInProcess(boolean inProcess) {
+		AbstractHandlerDecorator.configurable(base).setInProcess(inProcess);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setLocale(java.util.Locale)
+	 */
+	public void setLocale(Locale locale) {
+		AbstractHandlerDecorator.configurable(base).setLocale(locale);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#writeUsage(boolean, java.lang.Appendable)
+	 */
+	public void writeUsage(boolean hidden, Appendable out) throws IOException {
+		base.writeUsage(hidden, out);
+	}
+
+	/**
+	 * Sets the options of the base handler, and restores the custom options
+	 * of all of the decorators.
+	 * 
+	 * @see jcmdline.CmdLineHandler#setOptions(jcmdline.Parameter[])
+	 */
+	public void setOptions(Parameter<?>[] options) {
+		base.setOptions(options);
+		for (int i = 0; i < customOptions.length; i++) {
+			base.addOption(customOptions[i]);
+		}
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setOut(java.io.PrintStream)
+	 */
+	public void setOut(PrintStream out) {
+		AbstractHandlerDecorator.configurable(base).setOut(out);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setParseError(java.lang.String)
+	 */
+	public void setParseError(String parseError) {
+		base.setParseError(parseError);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setParseListener(jcmdline.ParseListener)
+	 */
+	public void setParseListener(ParseListener parseListener) {
+		AbstractHandlerDecorator.configurable(base).setParseListener(parseListener);
+	}
+
+	/**
+	 * @see jcmdline.CmdLineHandler#setParser(jcmdline.CmdLineParser)
+	 */
+	public void setParser(CmdLineParser parser) {
+		base.setParser(parser);
+	}
+
+	/**
+	 * @see jcmdline.ConfigurableCmdLineHandler#setTelemetry(jcmdline.OptionTelemetry)
+	 */
+	public void setTelemetry(OptionTelemetry telemetry) {
+		AbstractHandlerDecorator.configurable(base).setTelemetry(telemetry);
+	}
+
+	/**
+	 * Runs each decorator's <code>processParsedOptions()</code>, innermost
+	 * first, stopping if one of them takes an exit while running in process.
+	 * 
+	 * @param parseStatus
+	 *            the result of the base handler's parse
+	 * @return the result of the last decorator, or false if an exit was
+	 *         taken
+	 */
+	private boolean processParsedOptions(boolean parseStatus) {
+		ParseListener listener = base.getParseListener();
+		for (int i = 0; i < decorators.length; i++) {
+			if (AbstractHandlerDecorator.exitTaken(base)) {
+				return false;
+			}
+			if (listener == null) {
+				parseStatus = decorators[i].processParsedOptions(parseStatus);
+			} else {
+				long start = System.nanoTime();
+				parseStatus = decorators[i].processParsedOptions(parseStatus);
+				listener.phaseCompleted(ParseListener.Phase.DECORATOR, null,
+						System.nanoTime() - start);
+			}
+		}
+		return parseStatus;
+	}
+
+	/**
+	 * Verifies that a decorator customizes no CmdLineHandler method, as the
+	 * customization would be bypassed once flattened.
+	 * 
+	 * @param d
+	 *            the decorator
+	 * @throws IllegalArgumentException
+	 *             if it does
+	 */
+	private static void checkNotOverridden(AbstractHandlerDecorator d) {
+		for (Method m : CmdLineHandler.class.getMethods()) {
+			Class<?> declarer;
+			try {
+				declarer = d.getClass().getMethod(m.getName(),
+						m.getParameterTypes()).getDeclaringClass();
+			} catch (NoSuchMethodException e) {
+				// can't happen - d implements CmdLineHandler
+				continue;
+			}
+			if (declarer != AbstractHandlerDecorator.class) {
+				throw new IllegalArgumentException(Strings.get(
+						"FlatCmdLineHandler.methodOverridden", new Object[] {
+								d.getClass().getName(), m.getName() }));
+			}
+		}
+	}
+}
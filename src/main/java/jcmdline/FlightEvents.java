@@ -0,0 +1,176 @@
+/*
+ * FlightEvents.java
+ *
+ * Classes:
+ *   class    FlightEvents
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Emits the JDK Flight Recorder events of jcmdline. This implementation emits
+ * nothing - {@link #INSTANCE} is a {@link JfrFlightEvents} when the running
+ * JVM supports Flight Recorder, so that jcmdline does not otherwise depend on
+ * the <i>jdk.jfr</i> module.
+ * <P>
+ * Each <code>begin</code> method returns an event to be passed to the
+ * matching <code>end</code> method, or null if the event is not enabled in
+ * any recording, in which case nothing further need be done. The events are
+ * disabled by default, so cost no more than the enabled check unless a
+ * recording enables them - in the recording's settings, with JDK Mission
+ * Control, or programmatically, as in:
+ *
+ * <pre>
+ * Recording r = new Recording();
+ * r.enable(&quot;jcmdline.Parse&quot;);
+ * r.enable(&quot;jcmdline.ParameterValue&quot;);
+ * r.start();
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+class FlightEvents {
+
+	/**
+	 * the events emitted by jcmdline
+	 */
+	static final FlightEvents INSTANCE = create();
+
+	/**
+	 * Begins an event for a handler's parse.
+	 *
+	 * @return the event, or null if it is not enabled
+	 */
+	Object beginParse() {
+		return null;
+	}
+
+	/**
+	 * Ends and commits an event for a handler's parse.
+	 *
+	 * @param event
+	 *            the event returned by {@link #beginParse()}
+	 * @param cmdName
+	 *            the name of the command parsed
+	 * @param error
+	 *            the parse error, or null if the parse succeeded
+	 */
+	void endParse(Object event, String cmdName, CmdLineException error) {
+	}
+
+	/**
+	 * Begins an event for the conversion and validation of a Parameter value.
+	 *
+	 * @return the event, or null if it is not enabled
+	 */
+	Object beginValue() {
+		return null;
+	}
+
+	/**
+	 * Ends and commits an event for the conversion and validation of a
+	 * Parameter value.
+	 *
+	 * @param event
+	 *            the event returned by {@link #beginValue()}
+	 * @param param
+	 *            the Parameter to which the value was added
+	 * @param ok
+	 *            true if the value was added, false if it was not valid
+	 */
+	void endValue(Object event, Parameter<?> param, boolean ok) {
+	}
+
+	/**
+	 * Begins an event for the file system checks of a FileParam.
+	 *
+	 * @return the event, or null if it is not enabled
+	 */
+	Object beginFileCheck() {
+		return null;
+	}
+
+	/**
+	 * Ends and commits an event for the file system checks of a FileParam.
+	 *
+	 * @param event
+	 *            the event returned by {@link #beginFileCheck()}
+	 * @param tag
+	 *            the tag of the FileParam
+	 * @param path
+	 *            the path checked
+	 * @param attributes
+	 *            the attributes checked
+	 * @param ok
+	 *            true if the file has the attributes
+	 */
+	void endFileCheck(Object event, String tag, String path, int attributes,
+			boolean ok) {
+	}
+
+	/**
+	 * Begins an event for the rendering of a usage.
+	 *
+	 * @return the event, or null if it is not enabled
+	 */
+	Object beginUsage() {
+		return null;
+	}
+
+	/**
+	 * Ends and commits an event for the rendering of a usage.
+	 *
+	 * @param event
+	 *            the event returned by {@link #beginUsage()}
+	 * @param cmdName
+	 *            the name of the command
+	 * @param hidden
+	 *            true if hidden options were included
+	 * @param streamed
+	 *            true if the usage was streamed, rather than rendered as a
+	 *            String
+	 */
+	void endUsage(Object event, String cmdName, boolean hidden,
+			boolean streamed) {
+	}
+
+	/**
+	 * Creates a JfrFlightEvents if the JVM supports Flight Recorder, or an
+	 * instance of this class, which emits nothing, if it does not.
+	 */
+	private static FlightEvents create() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder", false, FlightEvents.class
+					.getClassLoader());
+			return (FlightEvents) Class.forName("jcmdline.JfrFlightEvents")
+					.getDeclaredConstructor().newInstance();
+		} catch (Throwable t) {
+			return new FlightEvents();
+		}
+	}
+}
@@ -31,6 +31,7 @@
 
 package jcmdline;
 
+import java.io.PrintStream;
 import java.util.Collection;
 
 /**
@@ -139,6 +140,24 @@ public class HelpCmdLineHandler extends AbstractHandlerDecorator {
 	 */
 	private BooleanParam hiddenHelpOpt;
 
+	/**
+	 * the line length with which <code>wrappedHelp</code> and
+	 * <code>wrappedHiddenHelp</code> were formatted, or -1 if they have not
+	 * been formatted
+	 */
+	private int wrappedLineLen = -1;
+
+	/**
+	 * <code>help</code>, formatted for display
+	 */
+	private String wrappedHelp;
+
+	/**
+	 * <code>hiddenHelp</code>, formatted for display, or null if there is no
+	 * hidden help
+	 */
+	private String wrappedHiddenHelp;
+
 	/**
 	 * constructor
 	 * 
@@ -386,22 +405,30 @@ public class HelpCmdLineHandler extends AbstractHandlerDecorator {
 	 * @param parseOk
 	 *            The result of the <code>parse()</code> call to this class's
 	 *            contained CmdLineHandler.
-	 * @return This method will call <code>System.exit(0)</code>, rather than
+	 * @return This method will call {@link #exit(ParseOutcome) exit()}, rather than
 	 *         returning, if its option is set. Otherwise,
-	 *         <code>parseStatus</code> is returned.
+	 *         <code>parseStatus</code> is returned. When running
+	 *         {@link #setInProcess(boolean) in process}, <code>false</code>
+	 *         is returned after the call to exit().
 	 */
 	protected boolean processParsedOptions(boolean parseOk) {
 		if (helpOpt.isTrue() || hiddenHelpOpt.isTrue()) {
-			System.out.println(getUsage(hiddenHelpOpt.isTrue()));
+			PrintStream out = getOut();
+			printUsage(hiddenHelpOpt.isTrue(), out);
 			int lineLen = getParser().getUsageFormatter().getLineLength();
-			StringFormatHelper sHelper = StringFormatHelper.getHelper();
-			System.out.println("\n"
-					+ sHelper.formatBlockedText(help, 0, lineLen));
-			if (hiddenHelpOpt.isTrue() && hiddenHelp != null) {
-				System.out.println("\n"
-						+ sHelper.formatBlockedText(hiddenHelp, 0, lineLen));
+			if (lineLen != wrappedLineLen) {
+				StringFormatHelper sHelper = StringFormatHelper.getHelper();
+				wrappedHelp = "\n" + sHelper.formatBlockedText(help, 0, lineLen);
+				wrappedHiddenHelp = (hiddenHelp == null) ? null : "\n"
+						+ sHelper.formatBlockedText(hiddenHelp, 0, lineLen);
+				wrappedLineLen = lineLen;
+			}
+			out.println(wrappedHelp);
+			if (hiddenHelpOpt.isTrue() && wrappedHiddenHelp != null) {
+				out.println(wrappedHiddenHelp);
 			}
-			System.exit(0);
+			exit(new ParseOutcome(ParseOutcome.Status.HELP, 0, null));
+			return false;
 		}
 		return parseOk;
 	}
@@ -40,23 +40,8 @@ package jcmdline;
  *          lglawrence Exp $
  * @see CmdLineParser
  */
-public class IntParam extends AbstractParameter<Integer> {
-
-	/**
-	 * the default label that will represent option values for this Parameter
-	 * when displaying usage. The following demonstrates a possible usage
-	 * excerpt for a IntParam option, where the option label is '&lt;n&gt;':
-	 * 
-	 * <pre>
-	 *    count &lt;n&gt;  Specifies the maximum number of files to be
-	 *               produced by this program.
-	 * </pre>
-	 * 
-	 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
-	 * @see "<i>IntParam.defaultOptionLabel</i> in 'strings' properties file"
-	 */
-	public static final String DEFAULT_OPTION_LABEL = Strings
-			.get("IntParam.defaultOptionLabel");
+public class IntParam extends AbstractParameter<Integer> implements
+		DefaultOptionLabels.IntParamLabels {
 
 	/**
 	 * the maximum acceptable number - defaults to Integer.MAX_VALUE
@@ -318,7 +303,6 @@ public class IntParam extends AbstractParameter<Integer> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(DEFAULT_OPTION_LABEL);
 	}
 
 	/**
@@ -448,7 +432,6 @@ public class IntParam extends AbstractParameter<Integer> {
 		this.setOptional(optional);
 		this.setMultiValued(multiValued);
 		this.setHidden(hidden);
-		this.setOptionLabel(DEFAULT_OPTION_LABEL);
 	}
 
 	/**
@@ -459,8 +442,8 @@ public class IntParam extends AbstractParameter<Integer> {
 		try {
 			return new Integer(strVal);
 		} catch (NumberFormatException e) {
-			throw new CmdLineException(Strings.get("IntParam.validValues",
-					new Object[] { tag, new Integer(min), new Integer(max) }));
+			throw CmdLineException.forKey("IntParam.validValues",
+					new Object[] { tag, new Integer(min), new Integer(max) });
 		}
 	}
 
@@ -482,6 +465,19 @@ public class IntParam extends AbstractParameter<Integer> {
 		return min;
 	}
 
+	/**
+	 * Gets the label used for this option in the usage -
+	 * {@link #DEFAULT_OPTION_LABEL} in the current locale, unless a label has
+	 * been set.
+	 * 
+	 * @see jcmdline.AbstractParameter#getOptionLabel()
+	 */
+	@Override
+	public String getOptionLabel() {
+		return (optionLabel == null) ? Strings.get("IntParam.defaultOptionLabel")
+				: optionLabel;
+	}
+
 	/**
 	 * Sets the maximum acceptable value for the parameter.
 	 * <P>
@@ -538,8 +534,8 @@ public class IntParam extends AbstractParameter<Integer> {
 
 		int intVal = val.intValue();
 		if (intVal < min || intVal > max) {
-			throw new CmdLineException(Strings.get("IntParam.validValues",
-					new Object[] { tag, new Integer(min), new Integer(max) }));
+			throw CmdLineException.forKey("IntParam.validValues",
+					new Object[] { tag, new Integer(min), new Integer(max) });
 		}
 	}
 }
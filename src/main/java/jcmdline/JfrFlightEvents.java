@@ -0,0 +1,285 @@
+/*
+ * JfrFlightEvents.java
+ *
+ * Classes:
+ *   class    JfrFlightEvents
+ *   class    JfrFlightEvents.ParseEvent
+ *   class    JfrFlightEvents.ValueEvent
+ *   class    JfrFlightEvents.FileCheckEvent
+ *   class    JfrFlightEvents.UsageEvent
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits jcmdline's events to JDK Flight Recorder. This class is loaded by
+ * {@link FlightEvents} only when the running JVM supports Flight Recorder.
+ * <P>
+ * All of the events are disabled by default. When an event is disabled, its
+ * <code>begin</code> method does no more than check that it is, and the
+ * allocation of the event is normally optimized away by the JIT compiler.
+ * Until Flight Recorder has been initialized - by a recording, whether
+ * started on the command line, through JMX, or programmatically - the event
+ * classes are not even loaded, as loading the first event class initializes
+ * much of Flight Recorder, which takes longer than all the rest of a small
+ * tool's startup.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+final class JfrFlightEvents extends FlightEvents {
+
+	/**
+	 * @see FlightEvents#beginParse()
+	 */
+	@Override
+	Object beginParse() {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		ParseEvent e = new ParseEvent();
+		if (!e.isEnabled()) {
+			return null;
+		}
+		e.begin();
+		return e;
+	}
+
+	/**
+	 * @see FlightEvents#endParse(Object, String, CmdLineException)
+	 */
+	@Override
+	void endParse(Object event, String cmdName, CmdLineException error) {
+		ParseEvent e = (ParseEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.command = cmdName;
+			e.succeeded = (error == null);
+			e.errorKey = (error == null) ? null : error.getMessageKey();
+			e.commit();
+		}
+	}
+
+	/**
+	 * @see FlightEvents#beginValue()
+	 */
+	@Override
+	Object beginValue() {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		ValueEvent e = new ValueEvent();
+		if (!e.isEnabled()) {
+			return null;
+		}
+		e.begin();
+		return e;
+	}
+
+	/**
+	 * @see FlightEvents#endValue(Object, Parameter, boolean)
+	 */
+	@Override
+	void endValue(Object event, Parameter<?> param, boolean ok) {
+		ValueEvent e = (ValueEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.tag = param.getTag();
+			e.parameterClass = param.getClass();
+			e.valueCount = param.getValues().size();
+			e.succeeded = ok;
+			e.commit();
+		}
+	}
+
+	/**
+	 * @see FlightEvents#beginFileCheck()
+	 */
+	@Override
+	Object beginFileCheck() {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		FileCheckEvent e = new FileCheckEvent();
+		if (!e.isEnabled()) {
+			return null;
+		}
+		e.begin();
+		return e;
+	}
+
+	/**
+	 * @see FlightEvents#endFileCheck(Object, String, String, int, boolean)
+	 */
+	@Override
+	void endFileCheck(Object event, String tag, String path, int attributes,
+			boolean ok) {
+		FileCheckEvent e = (FileCheckEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.tag = tag;
+			e.path = path;
+			e.attributes = attributes;
+			e.succeeded = ok;
+			e.commit();
+		}
+	}
+
+	/**
+	 * @see FlightEvents#beginUsage()
+	 */
+	@Override
+	Object beginUsage() {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		UsageEvent e = new UsageEvent();
+		if (!e.isEnabled()) {
+			return null;
+		}
+		e.begin();
+		return e;
+	}
+
+	/**
+	 * @see FlightEvents#endUsage(Object, String, boolean, boolean)
+	 */
+	@Override
+	void endUsage(Object event, String cmdName, boolean hidden,
+			boolean streamed) {
+		UsageEvent e = (UsageEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.command = cmdName;
+			e.hidden = hidden;
+			e.streamed = streamed;
+			e.commit();
+		}
+	}
+
+	/**
+	 * A handler's parse of a command line, including its required checks but
+	 * not its decorators.
+	 */
+	@Name("jcmdline.Parse")
+	@Label("Command Line Parse")
+	@Category("jcmdline")
+	@Description("A handler's parse of a command line")
+	@Enabled(false)
+	static final class ParseEvent extends Event {
+
+		@Label("Command")
+		String command;
+
+		@Label("Succeeded")
+		boolean succeeded;
+
+		@Label("Error Key")
+		@Description("The message key of the parse error")
+		String errorKey;
+	}
+
+	/**
+	 * The conversion and validation of a value of a Parameter.
+	 */
+	@Name("jcmdline.ParameterValue")
+	@Label("Parameter Value")
+	@Category("jcmdline")
+	@Description("The conversion and validation of a command line parameter value")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class ValueEvent extends Event {
+
+		@Label("Tag")
+		String tag;
+
+		@Label("Parameter Class")
+		Class<?> parameterClass;
+
+		@Label("Value Count")
+		@Description("The number of values of the parameter after the value was added")
+		int valueCount;
+
+		@Label("Succeeded")
+		boolean succeeded;
+	}
+
+	/**
+	 * The file system checks of a FileParam value.
+	 */
+	@Name("jcmdline.FileCheck")
+	@Label("File Parameter Check")
+	@Category("jcmdline")
+	@Description("The file system checks of a file parameter value")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class FileCheckEvent extends Event {
+
+		@Label("Tag")
+		String tag;
+
+		@Label("Path")
+		String path;
+
+		@Label("Attributes")
+		@Description("The FileParam attributes checked")
+		int attributes;
+
+		@Label("Succeeded")
+		boolean succeeded;
+	}
+
+	/**
+	 * The rendering of a usage.
+	 */
+	@Name("jcmdline.Usage")
+	@Label("Usage Rendering")
+	@Category("jcmdline")
+	@Description("The rendering of a command's usage, when it was not cached")
+	@Enabled(false)
+	static final class UsageEvent extends Event {
+
+		@Label("Command")
+		String command;
+
+		@Label("Hidden")
+		@Description("Whether hidden options were included")
+		boolean hidden;
+
+		@Label("Streamed")
+		boolean streamed;
+	}
+}
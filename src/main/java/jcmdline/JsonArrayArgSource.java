@@ -0,0 +1,456 @@
+/*
+ * JsonArrayArgSource.java
+ *
+ * Classes:
+ *   public   JsonArrayArgSource
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/**
+ * A CmdLineArgSource that reads its arguments from a JSON array of strings,
+ * such as:
+ *
+ * <pre>
+ * [&quot;-out&quot;, &quot;result.txt&quot;, &quot;in fileé.txt&quot;]
+ * </pre>
+ * <P>
+ * The array is read as a stream - each string is parsed, with its escapes
+ * processed in a single pass, only when the parser asks for the next
+ * argument. No intermediate List of the array elements is ever built. The
+ * array may be supplied as a <code>CharSequence</code> or read from a
+ * <code>Reader</code>.
+ * <P>
+ * The input must consist of exactly one array, optionally surrounded by white
+ * space, whose elements are all strings. Any other input causes a
+ * {@link CmdLineException} to be thrown when the offending element is
+ * reached.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * if (handler.parse(new JsonArrayArgSource(requestBody))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineHandler#parse(CmdLineArgSource)
+ */
+public class JsonArrayArgSource implements CmdLineArgSource {
+
+	/**
+	 * the size of the buffer used when reading from a Reader
+	 */
+	private static final int READER_BUFSIZE = 4096;
+
+	/**
+	 * parse state - the opening '[' has not yet been read
+	 */
+	private static final int BEFORE_ARRAY = 0;
+
+	/**
+	 * parse state - positioned following a '[' or ','
+	 */
+	private static final int BEFORE_ELEMENT = 1;
+
+	/**
+	 * parse state - positioned on the opening quote of the next element
+	 */
+	private static final int AT_ELEMENT = 2;
+
+	/**
+	 * parse state - positioned following an element
+	 */
+	private static final int AFTER_ELEMENT = 3;
+
+	/**
+	 * parse state - the closing ']' has been read
+	 */
+	private static final int DONE = 4;
+
+	/**
+	 * the text being read, if reading from a CharSequence
+	 */
+	private final CharSequence text;
+
+	/**
+	 * the Reader being read, if reading from a Reader
+	 */
+	private final Reader reader;
+
+	/**
+	 * buffer for characters read from <code>reader</code>
+	 */
+	private final char[] cbuf;
+
+	/**
+	 * the index of the next character in <code>text</code> or
+	 * <code>cbuf</code>
+	 */
+	private int pos;
+
+	/**
+	 * the index following the last available character in <code>text</code>
+	 * or <code>cbuf</code>
+	 */
+	private int end;
+
+	/**
+	 * the number of characters consumed from <code>cbuf</code> in previous
+	 * buffer fills, used for error messages
+	 */
+	private int consumed;
+
+	/**
+	 * the current parse state
+	 */
+	private int state = BEFORE_ARRAY;
+
+	/**
+	 * used to accumulate strings that contain escapes, or that span reads
+	 */
+	private final StringBuilder sb = new StringBuilder();
+
+	/**
+	 * constructor - reads the array from a CharSequence
+	 *
+	 * @param json
+	 *            the JSON array
+	 * @throws IllegalArgumentException
+	 *             if <code>json</code> is null
+	 */
+	public JsonArrayArgSource(CharSequence json) {
+		if (json == null) {
+			throw new IllegalArgumentException(Strings
+					.get("JsonArrayArgSource.nullInput"));
+		}
+		this.text = json;
+		this.reader = null;
+		this.cbuf = null;
+		this.end = json.length();
+	}
+
+	/**
+	 * constructor - reads the array from a Reader. The Reader is not closed by
+	 * this class.
+	 *
+	 * @param reader
+	 *            a Reader supplying the JSON array
+	 * @throws IllegalArgumentException
+	 *             if <code>reader</code> is null
+	 */
+	public JsonArrayArgSource(Reader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException(Strings
+					.get("JsonArrayArgSource.nullInput"));
+		}
+		this.text = null;
+		this.reader = reader;
+		this.cbuf = new char[READER_BUFSIZE];
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#hasNext()
+	 */
+	public boolean hasNext() throws CmdLineException {
+		int c;
+		switch (state) {
+		case AT_ELEMENT:
+			return true;
+		case DONE:
+			return false;
+		case BEFORE_ARRAY:
+			c = skipWhiteSpace();
+			if (c != '[') {
+				throw syntaxError("\"[\"", c);
+			}
+			pos++;
+			c = skipWhiteSpace();
+			if (c == ']') {
+				pos++;
+				return finish();
+			}
+			break;
+		case AFTER_ELEMENT:
+			c = skipWhiteSpace();
+			if (c == ']') {
+				pos++;
+				return finish();
+			}
+			if (c != ',') {
+				throw syntaxError(Strings
+						.get("JsonArrayArgSource.commaOrBracket"), c);
+			}
+			pos++;
+			c = skipWhiteSpace();
+			break;
+		default: // BEFORE_ELEMENT
+			c = skipWhiteSpace();
+		}
+		if (c != '"') {
+			throw syntaxError(Strings.get("JsonArrayArgSource.aString"), c);
+		}
+		state = AT_ELEMENT;
+		return true;
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#next()
+	 */
+	public String next() throws CmdLineException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		pos++; // skip opening quote
+		String s = readString();
+		state = AFTER_ELEMENT;
+		return s;
+	}
+
+	/**
+	 * Verifies that nothing but white space follows the closing ']'.
+	 *
+	 * @return false
+	 * @throws CmdLineException
+	 *             if anything else follows the array
+	 */
+	private boolean finish() throws CmdLineException {
+		int c = skipWhiteSpace();
+		if (c != -1) {
+			throw syntaxError(Strings.get("JsonArrayArgSource.endOfInput"), c);
+		}
+		state = DONE;
+		return false;
+	}
+
+	/**
+	 * Reads the remainder of a string whose opening quote has been consumed.
+	 *
+	 * @return the string, with escapes processed
+	 * @throws CmdLineException
+	 *             if the string is malformed
+	 */
+	private String readString() throws CmdLineException {
+		sb.setLength(0);
+		while (true) {
+			// copy a run of unescaped characters
+			int start = pos;
+			int stop = start;
+			char c = 0;
+			while (stop < end) {
+				c = charAt(stop);
+				if (c == '"' || c == '\\' || c < 0x20) {
+					break;
+				}
+				stop++;
+			}
+			if (stop == end) {
+				append(start, stop);
+				pos = stop;
+				if (!fill()) {
+					throw syntaxError("'\"'", -1);
+				}
+				continue;
+			}
+			if (c == '"') {
+				pos = stop + 1;
+				if (sb.length() == 0) {
+					return substring(start, stop);
+				}
+				append(start, stop);
+				return sb.toString();
+			}
+			append(start, stop);
+			pos = stop;
+			if (c < 0x20) {
+				throw syntaxError(Strings.get("JsonArrayArgSource.aString"), c);
+			}
+			pos++; // skip backslash
+			readEscape();
+		}
+	}
+
+	/**
+	 * Reads an escape sequence whose backslash has been consumed, appending
+	 * the character it represents to <code>sb</code>.
+	 *
+	 * @throws CmdLineException
+	 *             if the escape sequence is invalid
+	 */
+	private void readEscape() throws CmdLineException {
+		int c = read();
+		switch (c) {
+		case '"':
+		case '\\':
+		case '/':
+			sb.append((char) c);
+			break;
+		case 'b':
+			sb.append('\b');
+			break;
+		case 'f':
+			sb.append('\f');
+			break;
+		case 'n':
+			sb.append('\n');
+			break;
+		case 'r':
+			sb.append('\r');
+			break;
+		case 't':
+			sb.append('\t');
+			break;
+		case 'u':
+			int v = 0;
+			for (int i = 0; i < 4; i++) {
+				int h = read();
+				int d = Character.digit(h, 16);
+				if (h == -1 || d < 0) {
+					throw syntaxError(Strings
+							.get("JsonArrayArgSource.escape"), h);
+				}
+				v = (v << 4) | d;
+			}
+			sb.append((char) v);
+			break;
+		default:
+			throw syntaxError(Strings.get("JsonArrayArgSource.escape"), c);
+		}
+	}
+
+	/**
+	 * Skips white space, leaving the position on the next character.
+	 *
+	 * @return the next character, or -1 at the end of input
+	 * @throws CmdLineException
+	 *             if the Reader fails
+	 */
+	private int skipWhiteSpace() throws CmdLineException {
+		while (true) {
+			while (pos < end) {
+				char c = charAt(pos);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+					return c;
+				}
+				pos++;
+			}
+			if (!fill()) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next character.
+	 *
+	 * @return the next character, or -1 at the end of input
+	 * @throws CmdLineException
+	 *             if the Reader fails
+	 */
+	private int read() throws CmdLineException {
+		if (pos >= end && !fill()) {
+			return -1;
+		}
+		return charAt(pos++);
+	}
+
+	private char charAt(int i) {
+		return (text != null) ? text.charAt(i) : cbuf[i];
+	}
+
+	private void append(int start, int stop) {
+		if (text != null) {
+			sb.append(text, start, stop);
+		} else {
+			sb.append(cbuf, start, stop - start);
+		}
+	}
+
+	private String substring(int start, int stop) {
+		if (text != null) {
+			return text.subSequence(start, stop).toString();
+		}
+		return new String(cbuf, start, stop - start);
+	}
+
+	/**
+	 * Refills the buffer from the Reader. Unread characters are discarded, so
+	 * this must only be called once the position has reached the end of the
+	 * buffer.
+	 *
+	 * @return false if there are no more characters
+	 * @throws CmdLineException
+	 *             if the Reader fails
+	 */
+	private boolean fill() throws CmdLineException {
+		if (reader == null) {
+			return false;
+		}
+		consumed += end;
+		pos = 0;
+		end = 0;
+		try {
+			int n;
+			while ((n = reader.read(cbuf, 0, cbuf.length)) == 0) {
+				// keep trying - Reader.read() blocks until input is available
+			}
+			if (n < 0) {
+				return false;
+			}
+			end = n;
+			return true;
+		} catch (IOException e) {
+			throw CmdLineException.forKey(
+					"JsonArrayArgSource.readError", new Object[] { e
+							.getMessage() });
+		}
+	}
+
+	/**
+	 * Creates an exception describing a syntax error at the current position.
+	 *
+	 * @param expected
+	 *            a description of what was expected
+	 * @param found
+	 *            the character found, or -1 for the end of input
+	 * @return the exception
+	 */
+	private CmdLineException syntaxError(String expected, int found) {
+		String foundDesc = (found == -1) ? Strings
+				.get("JsonArrayArgSource.endOfInput") : "\"" + (char) found
+				+ "\"";
+		return CmdLineException.forKey(
+				"JsonArrayArgSource.syntaxError", new Object[] { expected,
+						Integer.toString(consumed + pos), foundDesc });
+	}
+}
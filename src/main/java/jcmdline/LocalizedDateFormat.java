@@ -0,0 +1,113 @@
+/*
+ * LocalizedDateFormat.java
+ *
+ * Classes:
+ *   package  LocalizedDateFormat
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A date format whose pattern is obtained from the <code>strings</code>
+ * ResourceBundle, for the locale returned by {@link Strings#getLocale()}.
+ * <P>
+ * The format for each locale is created on first use and cached. Because
+ * SimpleDateFormat is not thread-safe, {@link #getFormat()} returns a clone
+ * of the cached format, which is cheaper than compiling the pattern again.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see DateParam
+ * @see DateTimeParam
+ */
+final class LocalizedDateFormat {
+
+	/**
+	 * the maximum number of locales whose formats are cached
+	 */
+	private static final int MAX_CACHED_LOCALES = 256;
+
+	/**
+	 * the key of the date pattern in the <code>strings</code> ResourceBundle
+	 */
+	private final String key;
+
+	/**
+	 * the pattern appended to the date pattern to make up the format
+	 */
+	private final String suffix;
+
+	/**
+	 * the format for each locale requested so far
+	 */
+	private final ConcurrentHashMap<Locale, SimpleDateFormat> formats = new ConcurrentHashMap<Locale, SimpleDateFormat>();
+
+	/**
+	 * constructor
+	 * 
+	 * @param key
+	 *            the key of the date pattern in the <code>strings</code>
+	 *            ResourceBundle
+	 * @param suffix
+	 *            a pattern to be appended to the date pattern, such as a time
+	 *            pattern, or "" if there is none
+	 */
+	LocalizedDateFormat(String key, String suffix) {
+		this.key = key;
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Gets the date pattern for the current locale, without the suffix.
+	 * 
+	 * @return the date pattern
+	 */
+	String getDatePattern() {
+		return Strings.get(key);
+	}
+
+	/**
+	 * Gets the format for the current locale.
+	 * 
+	 * @return a format for the exclusive use of the caller
+	 */
+	SimpleDateFormat getFormat() {
+		Locale locale = Strings.getLocale();
+		SimpleDateFormat fmt = formats.get(locale);
+		if (fmt == null) {
+			fmt = new SimpleDateFormat(getDatePattern() + suffix, locale);
+			if (formats.size() < MAX_CACHED_LOCALES) {
+				formats.putIfAbsent(locale, fmt);
+			}
+		}
+		return (SimpleDateFormat) fmt.clone();
+	}
+}
@@ -31,8 +31,16 @@
 
 package jcmdline;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -44,21 +52,61 @@ import java.util.logging.StreamHandler;
  * A CmdLineHandler Decorator class that implements a logging option that
  * implements rudimentary support for the java.util.logging package.
  * <P>
- * The implemented option is a StringParam whose tag is defined by
+ * The implemented option is a multi-valued StringParam whose tag is defined by
  * "LoggerCmdLineHandler.logOpt.tag" in the <i>strings.properties</i> file (set
- * to "log", in English). The acceptable values for the parameter are set to the
- * localized strings that are valid logging levels as defined by the <code>
- * java.util.logging.Level</code>
- * class.
+ * to "log", in English). Each value is either a logging level, as accepted by
+ * <code>java.util.logging.Level.parse()</code>, which sets the level of the
+ * root logger, or <i>logger</i>=<i>level</i>, which sets the level of the
+ * named logger, and so of the loggers below it:
+ * 
+ * <pre>
+ * java MyCmd -log WARNING -log com.example.db=FINE -log com.example.db.pool=FINEST
+ * </pre>
  * <p>
- * Should the user set this option a StreamHandler is added to the root logger
- * and the logging level of the root logger and the StreamHandler are set to
- * that specified on the command line. It is possible to set a Formatter for the
+ * Should the user set this option a StreamHandler is added to the root logger,
+ * and the levels specified are applied. The StreamHandler's level is set to the
+ * lowest of them, so that it passes every record that a logger lets through.
+ * Per-logger levels are applied most specific first, so that setting the
+ * level of a package does not recompute the levels of the loggers below it
+ * that are then given levels of their own. The logging package records each
+ * logger's effective level when levels are set, so the levels cost nothing
+ * more when messages are logged. The LoggerCmdLineHandler holds references to
+ * the loggers it configures, so that their levels are not lost should the
+ * loggers otherwise be garbage collected. It is possible to set a Formatter for the
  * log messages (the default is <code>
  * java.util.logging.SimpleFormatter</code>) with
  * the {@link #setLogFormatter(Formatter) setLogFormatter()} method. This
  * method, if used, must be called prior to any calls to <code>parse()</code>.
  * <P>
+ * A second option, a BooleanParam whose tag is defined by
+ * "LoggerCmdLineHandler.logAsyncOpt.tag" (set to "logasync", in English),
+ * causes an {@link AsyncLogHandler} to be used in place of the StreamHandler,
+ * so that log records are formatted and written on a background thread. The
+ * capacity of its buffer, and what is done when the buffer is full, may be set
+ * with {@link #setAsyncCapacity(int) setAsyncCapacity()} and
+ * {@link #setOverflowPolicy(AsyncLogHandler.OverflowPolicy)
+ * setOverflowPolicy()}.
+ * <P>
+ * A third option, a FileParam whose tag is defined by
+ * "LoggerCmdLineHandler.logFileOpt.tag" (set to "logfile", in English), causes
+ * log records to be written to the file specified, rather than the stream, by
+ * a {@link MappedFileLogHandler}. The file is rolled when it reaches the size
+ * set by {@link #setLogFileSegmentSize(long) setLogFileSegmentSize()}, and the
+ * number of files kept is set by
+ * {@link #setLogFileSegmentCount(int) setLogFileSegmentCount()}. Writing to a
+ * mapped file costs about as little as queuing a record, so the asynchronous
+ * logging option is not applied to the log file. The log file option may be
+ * used without the logging option, in which case the root logger's level is
+ * left as it is configured - INFO, by default.
+ * <P>
+ * The Handler is added to the root logger only once, however many
+ * LoggerCmdLineHandlers there are - as in a {@link CmdLineHandlerPool}. When
+ * the command line is parsed again, by this or another LoggerCmdLineHandler,
+ * the Handler already installed has its level changed, or, if a different
+ * kind of Handler, stream, log file, or class of Formatter, is now requested,
+ * is replaced. Likewise, the levels of named loggers are those set by the
+ * last parse of any LoggerCmdLineHandler.
+ * <P>
  * Information on using CmdLineHandlers can be found in the jcmdline <a
  * href="doc-files/userguide.html">User Guide</a>.
  * 
@@ -81,10 +129,69 @@ public class LoggerCmdLineHandler extends AbstractHandlerDecorator {
 	private Formatter logFormatter;
 
 	/**
-	 * a parameter that will cause the root logger level to be set
+	 * a parameter that will cause the root logger level, or the levels of
+	 * named loggers, to be set
 	 */
 	private StringParam logOpt;
 
+	/**
+	 * the loggers whose levels were set by the last parse of any
+	 * LoggerCmdLineHandler, other than the root logger - guarded by the
+	 * class's lock
+	 */
+	private static final List<Logger> configuredLoggers = new ArrayList<Logger>();
+
+	/**
+	 * a parameter that causes log records to be written asynchronously
+	 */
+	private BooleanParam logAsyncOpt;
+
+	/**
+	 * the capacity of the buffer of an AsyncLogHandler
+	 * 
+	 * @see #setAsyncCapacity(int) setAsyncCapacity()
+	 */
+	private int asyncCapacity = AsyncLogHandler.DEFAULT_CAPACITY;
+
+	/**
+	 * what an AsyncLogHandler does when its buffer is full
+	 * 
+	 * @see #setOverflowPolicy(AsyncLogHandler.OverflowPolicy)
+	 *      setOverflowPolicy()
+	 */
+	private AsyncLogHandler.OverflowPolicy overflowPolicy = AsyncLogHandler.OverflowPolicy.BLOCK;
+
+	/**
+	 * a parameter that causes log records to be written to a mapped file
+	 */
+	private FileParam logFileOpt;
+
+	/**
+	 * the size of each segment of a mapped log file
+	 * 
+	 * @see #setLogFileSegmentSize(long) setLogFileSegmentSize()
+	 */
+	private long logFileSegmentSize = MappedFileLogHandler.DEFAULT_SEGMENT_SIZE;
+
+	/**
+	 * the number of segments of a mapped log file that are kept
+	 * 
+	 * @see #setLogFileSegmentCount(int) setLogFileSegmentCount()
+	 */
+	private int logFileSegmentCount = MappedFileLogHandler.DEFAULT_SEGMENT_COUNT;
+
+	/**
+	 * the Handler LoggerCmdLineHandlers have added to the root logger, or null
+	 * if none has been added - guarded by the class's lock
+	 */
+	private static Handler installed;
+
+	/**
+	 * the stream to which <code>installed</code> writes, or null if it writes
+	 * to a log file - guarded by the class's lock
+	 */
+	private static OutputStream installedStream;
+
 	/**
 	 * the OutputStream to which to write log messages
 	 */
@@ -115,11 +222,16 @@ public class LoggerCmdLineHandler extends AbstractHandlerDecorator {
 				Level.WARNING.getLocalizedName(),
 				Level.SEVERE.getLocalizedName() };
 		logFormatter = new SimpleFormatter();
-		logOpt = new StringParam(
-				Strings.get("LoggerCmdLineHandler.logOpt.tag"), Strings.get(
-						"LoggerCmdLineHandler.logOpt.desc", validVals),
-				validVals, Parameter.OPTIONAL);
-		setCustomOptions(new Parameter[] { logOpt });
+		logOpt = new LogSpecParam(Strings.get("LoggerCmdLineHandler.logOpt.tag"),
+				Strings.get("LoggerCmdLineHandler.logOpt.desc", validVals),
+				Strings.join(", ", validVals));
+		logAsyncOpt = new BooleanParam(Strings
+				.get("LoggerCmdLineHandler.logAsyncOpt.tag"), Strings
+				.get("LoggerCmdLineHandler.logAsyncOpt.desc"));
+		logFileOpt = new FileParam(Strings
+				.get("LoggerCmdLineHandler.logFileOpt.tag"), Strings
+				.get("LoggerCmdLineHandler.logFileOpt.desc"));
+		setCustomOptions(new Parameter[] { logOpt, logAsyncOpt, logFileOpt });
 	}
 
 	/**
@@ -206,6 +318,51 @@ public class LoggerCmdLineHandler extends AbstractHandlerDecorator {
 				parser));
 	}
 
+	/**
+	 * Gets the capacity of the buffer of the AsyncLogHandler used when the
+	 * asynchronous logging option is set.
+	 * 
+	 * @return the capacity, in records
+	 * @see #setAsyncCapacity(int) setAsyncCapacity()
+	 */
+	public int getAsyncCapacity() {
+		return asyncCapacity;
+	}
+
+	/**
+	 * Gets the Handler LoggerCmdLineHandlers have added to the root logger -
+	 * the same for every LoggerCmdLineHandler.
+	 * 
+	 * @return the Handler, or null if none has been added
+	 */
+	public Handler getInstalledHandler() {
+		synchronized (LoggerCmdLineHandler.class) {
+			return installed;
+		}
+	}
+
+	/**
+	 * Gets the number of segments of the log file that are kept when the log
+	 * file option is set.
+	 * 
+	 * @return the number of segments kept, including the one being written
+	 * @see #setLogFileSegmentCount(int) setLogFileSegmentCount()
+	 */
+	public int getLogFileSegmentCount() {
+		return logFileSegmentCount;
+	}
+
+	/**
+	 * Gets the size of each segment of the log file written when the log file
+	 * option is set.
+	 * 
+	 * @return the segment size, in bytes
+	 * @see #setLogFileSegmentSize(long) setLogFileSegmentSize()
+	 */
+	public long getLogFileSegmentSize() {
+		return logFileSegmentSize;
+	}
+
 	/**
 	 * Gets the formatter for log messages, defaults to <code>
      * java.util.logging.SimpleFormatter</code>
@@ -218,6 +375,97 @@ public class LoggerCmdLineHandler extends AbstractHandlerDecorator {
 		return logFormatter;
 	}
 
+	/**
+	 * Gets what the AsyncLogHandler used when the asynchronous logging option
+	 * is set does when its buffer is full.
+	 * 
+	 * @return the overflow policy
+	 * @see #setOverflowPolicy(AsyncLogHandler.OverflowPolicy)
+	 *      setOverflowPolicy()
+	 */
+	public AsyncLogHandler.OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Sets the capacity of the buffer of the AsyncLogHandler used when the
+	 * asynchronous logging option is set, defaults to
+	 * {@link AsyncLogHandler#DEFAULT_CAPACITY}. Like
+	 * {@link #setLogFormatter(Formatter) setLogFormatter()}, this method must
+	 * be called prior to calling <code>parse()</code>.
+	 * 
+	 * @param asyncCapacity
+	 *            the capacity, in records
+	 * @throws IllegalArgumentException
+	 *             if <code>asyncCapacity</code> is less than 1 or greater
+	 *             than 2<sup>30</sup>
+	 * @see #getAsyncCapacity()
+	 */
+	public void setAsyncCapacity(int asyncCapacity) {
+		AsyncLogHandler.checkCapacity(asyncCapacity);
+		this.asyncCapacity = asyncCapacity;
+	}
+
+	/**
+	 * Sets what the AsyncLogHandler used when the asynchronous logging option
+	 * is set does when its buffer is full, defaults to
+	 * {@link AsyncLogHandler.OverflowPolicy#BLOCK BLOCK}. Like
+	 * {@link #setLogFormatter(Formatter) setLogFormatter()}, this method must
+	 * be called prior to calling <code>parse()</code>.
+	 * 
+	 * @param overflowPolicy
+	 *            the overflow policy
+	 * @throws IllegalArgumentException
+	 *             if <code>overflowPolicy</code> is null
+	 * @see #getOverflowPolicy()
+	 */
+	public void setOverflowPolicy(AsyncLogHandler.OverflowPolicy overflowPolicy) {
+		if (overflowPolicy == null) {
+			throw new IllegalArgumentException(Strings
+					.get("AsyncLogHandler.nullArgument"));
+		}
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Sets the number of segments of the log file that are kept when the log
+	 * file option is set, defaults to
+	 * {@link MappedFileLogHandler#DEFAULT_SEGMENT_COUNT}. Like
+	 * {@link #setLogFormatter(Formatter) setLogFormatter()}, this method must
+	 * be called prior to calling <code>parse()</code>.
+	 * 
+	 * @param logFileSegmentCount
+	 *            the number of segments kept, including the one being written
+	 * @throws IllegalArgumentException
+	 *             if <code>logFileSegmentCount</code> is less than 1
+	 * @see #getLogFileSegmentCount()
+	 */
+	public void setLogFileSegmentCount(int logFileSegmentCount) {
+		MappedFileLogHandler.checkSegments(logFileSegmentSize,
+				logFileSegmentCount);
+		this.logFileSegmentCount = logFileSegmentCount;
+	}
+
+	/**
+	 * Sets the size of each segment of the log file written when the log file
+	 * option is set, defaults to
+	 * {@link MappedFileLogHandler#DEFAULT_SEGMENT_SIZE}. Like
+	 * {@link #setLogFormatter(Formatter) setLogFormatter()}, this method must
+	 * be called prior to calling <code>parse()</code>.
+	 * 
+	 * @param logFileSegmentSize
+	 *            the segment size, in bytes
+	 * @throws IllegalArgumentException
+	 *             if <code>logFileSegmentSize</code> is less than 1 or greater
+	 *             than 2<sup>31</sup>-1
+	 * @see #getLogFileSegmentSize()
+	 */
+	public void setLogFileSegmentSize(long logFileSegmentSize) {
+		MappedFileLogHandler.checkSegments(logFileSegmentSize,
+				logFileSegmentCount);
+		this.logFileSegmentSize = logFileSegmentSize;
+	}
+
 	/**
 	 * Sets the formatter for log messages, defaults to <code>
      * java.util.logging.SimpleFormatter</code>
@@ -241,31 +489,251 @@ public class LoggerCmdLineHandler extends AbstractHandlerDecorator {
 
 	/**
 	 * Called following the call to <code>parse()</code> of this class's
-	 * contained CmdLineHandler. This method only checks for its option if
+	 * contained CmdLineHandler. This method only checks for its options if
 	 * <code>parseStatus</code> is true.
 	 * <P>
-	 * This method adds a ConsoleHandler to the root logger and sets the logging
-	 * level of the root logger to that specified on the command line.
+	 * If the logging option or the log file option is set, this method sets
+	 * the logging level of the root logger to that specified on the command
+	 * line, if any, and ensures that the root logger has a Handler, writing to
+	 * the log file, if that option is set, or otherwise, as selected by the
+	 * asynchronous logging option, to this LoggerCmdLineHandler's stream, at
+	 * that level. A Handler added by a previous parse, of this or any other
+	 * LoggerCmdLineHandler, is reused, or replaced if a different kind, stream
+	 * or file is now selected. Should the log file not be usable, the error is
+	 * handled as a parse error.
 	 * 
 	 * @param parseOk
 	 *            The result of the <code>parse()</code> call to this class's
 	 *            contained CmdLineHandler.
-	 * @return This method will call <code>System.exit(0)</code>, rather than
-	 *         returning, if its option is set. Otherwise,
-	 *         <code>parseStatus</code> is returned.
+	 * @return <code>parseStatus</code>
 	 */
 	protected boolean processParsedOptions(boolean parseOk) {
 		if (parseOk) {
-			if (logOpt.isSet()) {
-				Level level = Level.parse(logOpt.getValue());
-				Handler h = new StreamHandler(stream, logFormatter);
-				h.setLevel(level);
-				Logger rootLogger = Logger.getLogger("");
-				rootLogger.addHandler(h);
-				rootLogger.setLevel(level);
+			if (logOpt.isSet() || logFileOpt.isSet()) {
+				Level rootLevel = null;
+				Map<String, Level> levels = new HashMap<String, Level>();
+				for (String spec : logOpt.getValues()) {
+					int equalsIdx = spec.indexOf('=');
+					if (equalsIdx == -1) {
+						rootLevel = Level.parse(spec);
+					} else {
+						String name = spec.substring(0, equalsIdx);
+						Level level = Level.parse(spec.substring(equalsIdx + 1));
+						if (name.length() == 0) {
+							rootLevel = level;
+						} else {
+							levels.put(name, level);
+						}
+					}
+				}
+				File logFile = logFileOpt.isSet() ? logFileOpt.getValue()
+						.getAbsoluteFile() : null;
+				if (!installHandler(rootLevel, levels, logFile, logAsyncOpt
+						.isTrue())) {
+					return false;
+				}
 			}
 		}
 		return parseOk;
 	}
 
+	/**
+	 * Sets the levels of the root logger and named loggers, and installs the
+	 * Handler for the options set, reusing the one installed by the last
+	 * parse of any LoggerCmdLineHandler if it is suitable.
+	 * 
+	 * @param rootLevel
+	 *            the level of the root logger, or null to leave it unchanged
+	 * @param levels
+	 *            the level of each named logger, by name
+	 * @param logFile
+	 *            the log file, or null if records go to the stream
+	 * @param async
+	 *            whether records are to be written asynchronously
+	 * @return false if the log file can't be used, after handling it as a
+	 *         parse error
+	 */
+	private boolean installHandler(Level rootLevel, Map<String, Level> levels,
+			File logFile, boolean async) {
+		synchronized (LoggerCmdLineHandler.class) {
+			Logger rootLogger = Logger.getLogger("");
+			if (rootLevel != null) {
+				rootLogger.setLevel(rootLevel);
+			}
+			Level threshold = configureLoggers(levels, rootLogger.getLevel());
+
+			Handler h = installed;
+			if (!isReusable(h, logFile, async)) {
+				Handler replacement;
+				try {
+					replacement = createHandler(logFile, async);
+				} catch (IOException e) {
+					String errMsg = Strings.get(
+							"LoggerCmdLineHandler.logFileError",
+							new Object[] { logFile.getPath(),
+									e.getMessage() });
+					setParseError(errMsg);
+					if (getDieOnParseError()) {
+						exitUsageError(errMsg);
+					}
+					return false;
+				}
+				if (h != null) {
+					rootLogger.removeHandler(h);
+					retire(h);
+				}
+				h = replacement;
+				installed = h;
+				installedStream = (logFile == null) ? stream : null;
+			}
+			h.setLevel(threshold);
+			if (!Arrays.asList(rootLogger.getHandlers()).contains(h)) {
+				rootLogger.addHandler(h);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the levels of named loggers, clearing those set by a previous
+	 * parse. Loggers are configured most specific first - the level of a
+	 * logger set later need not be propagated to descendants whose levels
+	 * have already been set.
+	 * 
+	 * @param levels
+	 *            the level of each logger, by name
+	 * @param rootLevel
+	 *            the level of the root logger
+	 * @return the lowest level of the root logger and the named loggers
+	 */
+	private static Level configureLoggers(Map<String, Level> levels,
+			Level rootLevel) {
+		for (Logger l : configuredLoggers) {
+			if (!levels.containsKey(l.getName())) {
+				l.setLevel(null);
+			}
+		}
+		configuredLoggers.clear();
+		List<String> names = new ArrayList<String>(levels.keySet());
+		Collections.sort(names, Collections.reverseOrder());
+		Level threshold = (rootLevel == null) ? Level.INFO : rootLevel;
+		for (String name : names) {
+			// reverse order puts "a.b.c" before "a.b" before "a"
+			Level level = levels.get(name);
+			Logger l = Logger.getLogger(name);
+			l.setLevel(level);
+			configuredLoggers.add(l);
+			if (level.intValue() < threshold.intValue()) {
+				threshold = level;
+			}
+		}
+		return threshold;
+	}
+
+	/**
+	 * Determines whether a Handler installed by a previous parse can be used
+	 * for the options now set.
+	 * 
+	 * @param h
+	 *            the Handler - may be null
+	 * @param logFile
+	 *            the log file, or null if records go to the stream
+	 * @param async
+	 *            whether records are to be written asynchronously
+	 * @return true if the Handler can be used
+	 */
+	private boolean isReusable(Handler h, File logFile, boolean async) {
+		if (h == null || h.getFormatter().getClass() != logFormatter.getClass()) {
+			return false;
+		}
+		if (h instanceof MappedFileLogHandler) {
+			MappedFileLogHandler m = (MappedFileLogHandler) h;
+			return m.getFile().equals(logFile)
+					&& m.getSegmentSize() == logFileSegmentSize
+					&& m.getSegmentCount() == logFileSegmentCount;
+		}
+		if (logFile != null || installedStream != stream) {
+			return false;
+		}
+		if (h instanceof AsyncLogHandler) {
+			return async
+					&& ((AsyncLogHandler) h).getOverflowPolicy() == overflowPolicy;
+		}
+		return !async;
+	}
+
+	/**
+	 * Creates the Handler for the options set.
+	 * 
+	 * @param logFile
+	 *            the log file, or null if records go to the stream
+	 * @param async
+	 *            whether records are to be written asynchronously
+	 * @return the Handler
+	 * @throws IOException
+	 *             if the log file cannot be opened
+	 */
+	private Handler createHandler(File logFile, boolean async)
+			throws IOException {
+		if (logFile != null) {
+			return new MappedFileLogHandler(logFile, logFormatter,
+					logFileSegmentSize, logFileSegmentCount);
+		} else if (async) {
+			return new AsyncLogHandler(stream, logFormatter, asyncCapacity,
+					overflowPolicy);
+		}
+		return new StreamHandler(stream, logFormatter);
+	}
+
+	/**
+	 * Stops using a Handler that is being replaced. The records it holds are
+	 * written, but the stream, which the replacement may use, is left open.
+	 * A log file is closed.
+	 * 
+	 * @param h
+	 *            the Handler being replaced
+	 */
+	private static void retire(Handler h) {
+		if (h instanceof AsyncLogHandler || h instanceof MappedFileLogHandler) {
+			h.close(); // neither closes the stream
+		} else {
+			h.flush();
+		}
+	}
+
+	/**
+	 * The logging option - a StringParam that accepts a level, or a logger
+	 * name and a level separated by an '='.
+	 */
+	private static class LogSpecParam extends StringParam {
+
+		/**
+		 * the standard level names, for error messages
+		 */
+		private final String levelNames;
+
+		LogSpecParam(String tag, String desc, String levelNames) {
+			super(tag, desc, Parameter.OPTIONAL);
+			setMultiValued(Parameter.MULTI_VALUED);
+			setOptionLabel(Strings.get("LoggerCmdLineHandler.logOpt.label"));
+			this.levelNames = levelNames;
+		}
+
+		/**
+		 * Verifies that the level of a logging specification is valid.
+		 * 
+		 * @see jcmdline.StringParam#validateValue(java.lang.String)
+		 */
+		@Override
+		public void validateValue(String val) throws CmdLineException {
+			super.validateValue(val);
+			try {
+				Level.parse(val.substring(val.indexOf('=') + 1));
+			} catch (IllegalArgumentException e) {
+				throw CmdLineException.forKey(
+						"LoggerCmdLineHandler.badLogSpec", new Object[] { val,
+								tag, levelNames });
+			}
+		}
+	}
 }
@@ -0,0 +1,528 @@
+/*
+ * MappedFileLogHandler.java
+ *
+ * Classes:
+ *   public   MappedFileLogHandler
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A logging Handler that writes log records to a memory-mapped file, rolling
+ * to a new file when it is full, and keeping a limited number of old files.
+ * <P>
+ * Each segment of the log is a file, preallocated to the segment size and
+ * mapped into memory. Formatted records are encoded directly into the mapped
+ * region, so that writing a record costs no system call - the operating
+ * system writes the pages to the file in its own time. When a record does not
+ * fit in the space remaining, the Formatter's tail is appended, the file is
+ * truncated to the length written, and it is renamed, <i>file</i> becoming
+ * <i>file</i>.1, <i>file</i>.1 becoming <i>file</i>.2, and so on. Of the
+ * renamed files, only the newest <code>segmentCount - 1</code> are kept, so
+ * that the log never occupies more than about
+ * <code>segmentSize * segmentCount</code> bytes. A file that already exists
+ * when the handler is created is rolled in the same way before the first
+ * segment is started. A record too large for an empty segment is written to a
+ * segment of its own, large enough to hold it.
+ * <P>
+ * Each segment begins with the Formatter's head and ends with its tail. The
+ * tail of the last segment is written, and the file truncated, by
+ * {@link #close()}; should the JVM end without the handler being closed (it is
+ * closed by the LogManager's reset at a normal exit) the records written are
+ * not lost, but the file keeps its preallocated length, the unwritten space
+ * being filled with zero bytes.
+ * <P>
+ * {@link #flush()} does nothing: what has been written to the mapped region is
+ * already visible to readers of the file. As with a <code>FileHandler</code>,
+ * records are not forced to the storage device.
+ * <P>
+ * Some platforms do not allow a mapped file to be truncated or renamed until
+ * the mapping has been garbage collected. Where this is the case rolling
+ * fails, and the failure is reported to the Handler's ErrorManager.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * Logger.getLogger(&quot;&quot;).addHandler(
+ * 		new MappedFileLogHandler(new File(&quot;mycmd.log&quot;),
+ * 				new SimpleFormatter(), 64L * 1024 * 1024, 10));
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see LoggerCmdLineHandler
+ */
+public class MappedFileLogHandler extends Handler {
+
+	/**
+	 * the default size of a segment, in bytes
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+	/**
+	 * the default number of segments kept, including the one being written
+	 */
+	public static final int DEFAULT_SEGMENT_COUNT = 8;
+
+	/**
+	 * the largest segment that can be mapped
+	 */
+	private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * the file being written
+	 */
+	private final File file;
+
+	/**
+	 * the size to which each segment is preallocated
+	 */
+	private final long segmentSize;
+
+	/**
+	 * the number of segments kept, including the one being written
+	 */
+	private final int segmentCount;
+
+	/**
+	 * the file of the segment being written, or null if none is open
+	 */
+	private RandomAccessFile segmentFile;
+
+	/**
+	 * the mapped region of the segment being written
+	 */
+	private MappedByteBuffer segment;
+
+	/**
+	 * encodes formatted records into <code>segment</code> - created when
+	 * first needed, using the Handler's encoding at that time
+	 */
+	private CharsetEncoder encoder;
+
+	/**
+	 * the length of the Formatter's head at the start of the segment being
+	 * written
+	 */
+	private int headLength;
+
+	/**
+	 * true once close() has been called
+	 */
+	private boolean closed;
+
+	/**
+	 * constructor - creates a handler that keeps
+	 * {@link #DEFAULT_SEGMENT_COUNT} segments of {@link #DEFAULT_SEGMENT_SIZE}
+	 * bytes
+	 *
+	 * @param file
+	 *            the file to which records are written
+	 * @param formatter
+	 *            the Formatter used to format records
+	 * @throws IOException
+	 *             if the file cannot be created and mapped, or an existing
+	 *             file cannot be rolled
+	 * @throws IllegalArgumentException
+	 *             if <code>file</code> or <code>formatter</code> is null
+	 */
+	public MappedFileLogHandler(File file, Formatter formatter)
+			throws IOException {
+		this(file, formatter, DEFAULT_SEGMENT_SIZE, DEFAULT_SEGMENT_COUNT);
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param file
+	 *            the file to which records are written
+	 * @param formatter
+	 *            the Formatter used to format records
+	 * @param segmentSize
+	 *            the size to which each segment is preallocated, in bytes
+	 * @param segmentCount
+	 *            the number of segments kept, including the one being written
+	 * @throws IOException
+	 *             if the file cannot be created and mapped, or an existing
+	 *             file cannot be rolled
+	 * @throws IllegalArgumentException
+	 *             if <code>file</code> or <code>formatter</code> is null,
+	 *             <code>segmentSize</code> is less than 1 or greater than
+	 *             2<sup>31</sup>-1, or <code>segmentCount</code> is less than
+	 *             1
+	 */
+	public MappedFileLogHandler(File file, Formatter formatter,
+			long segmentSize, int segmentCount) throws IOException {
+		if (file == null || formatter == null) {
+			throw new IllegalArgumentException(Strings
+					.get("MappedFileLogHandler.nullArgument"));
+		}
+		checkSegments(segmentSize, segmentCount);
+		this.file = file.getAbsoluteFile();
+		this.segmentSize = segmentSize;
+		this.segmentCount = segmentCount;
+		setFormatter(formatter);
+		if (this.file.exists()) {
+			rename();
+		}
+		open();
+	}
+
+	/**
+	 * Verifies that a segment size and count are valid.
+	 *
+	 * @param segmentSize
+	 *            the segment size, in bytes
+	 * @param segmentCount
+	 *            the number of segments
+	 * @throws IllegalArgumentException
+	 *             if <code>segmentSize</code> is less than 1 or greater than
+	 *             2<sup>31</sup>-1, or <code>segmentCount</code> is less than
+	 *             1
+	 */
+	static void checkSegments(long segmentSize, int segmentCount) {
+		if (segmentSize < 1 || segmentSize > MAX_SEGMENT_SIZE
+				|| segmentCount < 1) {
+			throw new IllegalArgumentException(Strings.get(
+					"MappedFileLogHandler.badSegments", new Object[] {
+							Long.toString(segmentSize),
+							Integer.toString(segmentCount) }));
+		}
+	}
+
+	/**
+	 * Gets the file to which records are written.
+	 *
+	 * @return the absolute path of the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the size to which each segment is preallocated.
+	 *
+	 * @return the segment size, in bytes
+	 */
+	public long getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * Gets the number of segments kept.
+	 *
+	 * @return the number of segments kept, including the one being written
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Sets the character encoding used by this Handler. Records published
+	 * after this call, and the heads and tails of the segments not yet
+	 * finished, are written with the new encoding.
+	 *
+	 * @see java.util.logging.Handler#setEncoding(java.lang.String)
+	 */
+	@Override
+	public synchronized void setEncoding(String encoding)
+			throws SecurityException, UnsupportedEncodingException {
+		super.setEncoding(encoding);
+		encoder = null;
+	}
+
+	/**
+	 * Formats a record and writes it to the mapped file, if it is loggable,
+	 * rolling to a new segment if it does not fit in the current one. Records
+	 * published after the handler has been closed are ignored.
+	 *
+	 * @param record
+	 *            the record
+	 * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+	 */
+	@Override
+	public synchronized void publish(LogRecord record) {
+		if (closed || !isLoggable(record)) {
+			return;
+		}
+		String text;
+		try {
+			text = getFormatter().format(record);
+		} catch (Exception e) {
+			reportError(null, e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+		try {
+			if (segment == null) {
+				open();
+			} else if (segment.capacity() > segmentSize
+					&& segment.position() > headLength) {
+				roll(); // the segment was enlarged for a large record
+			}
+			if (!encode(text)) {
+				if (segment.position() > headLength) {
+					roll();
+				}
+				if (!encode(text)) {
+					// too large for a segment - give it one of its own
+					enlarge(segment.position() + maxEncodedLength(text));
+					if (!encode(text)) {
+						throw new IOException(Strings.get(
+								"MappedFileLogHandler.recordTooLarge",
+								new Object[] { Integer.toString(text.length()) }));
+					}
+				}
+			}
+		} catch (IOException e) {
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Does nothing - records written to the mapped file are visible to its
+	 * readers without being flushed.
+	 *
+	 * @see java.util.logging.Handler#flush()
+	 */
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 * Writes the Formatter's tail, truncates the file to the length written,
+	 * and closes it. Calling this method more than once has no further
+	 * effect.
+	 *
+	 * @see java.util.logging.Handler#close()
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (segment != null) {
+				finish();
+			}
+		} catch (IOException e) {
+			reportError(null, e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+	/**
+	 * Gets the encoder for the Handler's encoding, creating it if need be.
+	 *
+	 * @return the encoder
+	 */
+	private CharsetEncoder encoder() {
+		if (encoder == null) {
+			Charset cs = (getEncoding() == null) ? Charset.defaultCharset()
+					: Charset.forName(getEncoding());
+			encoder = cs.newEncoder().onMalformedInput(
+					CodingErrorAction.REPLACE).onUnmappableCharacter(
+					CodingErrorAction.REPLACE);
+		}
+		return encoder;
+	}
+
+	/**
+	 * Encodes text into the current segment.
+	 *
+	 * @param text
+	 *            the text
+	 * @return false, leaving the segment unchanged, if the text does not fit
+	 */
+	private boolean encode(String text) {
+		int start = segment.position();
+		CharsetEncoder enc = encoder();
+		enc.reset();
+		CharBuffer in = CharBuffer.wrap(text);
+		CoderResult r = enc.encode(in, segment, true);
+		if (!r.isOverflow()) {
+			r = enc.flush(segment);
+		}
+		if (r.isOverflow()) {
+			segment.position(start);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the most bytes that text may take when encoded.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the length, in bytes, or {@link #MAX_SEGMENT_SIZE} if that is
+	 *         less
+	 */
+	private long maxEncodedLength(String text) {
+		return Math.min(MAX_SEGMENT_SIZE, (long) Math.ceil(text.length()
+				* (double) encoder().maxBytesPerChar()));
+	}
+
+	/**
+	 * Finishes the current segment, renames the files of the log, and starts
+	 * a new segment.
+	 *
+	 * @throws IOException
+	 *             if the segment cannot be finished, the files renamed, or
+	 *             the new segment created
+	 */
+	private void roll() throws IOException {
+		finish();
+		rename();
+		open();
+	}
+
+	/**
+	 * Creates the file, preallocates and maps a segment, and writes the
+	 * Formatter's head.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be created or mapped
+	 */
+	private void open() throws IOException {
+		RandomAccessFile f = new RandomAccessFile(file, "rw");
+		try {
+			f.setLength(segmentSize);
+			segment = f.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					segmentSize);
+		} catch (IOException e) {
+			f.close();
+			throw e;
+		}
+		segmentFile = f;
+		String head = getFormatter().getHead(this);
+		if (head.length() > 0 && !encode(head)) {
+			// the head does not fit - write it with the first record
+			enlarge(maxEncodedLength(head));
+			encode(head);
+		}
+		headLength = segment.position();
+	}
+
+	/**
+	 * Extends the current segment, keeping what has been written.
+	 *
+	 * @param size
+	 *            the new size of the segment
+	 * @throws IOException
+	 *             if the file cannot be extended or mapped
+	 */
+	private void enlarge(long size) throws IOException {
+		int position = segment.position();
+		long newSize = Math.min(MAX_SEGMENT_SIZE, size);
+		segmentFile.setLength(newSize);
+		segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+				0, newSize);
+		segment.position(position);
+	}
+
+	/**
+	 * Appends the Formatter's tail to the current segment, truncates it to
+	 * the length written, and closes it.
+	 *
+	 * @throws IOException
+	 *             if the tail cannot be written or the file truncated
+	 */
+	private void finish() throws IOException {
+		RandomAccessFile f = segmentFile;
+		long length = segment.position();
+		segment = null;
+		segmentFile = null;
+		try {
+			FileChannel ch = f.getChannel();
+			ch.truncate(length);
+			String tail = getFormatter().getTail(this);
+			if (tail.length() > 0) {
+				ByteBuffer b = encoder().encode(CharBuffer.wrap(tail));
+				while (b.hasRemaining()) {
+					ch.write(b, length);
+					length = ch.size();
+				}
+			}
+		} finally {
+			f.close();
+		}
+	}
+
+	/**
+	 * Renames the log's files - <i>file</i>.<i>n</i> to <i>file</i>.<i>n+1</i>,
+	 * ..., <i>file</i> to <i>file</i>.1 - discarding the oldest, so that
+	 * <code>segmentCount - 1</code> are kept.
+	 *
+	 * @throws IOException
+	 *             if a file cannot be deleted or renamed
+	 */
+	private void rename() throws IOException {
+		File oldest = segment(segmentCount - 1);
+		if (oldest.exists() && !oldest.delete()) {
+			throw new IOException(Strings.get(
+					"MappedFileLogHandler.cantDelete", new Object[] { oldest
+							.getPath() }));
+		}
+		for (int i = segmentCount - 2; i >= 0; i--) {
+			File from = segment(i);
+			File to = segment(i + 1);
+			if (from.exists() && !from.renameTo(to)) {
+				throw new IOException(Strings.get(
+						"MappedFileLogHandler.cantRename", new Object[] {
+								from.getPath(), to.getPath() }));
+			}
+		}
+	}
+
+	/**
+	 * Gets the file of a segment.
+	 *
+	 * @param n
+	 *            the age of the segment - 0 for the one being written
+	 * @return the file
+	 */
+	private File segment(int n) {
+		return (n == 0) ? file : new File(file.getPath() + "." + n);
+	}
+}
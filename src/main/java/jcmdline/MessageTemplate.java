@@ -0,0 +1,256 @@
+/*
+ * MessageTemplate.java
+ *
+ * Classes:
+ *   package  MessageTemplate
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A message pattern, split once into its literal text and argument indexes
+ * so that formatting it is a matter of concatenation.
+ * <P>
+ * Only patterns whose arguments are all of the simple form <code>{n}</code>
+ * are split. Quoting follows the rules of {@link MessageFormat}. A pattern
+ * using format types or styles, such as <code>{0,number,#.##}</code>, is
+ * formatted with MessageFormat instead. Arguments are formatted as
+ * MessageFormat would format them: Numbers and Dates using the default
+ * number and short date/time formats of the requested locale, other objects
+ * with <code>toString()</code>.
+ * <P>
+ * The splitting is done at build time for the package's own message
+ * catalog, by the generator under <code>src/build/java</code>, which is
+ * compiled with this class and calls {@link #compile(String)}. This class
+ * must therefore depend on nothing but the JDK.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see Strings
+ */
+final class MessageTemplate {
+
+	/**
+	 * the indexes of the arguments, or null if the pattern is formatted with
+	 * MessageFormat
+	 */
+	private final int[] args;
+
+	/**
+	 * the text preceding each argument, followed by the text following the
+	 * last argument
+	 */
+	private final String[] literals;
+
+	/**
+	 * the unsplit pattern
+	 */
+	private final String pattern;
+
+	/**
+	 * constructor
+	 * 
+	 * @param pattern
+	 *            the unsplit pattern
+	 * @param literals
+	 *            the text preceding each argument, followed by the text
+	 *            following the last argument
+	 * @param args
+	 *            the indexes of the arguments, or null if the pattern is to
+	 *            be formatted with MessageFormat
+	 */
+	MessageTemplate(String pattern, String[] literals, int[] args) {
+		this.pattern = pattern;
+		this.literals = literals;
+		this.args = args;
+	}
+
+	/**
+	 * Splits a pattern.
+	 * 
+	 * @param pattern
+	 *            a MessageFormat pattern
+	 * @return the template
+	 */
+	static MessageTemplate compile(String pattern) {
+		List<String> lits = new ArrayList<String>();
+		List<Integer> ixs = new ArrayList<Integer>();
+		StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		int len = pattern.length();
+		for (int i = 0; i < len; i++) {
+			char c = pattern.charAt(i);
+			if (c == '\'') {
+				if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+					sb.append('\'');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == '{' && !quoted) {
+				int close = pattern.indexOf('}', i + 1);
+				if (close == -1) {
+					return new MessageTemplate(pattern, null, null);
+				}
+				int ix = argIndex(pattern, i + 1, close);
+				if (ix < 0) {
+					return new MessageTemplate(pattern, null, null);
+				}
+				lits.add(sb.toString());
+				sb.setLength(0);
+				ixs.add(Integer.valueOf(ix));
+				i = close;
+			} else {
+				sb.append(c);
+			}
+		}
+		lits.add(sb.toString());
+		int[] args = new int[ixs.size()];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = ixs.get(i).intValue();
+		}
+		return new MessageTemplate(pattern, lits.toArray(new String[lits
+				.size()]), args);
+	}
+
+	/**
+	 * Formats a message from its split pattern.
+	 * 
+	 * @param pattern
+	 *            the unsplit pattern, used if <code>args</code> is null
+	 * @param literals
+	 *            the text preceding each argument, followed by the text
+	 *            following the last argument
+	 * @param args
+	 *            the indexes of the arguments, or null to format
+	 *            <code>pattern</code> with MessageFormat
+	 * @param params
+	 *            the argument values
+	 * @param locale
+	 *            the locale used to format Number and Date arguments
+	 * @return the formatted message
+	 */
+	static String format(String pattern, String[] literals, int[] args,
+			Object[] params, Locale locale) {
+		if (args == null) {
+			return new MessageFormat(pattern, locale).format(params);
+		}
+		if (args.length == 0) {
+			return literals[0];
+		}
+		StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+		sb.append(literals[0]);
+		for (int i = 0; i < args.length; i++) {
+			int ix = args[i];
+			if (params == null || ix >= params.length) {
+				// as MessageFormat does
+				sb.append('{').append(ix).append('}');
+			} else {
+				appendArg(sb, params[ix], locale);
+			}
+			sb.append(literals[i + 1]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Formats this template.
+	 * 
+	 * @param params
+	 *            the argument values
+	 * @param locale
+	 *            the locale used to format Number and Date arguments
+	 * @return the formatted message
+	 */
+	String format(Object[] params, Locale locale) {
+		return format(pattern, literals, args, params, locale);
+	}
+
+	/**
+	 * Gets the indexes of the arguments.
+	 * 
+	 * @return the indexes, or null if the pattern is formatted with
+	 *         MessageFormat
+	 */
+	int[] getArgs() {
+		return args;
+	}
+
+	/**
+	 * Gets the literal text.
+	 * 
+	 * @return the text preceding each argument, followed by the text
+	 *         following the last argument, or null if the pattern is
+	 *         formatted with MessageFormat
+	 */
+	String[] getLiterals() {
+		return literals;
+	}
+
+	/**
+	 * Parses the argument index of a simple <code>{n}</code> argument.
+	 * 
+	 * @return the index, or -1 if the argument is not simple
+	 */
+	private static int argIndex(String pattern, int start, int end) {
+		if (start == end || end - start > 9) {
+			return -1;
+		}
+		int ix = 0;
+		for (int i = start; i < end; i++) {
+			char c = pattern.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			ix = ix * 10 + (c - '0');
+		}
+		return ix;
+	}
+
+	private static void appendArg(StringBuilder sb, Object o, Locale locale) {
+		if (o == null) {
+			sb.append("null");
+		} else if (o instanceof String) {
+			sb.append((String) o);
+		} else if (o instanceof Number) {
+			sb.append(NumberFormat.getInstance(locale).format(o));
+		} else if (o instanceof Date) {
+			sb.append(DateFormat.getDateTimeInstance(DateFormat.SHORT,
+					DateFormat.SHORT, locale).format(o));
+		} else {
+			sb.append(o.toString());
+		}
+	}
+}
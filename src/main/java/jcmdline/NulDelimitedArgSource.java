@@ -0,0 +1,296 @@
+/*
+ * NulDelimitedArgSource.java
+ *
+ * Classes:
+ *   public   NulDelimitedArgSource
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * A CmdLineArgSource that reads NUL-delimited, UTF-8 encoded, arguments from a
+ * <code>ByteBuffer</code> or a <code>ReadableByteChannel</code>. This is the
+ * format of <i>/proc/&lt;pid&gt;/cmdline</i> and of the output of
+ * <code>find -print0</code>, as consumed by <code>xargs -0</code>.
+ * <P>
+ * Each NUL byte terminates an argument. Bytes following the final NUL, if
+ * there are any, make up a final argument. Two adjacent NUL bytes therefore
+ * delimit an empty argument.
+ * <P>
+ * Arguments are decoded only as the parser asks for them, directly from the
+ * bytes in the buffer. No intermediate copy of the block, or of the
+ * individual arguments, is made when the bytes are held in a heap buffer.
+ * Malformed UTF-8 sequences are replaced with the Unicode replacement
+ * character.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * ByteBuffer argv = ...; // &quot;-out\0result.txt\0infile\0&quot;
+ * if (handler.parse(new NulDelimitedArgSource(argv))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineHandler#parse(CmdLineArgSource)
+ */
+public class NulDelimitedArgSource implements CmdLineArgSource {
+
+	/**
+	 * the initial size of the buffer used when reading from a channel
+	 */
+	private static final int INITIAL_CHANNEL_BUFSIZE = 8192;
+
+	/**
+	 * the buffer holding the bytes not yet returned as arguments, in
+	 * "read mode" (position to limit are the pending bytes)
+	 */
+	private ByteBuffer buf;
+
+	/**
+	 * the channel from which to read, or null if reading from a buffer
+	 */
+	private final ReadableByteChannel channel;
+
+	/**
+	 * used to decode arguments that contain non-ASCII bytes - created on first
+	 * use
+	 */
+	private CharsetDecoder decoder;
+
+	/**
+	 * scratch space used to decode ASCII arguments from a direct buffer
+	 */
+	private char[] chars;
+
+	/**
+	 * indicates that the channel has reached end-of-stream
+	 */
+	private boolean eof;
+
+	/**
+	 * the number of pending bytes (from the buffer position) that are known to
+	 * contain no NUL - avoids rescanning after a channel read
+	 */
+	private int scanned;
+
+	/**
+	 * the buffer index of the end of the next argument, or -1 if the next
+	 * argument has not yet been located
+	 */
+	private int tokenEnd = -1;
+
+	/**
+	 * indicates that the next argument is terminated by a NUL that must be
+	 * skipped
+	 */
+	private boolean terminated;
+
+	/**
+	 * constructor - reads the bytes between the position and limit of
+	 * <code>buf</code>. The position of <code>buf</code> is not changed.
+	 *
+	 * @param buf
+	 *            the buffer containing the NUL-delimited arguments
+	 * @throws IllegalArgumentException
+	 *             if <code>buf</code> is null
+	 */
+	public NulDelimitedArgSource(ByteBuffer buf) {
+		if (buf == null) {
+			throw new IllegalArgumentException(Strings
+					.get("NulDelimitedArgSource.nullInput"));
+		}
+		this.buf = buf.duplicate();
+		this.channel = null;
+		this.eof = true;
+	}
+
+	/**
+	 * constructor - reads from <code>channel</code> until end-of-stream. The
+	 * channel is not closed by this class.
+	 *
+	 * @param channel
+	 *            the channel containing the NUL-delimited arguments
+	 * @throws IllegalArgumentException
+	 *             if <code>channel</code> is null
+	 */
+	public NulDelimitedArgSource(ReadableByteChannel channel) {
+		if (channel == null) {
+			throw new IllegalArgumentException(Strings
+					.get("NulDelimitedArgSource.nullInput"));
+		}
+		this.channel = channel;
+		this.buf = ByteBuffer.allocate(INITIAL_CHANNEL_BUFSIZE);
+		this.buf.flip();
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#hasNext()
+	 */
+	public boolean hasNext() throws CmdLineException {
+		if (tokenEnd >= 0) {
+			return true;
+		}
+		while (true) {
+			int start = buf.position() + scanned;
+			int limit = buf.limit();
+			for (int i = start; i < limit; i++) {
+				if (buf.get(i) == 0) {
+					tokenEnd = i;
+					terminated = true;
+					scanned = 0;
+					return true;
+				}
+			}
+			scanned = limit - buf.position();
+			if (eof) {
+				if (buf.hasRemaining()) {
+					tokenEnd = limit;
+					terminated = false;
+					scanned = 0;
+					return true;
+				}
+				return false;
+			}
+			fill();
+		}
+	}
+
+	/**
+	 * @see jcmdline.CmdLineArgSource#next()
+	 */
+	public String next() throws CmdLineException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int start = buf.position();
+		String arg = decode(start, tokenEnd);
+		buf.position(terminated ? tokenEnd + 1 : tokenEnd);
+		tokenEnd = -1;
+		return arg;
+	}
+
+	/**
+	 * Decodes the bytes between two buffer indices.
+	 *
+	 * @param start
+	 *            the index of the first byte
+	 * @param end
+	 *            the index following the last byte
+	 * @return the decoded String
+	 * @throws CmdLineException
+	 *             should the decoder fail
+	 */
+	private String decode(int start, int end) throws CmdLineException {
+		int len = end - start;
+		if (len == 0) {
+			return "";
+		}
+		if (buf.hasArray()) {
+			return new String(buf.array(), buf.arrayOffset() + start, len,
+					StandardCharsets.UTF_8);
+		}
+		if (chars == null || chars.length < len) {
+			chars = new char[Math.max(len, 64)];
+		}
+		for (int i = 0; i < len; i++) {
+			byte b = buf.get(start + i);
+			if (b < 0) {
+				return decodeNonAscii(start, end);
+			}
+			chars[i] = (char) b;
+		}
+		return new String(chars, 0, len);
+	}
+
+	/**
+	 * Decodes the bytes between two buffer indices using a CharsetDecoder.
+	 *
+	 * @param start
+	 *            the index of the first byte
+	 * @param end
+	 *            the index following the last byte
+	 * @return the decoded String
+	 * @throws CmdLineException
+	 *             should the decoder fail
+	 */
+	private String decodeNonAscii(int start, int end) throws CmdLineException {
+		if (decoder == null) {
+			decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(
+					CodingErrorAction.REPLACE).onUnmappableCharacter(
+					CodingErrorAction.REPLACE);
+		}
+		ByteBuffer slice = buf.duplicate();
+		slice.limit(end).position(start);
+		try {
+			return decoder.decode(slice).toString();
+		} catch (CharacterCodingException e) {
+			throw CmdLineException.forKey(
+					"NulDelimitedArgSource.readError", new Object[] { e
+							.getMessage() });
+		}
+	}
+
+	/**
+	 * Reads more bytes from the channel, growing the buffer should a single
+	 * argument not fit within it.
+	 *
+	 * @throws CmdLineException
+	 *             if the channel cannot be read
+	 */
+	private void fill() throws CmdLineException {
+		buf.compact();
+		if (!buf.hasRemaining()) {
+			ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+			buf.flip();
+			bigger.put(buf);
+			buf = bigger;
+		}
+		try {
+			if (channel.read(buf) < 0) {
+				eof = true;
+			}
+		} catch (IOException e) {
+			throw CmdLineException.forKey(
+					"NulDelimitedArgSource.readError", new Object[] { e
+							.getMessage() });
+		} finally {
+			buf.flip();
+		}
+	}
+}
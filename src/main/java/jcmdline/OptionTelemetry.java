@@ -0,0 +1,619 @@
+/*
+ * OptionTelemetry.java
+ *
+ * Classes:
+ *   public   OptionTelemetry
+ *   public   OptionTelemetry.Snapshot
+ *   public   OptionTelemetry.TagCounts
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how the options and arguments of a command are used: how often each
+ * Parameter is set, roughly how many distinct values each takes, and how
+ * often each is in error. A handler records to an OptionTelemetry after each
+ * parse once it is
+ * {@link ConfigurableCmdLineHandler#setTelemetry(OptionTelemetry) set} - by
+ * default, nothing is recorded.
+ * <P>
+ * Counters are {@link LongAdder}s, and the distinct values of each Parameter
+ * are counted with a HyperLogLog sketch of 1024 registers - 1K bytes per
+ * Parameter whatever the number of values, with a standard error of about 3%.
+ * Values are distinguished by their <code>hashCode()</code>. Errors are
+ * counted against the Parameter {@link CmdLineException#getTag() in error},
+ * if there is one. Recording takes no locks, so one OptionTelemetry may be
+ * shared by handlers parsing concurrently.
+ * <P>
+ * Recording a parse costs a few counter updates for each Parameter set - a
+ * few hundred nanoseconds for a command line of a handful of options, which
+ * may be a sizeable fraction of a short parse. So by default an
+ * OptionTelemetry records a random sample of one parse in
+ * {@link #DEFAULT_SAMPLE_INTERVAL 64}, which keeps the cost under 1% of such a
+ * parse. The counts of a sampled OptionTelemetry are estimates, scaled up by
+ * the sample interval, so a Parameter used only very rarely may not be seen.
+ * Exact counts of every parse are recorded by an OptionTelemetry
+ * {@link #OptionTelemetry(int) created} with a sample interval of 1.
+ * <P>
+ * A {@link #snapshot() snapshot} of the counts may be taken at any time, and
+ * exported to a file, once or periodically:
+ *
+ * <pre>
+ * OptionTelemetry telemetry = new OptionTelemetry();
+ * cl.setTelemetry(telemetry);
+ * telemetry.startExport(new File(&quot;/var/tmp/mycmd.telemetry&quot;), 1,
+ *         TimeUnit.MINUTES);
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see Snapshot#writeTo(Appendable)
+ */
+public class OptionTelemetry {
+
+	/**
+	 * the sample interval of an OptionTelemetry created without one
+	 *
+	 * @see #OptionTelemetry()
+	 */
+	public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+	/**
+	 * the average number of parses per parse recorded
+	 *
+	 * @see #getSampleInterval()
+	 */
+	private final int sampleInterval;
+
+	/**
+	 * the number of parses recorded
+	 */
+	private final LongAdder parses = new LongAdder();
+
+	/**
+	 * the number of failed parses recorded
+	 */
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * the counts of each Parameter, keyed by tag
+	 */
+	private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+	/**
+	 * the timer running periodic exports, or null if there are none
+	 *
+	 * @see #startExport(File, long, TimeUnit)
+	 */
+	private Timer exportTimer;
+
+	/**
+	 * the file to which periodic exports are written
+	 */
+	private File exportFile;
+
+	/**
+	 * held while a snapshot is exported, so that a periodic export still
+	 * running when the export is stopped cannot replace the final snapshot
+	 * with an older one
+	 */
+	private final Object exportLock = new Object();
+
+	/**
+	 * the error from the last periodic export, or null if it succeeded
+	 */
+	private volatile IOException exportError;
+
+	/**
+	 * constructor - creates an OptionTelemetry that records a random sample of
+	 * one parse in {@link #DEFAULT_SAMPLE_INTERVAL}
+	 */
+	public OptionTelemetry() {
+		this(DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * constructor - creates an OptionTelemetry that records a random sample
+	 * of parses.
+	 *
+	 * @param sampleInterval
+	 *            the average number of parses per parse recorded - 1 records
+	 *            every parse
+	 * @throws IllegalArgumentException
+	 *             if <code>sampleInterval</code> is less than 1
+	 */
+	public OptionTelemetry(int sampleInterval) {
+		if (sampleInterval < 1) {
+			throw new IllegalArgumentException(Strings.get(
+					"OptionTelemetry.badSampleInterval",
+					new Object[] { Integer.toString(sampleInterval) }));
+		}
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * Gets the average number of parses per parse recorded.
+	 *
+	 * @return the sample interval - 1 if every parse is recorded
+	 */
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * Records the outcome of a parse, if it is sampled. Called by a handler
+	 * after each parse.
+	 *
+	 * @param options
+	 *            the options of the command
+	 * @param args
+	 *            the arguments of the command
+	 * @param error
+	 *            the parse error, or null if the parse succeeded
+	 */
+	public void record(Iterable<Parameter<?>> options,
+			Iterable<Parameter<?>> args, CmdLineException error) {
+		if (sampleInterval > 1
+				&& ThreadLocalRandom.current().nextInt(sampleInterval) != 0) {
+			return;
+		}
+		parses.increment();
+		recordSet(options);
+		recordSet(args);
+		if (error != null) {
+			errors.increment();
+			String tag = error.getTag();
+			if (tag != null) {
+				counters(tag).errors.increment();
+			}
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the counts recorded so far, scaled up by the sample
+	 * interval. Counting continues while the snapshot is taken, so the counts
+	 * may be slightly inconsistent with each other while parses are in
+	 * progress.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot() {
+		Map<String, TagCounts> tags = new TreeMap<String, TagCounts>();
+		for (Map.Entry<String, Counters> e : counters.entrySet()) {
+			Counters c = e.getValue();
+			tags.put(e.getKey(), new TagCounts(c.uses.sum() * sampleInterval,
+					c.errors.sum() * sampleInterval, c.values.estimate()));
+		}
+		return new Snapshot(System.currentTimeMillis(), parses.sum()
+				* sampleInterval, errors.sum() * sampleInterval, tags);
+	}
+
+	/**
+	 * Discards all counts recorded so far.
+	 */
+	public void reset() {
+		counters.clear();
+		parses.reset();
+		errors.reset();
+	}
+
+	/**
+	 * Writes a snapshot of the counts to a file. The snapshot is written to a
+	 * temporary file which then replaces <code>file</code>, so that readers
+	 * never see a partly written file.
+	 *
+	 * @param file
+	 *            the file
+	 * @throws IOException
+	 *             if the file cannot be written
+	 * @see Snapshot#writeTo(Appendable)
+	 */
+	public void export(File file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException(Strings
+					.get("OptionTelemetry.nullFile"));
+		}
+		Path target = file.getAbsoluteFile().toPath();
+		synchronized (exportLock) {
+			Path tmp = Files.createTempFile(target.getParent(), file
+					.getName(), ".tmp");
+			try {
+				Writer w = new OutputStreamWriter(
+						Files.newOutputStream(tmp), StandardCharsets.UTF_8);
+				try {
+					snapshot().writeTo(w);
+				} finally {
+					w.close();
+				}
+				try {
+					Files.move(tmp, target,
+							StandardCopyOption.REPLACE_EXISTING,
+							StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmp, target,
+							StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		}
+	}
+
+	/**
+	 * Starts exporting a snapshot of the counts to a file periodically, from
+	 * a daemon thread, replacing any periodic export already started.
+	 *
+	 * @param file
+	 *            the file
+	 * @param period
+	 *            the time between exports
+	 * @param unit
+	 *            the unit of <code>period</code>
+	 * @throws IllegalArgumentException
+	 *             if <code>file</code> is null, or <code>period</code> is
+	 *             not positive
+	 * @see #stopExport()
+	 * @see #getExportError()
+	 */
+	public synchronized void startExport(final File file, long period,
+			TimeUnit unit) {
+		if (file == null) {
+			throw new IllegalArgumentException(Strings
+					.get("OptionTelemetry.nullFile"));
+		}
+		long millis = unit.toMillis(period);
+		if (millis <= 0) {
+			throw new IllegalArgumentException(Strings.get(
+					"OptionTelemetry.badPeriod", new Object[] { period + " "
+							+ unit }));
+		}
+		if (exportTimer != null) {
+			exportTimer.cancel();
+		}
+		exportFile = file;
+		exportTimer = new Timer("jcmdline-telemetry-export", true);
+		exportTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					export(file);
+					exportError = null;
+				} catch (IOException e) {
+					exportError = e;
+				}
+			}
+		}, millis, millis);
+	}
+
+	/**
+	 * Stops the periodic export, writing a final snapshot, if a periodic
+	 * export was started.
+	 *
+	 * @throws IOException
+	 *             if the final snapshot cannot be written
+	 * @see #startExport(File, long, TimeUnit)
+	 */
+	public synchronized void stopExport() throws IOException {
+		if (exportTimer != null) {
+			exportTimer.cancel();
+			exportTimer = null;
+			export(exportFile);
+			exportFile = null;
+		}
+	}
+
+	/**
+	 * Gets the error from the last periodic export.
+	 *
+	 * @return the error, or null if the last export succeeded, or none has
+	 *         been made
+	 */
+	public IOException getExportError() {
+		return exportError;
+	}
+
+	/**
+	 * Counts the Parameters that are set, and their values.
+	 */
+	private void recordSet(Iterable<Parameter<?>> params) {
+		for (Parameter<?> p : params) {
+			if (p.isSet()) {
+				Counters c = counters(p.getTag());
+				c.uses.increment();
+				List<?> values = p.getValues();
+				for (int i = 0; i < values.size(); i++) {
+					Object v = values.get(i);
+					c.values.add((v == null) ? 0 : v.hashCode());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the counters of a tag, adding them if there are none.
+	 */
+	private Counters counters(String tag) {
+		Counters c = counters.get(tag);
+		if (c == null) {
+			Counters prev = counters.putIfAbsent(tag, c = new Counters());
+			if (prev != null) {
+				c = prev;
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * A snapshot of the counts of an OptionTelemetry.
+	 */
+	public static class Snapshot {
+
+		private final long time;
+
+		private final long parseCount;
+
+		private final long errorCount;
+
+		private final Map<String, TagCounts> tags;
+
+		Snapshot(long time, long parseCount, long errorCount,
+				Map<String, TagCounts> tags) {
+			this.time = time;
+			this.parseCount = parseCount;
+			this.errorCount = errorCount;
+			this.tags = Collections.unmodifiableMap(tags);
+		}
+
+		/**
+		 * @return the time the snapshot was taken, in milliseconds since the
+		 *         epoch
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return the number of parses recorded
+		 */
+		public long getParseCount() {
+			return parseCount;
+		}
+
+		/**
+		 * @return the number of failed parses recorded
+		 */
+		public long getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * @return the counts of each Parameter that has been set or in error,
+		 *         keyed and sorted by tag
+		 */
+		public Map<String, TagCounts> getTags() {
+			return tags;
+		}
+
+		/**
+		 * Writes the snapshot as tab-separated text - a comment line, a line
+		 * of totals, a header line, and a line for each Parameter:
+		 *
+		 * <pre>
+		 * # jcmdline option telemetry
+		 * time	parses	errors
+		 * 1735689600000	1042	17
+		 * tag	uses	errors	distinct
+		 * file	1040	12	211
+		 * verbose	96	0	1
+		 * </pre>
+		 *
+		 * @param out
+		 *            the destination of the snapshot
+		 * @throws IOException
+		 *             if <code>out</code> throws IOException
+		 */
+		public void writeTo(Appendable out) throws IOException {
+			out.append("# jcmdline option telemetry\n");
+			out.append("time\tparses\terrors\n");
+			out.append(time + "\t" + parseCount + "\t" + errorCount + "\n");
+			out.append("tag\tuses\terrors\tdistinct\n");
+			for (Map.Entry<String, TagCounts> e : tags.entrySet()) {
+				TagCounts c = e.getValue();
+				out.append(e.getKey()).append('\t');
+				out.append(c.getUses() + "\t" + c.getErrors() + "\t"
+						+ c.getDistinctValues() + "\n");
+			}
+		}
+	}
+
+	/**
+	 * The counts of one Parameter in a {@link Snapshot}.
+	 */
+	public static class TagCounts {
+
+		private final long uses;
+
+		private final long errors;
+
+		private final long distinctValues;
+
+		TagCounts(long uses, long errors, long distinctValues) {
+			this.uses = uses;
+			this.errors = errors;
+			this.distinctValues = distinctValues;
+		}
+
+		/**
+		 * @return the number of parses in which the Parameter was set
+		 */
+		public long getUses() {
+			return uses;
+		}
+
+		/**
+		 * @return the number of parses that failed because of the
+		 *         Parameter's value, or because it was missing
+		 */
+		public long getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @return the estimated number of distinct values the Parameter has
+		 *         taken in the parses recorded
+		 */
+		public long getDistinctValues() {
+			return distinctValues;
+		}
+
+		/**
+		 * @return the proportion of the parses involving the Parameter that
+		 *         failed because of it, or 0 if there were none
+		 */
+		public double getErrorRate() {
+			long n = uses + errors;
+			return (n == 0) ? 0 : (double) errors / n;
+		}
+	}
+
+	/**
+	 * The counters of one Parameter.
+	 */
+	private static final class Counters {
+
+		final LongAdder uses = new LongAdder();
+
+		final LongAdder errors = new LongAdder();
+
+		final ValueSketch values = new ValueSketch();
+	}
+
+	/**
+	 * A HyperLogLog sketch of 1024 six-bit registers, stored a byte apiece,
+	 * eight to a long. A register is only written when a value raises it, so
+	 * once a sketch has seen most of the values it is mostly read.
+	 */
+	static final class ValueSketch {
+
+		/**
+		 * the number of bits of a hash that select a register
+		 */
+		private static final int P = 10;
+
+		/**
+		 * the number of registers
+		 */
+		private static final int M = 1 << P;
+
+		private final AtomicLongArray registers = new AtomicLongArray(M / 8);
+
+		/**
+		 * Adds a value to the sketch.
+		 *
+		 * @param hashCode
+		 *            the value's hash code
+		 */
+		void add(int hashCode) {
+			long h = mix(hashCode);
+			int idx = (int) (h >>> (64 - P));
+			int rank = Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1;
+			int word = idx >>> 3;
+			int shift = (idx & 7) << 3;
+			for (;;) {
+				long w = registers.get(word);
+				if (((w >>> shift) & 0xff) >= rank) {
+					return;
+				}
+				long nw = (w & ~(0xffL << shift)) | ((long) rank << shift);
+				if (registers.compareAndSet(word, w, nw)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Estimates the number of distinct values added.
+		 *
+		 * @return the estimate
+		 */
+		long estimate() {
+			double sum = 0;
+			int zeros = 0;
+			for (int i = 0; i < M / 8; i++) {
+				long w = registers.get(i);
+				for (int b = 0; b < 8; b++) {
+					int r = (int) (w >>> (b << 3)) & 0xff;
+					sum += Math.scalb(1.0, -r);
+					if (r == 0) {
+						zeros++;
+					}
+				}
+			}
+			double alpha = 0.7213 / (1 + 1.079 / M);
+			double e = alpha * M * M / sum;
+			if (e <= 2.5 * M && zeros != 0) {
+				e = M * Math.log((double) M / zeros);
+			}
+			return Math.round(e);
+		}
+
+		/**
+		 * Spreads the bits of a hash code over a long.
+		 */
+		private static long mix(int hashCode) {
+			long h = hashCode;
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			h *= 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			return h;
+		}
+	}
+}
@@ -0,0 +1,767 @@
+/*
+ * ParameterBinder.java
+ *
+ * Classes:
+ *   public   ParameterBinder
+ *   private  ParameterBinder.Binding
+ *   private  ParameterBinder.Member
+ *   private  ParameterBinder.Records
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds the values of a command's Parameters, once parsed, to the fields,
+ * setters, or record components of an object. For example:
+ *
+ * <pre>
+ * public class CopyOptions {
+ * 	boolean force;
+ * 	int bufferSize = 8192;
+ * 	File target;
+ * 	List&lt;File&gt; files;
+ * }
+ *
+ * CmdLineHandler cl = new DefaultCmdLineHandler(&quot;copy&quot;, &quot;copies files&quot;,
+ * 		new Parameter[] { new BooleanParam(&quot;force&quot;, &quot;replace existing files&quot;),
+ * 				new IntParam(&quot;buffer-size&quot;, &quot;the buffer size&quot;),
+ * 				new FileParam(&quot;target&quot;, &quot;the target directory&quot;) },
+ * 		new Parameter[] { new FileParam(&quot;files&quot;, &quot;the files to copy&quot;,
+ * 				FileParam.IS_READABLE, FileParam.REQUIRED,
+ * 				FileParam.MULTI_VALUED) });
+ * cl.parse(args);
+ * CopyOptions opts = ParameterBinder.create(cl, CopyOptions.class);
+ * </pre>
+ *
+ * A Parameter is bound to the member whose name is its tag, or, failing
+ * that, whose name matches its tag when both are compared in lower case
+ * with all but their letters and digits removed - so that the tag
+ * <code>buffer-size</code> is bound to <code>bufferSize</code>. A setter,
+ * <code>setBufferSize()</code>, is preferred to a field. Parameters that
+ * match no member, such as the help options added by DefaultCmdLineHandler,
+ * are ignored, as are members that match no Parameter.
+ * <P>
+ * A member that is a List, Collection, or Iterable is set to a new list of
+ * the Parameter's values. Any other member is set to its value, which must
+ * be of the member's type - other than a <code>boolean</code>, which is set
+ * from a Boolean, and an <code>int</code>, <code>long</code>, or
+ * <code>double</code>, which is set from any Number. Only the Parameters
+ * that are set are bound, so a member whose Parameter was not specified
+ * keeps its initial value. The components of a record, which are passed to
+ * its canonical constructor, are instead zero, false, or null, or for a
+ * List, an empty list.
+ * <P>
+ * The members of a class are found, and their MethodHandles created, the
+ * first time the class is bound, and kept for as long as the class is
+ * loaded. Primitive members are set through MethodHandles of their own
+ * types, so an <code>int</code> taken from an IntParam, for instance, is
+ * not boxed again, as it is by <code>Field.set()</code>. Non-public members
+ * are made accessible where the Java platform allows it.
+ * <P>
+ * Records are recognized through reflection, so that this class can be used
+ * with, but does not require, a Java release that supports them.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public final class ParameterBinder {
+
+	/**
+	 * the kind of member set from a Boolean
+	 */
+	private static final int BOOLEAN = 0;
+
+	/**
+	 * the kind of member set from the <code>int</code> value of a Number
+	 */
+	private static final int INT = 1;
+
+	/**
+	 * the kind of member set from the <code>long</code> value of a Number
+	 */
+	private static final int LONG = 2;
+
+	/**
+	 * the kind of member set from the <code>double</code> value of a Number
+	 */
+	private static final int DOUBLE = 3;
+
+	/**
+	 * the kind of member set to a list of a Parameter's values
+	 */
+	private static final int LIST = 4;
+
+	/**
+	 * the kind of member set to a Parameter's value
+	 */
+	private static final int OBJECT = 5;
+
+	/**
+	 * the bindings of the classes bound so far
+	 */
+	private static final ClassValue<Binding> BINDINGS = new ClassValue<Binding>() {
+		@Override
+		protected Binding computeValue(Class<?> type) {
+			return new Binding(type);
+		}
+	};
+
+	/**
+	 * constructor - private, as all methods are static
+	 */
+	private ParameterBinder() {
+	}
+
+	/**
+	 * Creates an object of a class, and binds a handler's Parameters to it.
+	 * A class other than a record must have a constructor with no
+	 * parameters.
+	 *
+	 * @param handler
+	 *            the handler, which has parsed a command line
+	 * @param type
+	 *            the class of the object to create
+	 * @return the new object
+	 * @throws IllegalArgumentException
+	 *             if the class can't be created, or a Parameter's value is
+	 *             not of the type of the member to which it is bound
+	 */
+	public static <T> T create(CmdLineHandler handler, Class<T> type) {
+		if (handler == null || type == null) {
+			throw new IllegalArgumentException(Strings
+					.get("ParameterBinder.nullArg"));
+		}
+		return type.cast(BINDINGS.get(type).create(handler));
+	}
+
+	/**
+	 * Binds a handler's Parameters to an existing object. Members whose
+	 * Parameters are not set are unchanged.
+	 *
+	 * @param handler
+	 *            the handler, which has parsed a command line
+	 * @param target
+	 *            the object - not a record, which can't be changed
+	 * @throws IllegalArgumentException
+	 *             if <code>target</code> is a record, or a Parameter's value
+	 *             is not of the type of the member to which it is bound
+	 */
+	public static void bind(CmdLineHandler handler, Object target) {
+		if (handler == null || target == null) {
+			throw new IllegalArgumentException(Strings
+					.get("ParameterBinder.nullArg"));
+		}
+		Binding binding = BINDINGS.get(target.getClass());
+		if (binding.components != null) {
+			throw new IllegalArgumentException(Strings.get(
+					"ParameterBinder.recordTarget", new Object[] { target
+							.getClass().getName() }));
+		}
+		binding.bind(handler, target);
+	}
+
+	/**
+	 * Gets a name in lower case, with all but its letters and digits
+	 * removed.
+	 */
+	private static String normalize(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				sb.append(Character.toLowerCase(c));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the kind of a member of some type.
+	 */
+	private static int kindOf(Class<?> type) {
+		if (type == boolean.class) {
+			return BOOLEAN;
+		} else if (type == int.class) {
+			return INT;
+		} else if (type == long.class) {
+			return LONG;
+		} else if (type == double.class) {
+			return DOUBLE;
+		} else if (type == List.class || type == Collection.class
+				|| type == Iterable.class || type == ArrayList.class) {
+			return LIST;
+		}
+		return OBJECT;
+	}
+
+	/**
+	 * Gets the type of the value passed to the MethodHandle that sets a
+	 * member of some kind.
+	 */
+	private static Class<?> valueType(int kind) {
+		switch (kind) {
+		case BOOLEAN:
+			return boolean.class;
+		case INT:
+			return int.class;
+		case LONG:
+			return long.class;
+		case DOUBLE:
+			return double.class;
+		default:
+			return Object.class;
+		}
+	}
+
+	/**
+	 * Makes a reflected member accessible, if the platform allows it. If it
+	 * does not, only a public member can be bound.
+	 */
+	private static void makeAccessible(AccessibleObject member) {
+		try {
+			member.setAccessible(true);
+		} catch (RuntimeException e) {
+			// left to the access checks of MethodHandles.Lookup
+		}
+	}
+
+	/**
+	 * The members of a class to which Parameters can be bound.
+	 */
+	private static class Binding {
+
+		/**
+		 * the class
+		 */
+		private final Class<?> type;
+
+		/**
+		 * the members, by name and by normalized name
+		 */
+		private final Map<String, Member> members = new HashMap<String, Member>();
+
+		/**
+		 * creates an object of the class - taking no parameters for a class,
+		 * or the components of a record, as an Object[], for a record - or
+		 * null if the class can't be created
+		 */
+		private final MethodHandle constructor;
+
+		/**
+		 * the components of a record, in the order of its canonical
+		 * constructor's parameters, or null for a class
+		 */
+		private final Member[] components;
+
+		/**
+		 * the initial values of the components of a record - zero, false, or
+		 * null
+		 */
+		private final Object[] defaults;
+
+		/**
+		 * constructor - finds the members of a class
+		 *
+		 * @param type
+		 *            the class
+		 */
+		Binding(Class<?> type) {
+			this.type = type;
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Member[] comps = Records.getComponents(type);
+			components = comps;
+			if (comps != null) {
+				defaults = new Object[comps.length];
+				Class<?>[] types = new Class<?>[comps.length];
+				for (int i = 0; i < comps.length; i++) {
+					types[i] = comps[i].type;
+					if (comps[i].type.isPrimitive()) {
+						defaults[i] = Array.get(Array.newInstance(
+								comps[i].type, 1), 0);
+					}
+					add(comps[i]);
+				}
+				constructor = findConstructor(lookup, types);
+			} else {
+				defaults = null;
+				findSetters(lookup);
+				constructor = Modifier.isAbstract(type.getModifiers()) ? null
+						: findConstructor(lookup, new Class<?>[0]);
+			}
+		}
+
+		/**
+		 * Finds the fields and setters of the class, and of its
+		 * superclasses. Those of a subclass hide those of the same name in
+		 * its superclasses, and a setter replaces a field of the same name.
+		 */
+		private void findSetters(MethodHandles.Lookup lookup) {
+			Map<String, Member> fields = new HashMap<String, Member>();
+			Map<String, Member> setters = new HashMap<String, Member>();
+			for (Class<?> c = type; c != null && c != Object.class; c = c
+					.getSuperclass()) {
+				for (Field f : c.getDeclaredFields()) {
+					int mods = f.getModifiers();
+					if (Modifier.isStatic(mods) || Modifier.isFinal(mods)
+							|| f.isSynthetic()
+							|| fields.containsKey(f.getName())) {
+						continue;
+					}
+					makeAccessible(f);
+					try {
+						fields.put(f.getName(), new Member(f.getName(), f
+								.getType(), lookup.unreflectSetter(f)));
+					} catch (IllegalAccessException e) {
+						// not accessible - not bound
+					}
+				}
+				for (Method m : c.getDeclaredMethods()) {
+					String name = m.getName();
+					if (Modifier.isStatic(m.getModifiers()) || m.isBridge()
+							|| m.isSynthetic() || m.getParameterTypes().length != 1
+							|| name.length() < 4 || !name.startsWith("set")
+							|| !Character.isUpperCase(name.charAt(3))) {
+						continue;
+					}
+					name = Character.toLowerCase(name.charAt(3))
+							+ name.substring(4);
+					if (setters.containsKey(name)) {
+						continue;
+					}
+					makeAccessible(m);
+					try {
+						setters.put(name, new Member(name, m
+								.getParameterTypes()[0], lookup.unreflect(m)));
+					} catch (IllegalAccessException e) {
+						// not accessible - not bound
+					}
+				}
+			}
+			for (Member m : fields.values()) {
+				if (!setters.containsKey(m.name)) {
+					add(m);
+				}
+			}
+			for (Member m : setters.values()) {
+				add(m);
+			}
+		}
+
+		/**
+		 * Adds a member by its name and by its normalized name. A member
+		 * whose name is that of another's normalized name takes precedence.
+		 */
+		private void add(Member m) {
+			members.put(m.name, m);
+			String normalized = normalize(m.name);
+			Member other = members.get(normalized);
+			if (other == null || !other.name.equals(normalized)) {
+				members.put(normalized, m);
+			}
+		}
+
+		/**
+		 * Finds the constructor of the class with some parameter types.
+		 *
+		 * @return a MethodHandle returning an Object, taking its parameters
+		 *         in an Object[] if there are any, or null if there is no
+		 *         such constructor, or it is not accessible
+		 */
+		private MethodHandle findConstructor(MethodHandles.Lookup lookup,
+				Class<?>[] types) {
+			try {
+				Constructor<?> c = type.getDeclaredConstructor(types);
+				makeAccessible(c);
+				MethodHandle mh = lookup.unreflectConstructor(c);
+				if (types.length == 0) {
+					return mh.asType(MethodType.methodType(Object.class));
+				}
+				return mh.asSpreader(Object[].class, types.length).asType(
+						MethodType.methodType(Object.class, Object[].class));
+			} catch (NoSuchMethodException e) {
+				return null;
+			} catch (IllegalAccessException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Gets the member to which a Parameter is bound.
+		 *
+		 * @return the member, or null if there is none
+		 */
+		private Member find(Parameter<?> p) {
+			Member m = members.get(p.getTag());
+			return (m != null) ? m : members.get(normalize(p.getTag()));
+		}
+
+		/**
+		 * Creates an object of the class, and binds a handler's Parameters
+		 * to it.
+		 */
+		Object create(CmdLineHandler handler) {
+			if (constructor == null) {
+				throw new IllegalArgumentException(Strings.get(
+						"ParameterBinder.noConstructor", new Object[] { type
+								.getName() }));
+			}
+			if (components == null) {
+				Object target;
+				try {
+					target = constructor.invokeExact();
+				} catch (Throwable t) {
+					throw rethrow(t);
+				}
+				bind(handler, target);
+				return target;
+			}
+			Object[] args = defaults.clone();
+			for (Member m : components) {
+				if (m.kind == LIST) {
+					args[m.index] = new ArrayList<Object>();
+				}
+			}
+			bindComponents(handler.getOptions(), args);
+			bindComponents(handler.getArgs(), args);
+			try {
+				return constructor.invokeExact(args);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+
+		/**
+		 * Sets the components of a record to the values of the Parameters
+		 * that are set.
+		 *
+		 * @param params
+		 *            the Parameters
+		 * @param args
+		 *            the parameters of the record's canonical constructor
+		 */
+		private void bindComponents(Collection<Parameter<?>> params,
+				Object[] args) {
+			for (Parameter<?> p : params) {
+				Member m;
+				if (!p.isSet() || (m = find(p)) == null) {
+					continue;
+				}
+				switch (m.kind) {
+				case BOOLEAN:
+					args[m.index] = booleanValue(p, m) ? Boolean.TRUE
+							: Boolean.FALSE;
+					break;
+				case INT:
+					Number n = numberValue(p, m);
+					args[m.index] = (n instanceof Integer) ? n : Integer
+							.valueOf(n.intValue());
+					break;
+				case LONG:
+					n = numberValue(p, m);
+					args[m.index] = (n instanceof Long) ? n : Long.valueOf(n
+							.longValue());
+					break;
+				case DOUBLE:
+					n = numberValue(p, m);
+					args[m.index] = (n instanceof Double) ? n : Double
+							.valueOf(n.doubleValue());
+					break;
+				case LIST:
+					args[m.index] = new ArrayList<Object>(p.getValues());
+					break;
+				default:
+					args[m.index] = objectValue(p, m);
+				}
+			}
+		}
+
+		/**
+		 * Binds the Parameters of a handler that are set to an object.
+		 */
+		void bind(CmdLineHandler handler, Object target) {
+			bind(handler.getOptions(), target);
+			bind(handler.getArgs(), target);
+		}
+
+		/**
+		 * Binds the Parameters that are set to an object.
+		 */
+		private void bind(Collection<Parameter<?>> params, Object target) {
+			for (Parameter<?> p : params) {
+				Member m;
+				if (!p.isSet() || (m = find(p)) == null) {
+					continue;
+				}
+				MethodHandle setter = m.setter;
+				try {
+					switch (m.kind) {
+					case BOOLEAN:
+						setter.invokeExact(target, booleanValue(p, m));
+						break;
+					case INT:
+						setter.invokeExact(target, numberValue(p, m).intValue());
+						break;
+					case LONG:
+						setter.invokeExact(target, numberValue(p, m).longValue());
+						break;
+					case DOUBLE:
+						setter.invokeExact(target, numberValue(p, m)
+								.doubleValue());
+						break;
+					case LIST:
+						setter.invokeExact(target, (Object) new ArrayList<Object>(
+								p.getValues()));
+						break;
+					default:
+						setter.invokeExact(target, objectValue(p, m));
+					}
+				} catch (Throwable t) {
+					throw rethrow(t);
+				}
+			}
+		}
+
+		/**
+		 * Gets the value of a Parameter bound to a <code>boolean</code>.
+		 */
+		private boolean booleanValue(Parameter<?> p, Member m) {
+			Object val = p.getValue();
+			if (!(val instanceof Boolean)) {
+				throw mismatch(p, m, val);
+			}
+			return ((Boolean) val).booleanValue();
+		}
+
+		/**
+		 * Gets the value of a Parameter bound to an <code>int</code>,
+		 * <code>long</code>, or <code>double</code>.
+		 */
+		private Number numberValue(Parameter<?> p, Member m) {
+			Object val = p.getValue();
+			if (!(val instanceof Number)) {
+				throw mismatch(p, m, val);
+			}
+			return (Number) val;
+		}
+
+		/**
+		 * Gets the value of a Parameter bound to a member that is not
+		 * primitive.
+		 */
+		private Object objectValue(Parameter<?> p, Member m) {
+			Object val = p.getValue();
+			if (!m.type.isInstance(val)) {
+				throw mismatch(p, m, val);
+			}
+			return val;
+		}
+
+		/**
+		 * Creates the exception thrown when a Parameter's value is not of
+		 * the type of its member.
+		 */
+		private IllegalArgumentException mismatch(Parameter<?> p, Member m,
+				Object val) {
+			return new IllegalArgumentException(Strings.get(
+					"ParameterBinder.typeMismatch", new Object[] { p.getTag(),
+							type.getName() + "." + m.name,
+							m.type.getName(),
+							val.getClass().getName() }));
+		}
+
+		/**
+		 * Rethrows an exception thrown by a constructor or setter, wrapping
+		 * a checked exception in a RuntimeException.
+		 */
+		private static RuntimeException rethrow(Throwable t) {
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			}
+			if (t instanceof Error) {
+				throw (Error) t;
+			}
+			throw new RuntimeException(t);
+		}
+	}
+
+	/**
+	 * A member of a class to which a Parameter can be bound.
+	 */
+	private static class Member {
+
+		/**
+		 * the name of the field, setter, or record component
+		 */
+		final String name;
+
+		/**
+		 * the type of the member
+		 */
+		final Class<?> type;
+
+		/**
+		 * the kind of the member - <code>BOOLEAN</code>, <code>INT</code>,
+		 * <code>LONG</code>, <code>DOUBLE</code>, <code>LIST</code>, or
+		 * <code>OBJECT</code>
+		 */
+		final int kind;
+
+		/**
+		 * sets the member of an object - taking the object, as an Object,
+		 * and a value of the member's type, if primitive, or an Object -
+		 * null for a record component
+		 */
+		final MethodHandle setter;
+
+		/**
+		 * the index of a record component, -1 for a field or setter
+		 */
+		final int index;
+
+		/**
+		 * constructor - for a field or setter
+		 *
+		 * @param name
+		 *            the name of the member
+		 * @param type
+		 *            the type of the member
+		 * @param setter
+		 *            sets the member, taking the object and the value
+		 */
+		Member(String name, Class<?> type, MethodHandle setter) {
+			this.name = name;
+			this.type = type;
+			this.kind = kindOf(type);
+			this.setter = setter.asType(MethodType.methodType(void.class,
+					Object.class, valueType(kind)));
+			this.index = -1;
+		}
+
+		/**
+		 * constructor - for a record component
+		 *
+		 * @param name
+		 *            the name of the component
+		 * @param type
+		 *            the type of the component
+		 * @param index
+		 *            the position of the component
+		 */
+		Member(String name, Class<?> type, int index) {
+			this.name = name;
+			this.type = type;
+			this.kind = kindOf(type);
+			this.setter = null;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Finds the components of records through reflection, as
+	 * <code>Class.isRecord()</code> and
+	 * <code>java.lang.reflect.RecordComponent</code> do not exist before
+	 * Java 16.
+	 */
+	private static class Records {
+
+		/**
+		 * <code>Class.getRecordComponents()</code>, or null if records are
+		 * not supported
+		 */
+		private static final Method GET_RECORD_COMPONENTS;
+
+		/**
+		 * <code>RecordComponent.getName()</code>
+		 */
+		private static final Method GET_NAME;
+
+		/**
+		 * <code>RecordComponent.getType()</code>
+		 */
+		private static final Method GET_TYPE;
+
+		static {
+			Method components = null;
+			Method name = null;
+			Method type = null;
+			try {
+				components = Class.class.getMethod("getRecordComponents");
+				Class<?> rc = Class.forName("java.lang.reflect.RecordComponent");
+				name = rc.getMethod("getName");
+				type = rc.getMethod("getType");
+			} catch (Exception e) {
+				components = null;
+			}
+			GET_RECORD_COMPONENTS = components;
+			GET_NAME = name;
+			GET_TYPE = type;
+		}
+
+		/**
+		 * Gets the components of a record.
+		 *
+		 * @param type
+		 *            a class
+		 * @return the components, in order, or null if the class is not a
+		 *         record
+		 */
+		static Member[] getComponents(Class<?> type) {
+			if (GET_RECORD_COMPONENTS == null) {
+				return null;
+			}
+			try {
+				Object[] rcs = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+				if (rcs == null) {
+					return null;
+				}
+				Member[] members = new Member[rcs.length];
+				for (int i = 0; i < rcs.length; i++) {
+					members[i] = new Member((String) GET_NAME.invoke(rcs[i]),
+							(Class<?>) GET_TYPE.invoke(rcs[i]), i);
+				}
+				return members;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+}
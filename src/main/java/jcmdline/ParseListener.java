@@ -0,0 +1,130 @@
+/*
+ * ParseListener.java
+ *
+ * Classes:
+ *   public   ParseListener
+ *   public   ParseListener.Phase
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Receives the timings of the phases of each parse, and its outcome. A
+ * ParseListener is installed with
+ * {@link ConfigurableCmdLineHandler#setParseListener(ParseListener)}, or
+ * directly on a {@link PosixCmdLineParser}. When none is installed, nothing
+ * is timed.
+ * <P>
+ * Listeners are called on the parsing thread, in the middle of the parse, so
+ * must be quick, and must be thread-safe if the handler is used by more than
+ * one thread. A phase that ends in an error is not reported - the error is
+ * reported to {@link #parseFailed(CmdLineException)} instead.
+ * <P>
+ * {@link ParseMetrics} is a ParseListener that aggregates the timings and
+ * errors, and may be registered as a platform MBean.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public interface ParseListener {
+
+	/**
+	 * The timed phases of a parse.
+	 */
+	public enum Phase {
+
+		/**
+		 * reading a command line parameter and splitting an option's tag from
+		 * its value
+		 */
+		TOKENIZE,
+
+		/**
+		 * finding the option matching a tag, which may be abbreviated
+		 */
+		LOOKUP,
+
+		/**
+		 * converting a value from a String - includes validation for a
+		 * Parameter that does not extend {@link AbstractParameter}, or
+		 * overrides its addStringValue() method
+		 */
+		CONVERT,
+
+		/**
+		 * validating and adding a converted value
+		 */
+		VALIDATE,
+
+		/**
+		 * checking that required parameters were specified, that exclusive
+		 * parameters were not, and that dependencies are met
+		 */
+		REQUIRED,
+
+		/**
+		 * processing the parsed options in a decorator's
+		 * processParsedOptions() method
+		 */
+		DECORATOR
+	}
+
+	/**
+	 * Called when a phase of a parse completes successfully.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param param
+	 *            the Parameter the phase processed, or null if it was not
+	 *            specific to one Parameter
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 */
+	public void phaseCompleted(Phase phase, Parameter<?> param, long nanos);
+
+	/**
+	 * Called when the command line fails to parse, before the error is
+	 * reported.
+	 *
+	 * @param e
+	 *            the parse error - its
+	 *            {@link CmdLineException#getMessageKey() message key}
+	 *            identifies the kind of error
+	 */
+	public void parseFailed(CmdLineException e);
+
+	/**
+	 * Called when a handler's parse, including its required checks but not
+	 * its decorators, completes.
+	 *
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 * @param ok
+	 *            true if the command line was parsed without error
+	 */
+	public void parseCompleted(long nanos, boolean ok);
+}
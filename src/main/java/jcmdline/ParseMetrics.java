@@ -0,0 +1,446 @@
+/*
+ * ParseMetrics.java
+ *
+ * Classes:
+ *   public   ParseMetrics
+ *   public   ParseMetrics.PhaseStatistics
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link ParseListener} that aggregates latency histograms for each phase
+ * of a parse, the number of errors of each kind, and the time spent on each
+ * Parameter. All counters are striped {@link LongAdder}s, so one ParseMetrics
+ * may be shared by handlers parsing concurrently at little cost.
+ * <P>
+ * Latencies are counted in buckets by powers of two, so the percentiles
+ * reported are upper bounds, accurate to within a factor of two. Statistics
+ * are read without stopping the counting, so may be slightly inconsistent
+ * while parses are in progress.
+ * <P>
+ * Sample usage:
+ *
+ * <pre>
+ * ParseMetrics metrics = new ParseMetrics();
+ * metrics.register(&quot;myapp&quot;);
+ * cl.setParseListener(metrics);
+ * </pre>
+ *
+ * The statistics may then be viewed with any JMX client, such as
+ * <i>jconsole</i>, as the MBean <i>jcmdline:type=ParseMetrics,name=myapp</i>.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class ParseMetrics implements ParseListener, ParseMetricsMXBean {
+
+	/**
+	 * the key under which the statistics of whole parses are reported
+	 *
+	 * @see #getPhaseStatistics()
+	 */
+	public static final String PARSE = "PARSE";
+
+	/**
+	 * the key under which errors without a message key are counted
+	 *
+	 * @see #getErrorCounts()
+	 */
+	public static final String UNKNOWN_KEY = "unknown";
+
+	/**
+	 * the latencies of each phase, indexed by the phase's ordinal
+	 */
+	private final Histogram[] phases;
+
+	/**
+	 * the latencies of whole parses
+	 */
+	private final Histogram parses = new Histogram();
+
+	/**
+	 * the number of failed parses
+	 */
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * the number of errors of each kind, keyed by message key
+	 */
+	private final ConcurrentMap<String, LongAdder> errorCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * the nanoseconds spent on each Parameter, keyed by tag
+	 */
+	private final ConcurrentMap<String, LongAdder> parameterNanos = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * the name under which this is registered, or null if it is not
+	 *
+	 * @see #register(String)
+	 */
+	private ObjectName objectName;
+
+	/**
+	 * constructor
+	 */
+	public ParseMetrics() {
+		ParseListener.Phase[] values = ParseListener.Phase.values();
+		phases = new Histogram[values.length];
+		for (int i = 0; i < phases.length; i++) {
+			phases[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * Records the latency of a phase, and the time spent on its Parameter.
+	 *
+	 * @see ParseListener#phaseCompleted(ParseListener.Phase, Parameter, long)
+	 */
+	public void phaseCompleted(Phase phase, Parameter<?> param, long nanos) {
+		phases[phase.ordinal()].record(nanos);
+		if (param != null) {
+			adder(parameterNanos, param.getTag()).add(nanos);
+		}
+	}
+
+	/**
+	 * Counts a parse error by its message key.
+	 *
+	 * @see ParseListener#parseFailed(CmdLineException)
+	 */
+	public void parseFailed(CmdLineException e) {
+		String key = e.getMessageKey();
+		adder(errorCounts, (key == null) ? UNKNOWN_KEY : key).increment();
+	}
+
+	/**
+	 * Records the latency of a parse, and counts it if it failed.
+	 *
+	 * @see ParseListener#parseCompleted(long, boolean)
+	 */
+	public void parseCompleted(long nanos, boolean ok) {
+		parses.record(nanos);
+		if (!ok) {
+			errors.increment();
+		}
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#getParseCount()
+	 */
+	public long getParseCount() {
+		return parses.count.sum();
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#getErrorCount()
+	 */
+	public long getErrorCount() {
+		return errors.sum();
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#getErrorCounts()
+	 */
+	public Map<String, Long> getErrorCounts() {
+		return sums(errorCounts);
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#getParameterNanos()
+	 */
+	public Map<String, Long> getParameterNanos() {
+		return sums(parameterNanos);
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#getPhaseStatistics()
+	 */
+	public Map<String, PhaseStatistics> getPhaseStatistics() {
+		Map<String, PhaseStatistics> stats = new TreeMap<String, PhaseStatistics>();
+		ParseListener.Phase[] values = ParseListener.Phase.values();
+		for (int i = 0; i < values.length; i++) {
+			stats.put(values[i].name(), phases[i].statistics());
+		}
+		stats.put(PARSE, parses.statistics());
+		return stats;
+	}
+
+	/**
+	 * Gets the latency statistics of one phase of a parse.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @return the statistics
+	 */
+	public PhaseStatistics getPhaseStatistics(Phase phase) {
+		return phases[phase.ordinal()].statistics();
+	}
+
+	/**
+	 * @see ParseMetricsMXBean#reset()
+	 */
+	public void reset() {
+		for (int i = 0; i < phases.length; i++) {
+			phases[i].reset();
+		}
+		parses.reset();
+		errors.reset();
+		errorCounts.clear();
+		parameterNanos.clear();
+	}
+
+	/**
+	 * Registers this with the platform MBean server, as
+	 * <i>jcmdline:type=ParseMetrics,name=</i><code>name</code>.
+	 *
+	 * @param name
+	 *            the name under which to register, typically the command name
+	 * @return the name of the MBean
+	 * @throws JMException
+	 *             if the MBean could not be registered, as when another is
+	 *             already registered under the same name
+	 * @see #unregister()
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		ObjectName on = new ObjectName("jcmdline:type=ParseMetrics,name="
+				+ ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, on);
+		if (objectName != null) {
+			server.unregisterMBean(objectName);
+		}
+		objectName = on;
+		return on;
+	}
+
+	/**
+	 * Unregisters this from the platform MBean server, if it is registered.
+	 *
+	 * @throws JMException
+	 *             if the MBean could not be unregistered
+	 * @see #register(String)
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+					objectName);
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Gets the adder for a key, adding it if there is none.
+	 */
+	private static LongAdder adder(ConcurrentMap<String, LongAdder> map,
+			String key) {
+		LongAdder a = map.get(key);
+		if (a == null) {
+			LongAdder prev = map.putIfAbsent(key, a = new LongAdder());
+			if (prev != null) {
+				a = prev;
+			}
+		}
+		return a;
+	}
+
+	/**
+	 * Gets the sums of the adders of a map, sorted by key.
+	 */
+	private static Map<String, Long> sums(ConcurrentMap<String, LongAdder> map) {
+		Map<String, Long> sums = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : map.entrySet()) {
+			sums.put(e.getKey(), e.getValue().sum());
+		}
+		return sums;
+	}
+
+	/**
+	 * The latency statistics of a phase of a parse, in nanoseconds.
+	 */
+	public static class PhaseStatistics {
+
+		private final long count;
+
+		private final long total;
+
+		private final long p50;
+
+		private final long p90;
+
+		private final long p99;
+
+		private final long max;
+
+		PhaseStatistics(long count, long total, long p50, long p90, long p99,
+				long max) {
+			this.count = count;
+			this.total = total;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		/**
+		 * @return the number of times the phase completed
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the total time spent in the phase
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return the mean time spent in the phase, or 0 if it never
+		 *         completed
+		 */
+		public long getMean() {
+			return (count == 0) ? 0 : total / count;
+		}
+
+		/**
+		 * @return an upper bound for the median time spent in the phase
+		 */
+		public long getP50() {
+			return p50;
+		}
+
+		/**
+		 * @return an upper bound for the 90th percentile of the time spent in
+		 *         the phase
+		 */
+		public long getP90() {
+			return p90;
+		}
+
+		/**
+		 * @return an upper bound for the 99th percentile of the time spent in
+		 *         the phase
+		 */
+		public long getP99() {
+			return p99;
+		}
+
+		/**
+		 * @return the longest time spent in the phase
+		 */
+		public long getMax() {
+			return max;
+		}
+	}
+
+	/**
+	 * Counts latencies in buckets by powers of two - bucket <i>n</i> counts
+	 * latencies of less than 2<sup><i>n</i></sup> nanoseconds that are not
+	 * counted by bucket <i>n-1</i>.
+	 */
+	private static final class Histogram {
+
+		final LongAdder[] buckets = new LongAdder[64];
+
+		final LongAdder count = new LongAdder();
+
+		final LongAdder total = new LongAdder();
+
+		final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Histogram() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(long nanos) {
+			if (nanos < 0) {
+				nanos = 0;
+			}
+			buckets[64 - Long.numberOfLeadingZeros(nanos) & 63].increment();
+			count.increment();
+			total.add(nanos);
+			max.accumulate(nanos);
+		}
+
+		void reset() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i].reset();
+			}
+			count.reset();
+			total.reset();
+			max.reset();
+		}
+
+		PhaseStatistics statistics() {
+			long[] counts = new long[buckets.length];
+			long n = 0;
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = buckets[i].sum();
+				n += counts[i];
+			}
+			long m = max.get();
+			return new PhaseStatistics(n, total.sum(), percentile(counts, n,
+					50, m), percentile(counts, n, 90, m), percentile(counts, n,
+					99, m), m);
+		}
+
+		/**
+		 * Gets the upper bound of the bucket holding a percentile, or the
+		 * maximum if it is lower.
+		 */
+		private static long percentile(long[] counts, long n, int pct, long max) {
+			if (n == 0) {
+				return 0;
+			}
+			long rank = (n * pct + 99) / 100;
+			long seen = 0;
+			int i = 0;
+			while (i < counts.length - 1 && (seen += counts[i]) < rank) {
+				i++;
+			}
+			long bound = (i == 0) ? 0 : (1L << i) - 1;
+			return Math.min(bound, max);
+		}
+	}
+}
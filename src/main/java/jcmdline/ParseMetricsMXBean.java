@@ -0,0 +1,92 @@
+/*
+ * ParseMetricsMXBean.java
+ *
+ * Classes:
+ *   public   ParseMetricsMXBean
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link ParseMetrics}, through which its
+ * statistics are exposed by the platform MBean server.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see ParseMetrics#register(String)
+ */
+public interface ParseMetricsMXBean {
+
+	/**
+	 * Gets the number of parses completed, successfully or not.
+	 *
+	 * @return the number of parses
+	 */
+	public long getParseCount();
+
+	/**
+	 * Gets the number of parses that failed.
+	 *
+	 * @return the number of failed parses
+	 */
+	public long getErrorCount();
+
+	/**
+	 * Gets the number of parse errors of each kind.
+	 *
+	 * @return the number of errors, keyed by the
+	 *         {@link CmdLineException#getMessageKey() message key} of the
+	 *         error, or {@link ParseMetrics#UNKNOWN_KEY} for errors not raised
+	 *         by jcmdline itself
+	 */
+	public Map<String, Long> getErrorCounts();
+
+	/**
+	 * Gets the time spent on each Parameter, in the lookup, convert, and
+	 * validate phases.
+	 *
+	 * @return the total nanoseconds, keyed by Parameter tag
+	 */
+	public Map<String, Long> getParameterNanos();
+
+	/**
+	 * Gets the latency statistics of each phase of a parse, and of whole
+	 * parses.
+	 *
+	 * @return the statistics, keyed by the name of the
+	 *         {@link ParseListener.Phase phase}, or {@link ParseMetrics#PARSE}
+	 *         for whole parses
+	 */
+	public Map<String, ParseMetrics.PhaseStatistics> getPhaseStatistics();
+
+	/**
+	 * Discards all statistics gathered so far.
+	 */
+	public void reset();
+}
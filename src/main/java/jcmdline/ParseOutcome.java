@@ -0,0 +1,181 @@
+/*
+ * ParseOutcome.java
+ *
+ * Classes:
+ *   public   ParseOutcome
+ *   public   ParseOutcome.Status
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Describes how a call to {@link CmdLineHandler#parse(String[]) parse()}
+ * ended. A handler running
+ * {@link ConfigurableCmdLineHandler#setInProcess(boolean) in process} records
+ * one of these, rather than exiting the JVM, when the parse ends in an error
+ * or in a request that would normally end the program (such as a request for
+ * the usage).
+ * <P>
+ * Sample usage, hosting a command in a long-running JVM:
+ * 
+ * <pre>
+ * cl.setInProcess(true);
+ * cl.setOut(clientOut);
+ * cl.setErr(clientErr);
+ * if (cl.parse(args)) {
+ *     ... run the command ...
+ * } else {
+ *     return cl.getOutcome().getExitCode();
+ * }
+ * </pre>
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see CmdLineHandler#exit(ParseOutcome)
+ */
+public class ParseOutcome {
+
+	/**
+	 * The ways in which a parse may end.
+	 */
+	public enum Status {
+
+		/**
+		 * the command line was parsed, and the program should continue
+		 */
+		OK,
+
+		/**
+		 * the usage was requested, and has been printed
+		 */
+		USAGE,
+
+		/**
+		 * help was requested, and has been printed
+		 */
+		HELP,
+
+		/**
+		 * the version was requested, and has been printed
+		 */
+		VERSION,
+
+		/**
+		 * the command line was in error
+		 */
+		ERROR
+	}
+
+	/**
+	 * the outcome of a successful parse
+	 */
+	public static final ParseOutcome OK = new ParseOutcome(Status.OK, 0, null);
+
+	/**
+	 * the exit status the program would have terminated with
+	 */
+	private final int exitCode;
+
+	/**
+	 * the error message, for an outcome of ERROR
+	 */
+	private final String message;
+
+	/**
+	 * how the parse ended
+	 */
+	private final Status status;
+
+	/**
+	 * constructor
+	 * 
+	 * @param status
+	 *            how the parse ended
+	 * @param exitCode
+	 *            the exit status the program would terminate with if not
+	 *            running in process
+	 * @param message
+	 *            an error message, or null
+	 * @throws IllegalArgumentException
+	 *             if <code>status</code> is null
+	 */
+	public ParseOutcome(Status status, int exitCode, String message) {
+		if (status == null) {
+			throw new IllegalArgumentException(Strings
+					.get("ParseOutcome.nullStatus"));
+		}
+		this.status = status;
+		this.exitCode = exitCode;
+		this.message = message;
+	}
+
+	/**
+	 * Gets the exit status the program would have terminated with if not
+	 * running in process.
+	 * 
+	 * @return the exit status
+	 */
+	public int getExitCode() {
+		return exitCode;
+	}
+
+	/**
+	 * Gets the error message.
+	 * 
+	 * @return the error message, or null if there is none
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Gets how the parse ended.
+	 * 
+	 * @return how the parse ended
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Indicates whether the program should continue.
+	 * 
+	 * @return true if the status is {@link Status#OK OK}
+	 */
+	public boolean isOk() {
+		return status == Status.OK;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return (message == null) ? status + "(" + exitCode + ")" : status + "("
+				+ exitCode + "): " + message;
+	}
+}
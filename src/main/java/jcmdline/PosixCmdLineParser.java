@@ -31,6 +31,8 @@
 
 package jcmdline;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -69,7 +71,12 @@ import java.util.Map;
  * </pre>
  * 
  * Any problem found while <code>parse()</code> processes the command line will cause a {@link CmdLineException} to be
- * thrown.
+ * thrown. When an option tag is not recognized, the exception's {@link CmdLineException#getSuggestions() suggestions}
+ * are the visible option tags nearest to it, found in a {@link BkTree} built from the options on the first such error,
+ * and rebuilt only when the options change. When an option tag is ambiguous, they are the tags it abbreviates.
+ * <P>
+ * When a {@link #setParseListener(ParseListener) ParseListener} is set, the time taken to tokenize each parameter,
+ * look up each option, and convert and validate each value is reported to it. When none is set, nothing is timed.
  * <P>
  * Information on using CmdLineParsers can be found in the jcmdline <a href="doc-files/userguide.html">User Guide</a>.
  * 
@@ -80,28 +87,65 @@ import java.util.Map;
 public class PosixCmdLineParser implements CmdLineParser {
 
     /**
-     * a usage formatter suitable for this CmdLineParser's format
+     * a usage formatter suitable for this CmdLineParser's format, or null if the default TextUsageFormatter has not
+     * yet been needed
      * 
      * @see #setUsageFormatter(UsageFormatter) setUsageFormatter()
      * @see #getUsageFormatter()
      */
-    private UsageFormatter usageFormatter;
+    private volatile UsageFormatter usageFormatter;
+
+    /**
+     * the index of the option tags used to suggest replacements for an unrecognized tag, or null if one has not yet
+     * been needed, or the options have changed since it was built
+     * 
+     * @see #clearTagIndex()
+     */
+    private volatile TagIndex tagIndex;
+
+    /**
+     * the listener to which the timings of each parse are reported, or null if they are not to be timed
+     * 
+     * @see #setParseListener(ParseListener) setParseListener()
+     * @see #getParseListener()
+     */
+    private volatile ParseListener parseListener;
 
     /**
      * constructor
      */
     public PosixCmdLineParser() {
-        setUsageFormatter(new TextUsageFormatter());
     }
 
     /**
-     * Gets a usage formatter suitable for this CmdLineParser's format.
+     * Gets a usage formatter suitable for this CmdLineParser's format - a TextUsageFormatter, created when first
+     * requested, unless another has been set.
      * 
      * @return a usage formatter suitable for this CmdLineParser's format
      * @see #setUsageFormatter(UsageFormatter) setUsageFormatter()
      */
     public UsageFormatter getUsageFormatter() {
-        return usageFormatter;
+        UsageFormatter f = usageFormatter;
+        if (f == null) {
+            synchronized (this) {
+                f = usageFormatter;
+                if (f == null) {
+                    f = new TextUsageFormatter();
+                    usageFormatter = f;
+                }
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Gets the listener to which the timings of each parse are reported.
+     * 
+     * @return the listener, or null if parses are not timed
+     * @see #setParseListener(ParseListener) setParseListener()
+     */
+    public ParseListener getParseListener() {
+        return parseListener;
     }
 
     /**
@@ -128,11 +172,62 @@ public class PosixCmdLineParser implements CmdLineParser {
      */
     public void parse(String[] clargs, Map<String, Parameter<?>> opts, List<Parameter<?>> args)
             throws CmdLineException {
-        if (clargs == null) {
-            clargs = new String[] {};
-        }
-        int i = processOptions(clargs, opts);
-        processArguments(i, clargs, args);
+        parse(new ArrayArgSource(clargs), opts, args);
+    }
+
+    /**
+     * Parse the command line arguments supplied by the specified source. Arguments are pulled from
+     * <code>clargs</code> only as they are needed, so that arguments following a parse error are never read.
+     * 
+     * @param clargs
+     *            the source of the command line arguments
+     * @param opts
+     *            the options this command supports
+     * @param args
+     *            the arguments this command supports
+     * @throws CmdLineException
+     *             in case of any parse error, or if <code>clargs</code> fails to supply its arguments.
+     * @see #parse(String[], Map, List)
+     */
+    public void parse(CmdLineArgSource clargs, Map<String, Parameter<?>> opts, List<Parameter<?>> args)
+            throws CmdLineException {
+        parse(clargs, opts, args, null);
+    }
+
+    /**
+     * Parse the command line arguments supplied by the specified source, recording each Parameter set in a
+     * ValidationPlan as its value is added. Called by {@link BasicCmdLineHandler}.
+     * 
+     * @param clargs
+     *            the source of the command line arguments
+     * @param opts
+     *            the options this command supports
+     * @param args
+     *            the arguments this command supports
+     * @param plan
+     *            the plan in which the Parameters set are recorded, or null
+     * @throws CmdLineException
+     *             in case of any parse error, or if <code>clargs</code> fails to supply its arguments.
+     * @see #parse(CmdLineArgSource, Map, List)
+     */
+    void parse(CmdLineArgSource clargs, Map<String, Parameter<?>> opts, List<Parameter<?>> args,
+            ValidationPlan plan) throws CmdLineException {
+        ParseListener listener = parseListener;
+        String firstArg = processOptions(clargs, opts, listener, plan);
+        processArguments(firstArg, clargs, args, listener, plan);
+    }
+
+    /**
+     * Sets the listener to which the timings of the tokenize, lookup, convert and validate phases of each parse are
+     * reported. When there is no listener, nothing is timed.
+     * 
+     * @param parseListener
+     *            the listener, or null to stop timing parses
+     * @see #getParseListener()
+     * @see ConfigurableCmdLineHandler#setParseListener(ParseListener)
+     */
+    public void setParseListener(ParseListener parseListener) {
+        this.parseListener = parseListener;
     }
 
     /**
@@ -153,16 +248,16 @@ public class PosixCmdLineParser implements CmdLineParser {
      * 
      * @param tag
      *            the option tag to be matched
-     * @return The associated Parameter object. If a matching Parameter is not found, this method will issue the
-     *         appropriate error message and the program will exit with exit status 1.
+     * @return The key of the associated Parameter object in <code>options</code>.
      * @throws CmdLineException
      *             if an option tag is ambiguous or not defined.
      */
-    private Parameter<?> findMatchingOption(String tag, Map<String, Parameter<?>> options) throws CmdLineException {
+    private String findMatchingOption(String tag, Map<String, Parameter<?>> options) throws CmdLineException {
         String lctag = tag.toLowerCase();
         String fulltag = null;
+        List<String> matches = null;
         if (options.containsKey(lctag)) {
-            return options.get(lctag);
+            return lctag;
         }
         for (String tmptag : options.keySet()) {
             if ((options.get(tmptag)).isHidden()) {
@@ -171,99 +266,244 @@ public class PosixCmdLineParser implements CmdLineParser {
             }
             if (tmptag.startsWith(lctag)) {
                 if (fulltag != null) {
-                    throw new CmdLineException(
-                            Strings.get("PosixCmdLineParser.ambiguousOption", new Object[] { "-" + tag }));
+                    if (matches == null) {
+                        matches = new ArrayList<String>();
+                        matches.add("-" + options.get(fulltag).getTag());
+                    }
+                    matches.add("-" + options.get(tmptag).getTag());
                 }
                 fulltag = tmptag;
             }
         }
+        if (matches != null) {
+            Collections.sort(matches);
+            throw CmdLineException.forKey("PosixCmdLineParser.ambiguousOption", new Object[] { "-" + tag },
+                    matches);
+        }
         if (fulltag == null) {
-            throw new CmdLineException(Strings.get("PosixCmdLineParser.invalidOption", new Object[] { tag }));
+            throw CmdLineException.forKey("PosixCmdLineParser.invalidOption", new Object[] { tag },
+                    suggestTags(lctag, options));
+        }
+        return fulltag;
+    }
+
+    /**
+     * Gets the visible option tags nearest to an unrecognized tag.
+     * 
+     * @param lctag
+     *            the unrecognized tag, in lower case
+     * @param options
+     *            the options this command supports
+     * @return the nearest tags, each preceded by a '-'
+     */
+    private List<String> suggestTags(String lctag, Map<String, Parameter<?>> options) {
+        TagIndex index = tagIndex;
+        if (index == null || index.options != options || index.size != options.size()) {
+            index = new TagIndex(options);
+            tagIndex = index;
         }
-        return options.get(fulltag);
+        List<String> suggestions = new ArrayList<String>(BkTree.MAX_SUGGESTIONS);
+        for (String t : index.tree.search(lctag, BkTree.maxDistance(lctag), Integer.MAX_VALUE)) {
+            // skip tags hidden, or removed without the index being cleared, since it was built
+            Parameter<?> p = options.get(t);
+            if (p != null && !p.isHidden()) {
+                suggestions.add("-" + p.getTag());
+                if (suggestions.size() == BkTree.MAX_SUGGESTIONS) {
+                    break;
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Discards the index of option tags used to suggest replacements for an unrecognized tag, so that it is rebuilt
+     * when next needed. Called by {@link BasicCmdLineHandler} when its options change.
+     */
+    void clearTagIndex() {
+        tagIndex = null;
     }
 
     /**
      * processes the command line arguments (what is left on the command line after all options and their values have
      * been processed)
      * 
-     * @param stIdx
-     *            the index into <code>params</code> where processing is to start
+     * @param firstArg
+     *            the first argument, already read from <code>params</code> while looking for options, or null if there
+     *            was none
      * @param params
-     *            the command line parameters
+     *            the source of the remaining command line parameters
+     * @param listener
+     *            the listener to which timings are reported, or null
+     * @param plan
+     *            the plan in which the arguments set are recorded, or null
      * @throws CmdLineException
      *             if any processing errors are encountered.
      */
-    private void processArguments(int stIdx, String[] params, List<Parameter<?>> args) throws CmdLineException {
+    private void processArguments(String firstArg, CmdLineArgSource params, List<Parameter<?>> args,
+            ParseListener listener, ValidationPlan plan) throws CmdLineException {
         int argIdx = 0;
         Parameter<?> p;
-        for (int pIdx = stIdx; pIdx < params.length; pIdx++) {
+        String param = firstArg;
+        if (param == null && params.hasNext()) {
+            param = params.next();
+        }
+        while (param != null) {
             if (argIdx >= args.size()) {
-                throw new CmdLineException(Strings.get("PosixCmdLineParser.extraArg", new Object[] { params[pIdx] }));
+                throw CmdLineException.forKey("PosixCmdLineParser.extraArg", new Object[] { param });
             }
             p = args.get(argIdx);
-            p.addStringValue(params[pIdx]);
+            addStringValue(p, param, listener);
+            if (plan != null) {
+                plan.argSet(argIdx);
+            }
             if (!p.isMultiValued()) {
                 argIdx++;
             }
+            param = params.hasNext() ? params.next() : null;
         }
     }
 
     /**
      * Processes the command line options.
-     * <P>
-     * This method has package visibility in order that it may be called by unit tests.
      * 
      * @param params
-     *            the command line arguments
-     * @return the number of command line arguments that were "used up" in option processing
+     *            the source of the command line arguments
+     * @param listener
+     *            the listener to which timings are reported, or null
+     * @param plan
+     *            the plan in which the options set are recorded, or null
+     * @return the first command line argument that is not an option or option value, or null if the options used up
+     *         all of the command line parameters or were terminated by '--'
      * @throws CmdLineException
      *             if any processing errors are encountered.
      */
-    private int processOptions(String[] params, Map<String, Parameter<?>> options) throws CmdLineException {
+    private String processOptions(CmdLineArgSource params, Map<String, Parameter<?>> options,
+            ParseListener listener, ValidationPlan plan) throws CmdLineException {
+        String param;
         String tag;
+        String key;
         String val;
         int equalsIdx;
         Parameter<?> p;
         int tagIdx;
-        int i;
-        for (i = 0; i < params.length; i++) {
+        long start = 0;
+        while (params.hasNext()) {
+            if (listener != null) {
+                start = System.nanoTime();
+            }
+            param = params.next();
             val = null;
 
-            if (params[i].equals("--")) { // end of options
-                i++;
-                break;
-            } else if (params[i].startsWith("-")) { // have an option
+            if (param.equals("--")) { // end of options
+                return null;
+            } else if (param.startsWith("-")) { // have an option
                 tagIdx = 1;
-                if (params[i].startsWith("--")) {
+                if (param.startsWith("--")) {
                     tagIdx = 2;
                 }
-                if (params[i].length() == tagIdx) {
-                    throw new CmdLineException(Strings.get("PosixCmdLineParser.optionNoTag"));
+                if (param.length() == tagIdx) {
+                    throw CmdLineException.forKey("PosixCmdLineParser.optionNoTag", null);
                 }
-                tag = params[i].substring(tagIdx);
+                tag = param.substring(tagIdx);
                 // See if we have an option specified as <tag>=<value>
                 if ((equalsIdx = tag.indexOf("=")) != -1) {
                     val = tag.substring(equalsIdx + 1);
                     tag = tag.substring(0, equalsIdx);
                 }
-                p = findMatchingOption(tag, options);
+                if (listener != null) {
+                    long now = System.nanoTime();
+                    listener.phaseCompleted(ParseListener.Phase.TOKENIZE, null, now - start);
+                    start = now;
+                }
+                key = findMatchingOption(tag, options);
+                p = options.get(key);
+                if (listener != null) {
+                    listener.phaseCompleted(ParseListener.Phase.LOOKUP, p, System.nanoTime() - start);
+                }
                 if (p instanceof OptionTakesNoValue) {
                     if (val == null) {
                         val = ((OptionTakesNoValue) p).getDefaultValue();
                     }
                 } else if (val == null) {
-                    if (i == params.length - 1) {
-                        throw new CmdLineException(
-                                Strings.get("PosixCmdLineParser.missingOptionValue", new Object[] { tag }));
+                    if (!params.hasNext()) {
+                        throw CmdLineException.forKey("PosixCmdLineParser.missingOptionValue", new Object[] { tag })
+                                .withTag(p.getTag());
                     }
-                    val = params[++i];
+                    val = params.next();
+                }
+                addStringValue(p, val, listener);
+                if (plan != null) {
+                    plan.optionSet(key);
                 }
+            } else {
+                return param; // end of options
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a value to a Parameter, reporting the time taken to a listener if there is one, and to Flight Recorder if
+     * its event is enabled.
+     * 
+     * @param p
+     *            the Parameter
+     * @param val
+     *            the value to be added
+     * @param listener
+     *            the listener to which the time taken is reported, or null
+     * @throws CmdLineException
+     *             if the value cannot be converted, or is not valid
+     */
+    private static void addStringValue(Parameter<?> p, String val, ParseListener listener) throws CmdLineException {
+        Object event = FlightEvents.INSTANCE.beginValue();
+        boolean ok = false;
+        try {
+            if (listener == null) {
                 p.addStringValue(val);
+            } else if (p instanceof AbstractParameter) {
+                ((AbstractParameter<?>) p).addStringValue(val, listener);
             } else {
-                break; // end of options
+                long start = System.nanoTime();
+                p.addStringValue(val);
+                listener.phaseCompleted(ParseListener.Phase.CONVERT, p, System.nanoTime() - start);
+            }
+            ok = true;
+        } catch (CmdLineException e) {
+            throw e.withTag(p.getTag());
+        } finally {
+            if (event != null) {
+                FlightEvents.INSTANCE.endValue(event, p, ok);
             }
         }
-        return i;
+    }
+
+    /**
+     * A BkTree of the option tags of an options map, hidden or not, so that a change to whether an option is hidden
+     * does not require the tree to be rebuilt.
+     */
+    private static final class TagIndex {
+
+        /**
+         * the options map indexed
+         */
+        final Map<String, Parameter<?>> options;
+
+        /**
+         * the number of options when the tree was built
+         */
+        final int size;
+
+        /**
+         * the lower-case tags of the options
+         */
+        final BkTree tree;
+
+        TagIndex(Map<String, Parameter<?>> options) {
+            this.options = options;
+            this.size = options.size();
+            this.tree = new BkTree(options.keySet());
+        }
     }
 }
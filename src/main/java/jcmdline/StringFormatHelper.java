@@ -5,6 +5,7 @@
  *
  * Classes:
  *   public   StringFormatHelper
+ *   private  StringFormatHelper.Holder
  *   
  * ***** BEGIN LICENSE BLOCK *****
  * Version: MPL 1.1
@@ -33,10 +34,17 @@
 
 package jcmdline;
 
+import java.io.IOException;
+
 /**
  * A class used to facilitate common String formatting tasks.
  * <P>
  * Objects of this class contain no data. As such, this class is implemented as a Singleton.
+ * <P>
+ * Text is wrapped in a single pass over its characters, writing each line directly to the output - no intermediate
+ * Strings are created for lines or remainders. The <code>append...()</code> methods write to a caller-supplied
+ * <code>Appendable</code>, such as a <code>StringBuilder</code> or <code>Writer</code>; the <code>format...()</code>
+ * methods return the result as a String.
  *
  * @author Lynne Lawrence
  * @version jcmdline Rel. @VERSION@ $Id: StringFormatHelper.java,v 1.2 2002/12/07 14:22:06 lglawrence Exp $
@@ -44,9 +52,14 @@ package jcmdline;
 public class StringFormatHelper {
 
     /**
-     * The one and only instance of the StringFormatHelper
+     * the indent used for the text of a labeled list if every label is too long for the maximum indent
+     */
+    static final int DEFAULT_LIST_INDENT = 10;
+
+    /**
+     * Spaces, from which indents are appended
      */
-    private static StringFormatHelper helper;
+    private static final String SPACES = "                                                                ";
 
     /**
      * constructor - private
@@ -60,10 +73,7 @@ public class StringFormatHelper {
      * @return the one and only instance of the StringFormatHelper
      */
     public static StringFormatHelper getHelper() {
-        if (helper == null) {
-            helper = new StringFormatHelper();
-        }
-        return helper;
+        return Holder.HELPER;
     }
 
     /**
@@ -94,24 +104,40 @@ public class StringFormatHelper {
             throw new IllegalArgumentException(Strings.get("StringFormatHelper.lineLenZero"));
         }
 
-        // guesstimate required buffer length, leaving enough room for line
-        // terminators
-        StringBuffer sb = new StringBuffer(s.length() + (s.length() / (lineLen - indent)) + 20);
-
-        StringBuffer indentBuf = new StringBuffer(indent);
-        for (int i = 0; i < indent; i++) {
-            indentBuf.append(" ");
+        StringBuilder sb = new StringBuilder(s.length() + (s.length() / (lineLen - indent)) * (indent + 1) + 20);
+        try {
+            wrap(sb, s, indent, indent, lineLen);
+        } catch (IOException e) {
+            // Should never get here - StringBuilder does not throw IOException
+            throw new RuntimeException(e);
         }
+        return sb.toString();
+    }
 
-        int splitLen = lineLen - indent;
-
-        String[] a = breakString(s, splitLen);
-        while (a[1] != null) {
-            sb.append(indentBuf).append(a[0]);
-            a = breakString(a[1], splitLen);
+    /**
+     * Splits the specified text into lines that are indented by the specified indent and are of length less than or
+     * equal to the specified line length, appending them to <code>out</code>. The lines appended are exactly those
+     * returned by {@link #formatBlockedText(String, int, int) formatBlockedText()}.
+     *
+     * @param out
+     *            the destination of the formatted text block
+     * @param s
+     *            the text to be formatted - if null or empty, nothing is appended
+     * @param indent
+     *            the length of the indent for the text block
+     * @param lineLen
+     *            the maximum line length for the text block, including the indent
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     * @throws IllegalArgumentException
+     *             if <code>lineLen</code> is less than <code>indent</code> or if <code>lineLen</code> is less than 0.
+     */
+    public void appendBlockedText(Appendable out, CharSequence s, int indent, int lineLen) throws IOException {
+        if (s == null || s.length() == 0) {
+            return;
         }
-        sb.append(indentBuf).append(a[0]);
-        return sb.toString();
+        checkLineLen(indent, lineLen);
+        wrap(out, s, indent, indent, lineLen);
     }
 
     /**
@@ -144,18 +170,41 @@ public class StringFormatHelper {
             throw new IllegalArgumentException(Strings.get("StringFormatHelper.lineLenZero"));
         }
 
-        // guesstimate required buffer length, leaving enough room for line
-        // terminators
-        StringBuffer sb = new StringBuffer(s.length() + (s.length() / (lineLen - indent)) + 20);
-
-        String[] a = breakString(s, lineLen);
-        sb.append(a[0]);
-        if (a[1] != null) {
-            sb.append(formatBlockedText(a[1], indent, lineLen));
+        StringBuilder sb = new StringBuilder(s.length() + (s.length() / (lineLen - indent)) * (indent + 1) + 20);
+        try {
+            wrap(sb, s, 0, indent, lineLen);
+        } catch (IOException e) {
+            // Should never get here - StringBuilder does not throw IOException
+            throw new RuntimeException(e);
         }
         return sb.toString();
     }
 
+    /**
+     * Formats a string with a hanging indent, appending it to <code>out</code>. The text appended is exactly that
+     * returned by {@link #formatHangingIndent(String, int, int) formatHangingIndent()}.
+     *
+     * @param out
+     *            the destination of the formatted text
+     * @param s
+     *            the string to be formatted - if null or empty, nothing is appended
+     * @param indent
+     *            the number of spaces to indent all but the first line (may be 0)
+     * @param lineLen
+     *            the maximum line length
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     * @throws IllegalArgumentException
+     *             if <code>lineLen</code> is less than <code>indent</code> or if <code>lineLen</code> is less than 0.
+     */
+    public void appendHangingIndent(Appendable out, CharSequence s, int indent, int lineLen) throws IOException {
+        if (s == null || s.length() == 0) {
+            return;
+        }
+        checkLineLen(indent, lineLen);
+        wrap(out, s, 0, indent, lineLen);
+    }
+
     /**
      * Formats a "labeled list" (like a bullet or numbered list, only with labels for each item).
      * <P>
@@ -195,6 +244,43 @@ public class StringFormatHelper {
      *          </code> do not have the same number of elements.
      */
     public String formatLabeledList(String[] labels, String[] texts, String divider, int maxIndent, int lineLen) {
+        // will fit 20 80-char lines without expansion
+        StringBuilder list = new StringBuilder(1600);
+        try {
+            appendLabeledList(list, labels, texts, divider, maxIndent, lineLen);
+        } catch (IOException e) {
+            // Should never get here - StringBuilder does not throw IOException
+            throw new RuntimeException(e);
+        }
+        return list.toString();
+    }
+
+    /**
+     * Formats a "labeled list", appending it to <code>out</code>. The text appended is exactly that returned by
+     * {@link #formatLabeledList(String[], String[], String, int, int) formatLabeledList()}.
+     *
+     * @param out
+     *            the destination of the formatted list
+     * @param labels
+     *            An array of labels.
+     * @param texts
+     *            An array of texts to go with the labels.
+     * @param divider
+     *            The divider to go between the labels and texts. This will be right-aligned against the texts.
+     * @param maxIndent
+     *            Specifies the maximum indent for the text to be written out. If the combination of a label and divider
+     *            is longer than maxIndent, the text will be written out in a block starting on the line following the
+     *            label and divider, rather than on the same line.
+     * @param lineLen
+     *            The maximum length of returned lines.
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     * @throws IllegalArgumentException
+     *             if <code>labels</code> and <code>text
+     *          </code> do not have the same number of elements.
+     */
+    public void appendLabeledList(Appendable out, String[] labels, String[] texts, String divider, int maxIndent,
+            int lineLen) throws IOException {
 
         if (labels.length != texts.length) {
             throw new IllegalArgumentException(Strings.get("StringFormatHelper.labelDescriptionError",
@@ -203,39 +289,71 @@ public class StringFormatHelper {
 
         // Figure out description indents
         int indent = 0;
-        int dividerlen = divider.length();
-        int currlen;
         for (int i = 0; i < labels.length; i++) {
-            currlen = labels[i].length() + dividerlen;
-            if (currlen > maxIndent) {
-                continue;
-            } else if (currlen > indent) {
-                indent = currlen;
-            }
+            indent = listIndent(indent, labels[i].length() + divider.length(), maxIndent);
         }
         // All labels+divider > maxIndent? - use indent of 10
-        indent = (indent == 0) ? 10 : indent;
+        indent = (indent == 0) ? DEFAULT_LIST_INDENT : indent;
 
-        // will fit 20 80-char lines without expansion
-        StringBuffer list = new StringBuffer(1600);
         // will fit 5 lines per list item without expansion
-        StringBuffer item = new StringBuffer(400);
+        StringBuilder item = new StringBuilder(400);
 
         for (int i = 0; i < labels.length; i++) {
-            item.delete(0, item.length());
-            item.append(labels[i]);
-            int spacefill = indent - divider.length();
-            while (item.length() < spacefill) {
-                item.append(' ');
-            }
-            item.append(divider);
-            if (item.length() > indent) {
-                item.append("\n");
-            }
-            item.append(texts[i]);
-            list.append(formatHangingIndent(item.toString() + "\n", indent, lineLen));
+            appendListItem(out, item, labels[i], texts[i], divider, indent, lineLen);
         }
-        return list.toString();
+    }
+
+    /**
+     * Computes the text indent of a labeled list, one label at a time. The indent is that of the longest label and
+     * divider that is no longer than <code>maxIndent</code>, or {@link #DEFAULT_LIST_INDENT} if there is none.
+     *
+     * @param indent
+     *            the indent computed for the preceding labels - 0 for the first label
+     * @param labelLen
+     *            the length of the label, plus the length of the divider
+     * @param maxIndent
+     *            the maximum indent
+     * @return the indent computed for the labels so far - 0 if none fits
+     */
+    static int listIndent(int indent, int labelLen, int maxIndent) {
+        return (labelLen <= maxIndent && labelLen > indent) ? labelLen : indent;
+    }
+
+    /**
+     * Appends one item of a labeled list, terminated with a newline.
+     *
+     * @param out
+     *            the destination of the item
+     * @param item
+     *            a buffer used to assemble the item
+     * @param label
+     *            the item's label
+     * @param text
+     *            the item's text
+     * @param divider
+     *            the divider between the label and the text
+     * @param indent
+     *            the indent of the text, as computed by {@link #listIndent(int, int, int) listIndent()}
+     * @param lineLen
+     *            the maximum line length
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     */
+    static void appendListItem(Appendable out, StringBuilder item, CharSequence label, CharSequence text,
+            String divider, int indent, int lineLen) throws IOException {
+        checkLineLen(indent, lineLen);
+        item.setLength(0);
+        item.append(label);
+        int spacefill = indent - divider.length();
+        while (item.length() < spacefill) {
+            item.append(' ');
+        }
+        item.append(divider);
+        if (item.length() > indent) {
+            item.append('\n');
+        }
+        item.append(text).append('\n');
+        wrap(out, item, 0, indent, lineLen);
     }
 
     /**
@@ -284,4 +402,113 @@ public class StringFormatHelper {
         }
         return new String[] { line, remainder };
     }
+
+    /**
+     * Wraps text in a single pass. Lines are broken exactly as by repeated calls to
+     * {@link #breakString(String, int) breakString()}: at a newline that falls within the line, else at the last space
+     * that does (removing the spaces), else at the maximum line length.
+     *
+     * @param out
+     *            the destination of the wrapped text
+     * @param s
+     *            the text - must not be empty
+     * @param firstIndent
+     *            the indent of the first line
+     * @param indent
+     *            the indent of subsequent lines
+     * @param lineLen
+     *            the maximum line length, including the indent
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     */
+    private static void wrap(Appendable out, CharSequence s, int firstIndent, int indent, int lineLen)
+            throws IOException {
+        int len = s.length();
+        int pos = 0;
+        int nl = -2; // the next newline at or after pos, or -1 if there are no more
+        int lineIndent = firstIndent;
+        while (true) {
+            int maxLen = lineLen - lineIndent;
+            appendIndent(out, lineIndent);
+            if (nl != -1 && nl < pos) {
+                nl = indexOf(s, '\n', pos);
+            }
+            if (nl != -1 && nl - pos <= maxLen) {
+                out.append(s, pos, nl + 1);
+                pos = nl + 1;
+                if (pos >= len) {
+                    return;
+                }
+            } else if (len - pos <= maxLen) {
+                out.append(s, pos, len);
+                return;
+            } else {
+                int sp = pos + maxLen;
+                while (sp >= pos && s.charAt(sp) != ' ') {
+                    sp--;
+                }
+                if (sp >= pos) {
+                    out.append(s, pos, sp);
+                    pos = sp;
+                    while (pos < len && s.charAt(pos) == ' ') {
+                        pos++;
+                    }
+                    if (pos >= len) {
+                        return;
+                    }
+                    out.append('\n');
+                } else {
+                    out.append(s, pos, pos + maxLen).append('\n');
+                    pos += maxLen;
+                }
+            }
+            lineIndent = indent;
+        }
+    }
+
+    private static int indexOf(CharSequence s, char c, int from) {
+        if (s instanceof String) {
+            return ((String) s).indexOf(c, from);
+        }
+        for (int i = from, len = s.length(); i < len; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static void appendIndent(Appendable out, int indent) throws IOException {
+        while (indent > SPACES.length()) {
+            out.append(SPACES);
+            indent -= SPACES.length();
+        }
+        if (indent > 0) {
+            out.append(SPACES, 0, indent);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if <code>lineLen</code> is less than <code>indent</code> or if <code>lineLen</code> is less than 0.
+     */
+    private static void checkLineLen(int indent, int lineLen) {
+        if (lineLen <= indent) {
+            throw new IllegalArgumentException(Strings.get("StringFormatHelper.lineLenLessThanIndent"));
+        }
+        if (lineLen <= 0) {
+            throw new IllegalArgumentException(Strings.get("StringFormatHelper.lineLenZero"));
+        }
+    }
+
+    /**
+     * Holds the one and only instance of the StringFormatHelper, which is created when first requested.
+     */
+    private static final class Holder {
+
+        /**
+         * The one and only instance of the StringFormatHelper
+         */
+        static final StringFormatHelper HELPER = new StringFormatHelper();
+    }
 }
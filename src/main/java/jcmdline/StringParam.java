@@ -67,23 +67,8 @@ package jcmdline;
  *          23:42:23 lglawrence Exp $
  * @see CmdLineParser
  */
-public class StringParam extends AbstractParameter<String> {
-
-	/**
-	 * the default label that will represent option values for this Parameter
-	 * when displaying usage. The following demonstrates a possible usage
-	 * excerpt for a StringParam option, where the option label is '&lt;s&gt;':
-	 * 
-	 * <pre>
-	 *    suffix &lt;s&gt; Specifies the file suffix to use for all output files
-	 *               produced by this program.
-	 * </pre>
-	 * 
-	 * @see AbstractParameter#setOptionLabel(String) setOptionLabel()
-	 * @see "<i>StringParam.defaultOptionLabel</i> in 'strings' properties file"
-	 */
-	public static final String DEFAULT_OPTION_LABEL = Strings
-			.get("StringParam.defaultOptionLabel");
+public class StringParam extends AbstractParameter<String> implements
+		DefaultOptionLabels.StringParamLabels {
 
 	/**
 	 * the value of the minimum or maximum length if they have not been
@@ -293,7 +278,6 @@ public class StringParam extends AbstractParameter<String> {
 		this.optional = optional;
 		this.multiValued = multiValued;
 		this.hidden = hidden;
-		this.setOptionLabel(DEFAULT_OPTION_LABEL);
 	}
 
 	/**
@@ -425,7 +409,6 @@ public class StringParam extends AbstractParameter<String> {
 		this.optional = optional;
 		this.multiValued = multiValued;
 		this.hidden = hidden;
-		this.setOptionLabel(DEFAULT_OPTION_LABEL);
 	}
 
 	/**
@@ -456,6 +439,19 @@ public class StringParam extends AbstractParameter<String> {
 		return minValLen;
 	}
 
+	/**
+	 * Gets the label used for this option in the usage -
+	 * {@link #DEFAULT_OPTION_LABEL} in the current locale, unless a label has
+	 * been set.
+	 * 
+	 * @see jcmdline.AbstractParameter#getOptionLabel()
+	 */
+	@Override
+	public String getOptionLabel() {
+		return (optionLabel == null) ? Strings
+				.get("StringParam.defaultOptionLabel") : optionLabel;
+	}
+
 	/**
 	 * sets the value of the maximum acceptable length for the string value
 	 * 
@@ -542,12 +538,12 @@ public class StringParam extends AbstractParameter<String> {
 	public void validateValue(String val) throws CmdLineException {
 		super.validateValue(val);
 		if (minValLen != UNSPECIFIED_LENGTH && val.length() < minValLen) {
-			throw new CmdLineException(Strings.get("StringParam.valTooShort",
-					new Object[] { tag, new Integer(minValLen) }));
+			throw CmdLineException.forKey("StringParam.valTooShort",
+					new Object[] { tag, new Integer(minValLen) });
 		}
 		if (maxValLen != UNSPECIFIED_LENGTH && val.length() > maxValLen) {
-			throw new CmdLineException(Strings.get("StringParam.valTooLong",
-					new Object[] { tag, new Integer(maxValLen) }));
+			throw CmdLineException.forKey("StringParam.valTooLong",
+					new Object[] { tag, new Integer(maxValLen) });
 		}
 	}
 }
@@ -33,13 +33,39 @@
 
 package jcmdline;
 
-import java.text.MessageFormat;
+import java.net.URL;
+import java.util.Locale;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A helper class used to obtain Strings for this package. Strings are retrieved
  * from the ResourceBundle in "jcmdline.strings" which may be localized as
  * necessary.
+ * <P>
+ * Strings are obtained for the locale of the current thread, as returned by
+ * {@link #getLocale()}. A CmdLineHandler whose
+ * {@link ConfigurableCmdLineHandler#setLocale(java.util.Locale) locale} has
+ * been set applies it to the calling thread for the duration of each parse,
+ * so that one JVM may serve requests in several locales. The messages for
+ * each locale are loaded on the first request for that locale, and cached.
+ * <P>
+ * For speed, the package's own <code>strings.properties</code> is compiled at
+ * build time into the class <code>MessageCatalog</code>, whose messages are
+ * looked up by index and whose patterns are already split around their
+ * arguments, so that no pattern is parsed at run time. Neither the catalog
+ * nor the ResourceBundle is loaded until the first String is requested.
+ * <P>
+ * The ResourceBundle is used in place of the compiled catalog if:
+ * <ul>
+ * <li>the system property {@value #BUNDLE_PROPERTY} is <code>true</code>
+ * <li>a localized <code>strings_<i>locale</i>.properties</code> exists for
+ * the requested locale
+ * <li>the <code>strings.properties</code> found first on the class path is
+ * not the one packaged with this class - that is, it has been overridden
+ * </ul>
+ * and for any key not in the compiled catalog.
  * 
  * @author Lynne Lawrence
  * @version jcmdline Rel. @VERSION@ $Id: Strings.java,v 1.2 2002/12/07 14:22:06
@@ -49,19 +75,147 @@ import java.util.ResourceBundle;
 public class Strings {
 
 	/**
-	 * The resource bundle for this package.
+	 * The name of a system property that, when set to <code>true</code>,
+	 * causes all Strings to be retrieved from the ResourceBundle rather than
+	 * the compiled catalog.
 	 */
-	private static final ResourceBundle rb = ResourceBundle
-			.getBundle("strings");
+	public static final String BUNDLE_PROPERTY = "jcmdline.strings.bundle";
+
+	/**
+	 * the maximum number of locales whose catalogs are cached - beyond this,
+	 * the catalog for an uncached locale is created on each request
+	 */
+	private static final int MAX_CACHED_LOCALES = 256;
+
+	/**
+	 * the locale set for the current thread, if any
+	 * 
+	 * @see #setLocale(Locale) setLocale()
+	 */
+	private static final ThreadLocal<Locale> threadLocale = new ThreadLocal<Locale>();
+
+	/**
+	 * the message catalog for each locale requested so far - locales with no
+	 * localized messages share a single catalog
+	 */
+	private static final ConcurrentHashMap<Locale, Catalog> catalogs = new ConcurrentHashMap<Locale, Catalog>();
+
+	/**
+	 * Settings determined when the first String is requested.
+	 */
+	private static final class Config {
+
+		/**
+		 * indicates that the compiled catalog is not to be used
+		 */
+		static final boolean useBundle = Boolean.getBoolean(BUNDLE_PROPERTY)
+				|| isOverridden();
+
+		/**
+		 * the catalog used for locales with no localized messages
+		 */
+		static final Catalog base = new Catalog(Locale.ROOT, !useBundle);
+	}
+
 	/**
-	 * The String that prefaces return values when a key is not defined in the
-	 * ResourceBundle. Note that this is checked for in the unit tests (see
-	 * BetterTestCase) so a change in methodology here will require a change to
-	 * the unit tests.
+	 * The messages for a locale - from the compiled catalog, the locale's
+	 * ResourceBundle, or both - and the patterns obtained from the bundle,
+	 * split for formatting.
 	 */
-	private static final String missingKeyMsg = rb
-			.getString("Strings.missingKey")
-			+ " ";
+	private static final class Catalog {
+
+		/**
+		 * indicates that the compiled catalog is to be used for the keys it
+		 * contains
+		 */
+		final boolean compiled;
+
+		/**
+		 * the locale of the ResourceBundle
+		 */
+		final Locale locale;
+
+		/**
+		 * The String that prefaces return values when a key is not defined in
+		 * the ResourceBundle. Note that this is checked for in the unit tests
+		 * (see BetterTestCase) so a change in methodology here will require a
+		 * change to the unit tests.
+		 */
+		final String missingKeyMsg;
+
+		/**
+		 * the patterns obtained from the ResourceBundle, split for formatting
+		 */
+		final ConcurrentHashMap<String, MessageTemplate> templates = new ConcurrentHashMap<String, MessageTemplate>();
+
+		/**
+		 * the ResourceBundle - loaded on first use
+		 */
+		private volatile ResourceBundle rb;
+
+		Catalog(Locale locale, boolean compiled) {
+			this.locale = locale;
+			this.compiled = compiled;
+			String s = lookup("Strings.missingKey");
+			missingKeyMsg = ((s != null) ? s : "Strings.missingKey") + " ";
+		}
+
+		/**
+		 * Gets the ResourceBundle. The default locale is not used as a
+		 * fallback, so a locale with no localized messages gets the base
+		 * bundle.
+		 */
+		ResourceBundle bundle() {
+			ResourceBundle b = rb;
+			if (b == null) {
+				b = ResourceBundle.getBundle("strings", locale,
+						ResourceBundle.Control
+								.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+				rb = b;
+			}
+			return b;
+		}
+
+		/**
+		 * Looks up a String, in the compiled catalog or the ResourceBundle.
+		 * 
+		 * @return the String, or null if there is none
+		 */
+		String lookup(String key) {
+			if (compiled) {
+				int i = MessageCatalog.indexOf(key);
+				if (i >= 0) {
+					return MessageCatalog.TEXT[i];
+				}
+			}
+			try {
+				return bundle().getString(key);
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Formats a String.
+		 * 
+		 * @throws MissingResourceException
+		 *             if there is no String for <code>key</code>
+		 */
+		String format(String key, Object[] params, Locale fmtLocale) {
+			int i = compiled ? MessageCatalog.indexOf(key) : -1;
+			if (i >= 0) {
+				return MessageTemplate.format(MessageCatalog.TEXT[i],
+						MessageCatalog.LITERALS[i], MessageCatalog.ARGS[i],
+						params, fmtLocale);
+			}
+			MessageTemplate t = templates.get(key);
+			if (t == null) {
+				t = MessageTemplate.compile(bundle().getString(key));
+				templates.put(key, t);
+			}
+			return t.format(params, fmtLocale);
+		}
+	}
 
 	/**
 	 * Gets a String.
@@ -74,13 +228,9 @@ public class Strings {
 	 * @see java.util.ResourceBundle
 	 */
 	public static String get(String key) {
-		String ret = missingKeyMsg + key;
-		try {
-			ret = rb.getString(key);
-		} catch (Exception e) {
-			// ignore - return the key
-		}
-		return ret;
+		Catalog c = catalog(getLocale());
+		String ret = c.lookup(key);
+		return (ret != null) ? ret : c.missingKeyMsg + key;
 	}
 
 	/**
@@ -99,17 +249,142 @@ public class Strings {
 	 * @see java.util.ResourceBundle
 	 */
 	public static String get(String key, Object[] params) {
-		String ret = missingKeyMsg + key;
+		Locale locale = getLocale();
+		Catalog c = catalog(locale);
 		try {
-			ret = rb.getString(key);
-			ret = MessageFormat.format(ret, params);
+			return c.format(key, params, locale);
 		} catch (Exception e) {
-			ret += "; params: ";
+			String ret = c.missingKeyMsg + key + "; params: ";
 			for (int i = 0; i < params.length; i++) {
 				ret += "[" + params[i] + "] ";
 			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Gets the locale for which Strings are obtained by the current thread.
+	 * 
+	 * @return the locale set for the current thread, or the default locale if
+	 *         none has been set
+	 * @see ConfigurableCmdLineHandler#setLocale(Locale)
+	 */
+	public static Locale getLocale() {
+		Locale l = threadLocale.get();
+		return (l != null) ? l : Locale.getDefault();
+	}
+
+	/**
+	 * Sets the locale for which Strings are obtained by the current thread.
+	 * Used by CmdLineHandlers, which restore the previous setting when they
+	 * are done:
+	 * 
+	 * <pre>
+	 * Locale prev = Strings.setLocale(getLocale());
+	 * try {
+	 *     ...
+	 * } finally {
+	 *     Strings.restoreLocale(prev);
+	 * }
+	 * </pre>
+	 * 
+	 * @param locale
+	 *            the locale - if null, the current thread's setting is left
+	 *            unchanged
+	 * @return the locale previously set for the current thread, or null if
+	 *         none was set
+	 * @see #restoreLocale(Locale)
+	 */
+	static Locale setLocale(Locale locale) {
+		Locale prev = threadLocale.get();
+		if (locale != null && locale != prev) {
+			threadLocale.set(locale);
+		}
+		return prev;
+	}
+
+	/**
+	 * Restores the locale setting of the current thread.
+	 * 
+	 * @param prev
+	 *            the value returned by {@link #setLocale(Locale)}
+	 */
+	static void restoreLocale(Locale prev) {
+		if (prev == null) {
+			threadLocale.remove();
+		} else if (threadLocale.get() != prev) {
+			threadLocale.set(prev);
+		}
+	}
+
+	/**
+	 * Gets the catalog for a locale, creating it on the first request.
+	 * 
+	 * @param locale
+	 *            the locale
+	 * @return the locale's catalog
+	 */
+	private static Catalog catalog(Locale locale) {
+		Catalog c = catalogs.get(locale);
+		if (c == null) {
+			c = isLocalized(locale) ? new Catalog(locale, false) : Config.base;
+			if (catalogs.size() < MAX_CACHED_LOCALES) {
+				Catalog prev = catalogs.putIfAbsent(locale, c);
+				if (prev != null) {
+					c = prev;
+				}
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Indicates whether the first <code>strings.properties</code> on the
+	 * class path is not the one packaged with this class.
+	 * 
+	 * @return true if it is not
+	 */
+	private static boolean isOverridden() {
+		ClassLoader cl = Strings.class.getClassLoader();
+		URL props = (cl == null) ? null : cl.getResource("strings.properties");
+		URL cls = Strings.class.getResource("Strings.class");
+		if (props == null || cls == null) {
+			return false;
+		}
+		String p = props.toString();
+		String c = cls.toString();
+		p = p.substring(0, p.length() - "strings.properties".length());
+		c = c.substring(0, c.length() - "jcmdline/Strings.class".length());
+		return !p.equals(c);
+	}
+
+	/**
+	 * Indicates whether a localized message catalog exists for a locale.
+	 * 
+	 * @param locale
+	 *            the locale
+	 * @return true if a <code>strings_<i>locale</i>.properties</code>
+	 *         resource exists for the locale or its language
+	 */
+	static boolean isLocalized(Locale locale) {
+		ClassLoader cl = Strings.class.getClassLoader();
+		if (cl == null || locale.getLanguage().length() == 0) {
+			return false;
+		}
+		String name = "strings_" + locale.getLanguage();
+		if (cl.getResource(name + ".properties") != null) {
+			return true;
+		}
+		if (locale.getCountry().length() == 0) {
+			return false;
+		}
+		name += "_" + locale.getCountry();
+		if (cl.getResource(name + ".properties") != null) {
+			return true;
 		}
-		return ret;
+		return locale.getVariant().length() != 0
+				&& cl.getResource(name + "_" + locale.getVariant()
+						+ ".properties") != null;
 	}
 
 	/**
@@ -31,6 +31,7 @@
 
 package jcmdline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -108,47 +109,77 @@ public class TextUsageFormatter implements UsageFormatter {
      */
     public String formatUsage(String cmdName, String cmdDesc, Map<String, Parameter<?>> opts, List<Parameter<?>> args,
             boolean showHidden) {
-        String s;
         int maxExpectedStringLen = 2048;
-        StringBuffer sb = new StringBuffer(maxExpectedStringLen);
+        StringBuilder sb = new StringBuilder(maxExpectedStringLen);
+        try {
+            formatUsage(cmdName, cmdDesc, opts, args, showHidden, sb);
+        } catch (IOException e) {
+            // Should never get here - StringBuilder does not throw IOException
+            throw new RuntimeException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the usage for the command to <code>out</code>, one line or list item at a time. The text written is
+     * exactly that returned by {@link #formatUsage(String, String, Map, List, boolean)}, but is never held in memory as
+     * a whole.
+     * 
+     * @param cmdName
+     *            the command name
+     * @param cmdDesc
+     *            the command description
+     * @param opts
+     *            a Map of command options; keys are the option tags, values are the option objects
+     * @param args
+     *            the command arguments
+     * @param showHidden
+     *            if <code>true</code>, hidden parameters will be displayed
+     * @param out
+     *            the destination of the usage
+     * @throws IOException
+     *             if <code>out</code> throws IOException
+     */
+    public void formatUsage(String cmdName, String cmdDesc, Map<String, Parameter<?>> opts, List<Parameter<?>> args,
+            boolean showHidden, Appendable out) throws IOException {
+        Buffers buf = new Buffers();
 
         // Format command name and description
 
-        s = sHelper.formatHangingIndent(cmdName + " - " + cmdDesc, cmdName.length() + 3, lineLength);
-        sb.append(s + "\n\n");
+        buf.label.append(cmdName).append(" - ").append(cmdDesc);
+        sHelper.appendHangingIndent(out, buf.label, cmdName.length() + 3, lineLength);
+        out.append("\n\n");
 
         // Format options and arguments
 
-        int lineStartIdx = sb.length();
-        sb.append(Strings.get("TextUsageFormatter.usage")).append(" ").append(cmdName).append(" ");
+        buf.label.setLength(0);
+        buf.label.append(Strings.get("TextUsageFormatter.usage")).append(" ").append(cmdName).append(" ");
         if (opts.size() > 0) {
-            sb.append(haveRequiredOpt(opts) ? Strings.get("TextUsageFormatter.usageWReqOpt")
+            buf.label.append(haveRequiredOpt(opts) ? Strings.get("TextUsageFormatter.usageWReqOpt")
                     : Strings.get("TextUsageFormatter.usageWOReqOpt")).append(" ");
         }
+        int prefixLen = buf.label.length();
+        out.append(buf.label);
 
         if (args.size() > 0) {
-            StringBuffer sb2 = argsOnOneLine(args, showHidden);
-
-            if (sb.length() - lineStartIdx + sb2.length() > lineLength) {
-                sb2 = argsOnSeparateLines(args, sb.length() - lineStartIdx, showHidden);
-            }
-            sb.append(sb2.toString()).append("\n").append(getArgDescriptions(args, showHidden));
+            appendArgTags(out, args, prefixLen, showHidden);
+            out.append("\n");
+            appendArgDescriptions(out, buf, args, showHidden);
         }
 
         if (opts.size() > 0) {
-            sb.append("\n\n");
+            out.append("\n\n");
             if (args.size() > 0) {
-                sb.append(Strings.get("TextUsageFormatter.optIntroWArgs"));
+                out.append(Strings.get("TextUsageFormatter.optIntroWArgs"));
             } else {
-                sb.append(Strings.get("TextUsageFormatter.optIntroNoArgs"));
+                out.append(Strings.get("TextUsageFormatter.optIntroNoArgs"));
             }
-            sb.append("\n\n").append(getOptDescriptions(opts, showHidden));
+            out.append("\n\n");
+            appendOptDescriptions(out, buf, opts, showHidden);
 
-            sb.append("\n\n").append(
-                    sHelper.formatHangingIndent(Strings.get("TextUsageFormatter.stdOptionHelp"), 0, lineLength));
+            out.append("\n\n");
+            sHelper.appendHangingIndent(out, Strings.get("TextUsageFormatter.stdOptionHelp"), 0, lineLength);
         }
-
-        return sb.toString();
     }
 
     /**
@@ -173,146 +204,217 @@ public class TextUsageFormatter implements UsageFormatter {
     }
 
     /**
-     * Get command line arguments, all on one line
+     * Writes the argument tags, on the usage line if they fit, or one per line, aligned with the first, if they do
+     * not.
      * 
-     * @return the formatted arguments
+     * @param out
+     *            the destination
+     * @param args
+     *            the command arguments
+     * @param prefixLen
+     *            the length of the usage line preceding the first tag
+     * @param showHidden
+     *            if <code>true</code>, hidden arguments will be written
+     * @throws IOException
+     *             if <code>out</code> throws IOException
      */
-    private StringBuffer argsOnOneLine(List<Parameter<?>> args, boolean showHidden) {
-        int maxExpectedStringLen = 800;
-        StringBuffer sb2 = new StringBuffer(maxExpectedStringLen);
-
+    private void appendArgTags(Appendable out, List<Parameter<?>> args, int prefixLen, boolean showHidden)
+            throws IOException {
+        int oneLineLen = -1;
         for (Parameter<?> p : args) {
             if (p.isHidden() && !showHidden) {
                 continue;
             }
-            sb2.append(argTagToString(p)).append(" ");
+            oneLineLen += argTagLength(p) + 1;
         }
-        // trim off trailing space
-        if (sb2.length() > 0) {
-            sb2.deleteCharAt(sb2.length() - 1);
-        }
-        return sb2;
-    }
+        boolean separateLines = prefixLen + Math.max(oneLineLen, 0) > lineLength;
 
-    /**
-     * Get command line arguments, one per line, with each line but the first having the specified indent.
-     * 
-     * @param indent
-     *            the indent
-     * @return the formatted arguments
-     */
-    private StringBuffer argsOnSeparateLines(List<Parameter<?>> args, int indent, boolean showHidden) {
-        int maxExpectedStringLen = 240;
-        StringBuffer sb2 = new StringBuffer(maxExpectedStringLen);
-
-        int optIdx = 0;
-        sb2 = new StringBuffer(maxExpectedStringLen);
+        boolean first = true;
         for (Parameter<?> p : args) {
             if (p.isHidden() && !showHidden) {
                 continue;
             }
-            for (int i = 0; i < optIdx; i++) {
-                sb2.append(' ');
+            if (!first) {
+                if (separateLines) {
+                    out.append(" \\\n");
+                    StringFormatHelper.appendIndent(out, prefixLen);
+                } else {
+                    out.append(' ');
+                }
             }
-            sb2.append(argTagToString(p)).append(" \\\n");
-            optIdx = indent;
+            appendArgTag(out, p);
+            first = false;
         }
-        // trim off trailing space, backslash, and newline
-        return sb2.delete(sb2.length() - 3, sb2.length());
     }
 
     /**
-     * Get a command line argument's tag, enclosing in brackets if optional, and twice, followed by '...', if
-     * multi-valued.
-     * 
-     * @param p
-     *            the argument
-     * @return the argument's tag, as a string
+     * Writes an argument's tag, bracketed if it is optional and repeated if it is multi-valued.
      */
-    private String argTagToString(Parameter<?> p) {
-        int maxExpectedStringLen = 50;
-        StringBuffer sb2 = new StringBuffer(maxExpectedStringLen);
-
-        String argstr;
-        if (p.isOptional()) {
-            argstr = "[" + p.getTag() + "]";
-        } else {
-            argstr = p.getTag();
+    private void appendArgTag(Appendable out, Parameter<?> p) throws IOException {
+        String tag = p.getTag();
+        for (int i = p.isMultiValued() ? 2 : 1; i > 0; i--) {
+            if (p.isOptional()) {
+                out.append('[').append(tag).append(']');
+            } else {
+                out.append(tag);
+            }
+            if (i == 2) {
+                out.append(',');
+            }
         }
-        sb2.append(argstr);
         if (p.isMultiValued()) {
-            sb2.append("," + argstr + "...");
+            out.append("...");
         }
-        return sb2.toString();
     }
 
     /**
-     * Gets the argument descriptions as a String.
+     * @return the length of the String written by {@link #appendArgTag(Appendable, Parameter)}
+     */
+    private int argTagLength(Parameter<?> p) {
+        int len = p.getTag().length() + (p.isOptional() ? 2 : 0);
+        return p.isMultiValued() ? len * 2 + 4 : len;
+    }
+
+    /**
+     * Writes the descriptions of the arguments.
      * 
+     * @param out
+     *            the destination
+     * @param buf
+     *            buffers for assembling list items
+     * @param args
+     *            the command arguments
      * @param showHidden
-     *            true if hidden arguments are to be included.
-     * @return the argument descriptions
+     *            if <code>true</code>, hidden arguments will be written
+     * @throws IOException
+     *             if <code>out</code> throws IOException
      */
-    private String getArgDescriptions(List<Parameter<?>> args, boolean showHidden) {
-        StringBuffer sb = new StringBuffer(1024);
+    private void appendArgDescriptions(Appendable out, Buffers buf, List<Parameter<?>> args, boolean showHidden)
+            throws IOException {
+        out.append("\n").append(Strings.get("TextUsageFormatter.where")).append("\n");
 
-        if (args.size() == 0) {
-            return "";
+        String divider = " = ";
+        int indent = 0;
+        boolean empty = true;
+        for (Parameter<?> p : args) {
+            if (p.isHidden() && !showHidden) {
+                continue;
+            }
+            indent = StringFormatHelper.listIndent(indent, p.getTag().length() + divider.length(), 20);
+            empty = false;
+        }
+        indent = (indent == 0) ? StringFormatHelper.DEFAULT_LIST_INDENT : indent;
+        if (empty) {
+            // as the list's trailing newline would have been, the blank line following the heading is dropped
+            return;
         }
-        sb.append("\n").append(Strings.get("TextUsageFormatter.where")).append("\n\n");
+        out.append("\n");
 
-        ArrayList<String> tags = new ArrayList<String>(args.size());
-        ArrayList<String> desc = new ArrayList<String>(args.size());
+        ListWriter list = new ListWriter(out, buf, divider, indent);
         for (Parameter<?> p : args) {
             if (p.isHidden() && !showHidden) {
                 continue;
             }
-            tags.add(p.getTag());
-            desc.add(p.getDesc() + " ("
-                    + ((p.isOptional()) ? Strings.get("TextUsageFormatter.optional")
-                            : Strings.get("TextUsageFormatter.required"))
-                    + ")" + ((p.isHidden()) ? (" (" + Strings.get("TextUsageFormatter.hidden") + ")") : ""));
+            buf.label.setLength(0);
+            buf.label.append(p.getTag());
+            list.append(p);
         }
-        sb.append(sHelper.formatLabeledList((String[]) tags.toArray(new String[tags.size()]),
-                (String[]) desc.toArray(new String[desc.size()]), " = ", 20, lineLength));
-
-        // remove trailing newline
-        return sb.deleteCharAt(sb.length() - 1).toString();
     }
 
     /**
-     * Gets the option descriptions as a String.
+     * Writes the descriptions of the options, sorted by tag.
      * 
+     * @param out
+     *            the destination
+     * @param buf
+     *            buffers for assembling list items
+     * @param options
+     *            the command options
      * @param showHidden
-     *            true if hidden options are to be included.
-     * @return the option descriptions
+     *            if <code>true</code>, hidden options will be written
+     * @throws IOException
+     *             if <code>out</code> throws IOException
      */
-    private String getOptDescriptions(Map<String, Parameter<?>> options, boolean showHidden) {
-
-        if (options.size() == 0) {
-            return "";
-        }
+    private void appendOptDescriptions(Appendable out, Buffers buf, Map<String, Parameter<?>> options,
+            boolean showHidden) throws IOException {
         ArrayList<String> sortedOptions = new ArrayList<String>(options.keySet());
         Collections.sort(sortedOptions);
 
-        ArrayList<String> labels = new ArrayList<String>(options.size());
-        ArrayList<String> desc = new ArrayList<String>(options.size());
+        String divider = " ";
+        int indent = 0;
+        for (String optName : sortedOptions) {
+            Parameter<?> p = options.get(optName);
+            if (p.isHidden() && !showHidden) {
+                continue;
+            }
+            int labelLen = 1 + p.getTag().length() + 1 + p.getOptionLabel().length();
+            indent = StringFormatHelper.listIndent(indent, labelLen + divider.length(), 20);
+        }
+        indent = (indent == 0) ? StringFormatHelper.DEFAULT_LIST_INDENT : indent;
+
+        ListWriter list = new ListWriter(out, buf, divider, indent);
         for (String optName : sortedOptions) {
             Parameter<?> p = options.get(optName);
             if (p.isHidden() && !showHidden) {
                 continue;
             }
-            labels.add("-" + p.getTag() + " " + p.getOptionLabel());
-            desc.add(p.getDesc() + " ("
-                    + ((p.isOptional()) ? Strings.get("TextUsageFormatter.optional")
-                            : Strings.get("TextUsageFormatter.required"))
-                    + ")" + ((p.isHidden()) ? (" (" + Strings.get("TextUsageFormatter.hidden") + ")") : ""));
+            buf.label.setLength(0);
+            buf.label.append('-').append(p.getTag()).append(' ').append(p.getOptionLabel());
+            list.append(p);
+        }
+    }
+
+    /**
+     * Buffers used to assemble one line or list item at a time.
+     */
+    private static class Buffers {
+        final StringBuilder label = new StringBuilder(80);
+        final StringBuilder text = new StringBuilder(400);
+        final StringBuilder item = new StringBuilder(400);
+        final StringBuilder lines = new StringBuilder(400);
+    }
+
+    /**
+     * Writes the items of a labeled list, without the newline that terminates the last item.
+     */
+    private class ListWriter {
+        private final Appendable out;
+        private final Buffers buf;
+        private final String divider;
+        private final int indent;
+
+        /**
+         * the last character of the previous item, written only when another item follows
+         */
+        private char pending = 0;
+
+        ListWriter(Appendable out, Buffers buf, String divider, int indent) {
+            this.out = out;
+            this.buf = buf;
+            this.divider = divider;
+            this.indent = indent;
+        }
+
+        /**
+         * Writes an item whose label is in <code>buf.label</code>, describing the specified Parameter.
+         */
+        void append(Parameter<?> p) throws IOException {
+            buf.text.setLength(0);
+            buf.text.append(p.getDesc()).append(" (").append(
+                    (p.isOptional()) ? Strings.get("TextUsageFormatter.optional")
+                            : Strings.get("TextUsageFormatter.required")).append(")");
+            if (p.isHidden()) {
+                buf.text.append(" (").append(Strings.get("TextUsageFormatter.hidden")).append(")");
+            }
+            buf.lines.setLength(0);
+            StringFormatHelper.appendListItem(buf.lines, buf.item, buf.label, buf.text, divider, indent, lineLength);
+            if (pending != 0) {
+                out.append(pending);
+            }
+            int last = buf.lines.length() - 1;
+            out.append(buf.lines, 0, last);
+            pending = buf.lines.charAt(last);
         }
-        StringBuffer sb = new StringBuffer(
-                (sHelper.formatLabeledList((String[]) labels.toArray(new String[labels.size()]),
-                        (String[]) desc.toArray(new String[desc.size()]), " ", 20, lineLength)));
-        // remove trailing newline
-        return sb.deleteCharAt(sb.length() - 1).toString();
     }
 
     /**
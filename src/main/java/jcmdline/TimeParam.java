@@ -394,9 +394,9 @@ public class TimeParam extends AbstractParameter<Date> {
 				throw new Exception();
 			}
 		} catch (Exception e) {
-			throw new CmdLineException(Strings.get(
+			throw CmdLineException.forKey(
 					"TimeParam.invalidTimeFormat", new Object[] { strVal,
-							sTimeFmtDisplay }));
+							sTimeFmtDisplay });
 		}
 
 		// Combine with date portion to make up a full Date
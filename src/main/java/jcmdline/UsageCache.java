@@ -0,0 +1,331 @@
+/*
+ * UsageCache.java
+ *
+ * Classes:
+ *   package  UsageCache
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The usage statements rendered for a command, so that they need not be
+ * formatted again while the command's definition is unchanged.
+ * <P>
+ * A usage is cached for each combination of hidden flag, line length, and
+ * locale requested. The owning handler discards the cache when its options,
+ * arguments, name, description, or parser change. Because Parameters may be
+ * reconfigured after they have been added to a handler, the cache also holds
+ * a snapshot of each Parameter's tag, description, option label, and flags,
+ * which {@link #matches(UsageFormatter, Collection, List) matches()} compares
+ * against the current values before a cached usage is used.
+ * <P>
+ * Usages longer than {@link #MAX_LENGTH} characters are not cached; they are
+ * streamed from the UsageFormatter each time they are written.
+ * <P>
+ * The UsageFormatter is assumed to produce the same usage whenever these
+ * inputs are the same. A UsageCache is owned by a single handler and, like the
+ * handler, is not safe for concurrent use.
+ * 
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see BasicCmdLineHandler#getUsage(boolean)
+ */
+class UsageCache {
+
+	/**
+	 * the maximum number of usages cached - when exceeded, the cache is
+	 * cleared
+	 */
+	private static final int MAX_ENTRIES = 16;
+
+	/**
+	 * the maximum length of a usage that will be cached - longer usages are
+	 * rendered each time they are requested, rather than being held in memory
+	 */
+	static final int MAX_LENGTH = 64 * 1024;
+
+	/**
+	 * the number of snapshot elements per Parameter
+	 */
+	private static final int FIELDS = 5;
+
+	/**
+	 * the formatter used to render the cached usages
+	 */
+	private final UsageFormatter formatter;
+
+	/**
+	 * the tag, description, option label, and flags of each option followed
+	 * by each argument, preceded by the Parameter itself
+	 */
+	private final Object[] snapshot;
+
+	/**
+	 * the cached usages
+	 */
+	private final ArrayList<Entry> entries = new ArrayList<Entry>(2);
+
+	/**
+	 * A cached usage and the settings it was rendered with.
+	 */
+	private static class Entry {
+		final boolean hidden;
+		final int lineLength;
+		final Locale locale;
+		final String usage;
+
+		Entry(boolean hidden, int lineLength, Locale locale, String usage) {
+			this.hidden = hidden;
+			this.lineLength = lineLength;
+			this.locale = locale;
+			this.usage = usage;
+		}
+	}
+
+	/**
+	 * constructor
+	 * 
+	 * @param formatter
+	 *            the formatter with which the usages will be rendered
+	 * @param opts
+	 *            the command's options
+	 * @param args
+	 *            the command's arguments
+	 */
+	UsageCache(UsageFormatter formatter, Collection<Parameter<?>> opts,
+			List<Parameter<?>> args) {
+		this.formatter = formatter;
+		snapshot = new Object[(opts.size() + args.size()) * FIELDS];
+		int i = 0;
+		for (Parameter<?> p : opts) {
+			i = record(p, i);
+		}
+		for (Parameter<?> p : args) {
+			i = record(p, i);
+		}
+	}
+
+	/**
+	 * Gets a cached usage.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden Parameters are included
+	 * @param lineLength
+	 *            the line length
+	 * @param locale
+	 *            the locale
+	 * @return the usage, or null if none has been cached for these settings
+	 */
+	String get(boolean hidden, int lineLength, Locale locale) {
+		for (int i = 0; i < entries.size(); i++) {
+			Entry e = entries.get(i);
+			if (e.hidden == hidden && e.lineLength == lineLength
+					&& e.locale.equals(locale)) {
+				return e.usage;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates whether the cached usages are still valid for the command.
+	 * 
+	 * @param formatter
+	 *            the formatter that would render the usage
+	 * @param opts
+	 *            the command's options
+	 * @param args
+	 *            the command's arguments
+	 * @return true if the formatter is unchanged, and every Parameter's tag,
+	 *         description, option label, and flags are as they were when this
+	 *         cache was created
+	 */
+	boolean matches(UsageFormatter formatter, Collection<Parameter<?>> opts,
+			List<Parameter<?>> args) {
+		if (formatter != this.formatter
+				|| snapshot.length != (opts.size() + args.size()) * FIELDS) {
+			return false;
+		}
+		int i = 0;
+		for (Parameter<?> p : opts) {
+			if (!same(p, i)) {
+				return false;
+			}
+			i += FIELDS;
+		}
+		for (Parameter<?> p : args) {
+			if (!same(p, i)) {
+				return false;
+			}
+			i += FIELDS;
+		}
+		return true;
+	}
+
+	/**
+	 * Caches a usage.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden Parameters are included
+	 * @param lineLength
+	 *            the line length
+	 * @param locale
+	 *            the locale
+	 * @param usage
+	 *            the usage
+	 */
+	void put(boolean hidden, int lineLength, Locale locale, String usage) {
+		if (usage.length() > MAX_LENGTH) {
+			return;
+		}
+		if (entries.size() >= MAX_ENTRIES) {
+			entries.clear();
+		}
+		entries.add(new Entry(hidden, lineLength, locale, usage));
+	}
+
+	/**
+	 * Creates an Appendable that passes a usage through to <code>out</code>
+	 * as it is written, and caches it when {@link Recorder#close()} is
+	 * called, unless it is longer than {@link #MAX_LENGTH}.
+	 * 
+	 * @param hidden
+	 *            indicates whether hidden Parameters are included
+	 * @param lineLength
+	 *            the line length
+	 * @param locale
+	 *            the locale
+	 * @param out
+	 *            the destination of the usage
+	 * @return the Recorder
+	 */
+	Recorder record(boolean hidden, int lineLength, Locale locale,
+			Appendable out) {
+		return new Recorder(hidden, lineLength, locale, out);
+	}
+
+	/**
+	 * An Appendable that passes a usage through to another, keeping a copy to
+	 * be cached.
+	 */
+	class Recorder implements Appendable {
+		private final boolean hidden;
+		private final int lineLength;
+		private final Locale locale;
+		private final Appendable out;
+
+		/**
+		 * the copy of the usage, or null if it has grown too long to cache
+		 */
+		private StringBuilder copy = new StringBuilder(2048);
+
+		Recorder(boolean hidden, int lineLength, Locale locale,
+				Appendable out) {
+			this.hidden = hidden;
+			this.lineLength = lineLength;
+			this.locale = locale;
+			this.out = out;
+		}
+
+		public Appendable append(CharSequence csq) throws IOException {
+			return append(csq, 0, csq.length());
+		}
+
+		public Appendable append(CharSequence csq, int start, int end)
+				throws IOException {
+			out.append(csq, start, end);
+			if (copy != null) {
+				if (copy.length() + end - start > MAX_LENGTH) {
+					copy = null;
+				} else {
+					copy.append(csq, start, end);
+				}
+			}
+			return this;
+		}
+
+		public Appendable append(char c) throws IOException {
+			out.append(c);
+			if (copy != null) {
+				copy.append(c);
+			}
+			return this;
+		}
+
+		/**
+		 * Caches the usage, if it was not too long. Should only be called if
+		 * the usage was written successfully.
+		 */
+		void close() {
+			if (copy != null) {
+				put(hidden, lineLength, locale, copy.toString());
+				copy = null;
+			}
+		}
+	}
+
+	/**
+	 * Records a Parameter in the snapshot.
+	 * 
+	 * @return the index following the Parameter's elements
+	 */
+	private int record(Parameter<?> p, int i) {
+		snapshot[i++] = p;
+		snapshot[i++] = p.getTag();
+		snapshot[i++] = p.getDesc();
+		snapshot[i++] = p.getOptionLabel();
+		snapshot[i++] = Integer.valueOf(flags(p));
+		return i;
+	}
+
+	/**
+	 * Compares a Parameter with its snapshot.
+	 * 
+	 * @return true if the Parameter is unchanged
+	 */
+	private boolean same(Parameter<?> p, int i) {
+		return snapshot[i] == p && equal(snapshot[i + 1], p.getTag())
+				&& equal(snapshot[i + 2], p.getDesc())
+				&& equal(snapshot[i + 3], p.getOptionLabel())
+				&& ((Integer) snapshot[i + 4]).intValue() == flags(p);
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return (a == null) ? b == null : a.equals(b);
+	}
+
+	private static int flags(Parameter<?> p) {
+		return (p.isHidden() ? 1 : 0) | (p.isOptional() ? 2 : 0)
+				| (p.isMultiValued() ? 4 : 0);
+	}
+}
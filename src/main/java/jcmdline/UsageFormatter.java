@@ -31,6 +31,7 @@
 
 package jcmdline;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +84,38 @@ public interface UsageFormatter {
 	public String formatUsage(String cmdName, String cmdDesc, Map<String, Parameter<?>> opts, List<Parameter<?>> args,
 			boolean showHidden);
 
+	/**
+	 * Writes the usage for the command to <code>out</code>. Implementations
+	 * should write the usage a section or line at a time, so that a large
+	 * usage need never be held in memory as a whole - this default
+	 * implementation, provided for compatibility, does not, and simply
+	 * appends the result of
+	 * {@link #formatUsage(String, String, Map, List, boolean)}.
+	 * 
+	 * @param cmdName
+	 *            the name of the command (specify 'java -jar xxx.jar' if
+	 *            command will not be wrapped by a shell script).
+	 * @param cmdDesc
+	 *            a brief description of the command
+	 * @param opts
+	 *            the command options
+	 * @param args
+	 *            the command arguments
+	 * @param showHidden
+	 *            true if hidden options and arguments are to be displayed
+	 * @param out
+	 *            the destination of the formatted usage - such as a
+	 *            <code>StringBuilder</code>, <code>Writer</code>, or
+	 *            <code>PrintStream</code>
+	 * @throws IOException
+	 *             if <code>out</code> throws IOException
+	 */
+	public default void formatUsage(String cmdName, String cmdDesc,
+			Map<String, Parameter<?>> opts, List<Parameter<?>> args,
+			boolean showHidden, Appendable out) throws IOException {
+		out.append(formatUsage(cmdName, cmdDesc, opts, args, showHidden));
+	}
+
 	/**
 	 * Gets the maximum line length to use for usage display.
 	 * 
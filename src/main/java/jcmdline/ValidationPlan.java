@@ -0,0 +1,362 @@
+/*
+ * ValidationPlan.java
+ *
+ * Classes:
+ *   package  ValidationPlan
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The validation rules of a command line, compiled into bitmasks over the
+ * indexes of its Parameters. Options are numbered first, in the order
+ * returned by the handler's option map, followed by the arguments in order.
+ * <P>
+ * The {@link PosixCmdLineParser} records each Parameter it sets, through
+ * {@link #optionSet(String)} and {@link #argSet(int)}, as it adds the value;
+ * the Parameters set by any other CmdLineParser are read by
+ * {@link #readSet()} once it has finished. Which Parameters are required, and
+ * which are flagged ignoreRequired, is read when the plan is compiled, and
+ * read again only if an AbstractParameter has since been reconfigured - as
+ * counted by {@link AbstractParameter#getConfigModCount()} - or for
+ * Parameters that are not AbstractParameters, whose changes are not counted.
+ * Every check is then a few word-wide operations against those masks.
+ * <P>
+ * A ValidationPlan is owned by a single handler and, like the handler, is not
+ * safe for concurrent use.
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ * @see BasicCmdLineHandler
+ */
+class ValidationPlan {
+
+	/**
+	 * the options, followed by the arguments
+	 */
+	private final Parameter<?>[] params;
+
+	/**
+	 * the number of options - Parameters at lower indexes are options
+	 */
+	private final int optCount;
+
+	/**
+	 * the index of each option, by its key in the handler's option map
+	 */
+	private final HashMap<String, Integer> optIndex;
+
+	/**
+	 * the indexes of the Parameters that are not AbstractParameters, whose
+	 * required and ignoreRequired flags are read on every validation
+	 */
+	private final int[] uncounted;
+
+	/**
+	 * the configuration count of AbstractParameters when required and
+	 * ignoreRequired were last read
+	 */
+	private int configModCount;
+
+	/**
+	 * a mask for each exclusive group
+	 */
+	private final long[][] exclusive;
+
+	/**
+	 * for each Parameter, a mask of the Parameters it requires, or null if it
+	 * requires none
+	 */
+	private final long[][] requires;
+
+	/**
+	 * the Parameters set by the current, or last, parse
+	 */
+	private final long[] set;
+
+	/**
+	 * the Parameters that are required
+	 */
+	private final long[] required;
+
+	/**
+	 * the Parameters whose ignoreRequired flag is set
+	 */
+	private final long[] ignoreRequired;
+
+	/**
+	 * constructor - compiles the plan
+	 *
+	 * @param options
+	 *            the handler's options, by key
+	 * @param args
+	 *            the handler's arguments
+	 * @param groups
+	 *            the handler's exclusive groups
+	 * @param dependencies
+	 *            the handler's dependencies - each element is a pair of
+	 *            Parameters, the first of which requires the second
+	 */
+	ValidationPlan(Map<String, Parameter<?>> options,
+			List<Parameter<?>> args, List<Parameter<?>[]> groups,
+			List<Parameter<?>[]> dependencies) {
+		optCount = options.size();
+		params = new Parameter<?>[optCount + args.size()];
+		optIndex = new HashMap<String, Integer>(optCount * 2);
+		int i = 0;
+		for (Map.Entry<String, Parameter<?>> e : options.entrySet()) {
+			optIndex.put(e.getKey(), Integer.valueOf(i));
+			params[i++] = e.getValue();
+		}
+		for (Parameter<?> p : args) {
+			params[i++] = p;
+		}
+		IdentityHashMap<Parameter<?>, Integer> index = new IdentityHashMap<Parameter<?>, Integer>();
+		int foreign = 0;
+		for (i = 0; i < params.length; i++) {
+			index.put(params[i], Integer.valueOf(i));
+			if (!(params[i] instanceof AbstractParameter)) {
+				foreign++;
+			}
+		}
+		uncounted = new int[foreign];
+		foreign = 0;
+		for (i = 0; i < params.length; i++) {
+			if (!(params[i] instanceof AbstractParameter)) {
+				uncounted[foreign++] = i;
+			}
+		}
+		int words = (params.length + 63) >>> 6;
+		set = new long[words];
+		required = new long[words];
+		ignoreRequired = new long[words];
+		configModCount = AbstractParameter.getConfigModCount();
+		for (i = 0; i < params.length; i++) {
+			readFlags(i);
+		}
+
+		// Constraints may refer to Parameters that have since been removed
+		// from the handler. Such Parameters can never be set, so they are
+		// simply dropped.
+		List<long[]> masks = new ArrayList<long[]>(groups.size());
+		for (Parameter<?>[] group : groups) {
+			long[] mask = new long[words];
+			int n = 0;
+			for (Parameter<?> p : group) {
+				Integer ix = index.get(p);
+				if (ix != null) {
+					setBit(mask, ix.intValue());
+					n++;
+				}
+			}
+			if (n > 1) {
+				masks.add(mask);
+			}
+		}
+		exclusive = masks.toArray(new long[masks.size()][]);
+
+		requires = new long[params.length][];
+		for (Parameter<?>[] dep : dependencies) {
+			Integer from = index.get(dep[0]);
+			Integer to = index.get(dep[1]);
+			if (from != null && to != null) {
+				long[] mask = requires[from.intValue()];
+				if (mask == null) {
+					mask = requires[from.intValue()] = new long[words];
+				}
+				setBit(mask, to.intValue());
+			}
+		}
+	}
+
+	/**
+	 * Prepares for a parse, forgetting the Parameters set by the last one.
+	 */
+	void beginParse() {
+		for (int w = 0; w < set.length; w++) {
+			set[w] = 0;
+		}
+	}
+
+	/**
+	 * Records that a value has been added to an option.
+	 *
+	 * @param key
+	 *            the option's key in the handler's option map
+	 */
+	void optionSet(String key) {
+		Integer ix = optIndex.get(key);
+		if (ix != null) {
+			setBit(set, ix.intValue());
+		}
+	}
+
+	/**
+	 * Records that a value has been added to an argument.
+	 *
+	 * @param argIdx
+	 *            the index of the argument
+	 */
+	void argSet(int argIdx) {
+		setBit(set, optCount + argIdx);
+	}
+
+	/**
+	 * Records the Parameters that are set, following a parse by a
+	 * CmdLineParser that does not record them itself.
+	 */
+	void readSet() {
+		for (int i = 0; i < params.length; i++) {
+			if (params[i].isSet()) {
+				setBit(set, i);
+			}
+		}
+	}
+
+	/**
+	 * Verifies the Parameters following a parse. If any Parameter whose
+	 * ignoreRequired flag is set has been set, no checks are made.
+	 * Otherwise, all required Parameters must be set, no more than one
+	 * Parameter of each exclusive group may be set, and every Parameter
+	 * required by a set Parameter must also be set.
+	 *
+	 * @throws CmdLineException
+	 *             describing the first rule that is broken
+	 */
+	void validate() throws CmdLineException {
+		int modCount = AbstractParameter.getConfigModCount();
+		if (modCount != configModCount) {
+			configModCount = modCount;
+			for (int i = 0; i < params.length; i++) {
+				readFlags(i);
+			}
+		} else {
+			for (int i : uncounted) {
+				readFlags(i);
+			}
+		}
+		for (int w = 0; w < set.length; w++) {
+			if ((set[w] & ignoreRequired[w]) != 0) {
+				return;
+			}
+		}
+		for (int w = 0; w < set.length; w++) {
+			long missing = required[w] & ~set[w];
+			if (missing != 0) {
+				int i = (w << 6) + Long.numberOfTrailingZeros(missing);
+				throw CmdLineException.forKey(
+						(i < optCount) ? "BasicCmdLineHandler.missingRequiredOpt"
+								: "BasicCmdLineHandler.missingRequiredArg",
+						new Object[] { params[i].getTag() }).withTag(
+						params[i].getTag());
+			}
+		}
+		for (long[] group : exclusive) {
+			int n = 0;
+			for (int w = 0; w < set.length; w++) {
+				n += Long.bitCount(set[w] & group[w]);
+			}
+			if (n > 1) {
+				throw CmdLineException.forKey(
+						"BasicCmdLineHandler.exclusiveParams",
+						new Object[] { tags(group) });
+			}
+		}
+		for (int w = 0; w < set.length; w++) {
+			for (long bits = set[w]; bits != 0; bits &= bits - 1) {
+				int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+				long[] mask = requires[i];
+				if (mask == null) {
+					continue;
+				}
+				for (int v = 0; v < set.length; v++) {
+					long missing = mask[v] & ~set[v];
+					if (missing != 0) {
+						int j = (v << 6) + Long.numberOfTrailingZeros(missing);
+						throw CmdLineException.forKey(
+								"BasicCmdLineHandler.missingDependency",
+								new Object[] { params[i].getTag(),
+										params[j].getTag() }).withTag(
+								params[i].getTag());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the tags of the Parameters in a mask that were set by the last
+	 * parse.
+	 *
+	 * @param mask
+	 *            the mask
+	 * @return the tags, separated by "&gt;, &lt;"
+	 */
+	private String tags(long[] mask) {
+		List<String> l = new ArrayList<String>();
+		for (int w = 0; w < set.length; w++) {
+			for (long bits = set[w] & mask[w]; bits != 0; bits &= bits - 1) {
+				l.add(params[(w << 6) + Long.numberOfTrailingZeros(bits)]
+						.getTag());
+			}
+		}
+		return Strings.join(">, <", l.toArray());
+	}
+
+	/**
+	 * Reads whether a Parameter is required, and whether its ignoreRequired
+	 * flag is set.
+	 *
+	 * @param i
+	 *            the index of the Parameter
+	 */
+	private void readFlags(int i) {
+		Parameter<?> p = params[i];
+		long bit = 1L << i;
+		int w = i >>> 6;
+		if (p.isOptional()) {
+			required[w] &= ~bit;
+		} else {
+			required[w] |= bit;
+		}
+		if (p.getIgnoreRequired()) {
+			ignoreRequired[w] |= bit;
+		} else {
+			ignoreRequired[w] &= ~bit;
+		}
+	}
+
+	private static void setBit(long[] mask, int i) {
+		mask[i >>> 6] |= 1L << i;
+	}
+}
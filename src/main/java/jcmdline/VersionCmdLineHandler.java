@@ -183,15 +183,18 @@ public class VersionCmdLineHandler extends AbstractHandlerDecorator {
 	 * @param parseOk
 	 *            The result of the <code>parse()</code> call to this class's
 	 *            contained CmdLineHandler.
-	 * @return This method will call <code>System.exit(0)</code>, rather than
+	 * @return This method will call {@link #exit(ParseOutcome) exit()}, rather than
 	 *         returning, if its option is set. Otherwise,
-	 *         <code>parseStatus</code> is returned.
+	 *         <code>parseStatus</code> is returned. When running
+	 *         {@link #setInProcess(boolean) in process}, <code>false</code>
+	 *         is returned after the call to exit().
 	 */
 	protected boolean processParsedOptions(boolean parseOk) {
 		if (parseOk) {
 			if (versionOpt.isTrue()) {
-				System.out.println(version);
-				System.exit(0);
+				getOut().println(version);
+				exit(new ParseOutcome(ParseOutcome.Status.VERSION, 0, null));
+				return false;
 			}
 		}
 		return parseOk;
@@ -33,6 +33,8 @@
 
 package jcmdline;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -89,6 +91,74 @@ public class AbstractHandlerDecoratorTest extends BetterTestCase {
 	public void tearDown() {
 	}
 
+	/**
+	 * Tests requests for the usage, help, and version when running in process
+	 */
+	public void testInProcessRequests() {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		StringParam p1 = new StringParam("param1", "param1's description");
+		p1.setOptional(false);
+		ConfigurableCmdLineHandler clh = new VersionCmdLineHandler("V 1.0",
+				new HelpCmdLineHandler("some help text", "mycmd",
+						"cmd description", new Parameter[] { p1 },
+						new Parameter[] {}));
+		clh.setInProcess(true);
+		clh.setOut(new PrintStream(buf, true));
+
+		assertFalse("usage request returned true", clh
+				.parse(new String[] { "-?" }));
+		assertEquals("wrong outcome", ParseOutcome.Status.USAGE, clh
+				.getOutcome().getStatus());
+		assertEquals("wrong exit code", 0, clh.getOutcome().getExitCode());
+		assertTrue("usage not written", buf.toString().indexOf("param1") != -1);
+
+		buf.reset();
+		clh.reset();
+		assertFalse("help request returned true", clh
+				.parse(new String[] { "-help" }));
+		assertEquals("wrong outcome", ParseOutcome.Status.HELP, clh
+				.getOutcome().getStatus());
+		assertTrue("help not written", buf.toString().indexOf(
+				"some help text") != -1);
+
+		buf.reset();
+		clh.reset();
+		assertFalse("version request returned true", clh
+				.parse(new String[] { "-version" }));
+		assertEquals("wrong outcome", ParseOutcome.Status.VERSION, clh
+				.getOutcome().getStatus());
+		assertEquals("version not written", "V 1.0", buf.toString().trim());
+
+		clh.reset();
+		assertTrue("parse failed: " + clh.getParseError(), clh
+				.parse(new String[] { "-param1", "x" }));
+		assertTrue("wrong outcome", clh.getOutcome().isOk());
+	}
+
+	/**
+	 * Tests that a parse error, when running in process with
+	 * dieOnParseError set, is written to the error stream and recorded, and
+	 * that outer decorators are not called
+	 */
+	public void testInProcessError() {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		CmdLineHandler h = new BasicCmdLineHandler("mycmd", "cmd description",
+				new Parameter[] {}, new Parameter[] {});
+		StringParam p1 = new StringParam("param1", "param1's description");
+		ConfigurableCmdLineHandler clh = new MyCLH(new StringParam[] { p1 }, h);
+		clh.setInProcess(true);
+		clh.setErr(new PrintStream(buf, true));
+		assertFalse("bad parse returned true", clh
+				.parse(new String[] { "-bogus" }));
+		assertEquals("wrong outcome", ParseOutcome.Status.ERROR, clh
+				.getOutcome().getStatus());
+		assertEquals("wrong exit code", 1, clh.getOutcome().getExitCode());
+		assertNotNull("no error message", clh.getOutcome().getMessage());
+		assertTrue("error not written", buf.toString().indexOf("mycmd") != -1);
+		assertEquals("processParsedOptions() was called", 0, p1.getValues()
+				.size());
+	}
+
 	/**
 	 * Tests that processParsedOptions() is called with correct parse status
 	 */
@@ -146,6 +216,32 @@ public class AbstractHandlerDecoratorTest extends BetterTestCase {
 				+ "setOptions()", !opts.contains(porig));
 	}
 
+	/**
+	 * Tests that a decorator delegates the methods of
+	 * ConfigurableCmdLineHandler only to a handler implementing them
+	 */
+	public void testConfigurable() {
+		StringParam p1 = new StringParam("param1", "param1's description");
+		StringParam p2 = new StringParam("param2", "param2's description");
+		MyCLH clh = new MyCLH(new StringParam[] {}, new BasicCmdLineHandler(
+				"mycmd", "cmd description", new Parameter[] { p1, p2 },
+				new Parameter[] {}));
+		clh.setDieOnParseError(false);
+		clh.addDependency(p1, p2);
+		assertFalse("dependency not delegated", clh.parse(new String[] {
+				"-param1", "v" }));
+
+		clh = new MyCLH(new StringParam[] {}, new ExternalCmdLineHandler(
+				"mycmd", "cmd description", new Parameter[] { p1, p2 },
+				new Parameter[] {}));
+		try {
+			clh.addDependency(p1, p2);
+			fail("dependency added to a handler without constraints");
+		} catch (UnsupportedOperationException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
 	/**
 	 * A subclass of AbstractHandlerDecorator with which to test
 	 * 
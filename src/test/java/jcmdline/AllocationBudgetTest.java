@@ -0,0 +1,324 @@
+/*
+ * AllocationBudgetTest.java
+ *
+ * Classes:
+ *   public   AllocationBudgetTest
+ *   private  AllocationBudgetTest.Scenario
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guards the parse and usage paths against allocation regressions. Each
+ * scenario runs a canonical command line, or usage rendering, repeatedly
+ * once the JIT compiler has warmed it up, and fails if the mean number of
+ * bytes allocated per call, as counted by
+ * <code>com.sun.management.ThreadMXBean.getThreadAllocatedBytes()</code>,
+ * exceeds the scenario's budget. The tests are skipped on JVMs that do not
+ * count allocated bytes.
+ * <P>
+ * The budgets are roughly twice what was measured on HotSpot 17, leaving
+ * room for differences between JVMs and garbage collectors, and for the
+ * depth of the stack captured by a parse error - a change that legitimately needs more should raise the budget
+ * along with it. To print an allocation report for every scenario, set the
+ * <i>jcmdline.allocationReport</i> system property, as in:
+ *
+ * <pre>
+ * mvn test -Dtest=AllocationBudgetTest -Djcmdline.allocationReport=true
+ * </pre>
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class AllocationBudgetTest extends BetterTestCase {
+
+	/**
+	 * calls made to warm up a scenario before it is measured
+	 */
+	private static final int WARMUP = 20000;
+
+	/**
+	 * calls over which a scenario's allocation is averaged
+	 */
+	private static final int ITERATIONS = 5000;
+
+	/**
+	 * the allocation counting bean, or null if allocations can't be counted
+	 */
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+	/**
+	 * consumes results so the work can't be optimized away
+	 */
+	private static int sink;
+
+	private BasicCmdLineHandler h;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public AllocationBudgetTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, AllocationBudgetTest.class);
+	}
+
+	/**
+	 * Creates the handler parsed by the scenarios.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		StringParam define = new StringParam("define",
+				"a name=value property");
+		define.setMultiValued(true);
+		StringParam file = new StringParam("file", "the input files",
+				StringParam.REQUIRED);
+		file.setMultiValued(true);
+		h = new BasicCmdLineHandler("mycmd", "my command", new Parameter[] {
+				new BooleanParam("verbose", "print progress"),
+				new BooleanParam("quiet", "print nothing"),
+				new StringParam("out", "the output file"),
+				new IntParam("count", "the repeat count", 1, 10), define },
+				new Parameter[] { file });
+		h.setDieOnParseError(false);
+	}
+
+	/**
+	 * Tests parsing boolean options only
+	 */
+	public void testFlags() {
+		check(parse("flags", 800, true, "-verbose", "-quiet", "in"));
+	}
+
+	/**
+	 * Tests parsing options with values
+	 */
+	public void testValues() {
+		check(parse("values", 800, true, "-out", "result.txt", "-count",
+				"5", "in"));
+	}
+
+	/**
+	 * Tests parsing multi-valued options and arguments
+	 */
+	public void testMultiValued() {
+		check(parse("multi-valued", 800, true, "-define", "a=1", "-define",
+				"b=2", "-define", "c=3", "in1", "in2", "in3"));
+	}
+
+	/**
+	 * Tests parsing abbreviated options
+	 */
+	public void testPrefix() {
+		check(parse("prefix", 800, true, "-verb", "-ou", "result.txt", "in"));
+	}
+
+	/**
+	 * Tests parsing command lines in error
+	 */
+	public void testErrors() {
+		check(parse("bad value", 12000, false, "-count", "50", "in"));
+		check(parse("unknown option", 4000, false, "-bogus", "in"));
+		check(parse("missing argument", 4000, false, "-verbose"));
+	}
+
+	/**
+	 * Tests rendering the usage, through the UsageFormatter and through the
+	 * handler's cache
+	 */
+	public void testUsage() {
+		final UsageFormatter fmt = h.getParser().getUsageFormatter();
+		final Map<String, Parameter<?>> opts = new HashMap<String, Parameter<?>>();
+		for (Parameter<?> p : h.getOptions()) {
+			opts.put(p.getTag().toLowerCase(), p);
+		}
+		final List<Parameter<?>> args = new ArrayList<Parameter<?>>(h
+				.getArgs());
+		final Appendable discard = new Appendable() {
+			public Appendable append(CharSequence csq) {
+				sink += csq.length();
+				return this;
+			}
+
+			public Appendable append(CharSequence csq, int start, int end) {
+				sink += end - start;
+				return this;
+			}
+
+			public Appendable append(char c) {
+				sink += c;
+				return this;
+			}
+		};
+		check(new Scenario("formatted usage", 10000) {
+			@Override
+			void run() {
+				sink += fmt.formatUsage("mycmd", "my command", opts, args,
+						false).length();
+			}
+		});
+		check(new Scenario("streamed usage", 4000) {
+			@Override
+			void run() {
+				try {
+					fmt.formatUsage("mycmd", "my command", opts, args, false,
+							discard);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		check(new Scenario("cached usage", 200) {
+			@Override
+			void run() {
+				sink += h.getUsage(false).length();
+			}
+		});
+	}
+
+	/**
+	 * Creates a Scenario that resets the handler and parses a command line.
+	 *
+	 * @param name
+	 *            the name of the scenario
+	 * @param budget
+	 *            the most bytes a parse may allocate
+	 * @param ok
+	 *            true if the command line is valid
+	 * @param argv
+	 *            the command line
+	 * @return the Scenario
+	 */
+	private Scenario parse(String name, long budget, final boolean ok,
+			final String... argv) {
+		return new Scenario(name, budget) {
+			@Override
+			void run() {
+				h.reset();
+				if (h.parse(argv) != ok) {
+					throw new IllegalStateException("parse of "
+							+ Arrays.toString(argv) + " returned "
+							+ !ok + ": " + h.getParseError());
+				}
+				sink += h.getArgs().size();
+			}
+		};
+	}
+
+	/**
+	 * Measures a Scenario, reports its allocation if a report was requested,
+	 * and fails if it exceeds its budget.
+	 */
+	private static void check(Scenario s) {
+		if (THREADS == null) {
+			debug("allocated bytes not counted, skipping " + s.name);
+			return;
+		}
+		for (int i = 0; i < WARMUP; i++) {
+			s.run();
+		}
+		long id = Thread.currentThread().getId();
+		long start = THREADS.getThreadAllocatedBytes(id);
+		for (int i = 0; i < ITERATIONS; i++) {
+			s.run();
+		}
+		long bytes = (THREADS.getThreadAllocatedBytes(id) - start)
+				/ ITERATIONS;
+		if (System.getProperty("jcmdline.allocationReport") != null) {
+			System.out.println(String.format("%-20s %8d bytes/op  budget %8d",
+					s.name, bytes, s.budget));
+		}
+		assertTrue(s.name + " allocated " + bytes + " bytes per call, over "
+				+ "its budget of " + s.budget, bytes <= s.budget);
+	}
+
+	/**
+	 * Gets the ThreadMXBean that counts allocated bytes, enabling the count if
+	 * need be.
+	 *
+	 * @return the bean, or null if the JVM does not count allocated bytes
+	 */
+	private static com.sun.management.ThreadMXBean threadBean() {
+		try {
+			java.lang.management.ThreadMXBean b = ManagementFactory
+					.getThreadMXBean();
+			if (!(b instanceof com.sun.management.ThreadMXBean)) {
+				return null;
+			}
+			com.sun.management.ThreadMXBean tb = (com.sun.management.ThreadMXBean) b;
+			if (!tb.isThreadAllocatedMemorySupported()) {
+				return null;
+			}
+			if (!tb.isThreadAllocatedMemoryEnabled()) {
+				tb.setThreadAllocatedMemoryEnabled(true);
+			}
+			return tb;
+		} catch (LinkageError e) {
+			return null;
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A call whose allocation is measured, and the most bytes it may
+	 * allocate.
+	 */
+	private abstract static class Scenario {
+
+		final String name;
+
+		final long budget;
+
+		Scenario(String name, long budget) {
+			this.name = name;
+			this.budget = budget;
+		}
+
+		/**
+		 * Makes the call.
+		 */
+		abstract void run();
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * AsyncLogHandlerTest.java
+ *
+ * Classes:
+ *   public   AsyncLogHandlerTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Unit test code for AsyncLogHandler
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class AsyncLogHandlerTest extends BetterTestCase {
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public AsyncLogHandlerTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, AsyncLogHandlerTest.class);
+	}
+
+	/**
+	 * Tests that records from several threads are all written, in order for
+	 * each thread, with the Formatter's head and tail
+	 */
+	public void testConcurrentPublish() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final AsyncLogHandler h = new AsyncLogHandler(out,
+				new MessageFormatter(), 16, AsyncLogHandler.OverflowPolicy.BLOCK);
+		final int threads = 4;
+		final int perThread = 2000;
+		Thread[] t = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			final int id = i;
+			t[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < perThread; j++) {
+						h.publish(new LogRecord(Level.INFO, id + ":" + j));
+					}
+				}
+			};
+			t[i].start();
+		}
+		for (int i = 0; i < threads; i++) {
+			t[i].join();
+		}
+		h.flush();
+		h.close();
+		String[] lines = out.toString().split("\n");
+		assertEquals("wrong number of lines", threads * perThread + 2,
+				lines.length);
+		assertEquals("head not written", "HEAD", lines[0]);
+		assertEquals("tail not written", "TAIL", lines[lines.length - 1]);
+		int[] next = new int[threads];
+		for (int i = 1; i < lines.length - 1; i++) {
+			String[] f = lines[i].split(":");
+			int id = Integer.parseInt(f[0]);
+			assertEquals("record out of order", next[id]++, Integer
+					.parseInt(f[1]));
+		}
+		assertEquals("records dropped", 0, h.getDroppedCount());
+	}
+
+	/**
+	 * Tests the DROP and BLOCK overflow policies with a stalled stream
+	 */
+	public void testOverflow() throws Exception {
+		StalledStream out = new StalledStream();
+		AsyncLogHandler h = new AsyncLogHandler(out, new MessageFormatter(),
+				4, AsyncLogHandler.OverflowPolicy.DROP);
+		h.publish(new LogRecord(Level.INFO, "first"));
+		assertTrue("writer did not start", out.writing.await(10,
+				TimeUnit.SECONDS));
+		// the writer is stuck writing "first" - fill the buffer, then more
+		for (int i = 0; i < 10; i++) {
+			h.publish(new LogRecord(Level.INFO, "r" + i));
+		}
+		long dropped = h.getDroppedCount();
+		out.release.countDown();
+		assertEquals("wrong number dropped", 6, dropped);
+		h.close();
+		assertEquals("wrong records written", "HEAD\nfirst\nr0\nr1\nr2\nr3\nTAIL\n",
+				out.written.toString());
+
+		final StalledStream out2 = new StalledStream();
+		final AsyncLogHandler h2 = new AsyncLogHandler(out2,
+				new MessageFormatter(), 2, AsyncLogHandler.OverflowPolicy.BLOCK);
+		h2.publish(new LogRecord(Level.INFO, "first"));
+		assertTrue("writer did not start", out2.writing.await(10,
+				TimeUnit.SECONDS));
+		h2.publish(new LogRecord(Level.INFO, "second"));
+		h2.publish(new LogRecord(Level.INFO, "third"));
+		Thread blocked = new Thread() {
+			@Override
+			public void run() {
+				h2.publish(new LogRecord(Level.INFO, "fourth"));
+			}
+		};
+		blocked.start();
+		blocked.join(200);
+		boolean wasBlocked = blocked.isAlive();
+		out2.release.countDown();
+		assertTrue("publish did not block", wasBlocked);
+		blocked.join(10000);
+		assertFalse("publish still blocked", blocked.isAlive());
+		h2.close();
+		assertEquals("wrong records written", "HEAD\nfirst\nsecond\nthird\nfourth\nTAIL\n",
+				out2.written.toString());
+		assertEquals("records dropped", 0, h2.getDroppedCount());
+	}
+
+	/**
+	 * Tests that records below the handler's level, or published after it is
+	 * closed, are ignored, and that bad arguments are rejected
+	 */
+	public void testLevelAndClose() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsyncLogHandler h = new AsyncLogHandler(out, new MessageFormatter());
+		h.setLevel(Level.WARNING);
+		h.publish(new LogRecord(Level.INFO, "info"));
+		h.publish(new LogRecord(Level.SEVERE, "severe"));
+		h.close();
+		h.publish(new LogRecord(Level.SEVERE, "late"));
+		h.close();
+		assertEquals("wrong records written", "HEAD\nsevere\nTAIL\n", out
+				.toString());
+		try {
+			new AsyncLogHandler(out, new MessageFormatter(), 0,
+					AsyncLogHandler.OverflowPolicy.DROP);
+			fail("zero capacity accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			new AsyncLogHandler(null, new MessageFormatter());
+			fail("null stream accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that exceptions thrown by the Formatter and the stream are
+	 * reported without stopping the writer thread, and that publish() does
+	 * not block once the writer thread has died
+	 */
+	public void testFailures() throws Exception {
+		final List<Integer> codes = Collections
+				.synchronizedList(new ArrayList<Integer>());
+		final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		OutputStream out = new OutputStream() {
+			private boolean failed;
+
+			@Override
+			public void write(int b) {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				if (!failed) {
+					failed = true;
+					throw new IllegalStateException("stream failed");
+				}
+				written.write(b, off, len);
+			}
+		};
+		AsyncLogHandler h = new AsyncLogHandler(out, new MessageFormatter() {
+			@Override
+			public String format(LogRecord record) {
+				if ("die".equals(record.getMessage())) {
+					throw new Error("formatter died");
+				}
+				return super.format(record);
+			}
+
+			@Override
+			public String getHead(Handler h) {
+				throw new IllegalStateException("no head");
+			}
+		}, 1, AsyncLogHandler.OverflowPolicy.BLOCK);
+		h.setErrorManager(new ErrorManager() {
+			@Override
+			public void error(String msg, Exception ex, int code) {
+				codes.add(code);
+			}
+		});
+		h.publish(new LogRecord(Level.INFO, "first"));
+		h.flush();
+		h.publish(new LogRecord(Level.INFO, "second"));
+		h.flush();
+		assertEquals("wrong records written", "second\n", written.toString());
+		assertEquals("wrong errors reported", Arrays.asList(
+				ErrorManager.FORMAT_FAILURE, ErrorManager.FLUSH_FAILURE), codes);
+
+		Thread.UncaughtExceptionHandler ueh = Thread
+				.getDefaultUncaughtExceptionHandler();
+		Thread
+				.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+					public void uncaughtException(Thread t, Throwable e) {
+						// the writer thread is expected to die
+					}
+				});
+		try {
+			h.publish(new LogRecord(Level.INFO, "die"));
+			h.flush();
+			for (int i = 0; i < 3; i++) {
+				h.publish(new LogRecord(Level.INFO, "late"));
+			}
+		} finally {
+			Thread.setDefaultUncaughtExceptionHandler(ueh);
+		}
+		assertTrue("records not dropped", h.getDroppedCount() > 0);
+		h.close();
+	}
+
+	/**
+	 * Formats each record as its message on a line of its own.
+	 */
+	private static class MessageFormatter extends Formatter {
+		@Override
+		public String format(LogRecord record) {
+			return record.getMessage() + "\n";
+		}
+
+		@Override
+		public String getHead(Handler h) {
+			return "HEAD\n";
+		}
+
+		@Override
+		public String getTail(Handler h) {
+			return "TAIL\n";
+		}
+	}
+
+	/**
+	 * A stream whose first write waits until it is released.
+	 */
+	private static class StalledStream extends OutputStream {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			writing.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			synchronized (written) {
+				written.write(b, off, len);
+			}
+		}
+	}
+}
@@ -33,8 +33,14 @@
 
 package jcmdline;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import jcmdline.BasicCmdLineHandler;
 import jcmdline.CmdLineHandler;
@@ -267,6 +273,170 @@ public class BasicCmdLineHandlerTest extends BetterTestCase {
 						+ cl.getParseError(), result);
 	}
 
+	/**
+	 * Tests a group of mutually exclusive options
+	 */
+	public void testParseExclusiveGroup() {
+		ConfigurableCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another", new Parameter[] { param1,
+						param2, param4 }, new Parameter[] { param3 });
+		cl.setDieOnParseError(false);
+		cl.addExclusiveGroup(new Parameter[] { param1, param2, param3 });
+		assertTrue("one of group rejected: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "v", "-param4", "v" }));
+		cl.reset();
+		assertFalse("two of group accepted", cl.parse(new String[] {
+				"-param1", "v", "-param4", "v", "a" }));
+		assertTrue("wrong error: " + cl.getParseError(), cl.getParseError()
+				.indexOf("<param1>, <param3>") != -1);
+		checkForMissingString(cl.getParseError());
+	}
+
+	/**
+	 * Tests that one option may require another
+	 */
+	public void testParseDependency() {
+		ConfigurableCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another", new Parameter[] { param1,
+						param2 }, new Parameter[] {});
+		cl.setDieOnParseError(false);
+		cl.addDependency(param1, param2);
+		assertTrue("neither set rejected: " + cl.getParseError(), cl
+				.parse(new String[] {}));
+		assertTrue("required only rejected: " + cl.getParseError(), cl
+				.parse(new String[] { "-param2", "v" }));
+		cl.reset();
+		assertFalse("missing dependency accepted", cl.parse(new String[] {
+				"-param1", "v" }));
+		checkForMissingString(cl.getParseError());
+		cl.reset();
+		assertTrue("both set rejected: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "v", "-param2", "v" }));
+	}
+
+	/**
+	 * Tests that constraints are not enforced when an ignoreRequired
+	 * Parameter is set
+	 */
+	public void testParseConstraintsIgnored() {
+		BooleanParam help = new BooleanParam("help", "displays help");
+		help.setIgnoreRequired(true);
+		param3.setOptional(false);
+		ConfigurableCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another", new Parameter[] { param1,
+						param2, help }, new Parameter[] { param3 });
+		cl.setDieOnParseError(false);
+		cl.addExclusiveGroup(new Parameter[] { param1, param2 });
+		assertTrue("constraints enforced: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "v", "-param2", "v", "-help" }));
+	}
+
+	/**
+	 * Tests that a Parameter reconfigured after a parse is validated as it
+	 * now is
+	 */
+	public void testParseReconfigured() {
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another",
+				new Parameter[] { param1, param2 }, new Parameter[] { param3 });
+		cl.setDieOnParseError(false);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] {}));
+		param1.setOptional(StringParam.REQUIRED);
+		assertFalse("option made required not enforced", cl
+				.parse(new String[] {}));
+		cl.reset();
+		param2.setIgnoreRequired(true);
+		assertTrue("ignoreRequired option not honoured: " + cl.getParseError(),
+				cl.parse(new String[] { "-param2", "v" }));
+		cl.reset();
+		param1.setOptional(StringParam.OPTIONAL);
+		param2.setIgnoreRequired(false);
+		assertTrue("option made optional still required: "
+				+ cl.getParseError(), cl.parse(new String[] {}));
+	}
+
+	/**
+	 * Tests that the Parameters set by a CmdLineParser other than the
+	 * PosixCmdLineParser are validated
+	 */
+	public void testParseOtherParser() {
+		param3.setOptional(StringParam.REQUIRED);
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another", new Parameter[] { param1 },
+				new Parameter[] { param3 });
+		cl.setDieOnParseError(false);
+		final CmdLineParser posix = cl.getParser();
+		cl.setParser(new CmdLineParser() {
+			public UsageFormatter getUsageFormatter() {
+				return posix.getUsageFormatter();
+			}
+
+			public void parse(String[] clargs, Map<String, Parameter<?>> opts,
+					List<Parameter<?>> args) throws CmdLineException {
+				posix.parse(clargs, opts, args);
+			}
+
+			public void setUsageFormatter(UsageFormatter usageFormatter) {
+				posix.setUsageFormatter(usageFormatter);
+			}
+		});
+		assertFalse("missing argument accepted", cl.parse(new String[] {
+				"-param1", "v" }));
+		cl.reset();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "a" }));
+	}
+
+	/**
+	 * Tests that constraints may only name Parameters of the handler
+	 */
+	public void testConstraintUnknownParam() {
+		ConfigurableCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another", new Parameter[] { param1 },
+				new Parameter[] {});
+		try {
+			cl.addDependency(param1, param2);
+			fail("unknown parameter accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			cl.addExclusiveGroup(new Parameter[] { param1 });
+			fail("group of one accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that a handler may be used for a second parse after reset()
+	 */
+	public void testReset() {
+		BooleanParam flag = new BooleanParam("flag", "this is a flag");
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"copies one file to another",
+				new Parameter[] { param1, flag }, new Parameter[] { param3 });
+		cl.setDieOnParseError(false);
+		assertTrue("first parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "v1", "-flag", "a1" }));
+		assertFalse("second parse without reset() did not fail", cl
+				.parse(new String[] { "-param1", "v2" }));
+		assertNotNull("parse error not set", cl.getParseError());
+		cl.reset();
+		assertNull("parse error not cleared", cl.getParseError());
+		assertFalse("option not cleared", param1.isSet());
+		assertFalse("flag not cleared", flag.isSet());
+		assertEquals("flag did not revert to false", Boolean.FALSE, flag
+				.getValue());
+		assertFalse("argument not cleared", param3.isSet());
+		assertTrue("parse after reset() failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "v2" }));
+		assertEquals("option has wrong value", "v2", param1.getValue());
+		assertEquals("option has wrong number of values", 1, param1
+				.getValues().size());
+	}
+
 	/**
 	 * Tests setArgs(), passing a null for args. Ref sourceforge bug 1038722.
 	 */
@@ -309,4 +479,135 @@ public class BasicCmdLineHandlerTest extends BetterTestCase {
 		assertEquals("Wrong number of options returned after setOptions()", 0,
 				opts.size());
 	}
+
+	/**
+	 * Tests that the usage is cached, and rendered again when the command's
+	 * definition or the requested settings change
+	 */
+	public void testUsageCache() {
+		StringParam opt = new StringParam("out", "the output file");
+		StringParam arg = new StringParam("infile", "the input file");
+		BasicCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"does stuff", new Parameter[] { opt }, new Parameter[] { arg });
+		String usage = cl.getUsage(false);
+		assertSame("usage not cached", usage, cl.getUsage(false));
+		assertNotSame("hidden usage not distinguished", usage, cl
+				.getUsage(true));
+
+		opt.setDesc("the file to which output is written");
+		String s = cl.getUsage(false);
+		assertTrue("description change not seen", s
+				.indexOf("the file to which output is written") != -1);
+		assertSame("usage not cached", s, cl.getUsage(false));
+
+		arg.setOptional(false);
+		assertTrue("flag change not seen", cl.getUsage(false).indexOf(
+				"(required)") != -1);
+
+		cl.addOption(new BooleanParam("verbose", "be chatty"));
+		assertTrue("added option not seen", cl.getUsage(false).indexOf(
+				"-verbose") != -1);
+
+		cl.setCmdDesc("does other stuff");
+		assertTrue("description not seen", cl.getUsage(false).indexOf(
+				"does other stuff") != -1);
+
+		UsageFormatter fmt = cl.getParser().getUsageFormatter();
+		s = cl.getUsage(false);
+		fmt.setLineLength(40);
+		try {
+			assertNotSame("line length change not seen", s, cl
+					.getUsage(false));
+			assertEquals("wrong usage", fmt.formatUsage("MyCmd",
+					"does other stuff", optionMap(cl), cl.getArgs(), false),
+					cl.getUsage(false));
+		} finally {
+			fmt.setLineLength(80);
+		}
+		assertSame("usage not cached per line length", s, cl.getUsage(false));
+
+		cl.setLocale(new Locale("xx"));
+		cl.addOption(new DateParam("date", "the date"));
+		assertTrue("locale not seen", cl.getUsage(false).indexOf(
+				"dd.MM.yy") != -1);
+		cl.setLocale(null);
+		assertTrue("locale not seen", cl.getUsage(false).indexOf(
+				"MM/dd/yy") != -1);
+	}
+
+	private static Map<String, Parameter<?>> optionMap(CmdLineHandler cl) {
+		HashMap<String, Parameter<?>> m = new HashMap<String, Parameter<?>>();
+		for (Parameter<?> p : cl.getOptions()) {
+			m.put(p.getTag().toLowerCase(), p);
+		}
+		return m;
+	}
+
+	/**
+	 * Tests writing the usage to a stream, including a usage too large to be
+	 * cached
+	 */
+	public void testWriteUsage() throws Exception {
+		StringParam arg = new StringParam("infile", "the input file");
+		BasicCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"does stuff", new Parameter[] {}, new Parameter[] { arg });
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream ps = new PrintStream(bytes, true, "UTF-8");
+		cl.writeUsage(false, ps);
+		assertEquals("wrong usage written", cl.getUsage(false), bytes
+				.toString("UTF-8"));
+
+		for (int i = 0; i < 2000; i++) {
+			cl.addOption(new StringParam("opt" + i, "option number " + i
+					+ ", which is described at some length to make the usage"
+					+ " long"));
+		}
+		String usage = cl.getUsage(false);
+		assertTrue("usage too short", usage.length() > 64 * 1024);
+		assertNotSame("long usage cached", usage, cl.getUsage(false));
+		StringBuilder sb = new StringBuilder();
+		cl.writeUsage(false, sb);
+		assertEquals("wrong long usage written", usage, sb.toString());
+		bytes.reset();
+		cl.writeUsage(false, ps);
+		assertEquals("wrong long usage printed", usage, bytes
+				.toString("UTF-8"));
+	}
+
+	/**
+	 * Tests that suggestions are included in the parse error
+	 */
+	public void testParseErrorSuggestions() throws Exception {
+		BasicCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"does stuff", new Parameter[] { new BooleanParam("verbose",
+						"be chatty") }, new Parameter[] {});
+		cl.setDieOnParseError(false);
+		assertFalse("bad option accepted", cl.parse(new String[] { "-vrebose" }));
+		assertTrue("no suggestion: " + cl.getParseError(), cl.getParseError()
+				.indexOf("-verbose?") != -1);
+		checkForMissingString(cl.getParseError());
+	}
+
+	/**
+	 * Tests that suggestions follow a change to the options, even to options
+	 * with the same number of tags
+	 */
+	public void testSuggestionsAfterSetOptions() throws Exception {
+		BasicCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"does stuff", new Parameter[] {
+						new BooleanParam("abx", "option abx"),
+						new BooleanParam("cdx", "option cdx") },
+				new Parameter[] {});
+		cl.setDieOnParseError(false);
+		assertFalse("bad option accepted", cl.parse(new String[] { "-abz" }));
+		assertTrue("no suggestion: " + cl.getParseError(), cl.getParseError()
+				.indexOf("-abx?") != -1);
+		cl.setOptions(new Parameter[] { new BooleanParam("adx", "option adx"),
+				new BooleanParam("cbx", "option cbx") });
+		cl.reset();
+		assertFalse("bad option accepted", cl.parse(new String[] { "-abz" }));
+		assertTrue("stale suggestion: " + cl.getParseError(), cl
+				.getParseError().indexOf("-abx") == -1);
+		checkForMissingString(cl.getParseError());
+	}
 }
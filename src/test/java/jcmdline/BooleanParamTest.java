@@ -138,4 +138,20 @@ public class BooleanParamTest extends BetterTestCase {
             debug("addValue(null) error: " + e.getMessage());
         }
     }
+
+    /**
+     * Tests convertValue() with the default value and the localized values
+     */
+    public void testConvertValue() throws CmdLineException {
+        BooleanParam p = new BooleanParam("mytag", "mydesc");
+        assertEquals("default value not converted", Boolean.TRUE, p.convertValue(p.getDefaultValue()));
+        assertEquals("'yes' not converted", Boolean.TRUE, p.convertValue(Strings.get("BooleanParam.yes")));
+        assertEquals("'no' not converted", Boolean.FALSE, p.convertValue(Strings.get("BooleanParam.no")));
+        try {
+            p.convertValue("maybe");
+            fail("'maybe' converted");
+        } catch (CmdLineException e) {
+            checkForMissingString(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * CmdLineHandlerPoolTest.java
+ *
+ * Classes:
+ *   public   CmdLineHandlerPoolTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+/**
+ * Unit test code for CmdLineHandlerPool
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class CmdLineHandlerPoolTest extends BetterTestCase {
+
+	/**
+	 * the number of handlers created by the factory
+	 */
+	private int created;
+
+	private CmdLineHandlerPool pool;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public CmdLineHandlerPoolTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, CmdLineHandlerPoolTest.class);
+	}
+
+	/**
+	 * Sets up data for the test
+	 */
+	public void setUp() {
+		created = 0;
+		pool = new CmdLineHandlerPool(new CmdLineHandlerPool.Factory() {
+			public CmdLineHandler createHandler() {
+				created++;
+				CmdLineHandler cl = new DefaultCmdLineHandler("MyCmd",
+						"does stuff", new Parameter[] { new StringParam("out",
+								"the output file") }, new Parameter[] {});
+				cl.setDieOnParseError(false);
+				return cl;
+			}
+		}, 1);
+	}
+
+	/**
+	 * Tests that released handlers are reused, and are reset
+	 */
+	public void testAcquireRelease() {
+		CmdLineHandler cl = pool.acquire();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-out", "f1" }));
+		pool.release(cl);
+		CmdLineHandler cl2 = pool.acquire();
+		assertSame("released handler not reused", cl, cl2);
+		assertFalse("reused handler not reset", cl2.getOption("out").isSet());
+		assertTrue("parse of reused handler failed: " + cl2.getParseError(),
+				cl2.parse(new String[] { "-out", "f2" }));
+		assertEquals("wrong value", "f2", cl2.getOption("out").getValue());
+		assertEquals("wrong number of handlers created", 1, created);
+	}
+
+	/**
+	 * Tests that no more than maxIdle handlers are retained
+	 */
+	public void testMaxIdle() {
+		CmdLineHandler cl1 = pool.acquire();
+		CmdLineHandler cl2 = pool.acquire();
+		pool.release(cl1);
+		pool.release(cl2);
+		assertSame("first released handler not retained", cl1, pool
+				.acquire());
+		assertNotSame("handler retained beyond maxIdle", cl2, pool.acquire());
+		assertEquals("wrong number of handlers created", 3, created);
+	}
+
+	/**
+	 * Tests the per-thread handler
+	 */
+	public void testGet() throws Exception {
+		CmdLineHandler cl = pool.get();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-out", "f1" }));
+		assertSame("thread did not get the same handler", cl, pool.get());
+		assertFalse("handler not reset", cl.getOption("out").isSet());
+		final CmdLineHandler[] other = new CmdLineHandler[1];
+		Thread t = new Thread() {
+			public void run() {
+				other[0] = pool.get();
+			}
+		};
+		t.start();
+		t.join();
+		assertNotSame("threads shared a handler", cl, other[0]);
+	}
+
+	/**
+	 * Tests that handlers whose Parameters can't be reset are not reused
+	 */
+	public void testExternalParameter() {
+		pool = new CmdLineHandlerPool(new CmdLineHandlerPool.Factory() {
+			public CmdLineHandler createHandler() {
+				created++;
+				CmdLineHandler cl = new ExternalCmdLineHandler("MyCmd",
+						"does stuff", new Parameter[] { new ExternalParameter(
+								"out", "the output file") }, new Parameter[] {});
+				cl.setDieOnParseError(false);
+				return cl;
+			}
+		});
+		CmdLineHandler cl = pool.acquire();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-out", "f1" }));
+		pool.release(cl);
+		CmdLineHandler cl2 = pool.acquire();
+		assertNotSame("handler that can't be reset was reused", cl, cl2);
+		assertFalse("new handler has a value", cl2.getOption("out").isSet());
+
+		cl = pool.get();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-out", "f1" }));
+		assertNotSame("per-thread handler that can't be reset was reused",
+				cl, pool.get());
+		assertEquals("wrong number of handlers created", 4, created);
+	}
+}
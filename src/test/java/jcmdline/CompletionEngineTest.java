@@ -0,0 +1,208 @@
+/*
+ * CompletionEngineTest.java
+ *
+ * Classes:
+ *   public   CompletionEngineTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Unit test code for CompletionEngine
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class CompletionEngineTest extends BetterTestCase {
+
+	private CompletionEngine engine;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public CompletionEngineTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, CompletionEngineTest.class);
+	}
+
+	/**
+	 * Sets up a handler with options of several types.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd", "does stuff",
+				new Parameter[] {
+						new StringParam("mode", "the mode", new String[] {
+								"fast", "faster", "slow" }),
+						new IntParam("level", "the level", new Integer[] {
+								1, 2, 10 }),
+						new StringParam("output", "the output name"),
+						new StringParam("outdir", "the output directory"),
+						new BooleanParam("verbose", "be chatty"),
+						new BooleanParam("debug", "hidden debugging",
+								BooleanParam.HIDDEN),
+						new FileParam("dir", "a directory",
+								FileParam.IS_DIR) },
+				new Parameter[] {
+						new StringParam("action", "the action",
+								new String[] { "start", "stop", "status" }),
+						new FileParam("files", "the input files",
+								FileParam.IS_FILE, FileParam.OPTIONAL,
+								FileParam.MULTI_VALUED) });
+		engine = new CompletionEngine(cl);
+	}
+
+	/**
+	 * Tests completing option tags
+	 */
+	public void testTags() throws Exception {
+		assertEquals("wrong tags", "[-outdir, -output]", complete("-ou"));
+		assertEquals("wrong tags", "[-outdir, -output]", complete("-OU"));
+		assertEquals("wrong tags", "[--mode]", complete("--m"));
+		assertEquals("hidden option offered", "[]", complete("-deb"));
+		assertEquals("wrong tags",
+				"[-dir, -level, -mode, -outdir, -output, -verbose]",
+				complete("-"));
+		assertEquals("option offered after '--'", "[]", complete("--", "-m"));
+	}
+
+	/**
+	 * Tests completing option values
+	 */
+	public void testOptionValues() throws Exception {
+		assertEquals("wrong values", "[fast, faster]", complete("-mode",
+				"fa"));
+		assertEquals("abbreviated tag not resolved", "[fast, faster, slow]",
+				complete("-mo", ""));
+		assertEquals("wrong values", "[1, 10]", complete("-level", "1"));
+		assertEquals("wrong values", "[-mode=fast, -mode=faster]",
+				complete("-m=fa"));
+		assertEquals("ambiguous tag resolved", "[]", complete("-out", ""));
+		assertEquals("hidden option not recognized", "[slow]", complete(
+				"-debug", "-mode", "sl"));
+		assertEquals("value offered for boolean option", "[start, status]",
+				complete("-verbose", "sta"));
+	}
+
+	/**
+	 * Tests completing argument values
+	 */
+	public void testArgs() throws Exception {
+		assertEquals("wrong values", "[start, status]", complete("sta"));
+		assertEquals("wrong values", "[stop]", complete("-mode", "slow",
+				"sto"));
+		assertEquals("wrong values", "[start, status, stop]", complete("--",
+				""));
+		assertEquals("second argument not used", "[]", complete("stop",
+				"st"));
+	}
+
+	/**
+	 * Tests completing file names, with the FileParam's attributes applied
+	 */
+	public void testFiles() throws Exception {
+		File dir = Files.createTempDirectory("completion").toFile();
+		try {
+			File sub = new File(dir, "subdir");
+			assertTrue("can't create directory", sub.mkdir());
+			assertTrue("can't create file", new File(dir, "subfile")
+					.createNewFile());
+			assertTrue("can't create file", new File(sub, "inner")
+					.createNewFile());
+			assertTrue("can't create file", new File(dir, ".hidden")
+					.createNewFile());
+			String s = File.separator;
+
+			assertEquals("wrong files", "[subdir" + s + ", subfile]",
+					completeIn(dir, "stop", "sub"));
+			assertEquals("wrong files", "[subdir" + s + "inner]", completeIn(
+					dir, "stop", "subdir/"));
+			assertEquals("file offered for directory", "[subdir" + s + "]",
+					completeIn(dir, "-dir", "s"));
+			assertEquals("wrong files", "[-dir=subdir" + s + "]", completeIn(
+					dir, "-dir=s"));
+			assertEquals("dot file offered", "[subdir" + s + ", subfile]",
+					completeIn(dir, "stop", ""));
+			assertEquals("dot file not offered", "[.hidden]", completeIn(dir,
+					"stop", "."));
+			assertEquals("wrong files", "[" + sub.getPath() + s + "inner]",
+					completeIn(dir, "stop", sub.getPath() + s));
+		} finally {
+			new File(new File(dir, "subdir"), "inner").delete();
+			new File(dir, "subdir").delete();
+			new File(dir, "subfile").delete();
+			new File(dir, ".hidden").delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Tests that a bad index is rejected
+	 */
+	public void testBadIndex() throws Exception {
+		try {
+			engine.complete(new String[] { "-m" }, 2);
+			fail("bad index accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			new CompletionEngine(null);
+			fail("null handler accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Completes the last of the specified words.
+	 */
+	private String complete(String... words) {
+		return engine.complete(words, words.length - 1).toString();
+	}
+
+	/**
+	 * Completes the last of the specified words, resolving file names against
+	 * <code>dir</code>.
+	 */
+	private String completeIn(File dir, String... words) {
+		return engine.complete(words, words.length - 1, dir).toString();
+	}
+}
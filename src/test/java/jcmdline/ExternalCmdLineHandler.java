@@ -0,0 +1,104 @@
+package jcmdline;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A CmdLineHandler, as written outside jcmdline, that implements only the
+ * methods CmdLineHandler requires, delegating them to a BasicCmdLineHandler -
+ * used to test the interface's default methods.
+ */
+public class ExternalCmdLineHandler implements CmdLineHandler {
+    private final BasicCmdLineHandler handler;
+
+    public ExternalCmdLineHandler(String cmdName,
+                                  String cmdDesc,
+                                  Parameter<?>[] options,
+                                  Parameter<?>[] args) {
+        handler = new BasicCmdLineHandler(cmdName, cmdDesc, options, args);
+    }
+
+    public void addArg(Parameter<?> arg) {
+        handler.addArg(arg);
+    }
+
+    public void addOption(Parameter<?> opt) {
+        handler.addOption(opt);
+    }
+
+    public void exitUsageError(String errMsg) {
+        handler.exitUsageError(errMsg);
+    }
+
+    public Parameter<?> getArg(String tag) {
+        return handler.getArg(tag);
+    }
+
+    public List<Parameter<?>> getArgs() {
+        return handler.getArgs();
+    }
+
+    public String getCmdDesc() {
+        return handler.getCmdDesc();
+    }
+
+    public String getCmdName() {
+        return handler.getCmdName();
+    }
+
+    public boolean getDieOnParseError() {
+        return handler.getDieOnParseError();
+    }
+
+    public Parameter<?> getOption(String tag) {
+        return handler.getOption(tag);
+    }
+
+    public Collection<Parameter<?>> getOptions() {
+        return handler.getOptions();
+    }
+
+    public String getParseError() {
+        return handler.getParseError();
+    }
+
+    public CmdLineParser getParser() {
+        return handler.getParser();
+    }
+
+    public String getUsage(boolean hidden) {
+        return handler.getUsage(hidden);
+    }
+
+    public boolean parse(String[] clargs) {
+        return handler.parse(clargs);
+    }
+
+    public void setArgs(Parameter<?>[] args) {
+        handler.setArgs(args);
+    }
+
+    public void setCmdDesc(String cmdDesc) {
+        handler.setCmdDesc(cmdDesc);
+    }
+
+    public void setCmdName(String cmdName) {
+        handler.setCmdName(cmdName);
+    }
+
+    public void setDieOnParseError(boolean val) {
+        handler.setDieOnParseError(val);
+    }
+
+    public void setOptions(Parameter<?>[] options) {
+        handler.setOptions(options);
+    }
+
+    public void setParseError(String parseError) {
+        handler.setParseError(parseError);
+    }
+
+    public void setParser(CmdLineParser parser) {
+        handler.setParser(parser);
+    }
+}
@@ -0,0 +1,117 @@
+package jcmdline;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A Parameter, as written outside jcmdline, that does not extend
+ * AbstractParameter, delegating its methods to a StringParam - used to test
+ * handlers holding Parameters whose values they cannot reset.
+ */
+public class ExternalParameter implements Parameter<String> {
+    private final StringParam param;
+
+    public ExternalParameter(String tag, String desc) {
+        param = new StringParam(tag, desc);
+    }
+
+    public void addStringValue(String value) throws CmdLineException {
+        param.addStringValue(value);
+    }
+
+    public void addValue(String value) throws CmdLineException {
+        param.addValue(value);
+    }
+
+    public List<String> getAcceptableValues() {
+        return param.getAcceptableValues();
+    }
+
+    public String getDesc() {
+        return param.getDesc();
+    }
+
+    public boolean getIgnoreRequired() {
+        return param.getIgnoreRequired();
+    }
+
+    public String getOptionLabel() {
+        return param.getOptionLabel();
+    }
+
+    public String getTag() {
+        return param.getTag();
+    }
+
+    public String getValue() {
+        return param.getValue();
+    }
+
+    public List<String> getValues() {
+        return param.getValues();
+    }
+
+    public boolean isHidden() {
+        return param.isHidden();
+    }
+
+    public boolean isMultiValued() {
+        return param.isMultiValued();
+    }
+
+    public boolean isOptional() {
+        return param.isOptional();
+    }
+
+    public boolean isSet() {
+        return param.isSet();
+    }
+
+    public void setAcceptableValues(Collection<String> vals) {
+        param.setAcceptableValues(vals);
+    }
+
+    public void setAcceptableValues(String[] vals) {
+        param.setAcceptableValues(vals);
+    }
+
+    public void setDesc(String desc) {
+        param.setDesc(desc);
+    }
+
+    public void setHidden(boolean hidden) {
+        param.setHidden(hidden);
+    }
+
+    public void setIgnoreRequired(boolean ignoreRequired) {
+        param.setIgnoreRequired(ignoreRequired);
+    }
+
+    public void setMultiValued(boolean multiValued) {
+        param.setMultiValued(multiValued);
+    }
+
+    public void setOptional(boolean optional) {
+        param.setOptional(optional);
+    }
+
+    public void setOptionLabel(String optionLabel) {
+        param.setOptionLabel(optionLabel);
+    }
+
+    public void setTag(String tag) {
+        param.setTag(tag);
+    }
+
+    public void setValue(String value) throws CmdLineException {
+        param.setValue(value);
+    }
+
+    public void setValues(List<String> values) throws CmdLineException {
+        param.setValues(values);
+    }
+
+    public void setValues(String[] values) throws CmdLineException {
+        param.setValues(values);
+    }
+}
@@ -284,4 +284,21 @@ public class FileParamTest extends BetterTestCase {
 		assertTrue("EXISTS is set, but shouldn't be", !p
 				.attrSpecified(FileParam.EXISTS));
 	}
+
+	/**
+	 * Tests that the default option label follows the IS_DIR attribute until
+	 * a label is set
+	 */
+	public void testOptionLabel() {
+		FileParam p = new FileParam("infile", "myDesc");
+		assertEquals("wrong file label", FileParam.DEFAULT_FILE_OPTION_LABEL, p
+				.getOptionLabel());
+		checkForMissingString(p.getOptionLabel());
+		p.setAttributes(FileParam.IS_DIR);
+		assertEquals("wrong directory label",
+				FileParam.DEFAULT_DIR_OPTION_LABEL, p.getOptionLabel());
+		checkForMissingString(p.getOptionLabel());
+		p.setOptionLabel("<out>");
+		assertEquals("label not set", "<out>", p.getOptionLabel());
+	}
 }
@@ -0,0 +1,173 @@
+/*
+ * FlatCmdLineHandlerTest.java
+ *
+ * Classes:
+ *   public   FlatCmdLineHandlerTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test code for FlatCmdLineHandler
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class FlatCmdLineHandlerTest extends BetterTestCase {
+
+	/**
+	 * records the order in which processParsedOptions() is called
+	 */
+	private List<String> calls = new ArrayList<String>();
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public FlatCmdLineHandlerTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, FlatCmdLineHandlerTest.class);
+	}
+
+	/**
+	 * Tests that decorators are called innermost first, with the parse
+	 * status passed along
+	 */
+	public void testProcessOrder() {
+		CmdLineHandler cl = new FlatCmdLineHandler(new Recorder("outer",
+				new Recorder("inner", new BasicCmdLineHandler("mycmd",
+						"cmd description", new Parameter[] {},
+						new Parameter[] {}))));
+		cl.setDieOnParseError(false);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] {}));
+		assertEquals("wrong call order", "[inner:true, outer:true]", calls
+				.toString());
+		calls.clear();
+		assertFalse("bad parse returned true", cl
+				.parse(new String[] { "junk" }));
+		assertEquals("wrong call order", "[inner:false, outer:false]", calls
+				.toString());
+	}
+
+	/**
+	 * Tests the standard decorators, flattened, running in process
+	 */
+	public void testStandardDecorators() {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		StringParam p1 = new StringParam("param1", "param1's description");
+		ConfigurableCmdLineHandler cl = new FlatCmdLineHandler(
+				new VersionCmdLineHandler("V 1.0", new HelpCmdLineHandler(
+						"some help text", "mycmd", "cmd description",
+						new Parameter[] { p1 }, new Parameter[] {})));
+		cl.setInProcess(true);
+		cl.setOut(new PrintStream(buf, true));
+		assertFalse("help request returned true", cl
+				.parse(new String[] { "-help" }));
+		assertEquals("wrong outcome", ParseOutcome.Status.HELP, cl
+				.getOutcome().getStatus());
+		assertTrue("help not written", buf.toString().indexOf(
+				"some help text") != -1);
+		cl.reset();
+		buf.reset();
+		assertFalse("version request returned true", cl
+				.parse(new String[] { "-version" }));
+		assertEquals("version not written", "V 1.0", buf.toString().trim());
+		cl.reset();
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-param1", "x" }));
+		assertEquals("option not set", "x", p1.getValue());
+	}
+
+	/**
+	 * Tests that setOptions() retains the custom options of every decorator
+	 */
+	public void testSetOptions() {
+		CmdLineHandler cl = new FlatCmdLineHandler(new VersionCmdLineHandler(
+				"V 1.0", new HelpCmdLineHandler("some help text", "mycmd",
+						"cmd description", new Parameter[] {},
+						new Parameter[] {})));
+		StringParam p1 = new StringParam("param1", "param1's description");
+		cl.setOptions(new Parameter[] { p1 });
+		assertSame("new option not set", p1, cl.getOption("param1"));
+		assertNotNull("version option lost", cl.getOption("version"));
+		assertNotNull("help option lost", cl.getOption("help"));
+		assertNotNull("usage option lost", cl.getOption("?"));
+	}
+
+	/**
+	 * Tests that a decorator overriding a CmdLineHandler method is rejected
+	 */
+	public void testOverrideRejected() {
+		CmdLineHandler cl = new Recorder("r", new BasicCmdLineHandler(
+				"mycmd", "cmd description", new Parameter[] {},
+				new Parameter[] {})) {
+			@Override
+			public String getUsage(boolean hidden) {
+				return "custom";
+			}
+		};
+		try {
+			new FlatCmdLineHandler(cl);
+			fail("decorator overriding getUsage() accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * A decorator that records calls to processParsedOptions()
+	 */
+	class Recorder extends AbstractHandlerDecorator {
+		private final String name;
+
+		Recorder(String name, CmdLineHandler handler) {
+			super(handler);
+			this.name = name;
+			setCustomOptions(null);
+		}
+
+		@Override
+		protected boolean processParsedOptions(boolean parseOk) {
+			calls.add(name + ":" + parseOk);
+			return parseOk;
+		}
+	}
+}
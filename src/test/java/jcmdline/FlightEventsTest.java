@@ -0,0 +1,171 @@
+/*
+ * FlightEventsTest.java
+ *
+ * Classes:
+ *   public   FlightEventsTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit test code for the Flight Recorder events
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class FlightEventsTest extends BetterTestCase {
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public FlightEventsTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, FlightEventsTest.class);
+	}
+
+	/**
+	 * Tests that nothing is recorded while the events are disabled
+	 */
+	public void testDisabled() throws Exception {
+		assertTrue("Flight Recorder events not used",
+				FlightEvents.INSTANCE instanceof JfrFlightEvents);
+		Recording r = new Recording();
+		r.start();
+		try {
+			assertNull("disabled event begun", FlightEvents.INSTANCE
+					.beginParse());
+			assertNull("disabled event begun", FlightEvents.INSTANCE
+					.beginValue());
+			r.stop();
+			assertTrue("disabled events recorded", read(r).isEmpty());
+		} finally {
+			r.close();
+		}
+	}
+
+	/**
+	 * Tests the events recorded for a parse, its values, a file check and a
+	 * usage
+	 */
+	public void testEvents() throws Exception {
+		File dir = Files.createTempDirectory("flightevents").toFile();
+		FileParam file = new FileParam("file", "a directory", FileParam.IS_DIR);
+		StringParam names = new StringParam("name", "names");
+		names.setMultiValued(true);
+		BasicCmdLineHandler h = new BasicCmdLineHandler("mycmd", "my command",
+				new Parameter[] { file, names }, new Parameter[] {});
+		h.setDieOnParseError(false);
+		Recording r = new Recording();
+		r.enable("jcmdline.Parse").withThreshold(Duration.ZERO);
+		r.enable("jcmdline.ParameterValue").withThreshold(Duration.ZERO);
+		r.enable("jcmdline.FileCheck").withThreshold(Duration.ZERO);
+		r.enable("jcmdline.Usage").withThreshold(Duration.ZERO);
+		r.start();
+		try {
+			assertTrue("parse failed", h.parse(new String[] { "-file",
+					dir.getPath(), "-name", "a", "-name", "b" }));
+			h.reset();
+			assertFalse("parse succeeded", h.parse(new String[] { "-file",
+					new File(dir, "none").getPath() }));
+			h.getUsage(false);
+			r.stop();
+
+			List<RecordedEvent> events = read(r);
+			List<String> parses = new ArrayList<String>();
+			List<String> values = new ArrayList<String>();
+			List<String> checks = new ArrayList<String>();
+			int usages = 0;
+			for (RecordedEvent e : events) {
+				String type = e.getEventType().getName();
+				if (type.equals("jcmdline.Parse")) {
+					parses.add(e.getString("command") + ":"
+							+ e.getBoolean("succeeded") + ":"
+							+ e.getString("errorKey"));
+				} else if (type.equals("jcmdline.ParameterValue")) {
+					values.add(e.getString("tag") + ":" + e.getInt("valueCount")
+							+ ":" + e.getBoolean("succeeded"));
+				} else if (type.equals("jcmdline.FileCheck")) {
+					checks.add(e.getString("tag") + ":"
+							+ e.getBoolean("succeeded"));
+				} else if (type.equals("jcmdline.Usage")) {
+					assertEquals("wrong usage command", "mycmd", e
+							.getString("command"));
+					usages++;
+				}
+			}
+			assertEquals("wrong parse events", "[mycmd:true:null, "
+					+ "mycmd:false:FileParam.illegalValue]", parses.toString());
+			assertEquals("wrong value events", "[file:1:true, name:1:true, "
+					+ "name:2:true, file:0:false]", values.toString());
+			assertEquals("wrong file check events", "[file:true, file:false]",
+					checks.toString());
+			assertEquals("wrong usage events", 1, usages);
+		} finally {
+			r.close();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Reads the jcmdline events of a stopped recording.
+	 */
+	private static List<RecordedEvent> read(Recording r) throws Exception {
+		Path p = Files.createTempFile("flightevents", ".jfr");
+		try {
+			r.dump(p);
+			List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+			for (RecordedEvent e : RecordingFile.readAllEvents(p)) {
+				if (e.getEventType().getName().startsWith("jcmdline.")) {
+					events.add(e);
+				}
+			}
+			return events;
+		} finally {
+			Files.delete(p);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * JsonArrayArgSourceTest.java
+ *
+ * Classes:
+ *   public   JsonArrayArgSourceTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit test code for JsonArrayArgSource
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class JsonArrayArgSourceTest extends BetterTestCase {
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public JsonArrayArgSourceTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, JsonArrayArgSourceTest.class);
+	}
+
+	/**
+	 * Tests a simple array
+	 */
+	public void testSimple() throws Exception {
+		assertEquals("wrong arguments", "[-out, result.txt, infile]",
+				readAll(new JsonArrayArgSource(
+						" [ \"-out\",\"result.txt\" ,\n\"infile\" ] ")));
+	}
+
+	/**
+	 * Tests an empty array
+	 */
+	public void testEmpty() throws Exception {
+		assertEquals("wrong arguments", "[]", readAll(new JsonArrayArgSource(
+				"[ ]")));
+	}
+
+	/**
+	 * Tests escape processing
+	 */
+	public void testEscapes() throws Exception {
+		JsonArrayArgSource src = new JsonArrayArgSource(
+				"[\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\u65e5\"]");
+		assertEquals("escapes not processed", "a\"b\\c/d\n\t\u00e9\u65e5", src
+				.next());
+		assertFalse("extra element returned", src.hasNext());
+	}
+
+	/**
+	 * Tests reading from a Reader that returns one character at a time, so
+	 * that strings and escapes span buffer fills
+	 */
+	public void testReader() throws Exception {
+		Reader r = new StringReader("[\"abc\\u0041def\", \"\", \"x\\\"y\"]") {
+			@Override
+			public int read(char[] cbuf, int off, int len)
+					throws java.io.IOException {
+				return super.read(cbuf, off, Math.min(len, 1));
+			}
+		};
+		assertEquals("wrong arguments", "[abcAdef, , x\"y]",
+				readAll(new JsonArrayArgSource(r)));
+	}
+
+	/**
+	 * Tests that malformed input is rejected
+	 */
+	public void testMalformed() throws Exception {
+		String[] bad = new String[] { "", "\"a\"", "[\"a\",]", "[\"a\" \"b\"]",
+				"[1]", "[\"a\\x\"]", "[\"a]", "[\"a\"] x", "[\"\\u12\"]" };
+		for (int i = 0; i < bad.length; i++) {
+			try {
+				readAll(new JsonArrayArgSource(bad[i]));
+				fail("malformed input accepted: " + bad[i]);
+			} catch (CmdLineException e) {
+				checkForMissingString(e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Tests that elements following a parse error are never read
+	 */
+	public void testParseStopsAtError() throws Exception {
+		StringParam opt = new StringParam("out", "the output file");
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd", "does stuff",
+				new Parameter[] { opt }, new Parameter[] {});
+		cl.setDieOnParseError(false);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new JsonArrayArgSource("[\"-out\", \"result.txt\"]")));
+		assertEquals("option not set", "result.txt", opt.getValue());
+		assertFalse("bad option accepted", cl.parse(new JsonArrayArgSource(
+				"[\"-bogus\", garbage")));
+		assertTrue("wrong error: " + cl.getParseError(), cl.getParseError()
+				.indexOf("bogus") != -1);
+	}
+
+	/**
+	 * Tests the default CmdLineParser.parse(CmdLineArgSource, ...), which
+	 * reads all of the arguments before parsing them
+	 */
+	public void testDefaultParse() throws Exception {
+		final List<String> parsed = new ArrayList<String>();
+		CmdLineParser parser = new CmdLineParser() {
+			private UsageFormatter formatter = new TextUsageFormatter();
+
+			public UsageFormatter getUsageFormatter() {
+				return formatter;
+			}
+
+			public void parse(String[] clargs, Map<String, Parameter<?>> opts,
+					List<Parameter<?>> args) throws CmdLineException {
+				parsed.addAll(Arrays.asList(clargs));
+			}
+
+			public void setUsageFormatter(UsageFormatter usageFormatter) {
+				formatter = usageFormatter;
+			}
+		};
+		parser.parse(new JsonArrayArgSource("[\"-out\", \"x y\", \"z\"]"),
+				new HashMap<String, Parameter<?>>(),
+				new ArrayList<Parameter<?>>());
+		assertEquals("wrong arguments", "[-out, x y, z]", parsed.toString());
+	}
+
+	/**
+	 * Reads all of the arguments from a source.
+	 */
+	private static String readAll(CmdLineArgSource src) throws Exception {
+		List<String> l = new ArrayList<String>();
+		while (src.hasNext()) {
+			l.add(src.next());
+		}
+		return l.toString();
+	}
+}
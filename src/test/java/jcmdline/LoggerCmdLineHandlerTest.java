@@ -34,9 +34,12 @@
 package jcmdline;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.logging.StreamHandler;
 
 import jcmdline.LoggerCmdLineHandler;
 import jcmdline.Parameter;
@@ -129,6 +132,218 @@ public class LoggerCmdLineHandlerTest extends BetterTestCase {
         stream.reset();
     }
 
+    /**
+     * Tests asynchronous logging, and that re-parsing does not add Handlers
+     */
+    public void testAsync() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        LoggerCmdLineHandler h = new LoggerCmdLineHandler(
+            stream, cmdname, cmddesc,
+            new Parameter[] { param1 },
+            new Parameter[] { param2 });
+        Logger logger = Logger.getLogger("");
+        // the Handler left by an earlier test is shared, and may be replaced
+        logger.removeHandler(h.getInstalledHandler());
+        int handlerCount = logger.getHandlers().length;
+        try {
+            h.parse(new String[] { "-log", Level.INFO.getLocalizedName(),
+                                   "-logasync" });
+            assertTrue("async handler not installed",
+                       h.getInstalledHandler() instanceof AsyncLogHandler);
+            Handler installed = h.getInstalledHandler();
+            logger.info("async log message");
+            installed.flush();
+            assertTrue("async log message did not come through",
+                       stream.toString().indexOf("async log message") != -1);
+
+            h.reset();
+            h.parse(new String[] { "-log", Level.WARNING.getLocalizedName(),
+                                   "-logasync" });
+            assertSame("async handler not reused", installed,
+                       h.getInstalledHandler());
+            assertEquals("handler added more than once", handlerCount + 1,
+                         logger.getHandlers().length);
+            assertEquals("handler level not changed", Level.WARNING,
+                         installed.getLevel());
+
+            h.reset();
+            h.parse(new String[] { "-log", Level.INFO.getLocalizedName() });
+            assertTrue("stream handler not installed",
+                       h.getInstalledHandler() instanceof StreamHandler);
+            assertEquals("replaced handler not removed", handlerCount + 1,
+                         logger.getHandlers().length);
+        } finally {
+            logger.removeHandler(h.getInstalledHandler());
+            logger.setLevel(Level.INFO);
+        }
+    }
+
+    /**
+     * Tests that LoggerCmdLineHandlers logging to the same stream share one
+     * Handler
+     */
+    public void testSharedHandler() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        LoggerCmdLineHandler[] h = new LoggerCmdLineHandler[3];
+        for (int i = 0; i < h.length; i++) {
+            h[i] = new LoggerCmdLineHandler(
+                stream, cmdname, cmddesc,
+                new Parameter[] { new StringParam("p1", "param one") },
+                new Parameter[] { new StringParam("p2", "param two") });
+        }
+        Logger logger = Logger.getLogger("");
+        // the Handler left by an earlier test is shared, and may be replaced
+        logger.removeHandler(h[0].getInstalledHandler());
+        int handlerCount = logger.getHandlers().length;
+        try {
+            for (int i = 0; i < h.length; i++) {
+                h[i].parse(new String[] { "-log",
+                                          Level.INFO.getLocalizedName() });
+            }
+            assertEquals("handler added more than once", handlerCount + 1,
+                         logger.getHandlers().length);
+            assertSame("handler not shared", h[0].getInstalledHandler(),
+                       h[2].getInstalledHandler());
+
+            h[1].reset();
+            h[1].parse(new String[] { "-log", Level.INFO.getLocalizedName(),
+                                      "-logasync" });
+            assertTrue("async handler not installed",
+                       h[0].getInstalledHandler() instanceof AsyncLogHandler);
+            assertEquals("replaced handler not removed", handlerCount + 1,
+                         logger.getHandlers().length);
+        } finally {
+            logger.removeHandler(h[0].getInstalledHandler());
+            h[0].getInstalledHandler().close();
+            logger.setLevel(Level.INFO);
+        }
+    }
+
+    /**
+     * Tests setting the levels of named loggers
+     */
+    public void testLoggerLevels() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        LoggerCmdLineHandler h = new LoggerCmdLineHandler(
+            stream, cmdname, cmddesc,
+            new Parameter[] { param1 },
+            new Parameter[] { param2 });
+        h.setDieOnParseError(false);
+        Logger root = Logger.getLogger("");
+        Logger sub = Logger.getLogger("jcmdline.test.sub");
+        Logger child = Logger.getLogger("jcmdline.test.sub.child");
+        Logger other = Logger.getLogger("jcmdline.test.other");
+        try {
+            assertTrue("parse failed", h.parse(new String[] {
+                "-log", Level.INFO.getLocalizedName(),
+                "-log", "jcmdline.test=WARNING",
+                "-log", "jcmdline.test.sub=" + Level.FINE.getLocalizedName() }));
+            assertEquals("root level not set", Level.INFO, root.getLevel());
+            assertEquals("logger level not set", Level.FINE, sub.getLevel());
+            assertEquals("handler level not the lowest", Level.FINE,
+                         h.getInstalledHandler().getLevel());
+
+            child.fine("child message");
+            other.fine("other fine message");
+            other.info("other info message");
+            h.getInstalledHandler().flush();
+            String out = stream.toString();
+            assertTrue("child message did not come through",
+                       out.indexOf("child message") != -1);
+            assertTrue("other fine message came through",
+                       out.indexOf("other fine message") == -1);
+            assertTrue("parent level not applied to other logger",
+                       out.indexOf("other info message") == -1);
+
+            h.reset();
+            assertTrue("parse failed", h.parse(new String[] {
+                "-log", "jcmdline.test.other=FINER" }));
+            assertNull("level of logger not respecified was kept",
+                       sub.getLevel());
+            assertEquals("logger level not set", Level.FINER, other.getLevel());
+
+            h.reset();
+            assertFalse("bad level accepted", h.parse(new String[] {
+                "-log", "jcmdline.test=LOUD" }));
+            checkForMissingString(h.getParseError());
+            assertTrue("value not in error message",
+                       h.getParseError().indexOf("jcmdline.test=LOUD") != -1);
+        } finally {
+            root.removeHandler(h.getInstalledHandler());
+            root.setLevel(Level.INFO);
+            Logger.getLogger("jcmdline.test").setLevel(null);
+            sub.setLevel(null);
+            other.setLevel(null);
+        }
+    }
+
+    /**
+     * Tests writing log records to a mapped log file
+     */
+    public void testLogFile() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        LoggerCmdLineHandler h = new LoggerCmdLineHandler(
+            stream, cmdname, cmddesc,
+            new Parameter[] { param1 },
+            new Parameter[] { param2 });
+        h.setDieOnParseError(false);
+        h.setLogFileSegmentSize(4096);
+        h.setLogFileSegmentCount(2);
+        Logger logger = Logger.getLogger("");
+        File dir = Files.createTempDirectory("loggercmd").toFile();
+        File log = new File(dir, "mycmd.log");
+        try {
+            assertTrue("parse failed", h.parse(new String[] {
+                "-log", Level.INFO.getLocalizedName(),
+                "-logfile", log.getPath() }));
+            Handler installed = h.getInstalledHandler();
+            assertTrue("mapped file handler not installed",
+                       installed instanceof MappedFileLogHandler);
+            logger.info("file log message");
+
+            h.reset();
+            assertTrue("parse failed", h.parse(new String[] {
+                "-log", Level.INFO.getLocalizedName(),
+                "-logfile", log.getPath() }));
+            assertSame("mapped file handler not reused", installed,
+                       h.getInstalledHandler());
+
+            h.reset();
+            assertTrue("parse failed", h.parse(new String[] {
+                "-log", Level.INFO.getLocalizedName() }));
+            assertTrue("stream handler not installed",
+                       h.getInstalledHandler() instanceof StreamHandler);
+            String contents = new String(Files.readAllBytes(log.toPath()));
+            assertTrue("log message not written to file",
+                       contents.indexOf("file log message") != -1);
+            assertEquals("log file not truncated when closed",
+                         contents.length(), log.length());
+            assertEquals("log message written to stream", 0, stream.size());
+
+            h.reset();
+            assertTrue("parse failed", h.parse(new String[] {
+                "-logfile", log.getPath() }));
+            assertTrue("log file ignored without -log",
+                       h.getInstalledHandler() instanceof MappedFileLogHandler);
+            assertEquals("wrong default level", Level.INFO,
+                         h.getInstalledHandler().getLevel());
+
+            h.reset();
+            assertFalse("unwritable log file accepted", h.parse(new String[] {
+                "-log", Level.INFO.getLocalizedName(),
+                "-logfile", new File(log, "sub.log").getPath() }));
+            checkForMissingString(h.getParseError());
+        } finally {
+            logger.removeHandler(h.getInstalledHandler());
+            logger.setLevel(Level.INFO);
+            File[] files = dir.listFiles();
+            for (int i = 0; i < files.length; i++) {
+                files[i].delete();
+            }
+            dir.delete();
+        }
+    }
+
     /**
      * Flushes all Handlers associated with the specified Logger.
      *
@@ -0,0 +1,213 @@
+/*
+ * MappedFileLogHandlerTest.java
+ *
+ * Classes:
+ *   public   MappedFileLogHandlerTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Unit test code for MappedFileLogHandler
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class MappedFileLogHandlerTest extends BetterTestCase {
+
+	private File dir;
+
+	private File log;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public MappedFileLogHandlerTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, MappedFileLogHandlerTest.class);
+	}
+
+	/**
+	 * Creates a directory for the log files.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		dir = Files.createTempDirectory("mappedlog").toFile();
+		log = new File(dir, "test.log");
+	}
+
+	/**
+	 * Removes the log files.
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = dir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		dir.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that records are written with the Formatter's head and tail, and
+	 * the file truncated when closed
+	 */
+	public void testWrite() throws Exception {
+		MappedFileLogHandler h = new MappedFileLogHandler(log,
+				new MessageFormatter(), 4096, 3);
+		h.setEncoding("UTF-8");
+		h.setLevel(Level.INFO);
+		h.publish(new LogRecord(Level.INFO, "one"));
+		h.publish(new LogRecord(Level.FINE, "fine"));
+		h.publish(new LogRecord(Level.WARNING, "two \u00e9"));
+		h.close();
+		h.publish(new LogRecord(Level.INFO, "late"));
+		h.close();
+		assertEquals("wrong file contents", "HEAD\none\ntwo \u00e9\nTAIL\n",
+				read(log));
+		assertEquals("wrong files", 1, dir.list().length);
+	}
+
+	/**
+	 * Tests rolling to new segments and discarding the oldest
+	 */
+	public void testRoll() throws Exception {
+		assertTrue("can't create file", log.createNewFile());
+		MappedFileLogHandler h = new MappedFileLogHandler(log,
+				new MessageFormatter(), 20, 3);
+		h.setEncoding("UTF-8");
+		assertTrue("existing file not rolled", new File(dir, "test.log.1")
+				.exists());
+		for (int i = 0; i < 6; i++) {
+			// head, two 6-byte records and tail fill a segment
+			h.publish(new LogRecord(Level.INFO, "rec-" + i));
+		}
+		h.close();
+		assertEquals("wrong files", 3, dir.list().length);
+		assertEquals("wrong current segment", "HEAD\nrec-4\nrec-5\nTAIL\n",
+				read(log));
+		assertEquals("wrong rolled segment", "HEAD\nrec-2\nrec-3\nTAIL\n",
+				read(new File(dir, "test.log.1")));
+		assertEquals("wrong oldest segment", "HEAD\nrec-0\nrec-1\nTAIL\n",
+				read(new File(dir, "test.log.2")));
+	}
+
+	/**
+	 * Tests that a record larger than a segment is written to a segment of
+	 * its own
+	 */
+	public void testLargeRecord() throws Exception {
+		MappedFileLogHandler h = new MappedFileLogHandler(log,
+				new MessageFormatter(), 16, 4);
+		h.setEncoding("UTF-8");
+		StringBuilder big = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			big.append("x");
+		}
+		h.publish(new LogRecord(Level.INFO, "a"));
+		h.publish(new LogRecord(Level.INFO, big.toString()));
+		h.publish(new LogRecord(Level.INFO, "b"));
+		h.close();
+		assertEquals("wrong current segment", "HEAD\nb\nTAIL\n", read(log));
+		assertEquals("wrong large segment", "HEAD\n" + big + "\nTAIL\n",
+				read(new File(dir, "test.log.1")));
+		assertEquals("wrong first segment", "HEAD\na\nTAIL\n", read(new File(
+				dir, "test.log.2")));
+	}
+
+	/**
+	 * Tests that bad arguments are rejected
+	 */
+	public void testBadArgs() throws Exception {
+		try {
+			new MappedFileLogHandler(log, new MessageFormatter(), 0, 1);
+			fail("zero segment size accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			new MappedFileLogHandler(log, new MessageFormatter(), 100, 0);
+			fail("zero segment count accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			new MappedFileLogHandler(null, new MessageFormatter());
+			fail("null file accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads a file as UTF-8.
+	 */
+	private static String read(File f) throws IOException {
+		return new String(Files.readAllBytes(f.toPath()),
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Formats each record as its message on a line of its own.
+	 */
+	private static class MessageFormatter extends Formatter {
+		@Override
+		public String format(LogRecord record) {
+			return record.getMessage() + "\n";
+		}
+
+		@Override
+		public String getHead(Handler h) {
+			return "HEAD\n";
+		}
+
+		@Override
+		public String getTail(Handler h) {
+			return "TAIL\n";
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * NulDelimitedArgSourceTest.java
+ *
+ * Classes:
+ *   public   NulDelimitedArgSourceTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Unit test code for NulDelimitedArgSource
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class NulDelimitedArgSourceTest extends BetterTestCase {
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public NulDelimitedArgSourceTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, NulDelimitedArgSourceTest.class);
+	}
+
+	/**
+	 * Tests arguments read from a heap buffer, terminated as in
+	 * /proc/&lt;pid&gt;/cmdline
+	 */
+	public void testHeapBuffer() throws Exception {
+		List<String> l = readAll(new NulDelimitedArgSource(ByteBuffer
+				.wrap(bytes("-out\0result.txt\0infile\0"))));
+		assertEquals("wrong arguments", "[-out, result.txt, infile]", l
+				.toString());
+	}
+
+	/**
+	 * Tests that the position of the caller's buffer is not changed
+	 */
+	public void testBufferNotConsumed() throws Exception {
+		ByteBuffer b = ByteBuffer.wrap(bytes("a\0b"));
+		readAll(new NulDelimitedArgSource(b));
+		assertEquals("buffer position changed", 0, b.position());
+	}
+
+	/**
+	 * Tests a final argument with no terminating NUL, and an empty argument
+	 */
+	public void testUnterminatedAndEmpty() throws Exception {
+		List<String> l = readAll(new NulDelimitedArgSource(ByteBuffer
+				.wrap(bytes("a\0\0b"))));
+		assertEquals("wrong number of arguments", 3, l.size());
+		assertEquals("empty argument not returned", "", l.get(1));
+		assertEquals("unterminated argument not returned", "b", l.get(2));
+	}
+
+	/**
+	 * Tests ASCII and non-ASCII arguments read from a direct buffer
+	 */
+	public void testDirectBuffer() throws Exception {
+		byte[] b = bytes("café\0plain\0日本\0");
+		ByteBuffer direct = ByteBuffer.allocateDirect(b.length);
+		direct.put(b).flip();
+		List<String> l = readAll(new NulDelimitedArgSource(direct));
+		assertEquals("wrong arguments", "[café, plain, 日本]", l
+				.toString());
+	}
+
+	/**
+	 * Tests reading from a channel that returns a few bytes per read, with an
+	 * argument longer than the channel buffer
+	 */
+	public void testChannel() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		String longArg = sb.toString();
+		List<String> l = readAll(new NulDelimitedArgSource(new TrickleChannel(
+				bytes("-x\0" + longArg + "\0été\0"), 7)));
+		assertEquals("wrong number of arguments", 3, l.size());
+		assertEquals("long argument not read", longArg, l.get(1));
+		assertEquals("split multi-byte argument not read", "été", l
+				.get(2));
+	}
+
+	/**
+	 * Tests parsing through a CmdLineHandler
+	 */
+	public void testParse() throws Exception {
+		StringParam opt = new StringParam("out", "the output file");
+		StringParam arg = new StringParam("infile", "the input file",
+				StringParam.REQUIRED);
+		CmdLineHandler cl = new BasicCmdLineHandler("MyCmd", "does stuff",
+				new Parameter[] { opt }, new Parameter[] { arg });
+		cl.setDieOnParseError(false);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new NulDelimitedArgSource(ByteBuffer
+						.wrap(bytes("-o\0result.txt\0infile\0")))));
+		assertEquals("option not set", "result.txt", opt.getValue());
+		assertEquals("argument not set", "infile", arg.getValue());
+	}
+
+	/**
+	 * Tests parsing through a CmdLineHandler that relies on the interface's
+	 * default parse(CmdLineArgSource)
+	 */
+	public void testParseDefault() throws Exception {
+		StringParam opt = new StringParam("out", "the output file");
+		StringParam arg = new StringParam("infile", "the input file",
+				StringParam.REQUIRED);
+		CmdLineHandler cl = new ExternalCmdLineHandler("MyCmd", "does stuff",
+				new Parameter[] { opt }, new Parameter[] { arg });
+		cl.setDieOnParseError(false);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new NulDelimitedArgSource(ByteBuffer
+						.wrap(bytes("-o\0result.txt\0infile\0")))));
+		assertEquals("option not set", "result.txt", opt.getValue());
+		assertEquals("argument not set", "infile", arg.getValue());
+
+		try {
+			cl.parse(new CmdLineArgSource() {
+				public boolean hasNext() throws CmdLineException {
+					throw new CmdLineException("unreadable");
+				}
+
+				public String next() {
+					throw new NoSuchElementException();
+				}
+			});
+			fail("unreadable source accepted");
+		} catch (IllegalArgumentException e) {
+			assertEquals("wrong message", "unreadable", e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads all of the arguments from a source.
+	 */
+	private static List<String> readAll(CmdLineArgSource src) throws Exception {
+		List<String> l = new ArrayList<String>();
+		while (src.hasNext()) {
+			l.add(src.next());
+		}
+		return l;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A channel that returns at most a specified number of bytes per read.
+	 */
+	private static class TrickleChannel implements ReadableByteChannel {
+		private final ByteBuffer data;
+		private final int chunk;
+
+		TrickleChannel(byte[] data, int chunk) {
+			this.data = ByteBuffer.wrap(data);
+			this.chunk = chunk;
+		}
+
+		public int read(ByteBuffer dst) {
+			if (!data.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(chunk, Math.min(dst.remaining(), data.remaining()));
+			for (int i = 0; i < n; i++) {
+				dst.put(data.get());
+			}
+			return n;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void close() {
+		}
+	}
+}
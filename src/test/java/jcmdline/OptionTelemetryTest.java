@@ -0,0 +1,239 @@
+/*
+ * OptionTelemetryTest.java
+ *
+ * Classes:
+ *   public   OptionTelemetryTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test code for OptionTelemetry
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class OptionTelemetryTest extends BetterTestCase {
+
+	private StringParam name;
+
+	private IntParam num;
+
+	private StringParam arg;
+
+	private BasicCmdLineHandler h;
+
+	private OptionTelemetry telemetry;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public OptionTelemetryTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, OptionTelemetryTest.class);
+	}
+
+	/**
+	 * Creates a handler recording to a new OptionTelemetry.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		name = new StringParam("name", "a name");
+		num = new IntParam("num", "a number", 1, 10);
+		arg = new StringParam("arg", "an argument", StringParam.REQUIRED);
+		h = new BasicCmdLineHandler("mycmd", "my command", new Parameter[] {
+				name, num }, new Parameter[] { arg });
+		h.setDieOnParseError(false);
+		telemetry = new OptionTelemetry(1);
+		h.setTelemetry(telemetry);
+	}
+
+	/**
+	 * Tests counting uses, distinct values, and errors by tag
+	 */
+	public void testCounts() {
+		for (int i = 0; i < 20; i++) {
+			parse(new String[] { "-name", "n" + (i % 4), "a" });
+		}
+		parse(new String[] { "-num", "5", "a" });
+		parse(new String[] { "-num", "50", "a" });
+		parse(new String[] { "-num", "5" });
+		parse(new String[] { "-bogus", "a" });
+
+		OptionTelemetry.Snapshot s = telemetry.snapshot();
+		assertEquals("wrong parse count", 24, s.getParseCount());
+		assertEquals("wrong error count", 3, s.getErrorCount());
+		OptionTelemetry.TagCounts names = s.getTags().get("name");
+		assertEquals("wrong name uses", 20, names.getUses());
+		assertEquals("wrong distinct names", 4, names.getDistinctValues());
+		assertEquals("wrong name errors", 0, names.getErrors());
+		OptionTelemetry.TagCounts nums = s.getTags().get("num");
+		assertEquals("wrong num uses", 2, nums.getUses());
+		assertEquals("wrong num errors", 1, nums.getErrors());
+		assertEquals("wrong num error rate", 1.0 / 3, nums.getErrorRate(),
+				1e-9);
+		OptionTelemetry.TagCounts args = s.getTags().get("arg");
+		assertEquals("wrong arg uses", 21, args.getUses());
+		assertEquals("wrong arg errors", 1, args.getErrors());
+		assertNull("unrecognized tag counted", s.getTags().get("bogus"));
+
+		telemetry.reset();
+		assertEquals("not reset", 0, telemetry.snapshot().getParseCount());
+		assertTrue("tags not reset", telemetry.snapshot().getTags().isEmpty());
+
+		h.setTelemetry(null);
+		parse(new String[] { "a" });
+		assertEquals("recorded when removed", 0, telemetry.snapshot()
+				.getParseCount());
+	}
+
+	/**
+	 * Tests that a sampled OptionTelemetry scales its counts
+	 */
+	public void testSampling() {
+		telemetry = new OptionTelemetry(4);
+		h.setTelemetry(telemetry);
+		assertEquals("wrong sample interval", 4, telemetry
+				.getSampleInterval());
+		for (int i = 0; i < 4000; i++) {
+			parse(new String[] { "-name", "x", "a" });
+		}
+		OptionTelemetry.Snapshot s = telemetry.snapshot();
+		assertTrue("parse count " + s.getParseCount() + " too far off", Math
+				.abs(s.getParseCount() - 4000) < 800);
+		assertEquals("counts not scaled alike", s.getParseCount(), s
+				.getTags().get("name").getUses());
+		assertEquals("parse count not a multiple of the interval", 0, s
+				.getParseCount() % 4);
+		assertEquals("wrong default sample interval",
+				OptionTelemetry.DEFAULT_SAMPLE_INTERVAL, new OptionTelemetry()
+						.getSampleInterval());
+		try {
+			new OptionTelemetry(0);
+			fail("zero sample interval accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests the accuracy of the distinct value sketch
+	 */
+	public void testSketch() {
+		int[] sizes = { 10, 1000, 100000 };
+		for (int size : sizes) {
+			OptionTelemetry.ValueSketch sketch = new OptionTelemetry.ValueSketch();
+			for (int i = 0; i < size; i++) {
+				sketch.add(("value" + i).hashCode());
+				sketch.add(("value" + i).hashCode());
+			}
+			long estimate = sketch.estimate();
+			assertTrue("estimate " + estimate + " of " + size
+					+ " distinct values too far off",
+					Math.abs(estimate - size) <= size * 0.1);
+		}
+	}
+
+	/**
+	 * Tests exporting snapshots, once and periodically
+	 */
+	public void testExport() throws Exception {
+		File dir = Files.createTempDirectory("telemetry").toFile();
+		File f = new File(dir, "mycmd.telemetry");
+		try {
+			parse(new String[] { "-name", "x", "a" });
+			parse(new String[] { "-num", "50", "a" });
+			telemetry.export(f);
+			List<String> lines = Files.readAllLines(f.toPath(),
+					StandardCharsets.UTF_8);
+			assertEquals("wrong line count", 7, lines.size());
+			assertEquals("wrong header", "tag\tuses\terrors\tdistinct", lines
+					.get(3));
+			assertTrue("wrong totals", lines.get(2).endsWith("\t2\t1"));
+			assertEquals("wrong arg line", "arg\t1\t0\t1", lines.get(4));
+			assertEquals("wrong name line", "name\t1\t0\t1", lines.get(5));
+			assertEquals("wrong num line", "num\t0\t1\t0", lines.get(6));
+			assertEquals("temporary file left", 1, dir.list().length);
+
+			f.delete();
+			telemetry.startExport(f, 10, TimeUnit.MILLISECONDS);
+			for (int i = 0; i < 500 && !f.exists(); i++) {
+				Thread.sleep(10);
+			}
+			assertTrue("not exported periodically", f.exists());
+			parse(new String[] { "a" });
+			telemetry.stopExport();
+			assertNull("export failed", telemetry.getExportError());
+			assertTrue("final snapshot not exported", Files.readAllLines(
+					f.toPath(), StandardCharsets.UTF_8).get(2).endsWith(
+					"\t3\t1"));
+		} finally {
+			telemetry.stopExport();
+			File[] files = dir.listFiles();
+			for (int i = 0; i < files.length; i++) {
+				files[i].delete();
+			}
+			dir.delete();
+		}
+		try {
+			telemetry.startExport(f, 0, TimeUnit.SECONDS);
+			fail("zero period accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			telemetry.export(null);
+			fail("null file accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses a command line after resetting the handler.
+	 */
+	private void parse(String[] args) {
+		h.reset();
+		h.parse(args);
+	}
+}
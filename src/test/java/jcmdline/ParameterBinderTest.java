@@ -0,0 +1,288 @@
+/*
+ * ParameterBinderTest.java
+ *
+ * Classes:
+ *   public   ParameterBinderTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Unit test code for ParameterBinder
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class ParameterBinderTest extends BetterTestCase {
+
+	private CmdLineHandler cl;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public ParameterBinderTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, ParameterBinderTest.class);
+	}
+
+	/**
+	 * Sets up data for the test
+	 */
+	public void setUp() {
+		StringParam names = new StringParam("name", "a name to use");
+		names.setMultiValued(Parameter.MULTI_VALUED);
+		FileParam files = new FileParam("files", "the files to process");
+		files.setMultiValued(Parameter.MULTI_VALUED);
+		cl = new DefaultCmdLineHandler("binder", "binds parameters",
+				new Parameter[] { new BooleanParam("verbose", "be verbose"),
+						new IntParam("retry-count", "the number of retries"),
+						new IntParam("timeout", "the timeout in seconds"),
+						new IntParam("size", "the buffer size"), names,
+						new StringParam("out", "the output file"),
+						new StringParam("mode", "the mode to run in") },
+				new Parameter[] { files });
+		cl.setDieOnParseError(false);
+	}
+
+	/**
+	 * Binding target with fields of each kind, inherited fields, and a
+	 * setter
+	 */
+	static class Base {
+		private String mode = "fast";
+
+		String out;
+
+		String getMode() {
+			return mode;
+		}
+	}
+
+	/**
+	 * Binding target
+	 */
+	static class Options extends Base {
+		boolean verbose;
+
+		int retryCount = 3;
+
+		long timeout = -1;
+
+		double size;
+
+		List<String> name;
+
+		Collection<File> files;
+
+		int modeSets;
+
+		private String out;
+
+		private void setOut(String out) {
+			this.out = "set:" + out;
+		}
+
+		public void setMode(String mode) {
+			modeSets++;
+		}
+	}
+
+	/**
+	 * Binding target with a member of the wrong type
+	 */
+	static class BadOptions {
+		String timeout;
+	}
+
+	/**
+	 * Binding target with no constructor without parameters
+	 */
+	static class NoConstructor {
+		int timeout;
+
+		NoConstructor(int timeout) {
+			this.timeout = timeout;
+		}
+	}
+
+	/**
+	 * Tests create() on a class
+	 */
+	public void testCreate() {
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-verbose", "-retry-count", "5",
+						"-timeout", "30", "-size", "2", "-name", "a", "-name",
+						"b", "-out", "o", "-mode", "slow", "f1", "f2" }));
+		Options opts = ParameterBinder.create(cl, Options.class);
+		assertTrue("verbose", opts.verbose);
+		assertEquals("retryCount", 5, opts.retryCount);
+		assertEquals("timeout", 30L, opts.timeout);
+		assertEquals("size", 2.0, opts.size, 0.0);
+		assertEquals("name", Arrays.asList("a", "b"), opts.name);
+		assertEquals("files", Arrays.asList(new File("f1"), new File("f2")),
+				opts.files);
+		assertEquals("setter not used", "set:o", opts.out);
+		assertNull("hidden superclass field set", ((Base) opts).out);
+		assertEquals("setter not preferred", 1, opts.modeSets);
+		assertEquals("superclass field set", "fast", opts.getMode());
+		assertNotSame("values not copied", cl.getOption("name").getValues(),
+				opts.name);
+	}
+
+	/**
+	 * Tests that members whose Parameters are not set are unchanged
+	 */
+	public void testUnsetParameters() {
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] {}));
+		Options opts = new Options();
+		opts.size = 7;
+		ParameterBinder.bind(cl, opts);
+		assertFalse("verbose", opts.verbose);
+		assertEquals("retryCount", 3, opts.retryCount);
+		assertEquals("timeout", -1L, opts.timeout);
+		assertEquals("size", 7.0, opts.size, 0.0);
+		assertNull("name", opts.name);
+		assertNull("files", opts.files);
+		assertEquals("modeSets", 0, opts.modeSets);
+	}
+
+	/**
+	 * Tests that binding is repeatable with the cached members
+	 */
+	public void testRebind() {
+		for (int i = 0; i < 3; i++) {
+			cl.reset();
+			assertTrue("parse failed: " + cl.getParseError(), cl
+					.parse(new String[] { "-retry-count", "" + i }));
+			assertEquals("retryCount", i, ParameterBinder.create(cl,
+					Options.class).retryCount);
+		}
+	}
+
+	/**
+	 * Tests the errors
+	 */
+	public void testErrors() {
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-timeout", "1" }));
+		try {
+			ParameterBinder.create(cl, BadOptions.class);
+			fail("Integer bound to a String");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+			assertTrue(e.getMessage(), e.getMessage().indexOf(
+					BadOptions.class.getName() + ".timeout") != -1);
+		}
+		try {
+			ParameterBinder.create(cl, NoConstructor.class);
+			fail("class with no constructor created");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+		try {
+			ParameterBinder.bind(cl, null);
+			fail("null target accepted");
+		} catch (IllegalArgumentException e) {
+			checkForMissingString(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests create() on a record, when records are supported
+	 */
+	public void testRecord() throws Exception {
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if (javac == null || !hasRecords()) {
+			return;
+		}
+		Path dir = Files.createTempDirectory("binder");
+		try {
+			Path src = dir.resolve("Rec.java");
+			Files.write(src, ("public record Rec(boolean verbose, int size,"
+					+ " String out, java.util.List<String> name, long timeout)"
+					+ " {}").getBytes(StandardCharsets.UTF_8));
+			assertEquals("record not compiled", 0, javac.run(null, null,
+					null, "-d", dir.toString(), src.toString()));
+			URLClassLoader loader = new URLClassLoader(new URL[] { dir
+					.toUri().toURL() });
+			Class<?> rec = loader.loadClass("Rec");
+			assertTrue("parse failed: " + cl.getParseError(), cl
+					.parse(new String[] { "-verbose", "-size", "4", "-out",
+							"o" }));
+			Object r = ParameterBinder.create(cl, rec);
+			assertEquals("Rec[verbose=true, size=4, out=o, name=[],"
+					+ " timeout=0]", r.toString());
+			try {
+				ParameterBinder.bind(cl, r);
+				fail("record changed");
+			} catch (IllegalArgumentException e) {
+				checkForMissingString(e.getMessage());
+			}
+			loader.close();
+		} finally {
+			for (File f : dir.toFile().listFiles()) {
+				f.delete();
+			}
+			dir.toFile().delete();
+		}
+	}
+
+	/**
+	 * Determines whether this Java release supports records.
+	 */
+	private static boolean hasRecords() {
+		try {
+			Class.class.getMethod("isRecord");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * ParseMetricsTest.java
+ *
+ * Classes:
+ *   public   ParseMetricsTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * Unit test code for ParseMetrics and the ParseListener SPI
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class ParseMetricsTest extends BetterTestCase {
+
+	private StringParam opt;
+
+	private IntParam num;
+
+	private StringParam arg;
+
+	private BasicCmdLineHandler h;
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public ParseMetricsTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, ParseMetricsTest.class);
+	}
+
+	/**
+	 * Creates a handler with an option, an int option, and a required
+	 * argument.
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		opt = new StringParam("opt", "an option");
+		num = new IntParam("num", "a number", 1, 10);
+		arg = new StringParam("arg", "an argument", StringParam.REQUIRED);
+		h = new BasicCmdLineHandler("mycmd", "my command", new Parameter[] {
+				opt, num }, new Parameter[] { arg });
+		h.setDieOnParseError(false);
+	}
+
+	/**
+	 * Tests that each phase is reported, in order, with its Parameter
+	 */
+	public void testPhases() {
+		final List<String> events = new ArrayList<String>();
+		h.setParseListener(new ParseListener() {
+			public void phaseCompleted(Phase phase, Parameter<?> param,
+					long nanos) {
+				assertTrue("negative time", nanos >= 0);
+				events.add(phase + ((param == null) ? "" : ":" + param.getTag()));
+			}
+
+			public void parseFailed(CmdLineException e) {
+				events.add("failed:" + e.getMessageKey());
+			}
+
+			public void parseCompleted(long nanos, boolean ok) {
+				events.add("completed:" + ok);
+			}
+		});
+		assertTrue("parse failed", h.parse(new String[] { "-o", "x", "a" }));
+		assertEquals("wrong events", "[TOKENIZE, LOOKUP:opt, CONVERT:opt, "
+				+ "VALIDATE:opt, CONVERT:arg, VALIDATE:arg, REQUIRED, "
+				+ "completed:true]", events.toString());
+
+		events.clear();
+		h.reset();
+		assertFalse("parse succeeded", h.parse(new String[] { "-bogus" }));
+		assertEquals("wrong events", "[TOKENIZE, "
+				+ "failed:PosixCmdLineParser.invalidOption, completed:false]",
+				events.toString());
+
+		events.clear();
+		h.reset();
+		h.setParseListener(null);
+		assertTrue("parse failed", h.parse(new String[] { "a" }));
+		assertTrue("events reported without a listener", events.isEmpty());
+		assertNull("listener left on parser", ((PosixCmdLineParser) h
+				.getParser()).getParseListener());
+	}
+
+	/**
+	 * Tests the statistics gathered by ParseMetrics
+	 */
+	public void testMetrics() {
+		ParseMetrics metrics = new ParseMetrics();
+		h.setParseListener(metrics);
+		for (int i = 0; i < 10; i++) {
+			h.reset();
+			assertTrue("parse failed", h.parse(new String[] { "-num", "5",
+					"a" }));
+		}
+		h.reset();
+		assertFalse("parse succeeded", h.parse(new String[] { "-num", "50",
+				"a" }));
+		h.reset();
+		assertFalse("parse succeeded", h.parse(new String[] { "-num", "5" }));
+		h.reset();
+		assertFalse("parse succeeded", h.parse(new String[] { "-num", "50",
+				"a" }));
+
+		assertEquals("wrong parse count", 13, metrics.getParseCount());
+		assertEquals("wrong error count", 3, metrics.getErrorCount());
+		Map<String, Long> errors = metrics.getErrorCounts();
+		assertEquals("wrong error kinds", 2, errors.size());
+		assertEquals("wrong validation errors", Long.valueOf(2), errors
+				.get("IntParam.validValues"));
+		assertEquals("wrong required errors", Long.valueOf(1), errors
+				.get("BasicCmdLineHandler.missingRequiredArg"));
+		assertTrue("no time spent on num", metrics.getParameterNanos().get(
+				"num") > 0);
+
+		ParseMetrics.PhaseStatistics lookup = metrics
+				.getPhaseStatistics(ParseListener.Phase.LOOKUP);
+		assertEquals("wrong lookup count", 13, lookup.getCount());
+		assertTrue("percentiles out of order", lookup.getP50() <= lookup
+				.getP90()
+				&& lookup.getP90() <= lookup.getP99()
+				&& lookup.getP99() <= lookup.getMax());
+		assertTrue("mean above max", lookup.getMean() <= lookup.getMax());
+		assertEquals("wrong required count", 10, metrics.getPhaseStatistics(
+				ParseListener.Phase.REQUIRED).getCount());
+		assertEquals("wrong parse statistics count", 13, metrics
+				.getPhaseStatistics().get(ParseMetrics.PARSE).getCount());
+
+		metrics.reset();
+		assertEquals("parse count not reset", 0, metrics.getParseCount());
+		assertTrue("error counts not reset", metrics.getErrorCounts()
+				.isEmpty());
+		assertEquals("statistics not reset", 0, metrics.getPhaseStatistics(
+				ParseListener.Phase.LOOKUP).getMax());
+	}
+
+	/**
+	 * Tests that the time spent in decorators is reported, for nested and
+	 * flattened decorators
+	 */
+	public void testDecorators() {
+		ParseMetrics metrics = new ParseMetrics();
+		DefaultCmdLineHandler d = new DefaultCmdLineHandler(h);
+		d.setParseListener(metrics);
+		assertSame("listener not set on base handler", metrics, h
+				.getParseListener());
+		assertTrue("parse failed", d.parse(new String[] { "a" }));
+		assertTrue("decorator not timed", metrics.getPhaseStatistics(
+				ParseListener.Phase.DECORATOR).getCount() > 0);
+
+		metrics.reset();
+		h.reset();
+		FlatCmdLineHandler f = new FlatCmdLineHandler(d);
+		assertSame("listener not found", metrics, f.getParseListener());
+		assertTrue("parse failed", f.parse(new String[] { "a" }));
+		assertTrue("flattened decorator not timed", metrics
+				.getPhaseStatistics(ParseListener.Phase.DECORATOR).getCount() > 0);
+	}
+
+	/**
+	 * Tests reading the statistics through the platform MBean server
+	 */
+	public void testMBean() throws Exception {
+		ParseMetrics metrics = new ParseMetrics();
+		ObjectName name = metrics.register("ParseMetricsTest");
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertTrue("not registered", server.isRegistered(name));
+			h.setParseListener(metrics);
+			assertFalse("parse succeeded", h.parse(new String[] { "-x" }));
+			assertEquals("wrong parse count", Long.valueOf(1), server
+					.getAttribute(name, "ParseCount"));
+			TabularData errors = (TabularData) server.getAttribute(name,
+					"ErrorCounts");
+			assertEquals("wrong error kinds", 1, errors.size());
+			TabularData phases = (TabularData) server.getAttribute(name,
+					"PhaseStatistics");
+			CompositeData parse = (CompositeData) phases
+					.get(new Object[] { ParseMetrics.PARSE }).get("value");
+			assertEquals("wrong parse statistics count", Long.valueOf(1),
+					parse.get("count"));
+			server.invoke(name, "reset", null, null);
+			assertEquals("not reset", 0, metrics.getParseCount());
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse("not unregistered", ManagementFactory
+				.getPlatformMBeanServer().isRegistered(name));
+	}
+}
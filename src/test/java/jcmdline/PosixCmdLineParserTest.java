@@ -34,8 +34,11 @@
 package jcmdline;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
 
 import jcmdline.Parameter;
 import jcmdline.PosixCmdLineParser;
@@ -210,4 +213,83 @@ public class PosixCmdLineParserTest extends BetterTestCase {
 		parser.parse(new String[] { "--param1", val }, opts, args);
 		assertEquals("Option did not get set correctly", val, param1.getValue());
 	}
+
+	/**
+	 * Tests the suggestions attached to an unrecognized or ambiguous option
+	 */
+	public void testSuggestions() throws Exception {
+		StringParam hidden = new StringParam("param5", "this is param5");
+		hidden.setHidden(true);
+		opts.put(hidden.getTag(), hidden);
+		opts.put("verbose", new BooleanParam("Verbose", "be chatty"));
+		assertEquals("wrong suggestions", "[-Verbose]", suggestionsFor(
+				"-verbse"));
+		assertEquals("wrong suggestions", "[-Verbose]", suggestionsFor(
+				"-vrebose"));
+		assertEquals("wrong suggestions", "[-param1, -param2]",
+				suggestionsFor("-param9"));
+		assertEquals("wrong suggestions", "[]", suggestionsFor("-xyzzy"));
+		assertEquals("wrong suggestions", "[-param1, -param2]",
+				suggestionsFor("-par"));
+
+		// the index is rebuilt when the options change
+		opts.put("param9", new StringParam("param9", "this is param9"));
+		assertEquals("new option not suggested", "[-param9, -param1, -param2]",
+				suggestionsFor("-param99"));
+		hidden.setHidden(false);
+		assertEquals("unhidden option not suggested",
+				"[-param1, -param2, -param5]", suggestionsFor("-param0"));
+	}
+
+	/**
+	 * Tests BkTree searches against a search of every word
+	 */
+	public void testBkTree() throws Exception {
+		Random r = new Random(39);
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < 500; i++) {
+			words.add(randomWord(r));
+		}
+		BkTree tree = new BkTree(words);
+		int[] work = new int[64];
+		for (int i = 0; i < 200; i++) {
+			String q = randomWord(r);
+			for (int max = 0; max <= 3; max++) {
+				TreeSet<String> expected = new TreeSet<String>();
+				for (String w : words) {
+					if (BkTree.distance(q, w, work) <= max) {
+						expected.add(w);
+					}
+				}
+				assertEquals("wrong words within " + max + " of " + q,
+						expected, new TreeSet<String>(tree.search(q,
+								max, Integer.MAX_VALUE)));
+			}
+		}
+		assertEquals("wrong distance", 3, BkTree.distance("kitten", "sitting",
+				work));
+	}
+
+	private static String randomWord(Random r) {
+		char[] c = new char[2 + r.nextInt(6)];
+		for (int i = 0; i < c.length; i++) {
+			c[i] = (char) ('a' + r.nextInt(4));
+		}
+		return new String(c);
+	}
+
+	/**
+	 * Parses a command line that is expected to fail, returning the
+	 * suggestions attached to the failure.
+	 */
+	private String suggestionsFor(String... clargs) {
+		try {
+			parser.parse(clargs, opts, args);
+		} catch (CmdLineException e) {
+			checkForMissingString(e.getMessage());
+			return e.getSuggestions().toString();
+		}
+		fail("parse succeeded: " + Arrays.asList(clargs));
+		return null;
+	}
 }
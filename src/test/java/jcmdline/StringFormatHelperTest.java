@@ -33,6 +33,9 @@
 
 package jcmdline;
 
+import java.io.StringWriter;
+import java.util.Random;
+
 import jcmdline.StringFormatHelper;
 
 /**
@@ -254,4 +257,75 @@ public class StringFormatHelperTest extends BetterTestCase {
         String newS = sHelper.formatHangingIndent(s, 3, 80);
         assertEquals("wrong string returned", expS, newS);
     }
+
+    /**
+     * Tests that the wrapping engine breaks random text exactly as repeated calls to breakString() do
+     */
+    public void testWrapMatchesBreakString() {
+        Random r = new Random(42);
+        char[] alphabet = new char[] { 'a', 'b', ' ', ' ', '\n', 'c' };
+        for (int n = 0; n < 2000; n++) {
+            char[] c = new char[r.nextInt(200) + 1];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = (r.nextInt(4) == 0) ? alphabet[r.nextInt(alphabet.length)] : 'x';
+            }
+            String s = new String(c);
+            int indent = r.nextInt(10);
+            int lineLen = indent + 1 + r.nextInt(30);
+            assertEquals("wrong blocked text for \"" + s + "\"", blockedText(s, indent, lineLen),
+                    sHelper.formatBlockedText(s, indent, lineLen));
+            assertEquals("wrong hanging indent for \"" + s + "\"", hangingIndent(s, indent, lineLen),
+                    sHelper.formatHangingIndent(s, indent, lineLen));
+        }
+    }
+
+    /**
+     * Tests the append methods with a Writer
+     */
+    public void testAppend() throws Exception {
+        String s = "This is the String to be used for my test";
+        StringWriter w = new StringWriter();
+        sHelper.appendBlockedText(w, s, 5, 15);
+        assertEquals("wrong blocked text", sHelper.formatBlockedText(s, 5, 15), w.toString());
+        w = new StringWriter();
+        sHelper.appendHangingIndent(w, s, 70, 80);
+        assertEquals("wrong hanging indent", s, w.toString());
+        String[] labels = new String[] { "old_file", "a_very_long_label_indeed" };
+        String[] texts = new String[] { "the name of the file to copy - this file must already exist",
+                "the name of the file to receive the copy" };
+        w = new StringWriter();
+        sHelper.appendLabeledList(w, labels, texts, " = ", 20, 40);
+        assertEquals("wrong labeled list", sHelper.formatLabeledList(labels, texts, " = ", 20, 40), w.toString());
+        assertEquals("wrong labeled list",
+                "old_file = the name of the file to copy\n" + "           - this file must already\n"
+                        + "           exist\n" + "a_very_long_label_indeed = \n"
+                        + "           the name of the file to\n" + "           receive the copy\n",
+                w.toString());
+    }
+
+    /**
+     * formatBlockedText(), as implemented with breakString()
+     */
+    private String blockedText(String s, int indent, int lineLen) {
+        StringBuilder sb = new StringBuilder();
+        String[] a = sHelper.breakString(s, lineLen - indent);
+        while (true) {
+            for (int i = 0; i < indent; i++) {
+                sb.append(' ');
+            }
+            sb.append(a[0]);
+            if (a[1] == null) {
+                return sb.toString();
+            }
+            a = sHelper.breakString(a[1], lineLen - indent);
+        }
+    }
+
+    /**
+     * formatHangingIndent(), as implemented with breakString()
+     */
+    private String hangingIndent(String s, int indent, int lineLen) {
+        String[] a = sHelper.breakString(s, lineLen);
+        return (a[1] == null) ? a[0] : a[0] + blockedText(a[1], indent, lineLen);
+    }
 }
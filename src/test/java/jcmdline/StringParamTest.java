@@ -105,6 +105,29 @@ public class StringParamTest extends BetterTestCase {
 		assertEquals("StringParam contains wrong # of values", 2, vals.size());
 	}
 
+	/**
+	 * Tests the suggestions attached to an unacceptable value
+	 */
+	public void testSuggestions() {
+		StringParam sp = new StringParam("myTag", "myDesc", new String[] {
+				"fast", "faster", "slow" });
+		try {
+			sp.addValue("fas");
+			fail("addValue(\"fas\") did not fail");
+		} catch (CmdLineException e) {
+			assertEquals("wrong suggestions", "[fast]", e.getSuggestions()
+					.toString());
+		}
+		sp.setAcceptableValues(new String[] { "gas" });
+		try {
+			sp.addValue("fas");
+			fail("addValue(\"fas\") did not fail");
+		} catch (CmdLineException e) {
+			assertEquals("suggestions not rebuilt", "[gas]", e
+					.getSuggestions().toString());
+		}
+	}
+
 	/**
 	 * Test ctor w/params tag, desc
 	 */
@@ -433,4 +456,19 @@ public class StringParamTest extends BetterTestCase {
 			checkForMissingString(e.getMessage());
 		}
 	}
+
+	/**
+	 * Tests the default option label, and setting another
+	 */
+	public void testOptionLabel() {
+		StringParam sp = new StringParam("mytag", "mydesc");
+		assertEquals("wrong default label", StringParam.DEFAULT_OPTION_LABEL,
+				sp.getOptionLabel());
+		checkForMissingString(sp.getOptionLabel());
+		IntParam ip = new IntParam("mytag", "mydesc");
+		assertEquals("wrong IntParam default label",
+				IntParam.DEFAULT_OPTION_LABEL, ip.getOptionLabel());
+		sp.setOptionLabel("<name>");
+		assertEquals("label not set", "<name>", sp.getOptionLabel());
+	}
 }
@@ -0,0 +1,211 @@
+/*
+ * StringsTest.java
+ *
+ * Classes:
+ *   public   StringsTest
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is the Java jcmdline (command line management) package.
+ *
+ * The Initial Developer of the Original Code is Lynne Lawrence.
+ *
+ * Portions created by the Initial Developer are Copyright (C) 2002
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):  Lynne Lawrence <lynneglawrence02@gmail.com>
+ *
+ * ***** END LICENSE BLOCK *****
+ */
+
+package jcmdline;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Unit test code for Strings, and the compiled message catalog
+ *
+ * @author Lynne Lawrence
+ * @version jcmdline Rel. @VERSION@ $Id$
+ */
+public class StringsTest extends BetterTestCase {
+
+	private ResourceBundle rb = ResourceBundle.getBundle("strings");
+
+	/**
+	 * constructor takes name of test method
+	 *
+	 * @param name
+	 *            The name of the test method to be run.
+	 */
+	public StringsTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs all tests using junit.textui.TestRunner
+	 */
+	public static void main(String[] args) {
+		doMain(args, StringsTest.class);
+	}
+
+	/**
+	 * Tests that the compiled catalog holds every message of
+	 * strings.properties, split as MessageTemplate splits it at run time
+	 */
+	public void testCatalogMatchesBundle() {
+		int n = 0;
+		for (String key : Collections.list(rb.getKeys())) {
+			n++;
+			int i = MessageCatalog.indexOf(key);
+			assertTrue("not in catalog: " + key, i >= 0);
+			String pattern = rb.getString(key);
+			assertEquals("wrong text for " + key, pattern,
+					MessageCatalog.TEXT[i]);
+			MessageTemplate t = MessageTemplate.compile(pattern);
+			assertTrue("wrong literals for " + key, Arrays.equals(t
+					.getLiterals(), MessageCatalog.LITERALS[i]));
+			assertTrue("wrong arguments for " + key, Arrays.equals(
+					t.getArgs(), MessageCatalog.ARGS[i]));
+		}
+		assertEquals("wrong catalog size", n, MessageCatalog.TEXT.length);
+		assertEquals("unknown key found", -1, MessageCatalog
+				.indexOf("no.such.key"));
+	}
+
+	/**
+	 * Tests that every message formats exactly as MessageFormat formats it
+	 */
+	public void testFormatMatchesMessageFormat() {
+		Object[] params = new Object[] { "p0", "p1", "p2", "p3" };
+		for (String key : Collections.list(rb.getKeys())) {
+			assertEquals("wrong format for " + key, MessageFormat.format(rb
+					.getString(key), params), Strings.get(key, params));
+			assertEquals("wrong text for " + key, rb.getString(key), Strings
+					.get(key));
+		}
+	}
+
+	/**
+	 * Tests quoting, argument types, and missing arguments
+	 */
+	public void testTemplate() {
+		String[] patterns = new String[] { "it''s '{0}' {1}",
+				"'{'{0}'}' and '''quoted'''", "{1}{0}{1}", "{0} of {2}",
+				"no arguments", "{0,number,#.#}" };
+		Object[] params = new Object[] { Integer.valueOf(12345),
+				new Date(0), null };
+		for (int i = 0; i < patterns.length; i++) {
+			assertEquals("wrong format for " + patterns[i], MessageFormat
+					.format(patterns[i], params), MessageTemplate.compile(
+					patterns[i]).format(params, Locale
+					.getDefault(Locale.Category.FORMAT)));
+		}
+		assertNull("complex pattern split", MessageTemplate.compile(
+				"{0,number,#.#}").getArgs());
+	}
+
+	/**
+	 * Tests a missing key
+	 */
+	public void testMissingKey() {
+		String s = Strings.get("no.such.key");
+		assertTrue("missing key not reported: " + s, s.startsWith(rb
+				.getString("Strings.missingKey"))
+				&& s.endsWith("no.such.key"));
+		s = Strings.get("no.such.key", new Object[] { "x" });
+		assertTrue("params not reported: " + s, s.endsWith("[x] "));
+	}
+
+	/**
+	 * Tests messages and date formats for a handler's locale, using the
+	 * partial translation in the test resource strings_xx.properties
+	 */
+	public void testHandlerLocale() throws Exception {
+		Locale xx = new Locale("xx");
+		assertTrue("test resource not found", Strings.isLocalized(xx));
+		DateParam date = new DateParam("date", "the date");
+		ConfigurableCmdLineHandler cl = new BasicCmdLineHandler("MyCmd",
+				"does stuff", new Parameter[] { date }, new Parameter[] {});
+		cl.setDieOnParseError(false);
+		cl.setLocale(xx);
+		assertTrue("parse failed: " + cl.getParseError(), cl
+				.parse(new String[] { "-date", "31.12.99" }));
+		Calendar c = Calendar.getInstance();
+		c.setTime(date.getValue());
+		assertEquals("wrong month", Calendar.DECEMBER, c.get(Calendar.MONTH));
+		assertTrue("usage not localized", cl.getUsage(false).indexOf(
+				"dd.MM.yy") != -1);
+		cl.reset();
+		assertFalse("bad date accepted", cl.parse(new String[] { "-date",
+				"12/31/99" }));
+		assertEquals("error not localized",
+				"Datum fuer <date> ungueltig, erwartet dd.MM.yy", cl
+						.getParseError());
+		assertEquals("thread locale not restored", Locale.getDefault(),
+				Strings.getLocale());
+
+		// untranslated messages come from the base bundle
+		cl.reset();
+		assertFalse("unknown option accepted", cl.parse(new String[] {
+				"-bogus" }));
+		checkForMissingString(cl.getParseError());
+	}
+
+	/**
+	 * Tests handlers with different locales used concurrently
+	 */
+	public void testConcurrentLocales() throws Exception {
+		final String[] failure = new String[1];
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final boolean localized = (i % 2 == 0);
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					DateParam date = new DateParam("date", "the date");
+					ConfigurableCmdLineHandler cl = new BasicCmdLineHandler(
+							"MyCmd", "does stuff", new Parameter[] { date },
+							new Parameter[] {});
+					cl.setDieOnParseError(false);
+					String val = "12/31/99";
+					if (localized) {
+						cl.setLocale(new Locale("xx"));
+						val = "31.12.99";
+					}
+					for (int j = 0; j < 500; j++) {
+						cl.reset();
+						if (!cl.parse(new String[] { "-date", val })) {
+							synchronized (failure) {
+								failure[0] = cl.getParseError();
+							}
+							return;
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertNull("parse failed: " + failure[0], failure[0]);
+	}
+}
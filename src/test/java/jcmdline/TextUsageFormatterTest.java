@@ -33,6 +33,7 @@
 
 package jcmdline;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.StringTokenizer;
@@ -182,4 +183,45 @@ public class TextUsageFormatterTest extends BetterTestCase {
             }
         }
     }
+
+    /**
+     * Tests that the usage written to a Writer is that returned as a String
+     */
+    public void testFormatUsageStreamed() throws Exception {
+        param2.setHidden(true);
+        param4.setMultiValued(true);
+        param4.setOptional(false);
+        int[] lineLengths = new int[] { 30, 40, 80 };
+        for (int i = 0; i < lineLengths.length; i++) {
+            formatter.setLineLength(lineLengths[i]);
+            for (int h = 0; h < 2; h++) {
+                boolean hidden = (h == 1);
+                StringWriter w = new StringWriter();
+                formatter.formatUsage("name", "cmd desc", opts, args, hidden, w);
+                assertEquals("wrong usage for line length " + lineLengths[i], formatter.formatUsage("name",
+                        "cmd desc", opts, args, hidden), w.toString());
+            }
+        }
+        formatter.setLineLength(30);
+        String s = formatter.formatUsage("name", "cmd desc", opts, args, false);
+        assertTrue("arguments not on separate lines: " + s, s.indexOf("Usage: name [options] [param3] \\\n"
+                + "                      param4,param4...\n") != -1);
+        assertTrue("hidden option shown", s.indexOf("param2") == -1);
+    }
+
+    /**
+     * Tests the argument descriptions when every argument is hidden, which end, as they always have, without the
+     * blank line otherwise following "where:"
+     */
+    public void testFormatUsageHiddenArgs() throws Exception {
+        param3.setHidden(true);
+        param4.setHidden(true);
+        String s = formatter.formatUsage("name", "cmd desc", opts, args, false);
+        assertTrue("wrong argument descriptions: " + s, s.indexOf("\nwhere:\n\n\nand options are:") != -1);
+        StringWriter w = new StringWriter();
+        formatter.formatUsage("name", "cmd desc", opts, args, false, w);
+        assertEquals("wrong usage written", s, w.toString());
+        s = formatter.formatUsage("name", "cmd desc", opts, args, true);
+        assertTrue("wrong argument descriptions: " + s, s.indexOf("\nwhere:\n\nparam3 = ") != -1);
+    }
 }